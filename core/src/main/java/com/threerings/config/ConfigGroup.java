@@ -29,6 +29,7 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 
 import java.lang.reflect.Array;
 
@@ -316,11 +317,7 @@ public class ConfigGroup<T extends ManagedConfig>
     try {
       Closer closer = Closer.create();
       try {
-        LazyOutputStream stream = closer.register(new LazyOutputStream(file));
-        Exporter xport = closer.register(
-            xml ? new XMLExporter(stream) : new BinaryExporter(stream));
-        xport.setReplacer(_cfgmgr.getSaveReplacer(this));
-        xport.writeObject(array);
+        write(array, closer.register(new LazyOutputStream(file)), xml);
 
       } finally {
         closer.close();
@@ -331,6 +328,25 @@ public class ConfigGroup<T extends ManagedConfig>
     }
   }
 
+  /**
+   * Writes an array of configs as returned by {@link #toSaveableArray} to the specified stream,
+   * closing it afterwards.
+   */
+  public void write (ManagedConfig[] array, OutputStream stream, boolean xml)
+    throws IOException
+  {
+    Closer closer = Closer.create();
+    try {
+      Exporter xport = closer.register(
+          xml ? new XMLExporter(stream) : new BinaryExporter(stream));
+      xport.setReplacer(_cfgmgr.getSaveReplacer(this));
+      xport.writeObject(array);
+
+    } finally {
+      closer.close();
+    }
+  }
+
   /**
    * Return the raw configs as they should be saved, which may be an empty array,
    * or null if the entire group is stripped.
@@ -353,6 +369,25 @@ public class ConfigGroup<T extends ManagedConfig>
     return _cfgmgr.toSaveableArray(_cclass, rawConfigs, clazz);
   }
 
+  /**
+   * Returns the most recent modification time of this group's configuration files, or zero if
+   * they are not available as files.
+   */
+  public long getLastModified ()
+  {
+    long modified = 0L;
+    if (_cfgmgr.getConfigPath() == null) {
+      return modified;
+    }
+    for (boolean xml : new boolean[] { true, false }) {
+      File file = getConfigFile(xml);
+      if (file != null) {
+        modified = Math.max(modified, file.lastModified());
+      }
+    }
+    return modified;
+  }
+
   /**
    * Reverts to the last saved configurations.
    */
@@ -39,6 +39,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 
+import com.google.common.base.Predicates;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Ordering;
@@ -56,6 +57,7 @@ import com.threerings.export.BinaryImporter;
 import com.threerings.export.Exportable;
 import com.threerings.export.Exporter;
 import com.threerings.export.Importer;
+import com.threerings.export.util.ExportFileUtil;
 import com.threerings.expr.Scope;
 import com.threerings.util.CacheUtil;
 import com.threerings.util.Copyable;
@@ -95,6 +97,27 @@ public class ConfigManager
   {
   }
 
+  /**
+   * Sets whether resource configs read from local files should be decoded from memory-mapped
+   * buffers rather than from copies on the heap.  Mapping saves copying large resources, but
+   * on some platforms (notably Windows) a mapped file can't be overwritten or deleted until its
+   * buffer is garbage-collected, so it should only be enabled by applications that never
+   * rewrite the resources they load (that is, not by editors or build tools).  Disabled by
+   * default.  The setting of the root manager applies to its children.
+   */
+  public void setMapResources (boolean map)
+  {
+    _mapResources = map;
+  }
+
+  /**
+   * Checks whether resource configs are decoded from memory-mapped buffers.
+   */
+  public boolean getMapResources ()
+  {
+    return _mapResources;
+  }
+
   /**
    * Determines whether the config manager has been initialized.
    */
@@ -127,8 +150,9 @@ public class ConfigManager
       return;
     }
 
-    // create the resource cache
+    // create the resource cache and the staging area for prefetched resources
     _resources = CacheUtil.softValues();
+    _prefetched = CacheUtil.softValues();
 
     // register the global groups
     Class<?>[] classes = _classes.get("global");
@@ -152,6 +176,7 @@ public class ConfigManager
     _rsrcmgr = parent._rsrcmgr;
     _msgmgr = parent._msgmgr;
     _resources = parent._resources;
+    _prefetched = parent._prefetched;
     _classes = parent._classes;
 
     // copy the groups over (any group not in the list will be silently discarded)
@@ -390,8 +415,16 @@ public class ConfigManager
   {
     ManagedConfig config = _resources.get(name);
     if (config == null) {
+      // use the decoded config if it was prefetched; otherwise, decode it now
+      config = _prefetched.remove(name);
+      if (config != null) {
+        _resources.put(name, config);
+        config.setName(name);
+        config.init(getRoot());
+        return config;
+      }
       try {
-        BinaryImporter in = new BinaryImporter(_rsrcmgr.getResource(name));
+        BinaryImporter in = createResourceImporter(name);
         _resources.put(name, config = (ManagedConfig)in.readObject());
         config.setName(name);
         config.init(getRoot());
@@ -408,6 +441,31 @@ public class ConfigManager
     return config;
   }
 
+  /**
+   * Decodes the named resource config (if it has not already been loaded) so that a later call
+   * to {@link #getResourceConfig} need only initialize it.  Unlike the other methods of the
+   * manager, this may be called from any thread.
+   */
+  public void prefetchResourceConfig (String name)
+  {
+    if (_resources.containsKey(name) || _prefetched.containsKey(name)) {
+      return;
+    }
+    try {
+      BinaryImporter in = createResourceImporter(name);
+      try {
+        _prefetched.put(name, (ManagedConfig)in.readObject());
+      } finally {
+        in.close();
+      }
+    } catch (FileNotFoundException fnfe) {
+      // getResourceConfig will report the absence
+
+    } catch (Exception e) { // IOException, ClassCastException
+      log.warning("Failed to prefetch config from resource.", "name", name, e);
+    }
+  }
+
   /**
    * Retrieves the groups registered for the specified class in this manager and all of its
    * ancestors.
@@ -575,6 +633,7 @@ public class ConfigManager
    */
   public ManagedConfig updateResourceConfig (String name, ManagedConfig config)
   {
+    _prefetched.remove(name);
     ManagedConfig oconfig = _resources.get(name);
     if (oconfig == null) {
       _resources.put(name, config);
@@ -629,7 +688,8 @@ public class ConfigManager
       return;
     }
 
-    // otherwise, refresh the resource configs
+    // otherwise, discard any stale prefetched versions and refresh the resource configs
+    Iterables.removeIf(_prefetched.values(), Predicates.instanceOf(clazz));
     for (ManagedConfig oconfig : Lists.newArrayList(_resources.values())) {
       if (!clazz.isInstance(oconfig)) {
         continue;
@@ -637,7 +697,7 @@ public class ConfigManager
       String name = oconfig.getName();
       ManagedConfig nconfig;
       try {
-        BinaryImporter in = new BinaryImporter(_rsrcmgr.getResource(name));
+        BinaryImporter in = createResourceImporter(name);
         nconfig = (ManagedConfig)in.readObject();
         nconfig.setName(name);
         nconfig.init(getRoot());
@@ -701,6 +761,21 @@ public class ConfigManager
     return other;
   }
 
+  /**
+   * Creates an importer for the named binary resource.  If the resource is available as a file
+   * on the local file system, the importer reads directly from its contents (mapped, if
+   * {@link #setMapResources} is enabled).
+   */
+  protected BinaryImporter createResourceImporter (String name)
+    throws IOException
+  {
+    File file = _rsrcmgr.getResourceFile(name);
+    if (file != null && file.isFile()) {
+      return ExportFileUtil.createImporter(file, getRoot()._mapResources);
+    }
+    return new BinaryImporter(_rsrcmgr.getResource(name));
+  }
+
   /**
    * Loads the manager properties.
    */
@@ -833,6 +908,9 @@ public class ConfigManager
   /** Resource-loaded configs mapped by path. */
   protected Map<String, ManagedConfig> _resources;
 
+  /** Resource configs decoded off the main thread and awaiting initialization. */
+  protected Map<String, ManagedConfig> _prefetched;
+
   /** Maps manager types to their classes (as read from the manager properties). */
   protected HashMap<String, Class<?>[]> _classes;
 
@@ -841,4 +919,7 @@ public class ConfigManager
 
   /** Set when we should ignore config updates because we're refreshing. */
   protected boolean _ignoreUpdates;
+
+  /** Whether or not to decode resource configs from memory-mapped buffers. */
+  protected boolean _mapResources;
 }
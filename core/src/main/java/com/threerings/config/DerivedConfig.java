@@ -47,9 +47,10 @@ public class DerivedConfig extends ParameterizedConfig
   public void wasUpdated ()
   {
     // release our derivation and clear the hard reference to the source
-    _derivation = NO_DERIVATION;
-    _source = null;
-
+    synchronized (this) {
+      _derivation = NO_DERIVATION;
+      _source = null;
+    }
     super.wasUpdated();
   }
 
@@ -61,11 +62,13 @@ public class DerivedConfig extends ParameterizedConfig
   }
 
   @Override
-  protected ManagedConfig getBound (Scope scope)
+  protected synchronized ManagedConfig getBound (Scope scope)
   {
     // A derived config can never itself be a bound config, but the configs we derive from
     // can be.
     // We use this method to actualize the config.
+    // We synchronize so that concurrent lookups (as from the batch validator) share a single
+    // derivation; locks are only ever taken in the direction of derivation.
     ManagedConfig instance = _derivation.get();
     if (instance != null) {
       return instance;
@@ -51,6 +51,7 @@ import com.threerings.editor.util.Validator;
 import com.threerings.export.Exportable;
 import com.threerings.export.Exporter;
 import com.threerings.export.Importer;
+import com.threerings.expr.DynamicScope;
 import com.threerings.expr.Scope;
 import com.threerings.util.DeepObject;
 import com.threerings.util.DeepOmit;
@@ -223,7 +224,7 @@ public abstract class ManagedConfig extends DeepObject
   /**
    * Adds a listener to notify on updates.
    */
-  public void addListener (ConfigUpdateListener<?> listener)
+  public synchronized void addListener (ConfigUpdateListener<?> listener)
   {
     if (_listeners == null) {
       // we disable duplicate checking for performance; don't fuck up
@@ -239,7 +240,7 @@ public abstract class ManagedConfig extends DeepObject
   /**
    * Removes a listener from the list.
    */
-  public void removeListener (ConfigUpdateListener<?> listener)
+  public synchronized void removeListener (ConfigUpdateListener<?> listener)
   {
     if (_listeners != null) {
       @SuppressWarnings("unchecked")
@@ -359,6 +360,10 @@ public abstract class ManagedConfig extends DeepObject
       return;
     }
     _firing = true;
+
+    // batch the scope updates made by the listeners so that each updated subtree is only
+    // notified once
+    DynamicScope.startBatchedUpdate();
     try {
       if (_listeners != null) {
         final ConfigEvent<ManagedConfig> event = new ConfigEvent<ManagedConfig>(this, this);
@@ -372,6 +377,7 @@ public abstract class ManagedConfig extends DeepObject
       maybeFireOnConfigManager();
 
     } finally {
+      DynamicScope.endBatchedUpdate();
       _firing =false;
     }
   }
@@ -0,0 +1,190 @@
+//
+// $Id$
+//
+// Clyde library - tools for developing networked games
+// Copyright (C) 2005-2012 Three Rings Design, Inc.
+// http://code.google.com/p/clyde/
+//
+// Redistribution and use in source and binary forms, with or without modification, are permitted
+// provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this list of
+//    conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+//    conditions and the following disclaimer in the documentation and/or other materials provided
+//    with the distribution.
+//
+// THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR IMPLIED WARRANTIES,
+// INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+// PARTICULAR PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT,
+// INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+// TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+// LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package com.threerings.config.dist.data;
+
+import java.io.IOException;
+
+import java.lang.reflect.Field;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import com.google.common.collect.Lists;
+
+import com.threerings.io.ObjectInputStream;
+import com.threerings.io.SimpleStreamableObject;
+
+import com.threerings.config.ManagedConfig;
+import com.threerings.export.ObjectMarshaller;
+import com.threerings.export.util.ExportUtil;
+import com.threerings.util.DeepUtil;
+
+import static com.threerings.ClydeLog.log;
+
+/**
+ * Contains the exported values of those fields that differ between two versions of a
+ * configuration, allowing the changes to be applied in place without transmitting the entire
+ * config.
+ */
+public class ConfigDelta extends SimpleStreamableObject
+{
+  /**
+   * Creates a delta that will convert the original config into the revised config.
+   *
+   * @return the newly created delta, or <code>null</code> if the configs are of different
+   * classes.
+   */
+  public static ConfigDelta createDelta (ManagedConfig original, ManagedConfig revised)
+  {
+    Class<?> clazz = original.getClass();
+    if (revised.getClass() != clazz) {
+      return null;
+    }
+    Field[] fields = ObjectMarshaller.getObjectMarshaller(clazz).getFields();
+    List<String> names = Lists.newArrayList();
+    List<Object> values = Lists.newArrayList();
+    try {
+      for (Field field : fields) {
+        Object value = field.get(revised);
+        if (!Objects.deepEquals(field.get(original), value)) {
+          names.add(field.getName());
+          values.add(value);
+        }
+      }
+    } catch (IllegalAccessException e) {
+      log.warning("Failed to compare configs.", "class", clazz, e);
+      return null;
+    }
+    ConfigDelta delta = new ConfigDelta();
+    String comment = revised.getComment();
+    if (!comment.equals(original.getComment())) {
+      delta._comment = comment;
+    }
+    delta._names = names.toArray(new String[names.size()]);
+    delta._bytes = ExportUtil.toBytes(delta._values = values.toArray());
+    return delta;
+  }
+
+  /**
+   * No-arg constructor for deserialization.
+   */
+  public ConfigDelta ()
+  {
+  }
+
+  /**
+   * Checks whether the delta is empty (that is, the configs were identical).
+   */
+  public boolean isEmpty ()
+  {
+    return _names.length == 0 && _comment == null;
+  }
+
+  /**
+   * Returns the approximate number of bytes required to transmit the delta.
+   */
+  public int getSize ()
+  {
+    int size = _bytes.length + (_comment == null ? 0 : _comment.length());
+    for (String name : _names) {
+      size += name.length() + 2;
+    }
+    return size;
+  }
+
+  /**
+   * Applies the delta to the specified config in place.
+   *
+   * @return true if the delta was applied, false if it did not match the config.
+   */
+  public boolean apply (ManagedConfig config)
+  {
+    Field[] fields = ObjectMarshaller.getObjectMarshaller(config.getClass()).getFields();
+    Field[] targets = new Field[_names.length];
+    for (int ii = 0; ii < targets.length; ii++) {
+      for (Field field : fields) {
+        if (field.getName().equals(_names[ii])) {
+          targets[ii] = field;
+          break;
+        }
+      }
+      if (targets[ii] == null) {
+        log.warning("Missing field for config delta.", "config", config, "field", _names[ii]);
+        return false;
+      }
+    }
+    try {
+      for (int ii = 0; ii < targets.length; ii++) {
+        // copy the values so that configs to which the delta is applied don't share them
+        targets[ii].set(config, DeepUtil.copy(_values[ii]));
+      }
+    } catch (IllegalAccessException e) {
+      log.warning("Failed to apply config delta.", "config", config, e);
+      return false;
+    }
+    if (_comment != null) {
+      config.setComment(_comment);
+    }
+    return true;
+  }
+
+  /**
+   * Custom read method for streaming.
+   */
+  public void readObject (ObjectInputStream in)
+    throws IOException, ClassNotFoundException
+  {
+    in.defaultReadObject();
+    decodeValues();
+  }
+
+  @Override
+  public String toString ()
+  {
+    return "[fields=" + Arrays.toString(_names) + "]";
+  }
+
+  /**
+   * Decodes the field values from their exported form.
+   */
+  protected void decodeValues ()
+  {
+    _values = (Object[])ExportUtil.fromBytes(_bytes);
+  }
+
+  /** The names of the changed fields. */
+  protected String[] _names;
+
+  /** The new comment, or null if unchanged. */
+  protected String _comment;
+
+  /** The exported array of new field values. */
+  protected byte[] _bytes;
+
+  /** The new field values. */
+  protected transient Object[] _values;
+}
@@ -29,7 +29,10 @@ import java.io.IOException;
 
 import java.util.Arrays;
 
+import com.google.common.base.Objects;
+
 import com.threerings.io.ObjectInputStream;
+import com.threerings.io.ObjectOutputStream;
 import com.threerings.io.SimpleStreamableObject;
 
 import com.threerings.presents.dobj.DSet;
@@ -38,7 +41,8 @@ import com.threerings.config.ManagedConfig;
 import com.threerings.export.util.ExportUtil;
 
 /**
- * Represents an added or updated configuration.
+ * Represents an added or updated configuration.  Updates to existing entries may instead carry
+ * only a {@link ConfigDelta} describing the changed fields.
  */
 public class ConfigEntry extends SimpleStreamableObject
   implements DSet.Entry
@@ -52,6 +56,48 @@ public class ConfigEntry extends SimpleStreamableObject
     _bytes = ExportUtil.toBytes(_config = config);
   }
 
+  /**
+   * Creates an entry containing only the changes between the original and revised entries.
+   *
+   * @return the delta entry, or <code>null</code> if a delta cannot be computed or would be no
+   * smaller than the revised entry.
+   */
+  public static ConfigEntry createDelta (ConfigEntry original, ConfigEntry revised)
+  {
+    if (original._config == null || revised._config == null) {
+      return null;
+    }
+    ConfigDelta delta = ConfigDelta.createDelta(original._config, revised._config);
+    if (delta == null || delta.getSize() >= revised._bytes.length) {
+      return null;
+    }
+    ConfigEntry entry = new ConfigEntry();
+    entry._key = revised._key;
+    entry._delta = delta;
+    return entry;
+  }
+
+  /**
+   * Creates the entry produced by applying a delta entry to the entry it was computed from.
+   *
+   * @return the new entry, or <code>null</code> if the delta couldn't be applied.
+   */
+  public static ConfigEntry applyDelta (ConfigEntry original, ConfigEntry delta)
+  {
+    if (original._config == null || delta._delta == null) {
+      return null;
+    }
+    ManagedConfig config = (ManagedConfig)original._config.clone();
+    if (!delta._delta.apply(config)) {
+      return null;
+    }
+    // the config is only exported if the entry is compared or transmitted
+    ConfigEntry entry = new ConfigEntry();
+    entry._key = delta._key;
+    entry._config = config;
+    return entry;
+  }
+
   /**
    * No-arg constructor for deserialization.
    */
@@ -76,13 +122,40 @@ public class ConfigEntry extends SimpleStreamableObject
   }
 
   /**
-   * Returns a reference to the config object.
+   * Returns a reference to the config object, or <code>null</code> if this is a delta entry.
    */
   public ManagedConfig getConfig ()
   {
     return _config;
   }
 
+  /**
+   * Returns a reference to the config delta, or <code>null</code> if this entry contains the
+   * entire config.
+   */
+  public ConfigDelta getDelta ()
+  {
+    return _delta;
+  }
+
+  /**
+   * Returns the approximate number of bytes required to transmit the entry's contents.
+   */
+  public int getSize ()
+  {
+    return (_delta == null) ? getBytes().length : _delta.getSize();
+  }
+
+  /**
+   * Custom write method for streaming.
+   */
+  public void writeObject (ObjectOutputStream out)
+    throws IOException
+  {
+    getBytes();
+    out.defaultWriteObject();
+  }
+
   /**
    * Custom read method for streaming.
    */
@@ -90,7 +163,9 @@ public class ConfigEntry extends SimpleStreamableObject
     throws IOException, ClassNotFoundException
   {
     in.defaultReadObject();
-    _config = (ManagedConfig)ExportUtil.fromBytes(_bytes);
+    if (_bytes != null) {
+      _config = (ManagedConfig)ExportUtil.fromBytes(_bytes);
+    }
   }
 
   // documentation inherited from interface DSet.Entry
@@ -102,7 +177,7 @@ public class ConfigEntry extends SimpleStreamableObject
   @Override
   public String toString ()
   {
-    return "[key=" + _key + ", config=" + _config + "]";
+    return "[key=" + _key + ", config=" + _config + ", delta=" + _delta + "]";
   }
 
   @Override
@@ -110,24 +185,40 @@ public class ConfigEntry extends SimpleStreamableObject
   {
     ConfigEntry oentry;
     return other instanceof ConfigEntry && (oentry = (ConfigEntry)other)._key.equals(_key) &&
-      Arrays.equals(oentry._bytes, _bytes);
+      Arrays.equals(oentry.getBytes(), getBytes()) && Objects.equal(oentry._delta, _delta);
   }
 
   @Override
   public int hashCode ()
   {
     int result = _key != null ? _key.hashCode() : 0;
-    result = 31 * result + (_bytes != null ? Arrays.hashCode(_bytes) : 0);
+    byte[] bytes = getBytes();
+    result = 31 * result + (bytes != null ? Arrays.hashCode(bytes) : 0);
     result = 31 * result + (_config != null ? _config.hashCode() : 0);
     return result;
   }
 
+  /**
+   * Returns the exported config, exporting it if necessary, or <code>null</code> if this is a
+   * delta entry.
+   */
+  protected byte[] getBytes ()
+  {
+    if (_bytes == null && _config != null) {
+      _bytes = ExportUtil.toBytes(_config);
+    }
+    return _bytes;
+  }
+
   /** The config key. */
   protected ConfigKey _key;
 
-  /** The exported config. */
+  /** The exported config, or null for delta entries. */
   protected byte[] _bytes;
 
+  /** The config delta, or null for complete entries. */
+  protected ConfigDelta _delta;
+
   /** The config object. */
   protected transient ManagedConfig _config;
 }
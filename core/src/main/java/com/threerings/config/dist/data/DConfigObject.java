@@ -104,7 +104,11 @@ public class DConfigObject extends DObject
   }
 
   /**
-   * Extends {@link EntryUpdatedEvent} to include the client oid.
+   * Extends {@link EntryUpdatedEvent} to include the client oid.  An event may also transmit a
+   * {@link ConfigEntry} containing only a {@link ConfigDelta} in place of the complete entry:
+   * the complete entry is still what is stored in the set (on the server, it is supplied along
+   * with the delta; on clients, it is reconstructed from the previous entry when the event is
+   * applied), and the delta is available to listeners through {@link #getDelta}.
    */
   public static class ClientEntryUpdatedEvent<T extends DSet.Entry> extends EntryUpdatedEvent<T>
   {
@@ -117,6 +121,16 @@ public class DConfigObject extends DObject
       _clientOid = clientOid;
     }
 
+    /**
+     * Creates an event that will transmit the delta entry in place of the complete entry.
+     */
+    public ClientEntryUpdatedEvent (int toid, String name, T entry, T delta, int clientOid)
+    {
+      super(toid, name, delta);
+      _clientOid = clientOid;
+      _complete = entry;
+    }
+
     /**
      * Returns the oid of the client that caused the event.
      */
@@ -125,8 +139,64 @@ public class DConfigObject extends DObject
       return _clientOid;
     }
 
+    /**
+     * Returns the delta entry transmitted in place of the complete entry, or <code>null</code>
+     * if the complete entry was transmitted.
+     */
+    public T getDelta ()
+    {
+      return (_complete == null) ? null : _entry;
+    }
+
+    @Override
+    public T getEntry ()
+    {
+      return (_complete == null) ? _entry : _complete;
+    }
+
+    @Override
+    public boolean applyToObject (DObject target)
+      throws ObjectAccessException
+    {
+      if (_applied) {
+        return true;
+      }
+      _applied = true;
+      if (_complete == null && _entry instanceof ConfigEntry &&
+          ((ConfigEntry)_entry).getDelta() != null) {
+        // reconstruct the complete entry from the one it replaces
+        DSet<ConfigEntry> set = ((DConfigObject)target).getEntrySet(getName());
+        ConfigEntry delta = (ConfigEntry)_entry;
+        ConfigEntry oentry = (set == null) ? null : set.get(delta.getKey());
+        ConfigEntry nentry = (oentry == null) ? null : ConfigEntry.applyDelta(oentry, delta);
+        if (nentry == null) {
+          log.warning("Failed to apply config delta.", "name", getName(), "entry", delta);
+          return false;
+        }
+        @SuppressWarnings("unchecked") T complete = (T)nentry;
+        _complete = complete;
+      }
+      if (_complete == null) {
+        return super.applyToObject(target);
+      }
+      // the set stores the complete entry
+      T delta = _entry;
+      _entry = _complete;
+      try {
+        return super.applyToObject(target);
+      } finally {
+        _entry = delta;
+      }
+    }
+
     /** The oid of the client that caused the event. */
     protected int _clientOid;
+
+    /** The complete entry, if a delta entry is transmitted in its place. */
+    protected transient T _complete;
+
+    /** Set once the event has been applied, so that it is only applied once. */
+    protected transient boolean _applied;
   }
 
   // AUTO-GENERATED: FIELDS START
@@ -186,6 +256,26 @@ public class DConfigObject extends DObject
     applyAndPostEvent(new ClientEntryUpdatedEvent<T>(_oid, name, entry, clientOid));
   }
 
+  /**
+   * Requests to update an entry within a set, including a source oid in the event.  The
+   * complete entry is applied to the set, but the event delivered to subscribers carries only
+   * the (smaller) delta entry.
+   */
+  public <T extends DSet.Entry> void requestEntryUpdate (
+    String name, DSet<T> set, T entry, T delta, int clientOid)
+  {
+    applyAndPostEvent(new ClientEntryUpdatedEvent<T>(_oid, name, entry, delta, clientOid));
+  }
+
+  /**
+   * Returns the set of config entries with the specified name, or <code>null</code> if there
+   * is no such set.
+   */
+  public DSet<ConfigEntry> getEntrySet (String name)
+  {
+    return name.equals(ADDED) ? added : (name.equals(UPDATED) ? updated : null);
+  }
+
   // AUTO-GENERATED: METHODS START
   /**
    * Requests that the <code>dconfigService</code> field be set to the
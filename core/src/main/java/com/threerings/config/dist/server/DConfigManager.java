@@ -26,12 +26,16 @@
 package com.threerings.config.dist.server;
 
 import java.util.Arrays;
+import java.util.Map;
+
+import com.google.common.collect.Maps;
 
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 
 import com.threerings.presents.annotation.EventThread;
 import com.threerings.presents.data.ClientObject;
+import com.threerings.presents.dobj.DSet;
 import com.threerings.presents.server.InvocationManager;
 import com.threerings.presents.server.PresentsDObjectMgr;
 
@@ -72,6 +76,15 @@ public class DConfigManager
     return _cfgobj;
   }
 
+  /**
+   * Returns the total number of bytes saved by transmitting config deltas rather than complete
+   * configs.
+   */
+  public long getBytesSaved ()
+  {
+    return _bytesSaved;
+  }
+
   /**
    * Performs a set of updates without checking if the identified client has the proper access.
    */
@@ -79,10 +92,25 @@ public class DConfigManager
     int cloid, Iterable<ConfigEntry> add, Iterable<ConfigEntry> update,
     Iterable<ConfigKey> remove)
   {
+    // coalesce the changes so that each config is changed at most once in the transaction
+    Map<ConfigKey, ConfigEntry> adds = Maps.newLinkedHashMap();
+    Map<ConfigKey, ConfigEntry> updates = Maps.newLinkedHashMap();
+    for (ConfigEntry entry : add) {
+      adds.put((ConfigKey)entry.getKey(), entry);
+    }
+    for (ConfigEntry entry : update) {
+      ConfigKey key = (ConfigKey)entry.getKey();
+      (adds.containsKey(key) ? adds : updates).put(key, entry);
+    }
+    for (ConfigKey key : remove) {
+      adds.remove(key);
+      updates.remove(key);
+    }
+
     _cfgobj.startTransaction();
     try {
       // add the requested configs
-      for (ConfigEntry entry : add) {
+      for (ConfigEntry entry : adds.values()) {
         ConfigKey key = (ConfigKey)entry.getKey();
         if (_cfgobj.removed.containsKey(key)) {
           _cfgobj.requestEntryRemove(DConfigObject.REMOVED, _cfgobj.removed, key, cloid);
@@ -91,8 +119,7 @@ public class DConfigManager
           ConfigEntry oentry;
           if ((oentry = _cfgobj.added.get(key)) != null) {
             if (!entry.equals(oentry)) {
-              _cfgobj.requestEntryUpdate(
-                DConfigObject.ADDED, _cfgobj.added, entry, cloid);
+              updateEntry(DConfigObject.ADDED, _cfgobj.added, oentry, entry, cloid);
             }
           } else {
             _cfgobj.requestEntryAdd(DConfigObject.ADDED, _cfgobj.added, entry, cloid);
@@ -101,18 +128,16 @@ public class DConfigManager
       }
 
       // update the requested configs
-      for (ConfigEntry entry : update) {
+      for (ConfigEntry entry : updates.values()) {
         ConfigKey key = (ConfigKey)entry.getKey();
         ConfigEntry oentry;
         if ((oentry = _cfgobj.added.get(key)) != null) {
           if (!entry.equals(oentry)) {
-            _cfgobj.requestEntryUpdate(
-              DConfigObject.ADDED, _cfgobj.added, entry, cloid);
+            updateEntry(DConfigObject.ADDED, _cfgobj.added, oentry, entry, cloid);
           }
         } else if ((oentry = _cfgobj.updated.get(key)) != null) {
           if (!entry.equals(oentry)) {
-            _cfgobj.requestEntryUpdate(
-              DConfigObject.UPDATED, _cfgobj.updated, entry, cloid);
+            updateEntry(DConfigObject.UPDATED, _cfgobj.updated, oentry, entry, cloid);
           }
         } else {
           _cfgobj.requestEntryAdd(DConfigObject.UPDATED, _cfgobj.updated, entry, cloid);
@@ -151,6 +176,28 @@ public class DConfigManager
     }
   }
 
+  /**
+   * Updates an entry in one of the config object's sets, transmitting only the changed fields
+   * when possible.
+   */
+  protected void updateEntry (
+    String name, DSet<ConfigEntry> set, ConfigEntry oentry, ConfigEntry nentry, int cloid)
+  {
+    ConfigEntry delta = ConfigEntry.createDelta(oentry, nentry);
+    if (delta == null) {
+      _cfgobj.requestEntryUpdate(name, set, nentry, cloid);
+      return;
+    }
+    _cfgobj.requestEntryUpdate(name, set, nentry, delta, cloid);
+    int saved = nentry.getSize() - delta.getSize();
+    _bytesSaved += saved;
+    log.info("Transmitting config delta.", "key", nentry.getKey(), "delta", delta.getDelta(),
+      "bytes", delta.getSize(), "saved", saved);
+  }
+
   /** The config object. */
   protected DConfigObject _cfgobj;
+
+  /** The total number of bytes saved by transmitting deltas. */
+  protected long _bytesSaved;
 }
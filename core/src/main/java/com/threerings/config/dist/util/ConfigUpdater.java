@@ -34,6 +34,7 @@ import com.threerings.presents.dobj.SetListener;
 import com.threerings.config.ConfigGroup;
 import com.threerings.config.ConfigManager;
 import com.threerings.config.ManagedConfig;
+import com.threerings.config.dist.data.ConfigDelta;
 import com.threerings.config.dist.data.ConfigEntry;
 import com.threerings.config.dist.data.ConfigKey;
 import com.threerings.config.dist.data.DConfigObject;
@@ -65,7 +66,7 @@ public class ConfigUpdater
       addConfig(entry.getConfig());
     }
     for (ConfigEntry entry : cfgobj.updated) {
-      updateConfig(entry.getConfig());
+      updateConfig(entry);
     }
     for (ConfigKey key : cfgobj.removed) {
       removeConfig(key);
@@ -84,8 +85,7 @@ public class ConfigUpdater
       addConfig(entry.getConfig());
 
     } else if (name.equals(DConfigObject.UPDATED)) {
-      ConfigEntry entry = (ConfigEntry)event.getEntry();
-      updateConfig(entry.getConfig());
+      updateConfig((ConfigEntry)event.getEntry());
 
     } else if (name.equals(DConfigObject.REMOVED)) {
       removeConfig((ConfigKey)event.getEntry());
@@ -105,8 +105,12 @@ public class ConfigUpdater
   {
     String name = event.getName();
     if (name.equals(DConfigObject.ADDED) || name.equals(DConfigObject.UPDATED)) {
-      ConfigEntry entry = (ConfigEntry)event.getEntry();
-      updateConfig(entry.getConfig());
+      // apply the delta in place if that's what was transmitted
+      ConfigEntry entry = null;
+      if (event instanceof DConfigObject.ClientEntryUpdatedEvent) {
+        entry = (ConfigEntry)((DConfigObject.ClientEntryUpdatedEvent<?>)event).getDelta();
+      }
+      updateConfig(entry == null ? (ConfigEntry)event.getEntry() : entry);
     }
   }
 
@@ -136,6 +140,24 @@ public class ConfigUpdater
     }
   }
 
+  /**
+   * Attempts to update a config using either the complete config or the delta in the entry.
+   */
+  protected void updateConfig (ConfigEntry entry)
+  {
+    ConfigDelta delta = entry.getDelta();
+    if (delta == null) {
+      updateConfig(entry.getConfig());
+      return;
+    }
+    ManagedConfig config = _cfgmgr.getConfig(entry.getConfigClass(), entry.getName());
+    if (config == null) {
+      log.warning("Missing config to update.", "key", entry.getKey());
+    } else if (delta.apply(config)) {
+      config.wasUpdated();
+    }
+  }
+
   /**
    * Attempts to update a config.
    */
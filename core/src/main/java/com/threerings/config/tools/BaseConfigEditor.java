@@ -57,6 +57,7 @@ import com.threerings.swing.LogPanel;
 import com.threerings.config.ConfigManager;
 import com.threerings.config.ManagedConfig;
 
+
 /**
  * The superclass of {@link ConfigEditor} and {@link ResourceEditor}.
  */
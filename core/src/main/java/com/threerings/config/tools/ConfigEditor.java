@@ -97,6 +97,7 @@ import com.google.common.base.Objects;
 import com.google.common.base.Predicate;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Multiset;
 
@@ -134,6 +135,7 @@ import com.threerings.config.ConfigReference;
 import com.threerings.config.DerivedConfig;
 import com.threerings.config.ManagedConfig;
 import com.threerings.config.util.ConfigId;
+import com.threerings.config.util.ConfigReferenceIndex;
 import com.threerings.config.util.PasteHelper;
 import com.threerings.config.swing.ConfigTree;
 import com.threerings.config.swing.ConfigTreeFilterPanel;
@@ -401,6 +403,7 @@ public class ConfigEditor extends BaseConfigEditor
     } else if (action.equals("save_group")) {
       item.group.save();
       DirtyGroupManager.setDirty(item.group, false);
+      noteSaved(ImmutableList.<ConfigGroup<?>>of(item.group));
     } else if (action.equals("revert_group")) {
       if (!DirtyGroupManager.isDirty(item.group) || showCantUndo()) {
         item.group.revert();
@@ -453,6 +456,7 @@ public class ConfigEditor extends BaseConfigEditor
     } else if (action.equals("save_all")) {
       panel.cfgmgr.saveAll();
       DirtyGroupManager.setDirty(panel.cfgmgr, false);
+      noteSaved(panel.cfgmgr.getGroups());
     } else if (action.equals("revert_all")) {
       if (!DirtyGroupManager.isDirty(panel.cfgmgr) || showCantUndo()) {
         panel.cfgmgr.revertAll();
@@ -501,6 +505,10 @@ public class ConfigEditor extends BaseConfigEditor
     for (int ii = 0, nn = _tabs.getComponentCount(); ii < nn; ii++) {
       ((ManagerPanel)_tabs.getComponentAt(ii)).dispose();
     }
+    if (_refIndex != null) {
+      _refIndex.detach();
+      _refIndex = null;
+    }
   }
 
   /**
@@ -594,6 +602,11 @@ public class ConfigEditor extends BaseConfigEditor
     if (cfgNameOrPrefix == null) {
       return;
     }
+    // only search the configs that the index says refer to the config(s)
+    ConfigReferenceIndex index = getReferenceIndex();
+    final List<ConfigId> referrers = ImmutableList.copyOf(exact
+        ? index.getReferrers(clazz, cfgNameOrPrefix)
+        : index.getPrefixReferrers(clazz, cfgNameOrPrefix));
     new ConfigSearcher(this, cfgNameOrPrefix,
         ConfigSearcher.Presence.getReporter(clazz, new Predicate<ConfigReference<?>>() {
           public boolean apply (ConfigReference<?> ref) {
@@ -602,7 +615,43 @@ public class ConfigEditor extends BaseConfigEditor
               : ref.getName().startsWith(cfgNameOrPrefix);
           }
         }),
-        getSearcherDomains());
+        Iterables.transform(getSearcherDomains(),
+          new Function<ConfigSearcher.Domain, ConfigSearcher.Domain>() {
+            public ConfigSearcher.Domain apply (ConfigSearcher.Domain domain) {
+              return (domain.getClass() == ConfigSearcher.ConfigDomain.class)
+                ? new ConfigSearcher.ConfigDomain(ConfigEditor.this, referrers)
+                : domain;
+            }
+          }));
+  }
+
+  /**
+   * Returns the reference index for our config manager, reading or building it if necessary.
+   */
+  protected ConfigReferenceIndex getReferenceIndex ()
+  {
+    if (_refIndex == null) {
+      _refIndex = new ConfigReferenceIndex(_cfgmgr);
+      _refIndex.init(new Predicate<ConfigGroup<?>>() {
+        public boolean apply (ConfigGroup<?> group) {
+          return !DirtyGroupManager.isDirty(group);
+        }
+      });
+    }
+    return _refIndex;
+  }
+
+  /**
+   * Notes that the specified groups have been saved, storing the reference index if we have one.
+   */
+  protected void noteSaved (Iterable<? extends ConfigGroup<?>> groups)
+  {
+    if (_refIndex != null) {
+      for (ConfigGroup<?> group : groups) {
+        _refIndex.noteSaved(group);
+      }
+      _refIndex.save();
+    }
   }
 
   /**
@@ -1609,6 +1658,9 @@ public class ConfigEditor extends BaseConfigEditor
   /** The class of the clipboard selection. */
   protected Class<?> _clipclass;
 
+  /** The index of references between our configs, if created. */
+  protected ConfigReferenceIndex _refIndex;
+
   protected ConfigGroupListener _editListener = new ConfigGroupListener() {
     public void configAdded (ConfigEvent<ManagedConfig> event) {
 //            log.info("Config added",
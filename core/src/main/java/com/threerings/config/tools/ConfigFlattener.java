@@ -3,8 +3,15 @@
 
 package com.threerings.config.tools;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.StringWriter;
 
@@ -14,7 +21,12 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 
+import java.net.URISyntaxException;
+
+import java.security.CodeSource;
+
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.Iterator;
@@ -23,12 +35,23 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import javax.annotation.Nullable;
+
 import com.google.common.base.Charsets;
 import com.google.common.base.Function;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Splitter;
+import com.google.common.base.Predicates;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedMap;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.ListMultimap;
@@ -38,13 +61,17 @@ import com.google.common.collect.Multimaps;
 import com.google.common.collect.Ordering;
 import com.google.common.collect.Sets;
 import com.google.common.collect.Table;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import com.google.common.io.Files;
 import com.google.common.primitives.Primitives;
+import com.google.common.util.concurrent.Uninterruptibles;
 
 import com.samskivert.util.DependencyGraph;
 import com.samskivert.util.StringUtil;
 
 import com.threerings.util.MessageManager;
+import com.threerings.util.WorkerPool;
 
 import com.threerings.resource.ResourceManager;
 
@@ -127,6 +154,21 @@ public class ConfigFlattener
     String outDir;
     boolean isXML = true;
     String ext = ".xml";
+    File cacheFile = null;
+
+    // pull out the options
+    List<String> argList = Lists.newArrayList(args);
+    int idx = argList.indexOf("-incremental");
+    if (idx != -1) {
+      if (idx == argList.size() - 1) {
+        errUsageAndExit();
+        return;
+      }
+      cacheFile = new File(argList.remove(idx + 1));
+      argList.remove(idx);
+    }
+    boolean verify = argList.remove("-verify");
+    args = argList.toArray(new String[argList.size()]);
 
     switch (args.length) {
     default:
@@ -144,7 +186,11 @@ public class ConfigFlattener
       break;
     }
 
-    new ConfigFlattener().flattenAndStrip(rsrcDir, outDir, ext, isXML);
+    ConfigFlattener flattener = new ConfigFlattener();
+    flattener.flattenAndStrip(rsrcDir, outDir, ext, isXML, cacheFile);
+    if (verify && !flattener.verify(rsrcDir, outDir, ext, isXML)) {
+      System.exit(1);
+    }
   }
 
   /**
@@ -152,8 +198,12 @@ public class ConfigFlattener
    */
   protected static void errUsageAndExit ()
   {
-    System.err.println("Args: <rsrcDir> <outDir> [fileExtension (default='.xml')]");
+    System.err.println("Args: [-incremental <cacheFile>] [-verify] " +
+        "<rsrcDir> <outDir> [fileExtension (default='.xml')]");
     System.err.println("If the extension is provided and not '.xml', output will be binary.");
+    System.err.println("With -incremental, only groups whose inputs changed since the build " +
+        "that wrote the cache file are flattened and written.");
+    System.err.println("With -verify, the output is checked against a full build in memory.");
     System.exit(1);
   }
 
@@ -213,15 +263,52 @@ public class ConfigFlattener
   public void flattenAndStrip (String rsrcDir, String outDir, String extension, boolean isXML)
     throws IOException
   {
-    FlattenContext ctx = new FlattenContext(rsrcDir, outDir, true);
+    flattenAndStrip(rsrcDir, outDir, extension, isXML, null);
+  }
 
-    Exporter.Replacer replacer = flatten(ctx.cfgmgr);
+  /**
+   * Potential entry point for other tools.
+   *
+   * @param cacheFile if non-null, the build cache with which to perform an incremental build:
+   * only the groups whose inputs differ from those recorded in the cache (and the groups whose
+   * flattened form depends on them) are flattened and written, after which the cache is updated.
+   * The cache is ignored (and everything rebuilt) if the classes on the classpath have changed.
+   */
+  public void flattenAndStrip (
+      String rsrcDir, String outDir, String extension, boolean isXML, @Nullable File cacheFile)
+    throws IOException
+  {
+    FlattenContext ctx = new FlattenContext(rsrcDir, outDir, true);
 
-    // Save everything!
-//        log.info("Saving...");
-    // TODO: use the replacer for the "superflat" bundle
-    ctx.cfgmgr.saveAll(ctx.destDir, extension, isXML);
-//        log.info("Done!");
+    if (cacheFile == null) {
+      Exporter.Replacer replacer = flatten(ctx.cfgmgr);
+
+      // Save everything!
+      // TODO: use the replacer for the "superflat" bundle
+      saveGroups(ctx.cfgmgr.getGroups(), ctx.destDir, extension, isXML);
+
+    } else {
+      String stamp = getClassStamp(ctx.cfgmgr);
+      BuildCache ncache = new BuildCache(extension, isXML, stamp);
+      Collection<ConfigGroup<?>> dirty = findDirtyGroups(
+          ctx, BuildCache.read(cacheFile, extension, isXML, stamp), ncache);
+      log.info("Flattening changed config groups.",
+          "dirty", dirty.size(), "total", ctx.cfgmgr.getGroups().size());
+      flatten(ctx.cfgmgr, dirty);
+      Set<ConfigGroup<?>> saved = saveGroups(dirty, ctx.destDir, extension, isXML);
+      for (ConfigGroup<?> group : dirty) {
+        boolean output = saved.contains(group);
+        ncache.groups.get(group.getConfigClass().getName()).output = output;
+
+        // remove the output of groups that are now stripped entirely, as a full build would
+        // never have written it
+        File file = new File(ctx.destDir, group.getName() + extension);
+        if (!output && file.isFile() && !file.delete()) {
+          log.warning("Failed to delete stripped configs.", "file", file);
+        }
+      }
+      ncache.write(cacheFile);
+    }
 
     // also copy the manager properties over
     copyManagerProperties(
@@ -234,9 +321,20 @@ public class ConfigFlattener
    * Stripping is not performed- that is up to the ConfigManager you use..
    */
   public Exporter.Replacer flatten (ConfigManager cfgmgr)
+  {
+    return flatten(cfgmgr, cfgmgr.getGroups());
+  }
+
+  /**
+   * Flatten the configs of the specified groups in-place in the specified config manager.
+   * The groups must not be referenced with arguments from groups that are not included.
+   * Stripping is not performed- that is up to the ConfigManager you use..
+   */
+  public Exporter.Replacer flatten (
+      ConfigManager cfgmgr, Collection<? extends ConfigGroup<?>> groups)
   {
     // prior to losing parameter/derivation information, examine parameters
-    FlatDependencyGatherer gatherer = new FlatDependencyGatherer(cfgmgr);
+    FlatDependencyGatherer gatherer = new FlatDependencyGatherer(cfgmgr, groups);
     ReferenceMapper mapper = createReferenceMapper(gatherer);
 
     // now go through each ref in dependency ordering
@@ -311,6 +409,36 @@ public class ConfigFlattener
     return mapper.getReplacer(cfgmgr);
   }
 
+  /**
+   * Performs a full build of the configs in memory and compares the results with the files in
+   * the output directory, as written by {@link #flattenAndStrip}.
+   *
+   * @return true if all of the files match.
+   */
+  public boolean verify (String rsrcDir, String outDir, String extension, boolean isXML)
+    throws IOException
+  {
+    FlattenContext ctx = new FlattenContext(rsrcDir, outDir, true);
+    flatten(ctx.cfgmgr);
+    boolean matched = true;
+    for (ConfigGroup<?> group : ctx.cfgmgr.getGroups()) {
+      ManagedConfig[] array = group.toSaveableArray();
+      File file = new File(ctx.destDir, group.getName() + extension);
+      if (array == null) {
+        if (file.exists()) {
+          log.warning("Stripped configs were written by a previous build.", "file", file);
+          matched = false;
+        }
+        continue;
+      }
+      if (!file.isFile() || !Arrays.equals(export(group, array, isXML), Files.toByteArray(file))) {
+        log.warning("Flattened configs differ from a full build.", "file", file);
+        matched = false;
+      }
+    }
+    return matched;
+  }
+
   /**
    * Read the manager properties.
    */
@@ -428,6 +556,272 @@ public class ConfigFlattener
     return 0;
   }
 
+  /**
+   * Strips and writes the specified groups to the output directory, exporting them in parallel.
+   *
+   * @return the groups that were written (groups that are stripped entirely are not).
+   */
+  protected Set<ConfigGroup<?>> saveGroups (
+      Collection<? extends ConfigGroup<?>> groups, File destDir, String extension,
+      final boolean isXML)
+  {
+    // stripping may look up configs in the manager, so we do it all up front
+    Map<ConfigGroup<?>, ManagedConfig[]> arrays = Maps.newLinkedHashMap();
+    for (ConfigGroup<?> group : groups) {
+      ManagedConfig[] array = group.toSaveableArray();
+      if (array != null) {
+        arrays.put(group, array);
+      }
+    }
+    List<Future<?>> results = Lists.newArrayList();
+    ExecutorService executor = WorkerPool.getExecutor();
+    for (Map.Entry<ConfigGroup<?>, ManagedConfig[]> entry : arrays.entrySet()) {
+      final ConfigGroup<?> group = entry.getKey();
+      final ManagedConfig[] array = entry.getValue();
+      final File file = new File(destDir, group.getName() + extension);
+      results.add(executor.submit(new Runnable() {
+        public void run () {
+          try {
+            byte[] bytes = export(group, array, isXML);
+            // leave identical files alone so as not to disturb their modification times
+            if (!(file.length() == bytes.length && Arrays.equals(bytes, Files.toByteArray(file)))) {
+              Files.write(bytes, file);
+            }
+          } catch (IOException e) {
+            log.warning("Error writing configurations.", "file", file, e);
+          }
+        }
+      }));
+    }
+    awaitAll(results);
+    return arrays.keySet();
+  }
+
+  /**
+   * Exports the specified array of configs from the given group to a byte array.
+   */
+  protected static byte[] export (ConfigGroup<?> group, ManagedConfig[] array, boolean isXML)
+    throws IOException
+  {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    group.write(array, out, isXML);
+    return out.toByteArray();
+  }
+
+  /**
+   * Determines which groups must be flattened and written in an incremental build, populating
+   * the new build cache with the entries of all current groups.
+   *
+   * @param cache the cache from the previous build, or null to flatten everything.
+   */
+  protected Collection<ConfigGroup<?>> findDirtyGroups (
+      FlattenContext ctx, @Nullable BuildCache cache, BuildCache ncache)
+  {
+    // hash the sources of the groups and the resources on which they depended last time
+    Map<String, ConfigGroup<?>> groups = Maps.newLinkedHashMap();
+    Map<String, List<File>> sources = Maps.newHashMap();
+    Set<String> paths = Sets.newHashSet();
+    for (ConfigGroup<?> group : ctx.cfgmgr.getGroups()) {
+      String cname = group.getConfigClass().getName();
+      groups.put(cname, group);
+      sources.put(cname, ImmutableList.of(
+          new File(ctx.configDir, group.getName() + ".xml"),
+          new File(ctx.configDir, group.getName() + ".dat")));
+      GroupEntry entry = (cache == null) ? null : cache.groups.get(cname);
+      if (entry != null) {
+        paths.addAll(entry.resources.keySet());
+      }
+    }
+    Map<String, String> hashes = hashFiles(sources);
+    Map<String, String> rhashes = hashResources(ctx.cfgmgr, paths);
+
+    // find the groups that have changed outright, keeping the entries of the others
+    Set<String> dirty = Sets.newHashSet();
+    for (ConfigGroup<?> group : groups.values()) {
+      String cname = group.getConfigClass().getName();
+      GroupEntry entry = (cache == null) ? null : cache.groups.get(cname);
+      if (entry == null || !entry.hash.equals(hashes.get(cname)) ||
+          !rhashes.entrySet().containsAll(entry.resources.entrySet()) ||
+          (entry.output && !new File(ctx.destDir, group.getName() + cache.extension).isFile())) {
+        dirty.add(cname);
+      } else {
+        ncache.groups.put(cname, entry);
+      }
+    }
+
+    // add the groups whose flattened form depends on the dirty ones (gathering the current
+    // dependencies of the dirty groups as we go) until we've found them all
+    BuildDependencyGatherer gatherer = null;
+    Set<String> gathered = Sets.newHashSet();
+    while (true) {
+      for (String cname : dirty) {
+        if (gathered.add(cname)) {
+          if (gatherer == null) {
+            gatherer = new BuildDependencyGatherer(ctx.cfgmgr);
+          }
+          GroupEntry entry = gatherer.gather(groups.get(cname));
+          entry.hash = hashes.get(cname);
+          ncache.groups.put(cname, entry);
+        }
+      }
+      Multimap<String, String> dependents = HashMultimap.create();
+      addDependents(ncache.groups.values(), dependents);
+      if (cache != null) {
+        // include the dependencies as they were, as they determine the previous output
+        addDependents(Maps.filterKeys(cache.groups, Predicates.in(dirty)).values(), dependents);
+      }
+      Set<String> closure = Sets.newHashSet(dirty);
+      for (List<String> queue = Lists.newArrayList(dirty); !queue.isEmpty(); ) {
+        for (String dependent : dependents.get(queue.remove(queue.size() - 1))) {
+          if (groups.containsKey(dependent) && closure.add(dependent)) {
+            queue.add(dependent);
+          }
+        }
+      }
+      if (closure.size() == dirty.size()) {
+        break;
+      }
+      dirty = closure;
+    }
+
+    // hash the resources on which the newly gathered groups depend
+    Set<String> npaths = Sets.newHashSet();
+    for (String cname : gathered) {
+      npaths.addAll(ncache.groups.get(cname).resources.keySet());
+    }
+    rhashes = hashResources(ctx.cfgmgr, npaths);
+    for (String cname : gathered) {
+      Map<String, String> resources = ncache.groups.get(cname).resources;
+      for (Map.Entry<String, String> entry : resources.entrySet()) {
+        entry.setValue(rhashes.get(entry.getKey()));
+      }
+    }
+
+    List<ConfigGroup<?>> result = Lists.newArrayList();
+    for (Map.Entry<String, ConfigGroup<?>> entry : groups.entrySet()) {
+      if (dirty.contains(entry.getKey())) {
+        result.add(entry.getValue());
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Maps the groups referenced by the supplied entries to the groups whose flattened form
+   * depends on them: references with arguments create configs in the referenced group and
+   * depend on its parameters, and derived configs copy their bases.
+   */
+  protected static void addDependents (
+      Collection<GroupEntry> entries, Multimap<String, String> dependents)
+  {
+    for (GroupEntry entry : entries) {
+      for (String cname : entry.args) {
+        dependents.put(cname, entry.cname);
+        dependents.put(entry.cname, cname);
+      }
+      for (String cname : entry.bases) {
+        dependents.put(cname, entry.cname);
+      }
+    }
+  }
+
+  /**
+   * Hashes the resource files at the specified paths.
+   */
+  protected static Map<String, String> hashResources (ConfigManager cfgmgr, Set<String> paths)
+  {
+    Map<String, List<File>> files = Maps.newHashMap();
+    for (String path : paths) {
+      File file = cfgmgr.getResourceManager().getResourceFile(path);
+      files.put(path, (file == null) ? ImmutableList.<File>of() : ImmutableList.of(file));
+    }
+    return hashFiles(files);
+  }
+
+  /**
+   * Hashes the contents of each list of files in parallel, returning a combined hash for each
+   * key. Missing files hash to a fixed value.
+   */
+  protected static Map<String, String> hashFiles (Map<String, List<File>> files)
+  {
+    final Map<String, String> hashes = Maps.newConcurrentMap();
+    List<Future<?>> results = Lists.newArrayList();
+    ExecutorService executor = WorkerPool.getExecutor();
+    for (Map.Entry<String, List<File>> entry : files.entrySet()) {
+      final String key = entry.getKey();
+      final List<File> list = entry.getValue();
+      results.add(executor.submit(new Runnable() {
+        public void run () {
+          StringBuilder buf = new StringBuilder();
+          for (File file : list) {
+            try {
+              buf.append(file.isFile() ? Files.hash(file, Hashing.md5()).toString() : "-");
+            } catch (IOException e) {
+              log.warning("Error hashing file.", "file", file, e);
+              buf.append('?'); // will never match, so the group will be rebuilt
+            }
+            buf.append(';');
+          }
+          hashes.put(key, buf.toString());
+        }
+      }));
+    }
+    awaitAll(results);
+    return hashes;
+  }
+
+  /**
+   * Computes a stamp identifying the classes available to the flattener: those on the classpath
+   * and those from which the config classes of the supplied manager were loaded.  Incremental
+   * builds discard the build cache when the stamp changes.
+   */
+  protected String getClassStamp (ConfigManager cfgmgr)
+  {
+    Set<File> roots = Sets.newHashSet();
+    for (String path : Splitter.on(File.pathSeparatorChar).omitEmptyStrings().split(
+        System.getProperty("java.class.path", ""))) {
+      roots.add(new File(path).getAbsoluteFile());
+    }
+    for (ConfigGroup<?> group : cfgmgr.getGroups()) {
+      CodeSource source = group.getConfigClass().getProtectionDomain().getCodeSource();
+      if (source != null && source.getLocation() != null) {
+        try {
+          roots.add(new File(source.getLocation().toURI()).getAbsoluteFile());
+        } catch (URISyntaxException | IllegalArgumentException e) {
+          log.warning("Couldn't locate config class source.", "source", source, e);
+        }
+      }
+    }
+    Map<String, List<File>> files = Maps.newHashMap();
+    for (File root : roots) {
+      for (File file : Files.fileTreeTraverser().preOrderTraversal(root)) {
+        if (file.isFile()) {
+          files.put(file.getPath(), ImmutableList.of(file));
+        }
+      }
+    }
+    Hasher hasher = Hashing.md5().newHasher();
+    for (Map.Entry<String, String> entry : ImmutableSortedMap.copyOf(hashFiles(files)).entrySet()) {
+      hasher.putString(entry.getKey(), Charsets.UTF_8);
+      hasher.putString(entry.getValue(), Charsets.UTF_8);
+    }
+    return hasher.hash().toString();
+  }
+
+  /**
+   * Waits for all of the supplied tasks to complete.
+   */
+  protected static void awaitAll (List<Future<?>> results)
+  {
+    for (Future<?> result : results) {
+      try {
+        Uninterruptibles.getUninterruptibly(result);
+      } catch (ExecutionException e) {
+        throw new RuntimeException(e.getCause());
+      }
+    }
+  }
+
   /**
    * Create the reference mapper to use.
    */
@@ -491,16 +885,22 @@ public class ConfigFlattener
   protected class FlatDependencyGatherer extends DependencyGatherer.PreExamined
   {
     public FlatDependencyGatherer (ConfigManager cfgmgr)
+    {
+      this(cfgmgr, cfgmgr.getGroups());
+    }
+
+    public FlatDependencyGatherer (
+        ConfigManager cfgmgr, Collection<? extends ConfigGroup<?>> groups)
     {
       super(cfgmgr);
-      for (ConfigGroup<?> group : cfgmgr.getGroups()) {
+      for (ConfigGroup<?> group : groups) {
         Class<? extends ManagedConfig> clazz = group.getConfigClass();
         _cfgClasses.add(clazz);
         for (ManagedConfig cfg : group.getRawConfigs()) {
           _graph.add(new ConfigId(clazz, cfg.getName()));
         }
       }
-      gather(cfgmgr);
+      gather(groups);
     }
 
     /**
@@ -580,6 +980,219 @@ public class ConfigFlattener
     protected final DependencyGraph<ConfigId> _graph = new DependencyGraph<ConfigId>();
   }
 
+  /**
+   * Gathers the dependencies of groups for the build cache.
+   */
+  protected static class BuildDependencyGatherer extends DependencyGatherer.PreExamined
+  {
+    public BuildDependencyGatherer (ConfigManager cfgmgr)
+    {
+      super(cfgmgr);
+      _cfgmgr = cfgmgr;
+    }
+
+    /**
+     * Gathers the dependencies of the specified group into a new entry.
+     */
+    public GroupEntry gather (ConfigGroup<?> group)
+    {
+      _entry = new GroupEntry(group.getConfigClass().getName());
+      try {
+        gather(ImmutableList.of(group));
+        return _entry;
+      } finally {
+        _entry = null;
+      }
+    }
+
+    @Override
+    protected void findReferences (ManagedConfig cfg)
+    {
+      if (cfg instanceof DerivedConfig) {
+        DerivedConfig dcfg = (DerivedConfig)cfg;
+        if (dcfg.base != null) {
+          noteDependency(dcfg.cclass, dcfg.base.getName(), _entry.bases);
+        }
+      }
+      super.findReferences(cfg);
+    }
+
+    @Override
+    protected void add (Class<? extends ManagedConfig> clazz, ConfigReference<?> ref)
+    {
+      // only references with arguments affect the flattened form
+      if (ref != null && !ref.getArguments().isEmpty()) {
+        noteDependency(clazz, ref.getName(), _entry.args);
+      }
+    }
+
+    /**
+     * Notes a dependency on the named config.
+     */
+    protected void noteDependency (
+        Class<? extends ManagedConfig> clazz, String name, Set<String> groups)
+    {
+      if (_cfgmgr.getGroup(clazz) != null) {
+        groups.add(clazz.getName());
+
+      } else if (name != null && _cfgmgr.isResourceClass(clazz)) {
+        _entry.resources.put(name, null);
+      }
+    }
+
+    /** The manager containing the groups. */
+    protected final ConfigManager _cfgmgr;
+
+    /** The entry being populated. */
+    protected GroupEntry _entry;
+  }
+
+  /**
+   * The build cache entry for a single group.
+   */
+  protected static class GroupEntry
+  {
+    /** The name of the group's config class. */
+    public final String cname;
+
+    /** The combined hash of the group's source files. */
+    public String hash;
+
+    /** Whether or not the group was written (as opposed to being stripped entirely). */
+    public boolean output;
+
+    /** The classes of the groups referenced with arguments. */
+    public final Set<String> args = Sets.newHashSet();
+
+    /** The classes of the groups containing the bases of derived configs. */
+    public final Set<String> bases = Sets.newHashSet();
+
+    /** The hashes of the resource configs referenced with arguments or as bases. */
+    public final Map<String, String> resources = Maps.newHashMap();
+
+    public GroupEntry (String cname)
+    {
+      this.cname = cname;
+    }
+  }
+
+  /**
+   * Records the inputs and dependencies of each group as of an incremental build.
+   */
+  protected static class BuildCache
+  {
+    /** The extension of the output files. */
+    public final String extension;
+
+    /** Whether or not the output is XML. */
+    public final boolean xml;
+
+    /** The stamp identifying the classes with which the build was performed. */
+    public final String stamp;
+
+    /** The entries for each group, mapped by config class name. */
+    public final Map<String, GroupEntry> groups = Maps.newHashMap();
+
+    /**
+     * Reads the cache from the specified file.
+     *
+     * @return the cache, or null if it doesn't exist, couldn't be read, describes output in
+     * a different format, or was built with different classes.
+     */
+    public static BuildCache read (File file, String extension, boolean xml, String stamp)
+    {
+      if (!file.isFile()) {
+        return null;
+      }
+      try {
+        DataInputStream in = new DataInputStream(
+            new BufferedInputStream(new FileInputStream(file)));
+        try {
+          if (in.readInt() != VERSION) {
+            return null;
+          }
+          BuildCache cache = new BuildCache(in.readUTF(), in.readBoolean(), in.readUTF());
+          if (!(cache.extension.equals(extension) && cache.xml == xml)) {
+            return null;
+          }
+          if (!cache.stamp.equals(stamp)) {
+            log.info("Classes have changed; rebuilding all config groups.");
+            return null;
+          }
+          for (int ii = 0, nn = in.readInt(); ii < nn; ii++) {
+            GroupEntry entry = new GroupEntry(in.readUTF());
+            entry.hash = in.readUTF();
+            entry.output = in.readBoolean();
+            for (int jj = 0, mm = in.readInt(); jj < mm; jj++) {
+              entry.args.add(in.readUTF());
+            }
+            for (int jj = 0, mm = in.readInt(); jj < mm; jj++) {
+              entry.bases.add(in.readUTF());
+            }
+            for (int jj = 0, mm = in.readInt(); jj < mm; jj++) {
+              entry.resources.put(in.readUTF(), in.readUTF());
+            }
+            cache.groups.put(entry.cname, entry);
+          }
+          return cache;
+
+        } finally {
+          in.close();
+        }
+      } catch (IOException e) {
+        log.warning("Error reading build cache.", "file", file, e);
+        return null;
+      }
+    }
+
+    public BuildCache (String extension, boolean xml, String stamp)
+    {
+      this.extension = extension;
+      this.xml = xml;
+      this.stamp = stamp;
+    }
+
+    /**
+     * Writes the cache to the specified file.
+     */
+    public void write (File file)
+      throws IOException
+    {
+      DataOutputStream out = new DataOutputStream(
+          new BufferedOutputStream(new FileOutputStream(file)));
+      try {
+        out.writeInt(VERSION);
+        out.writeUTF(extension);
+        out.writeBoolean(xml);
+        out.writeUTF(stamp);
+        out.writeInt(groups.size());
+        for (GroupEntry entry : groups.values()) {
+          out.writeUTF(entry.cname);
+          out.writeUTF(entry.hash);
+          out.writeBoolean(entry.output);
+          out.writeInt(entry.args.size());
+          for (String cname : entry.args) {
+            out.writeUTF(cname);
+          }
+          out.writeInt(entry.bases.size());
+          for (String cname : entry.bases) {
+            out.writeUTF(cname);
+          }
+          out.writeInt(entry.resources.size());
+          for (Map.Entry<String, String> rentry : entry.resources.entrySet()) {
+            out.writeUTF(rentry.getKey());
+            out.writeUTF(rentry.getValue());
+          }
+        }
+      } finally {
+        out.close();
+      }
+    }
+
+    /** The version of the cache format. */
+    protected static final int VERSION = 2;
+  }
+
   /**
    * A gatherer that gathers dependencies between config references
    * as well as collects each ConfigReference uniquely for later rewriting.
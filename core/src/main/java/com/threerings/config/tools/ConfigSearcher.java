@@ -40,6 +40,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMultiset;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Iterators;
 import com.google.common.collect.Multiset;
 import com.google.common.collect.Sets;
 import com.google.common.primitives.Primitives;
@@ -54,6 +55,7 @@ import com.threerings.util.ToolUtil;
 import com.threerings.config.ConfigGroup;
 import com.threerings.config.ConfigReference;
 import com.threerings.config.ManagedConfig;
+import com.threerings.config.util.ConfigId;
 import com.threerings.config.util.FieldCache;
 
 import com.threerings.editor.util.EditorContext;
@@ -239,8 +241,19 @@ public class ConfigSearcher extends JFrame
      * Create a ConfigDomain.
      */
     public ConfigDomain (EditorContext ctx)
+    {
+      this(ctx, null);
+    }
+
+    /**
+     * Create a ConfigDomain that searches only the identified configs (typically the referrers
+     * found in a {@link com.threerings.config.util.ConfigReferenceIndex}), or all configs if
+     * null.
+     */
+    public ConfigDomain (EditorContext ctx, @Nullable Iterable<ConfigId> candidates)
     {
       _ctx = ctx;
+      _candidates = candidates;
     }
 
     @Override
@@ -252,6 +265,15 @@ public class ConfigSearcher extends JFrame
     @Override
     public <T> Iterator<Result> getResults (final SearchReporter<T> detector)
     {
+      if (_candidates != null) {
+        return Iterators.transform(_candidates.iterator(), new Function<ConfigId, Result>() {
+          public Result apply (ConfigId id) {
+            ConfigGroup<?> group = _ctx.getConfigManager().getGroup(id.clazz);
+            ManagedConfig cfg = (group == null) ? null : group.getRawConfig(id.name);
+            return (cfg == null) ? null : getResult(group, cfg, detector);
+          }
+        });
+      }
       return new AbstractIterator<Result>() {
         protected Result computeNext () {
           while (!_cfgIterator.hasNext()) {
@@ -261,19 +283,7 @@ public class ConfigSearcher extends JFrame
             _currentGroup = _groupIterator.next();
             _cfgIterator = _currentGroup.getRawConfigs().iterator();
           }
-          final ManagedConfig cfg = _cfgIterator.next();
-          final ConfigGroup<?> group = _currentGroup;
-          Multiset<T> attrs = findAttributes(cfg, detector);
-          return attrs.isEmpty()
-            ? null
-            : new Result(
-              detector.formatLabel(group.getName() + ": " + cfg.getName(), attrs)) {
-                public void onClick () {
-                  BaseConfigEditor
-                    .createEditor(_ctx, group.getConfigClass(), cfg.getName())
-                    .setVisible(true);
-                }
-              };
+          return getResult(_currentGroup, _cfgIterator.next(), detector);
         }
         protected Iterator<? extends ManagedConfig> _cfgIterator =
             ImmutableSet.<ManagedConfig>of().iterator();
@@ -283,8 +293,30 @@ public class ConfigSearcher extends JFrame
       };
     }
 
+    /**
+     * Searches the specified config, returning a result or null if nothing was found.
+     */
+    protected <T> Result getResult (
+        final ConfigGroup<?> group, final ManagedConfig cfg, SearchReporter<T> detector)
+    {
+      Multiset<T> attrs = findAttributes(cfg, detector);
+      return attrs.isEmpty()
+        ? null
+        : new Result(
+          detector.formatLabel(group.getName() + ": " + cfg.getName(), attrs)) {
+            public void onClick () {
+              BaseConfigEditor
+                .createEditor(_ctx, group.getConfigClass(), cfg.getName())
+                .setVisible(true);
+            }
+          };
+    }
+
     /** The editor context. */
     protected EditorContext _ctx;
+
+    /** The configs to search, or null to search all. */
+    protected Iterable<ConfigId> _candidates;
   }
 
   /**
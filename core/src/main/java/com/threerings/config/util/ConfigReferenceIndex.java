@@ -0,0 +1,524 @@
+//
+// $Id$
+
+package com.threerings.config.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nullable;
+
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.SetMultimap;
+import com.google.common.collect.Sets;
+
+import com.threerings.config.ConfigEvent;
+import com.threerings.config.ConfigGroup;
+import com.threerings.config.ConfigGroupListener;
+import com.threerings.config.ConfigManager;
+import com.threerings.config.ConfigReference;
+import com.threerings.config.ConfigUpdateListener;
+import com.threerings.config.ManagedConfig;
+import com.threerings.config.Parameter;
+import com.threerings.config.ParameterizedConfig;
+import com.threerings.config.Reference;
+
+import com.threerings.editor.Property;
+
+import static com.threerings.ClydeLog.log;
+
+/**
+ * A reverse index of the references between the configs of a manager: for each referenced
+ * config and each resource path, the configs that refer to it. The index is persisted next to
+ * the manager's configs, revalidated per group against the config files' modification times
+ * when loaded, and kept current through group and update events while attached.
+ *
+ * <p>Only references whose config type can be determined are indexed, the same as the
+ * dependencies found by {@link DependencyGatherer}. The index is not thread-safe; it is
+ * intended to be used from the thread that edits the configs.
+ */
+public class ConfigReferenceIndex
+  implements ConfigGroupListener, ConfigUpdateListener<ManagedConfig>
+{
+  /**
+   * Creates a new, empty index for the specified manager.
+   */
+  public ConfigReferenceIndex (ConfigManager cfgmgr)
+  {
+    _cfgmgr = cfgmgr;
+  }
+
+  /**
+   * Returns the manager whose configs we index.
+   */
+  public ConfigManager getConfigManager ()
+  {
+    return _cfgmgr;
+  }
+
+  /**
+   * Returns the file in which the index is stored, or null if the manager's configs are not
+   * stored in files.
+   */
+  public @Nullable File getIndexFile ()
+  {
+    String path = _cfgmgr.getConfigPath();
+    return (path == null) ? null : _cfgmgr.getResourceManager().getResourceFile(path + FILENAME);
+  }
+
+  /**
+   * Reads the stored index if available, reindexes any groups whose configs have changed since
+   * it was stored (or all of them, if there is no usable stored index), and starts listening
+   * for changes.
+   */
+  public void init ()
+  {
+    init(Predicates.alwaysTrue());
+  }
+
+  /**
+   * Reads the stored index if available, reindexes any groups whose configs have changed since
+   * it was stored (or all of them, if there is no usable stored index), and starts listening
+   * for changes.
+   *
+   * @param saved a predicate selecting the groups whose configs match their saved files (as
+   * opposed to those with unsaved modifications).
+   */
+  public void init (Predicate<? super ConfigGroup<?>> saved)
+  {
+    File file = getIndexFile();
+    if (file == null || !file.isFile() || !read(file)) {
+      clear();
+    }
+    for (ConfigGroup<?> group : _cfgmgr.getGroups()) {
+      Long stamp = _stamps.remove(group.getConfigClass());
+      long modified = group.getLastModified();
+      boolean unmodified = saved.apply(group);
+      if (stamp == null || stamp != modified || !unmodified) {
+        reindex(group);
+      }
+      if (unmodified) {
+        _stamps.put(group.getConfigClass(), modified);
+      }
+    }
+    attach();
+  }
+
+  /**
+   * Rebuilds the entire index from the current state of the configs.
+   */
+  public void rebuild ()
+  {
+    clear();
+    for (ConfigGroup<?> group : _cfgmgr.getGroups()) {
+      reindex(group);
+    }
+  }
+
+  /**
+   * Notes that the specified group has been saved, so that its entries can be reused without
+   * reindexing if its file is unchanged when the stored index is next read.
+   */
+  public void noteSaved (ConfigGroup<?> group)
+  {
+    if (_cfgmgr.getGroups().contains(group)) {
+      _stamps.put(group.getConfigClass(), group.getLastModified());
+    }
+  }
+
+  /**
+   * Starts listening to the manager's groups so as to keep the index current.
+   */
+  public void attach ()
+  {
+    if (_attached) {
+      return;
+    }
+    for (ConfigGroup<?> group : _cfgmgr.getGroups()) {
+      group.addListener(this);
+    }
+    _cfgmgr.addUpdateListener(this);
+    _attached = true;
+  }
+
+  /**
+   * Stops listening to the manager's groups.
+   */
+  public void detach ()
+  {
+    if (!_attached) {
+      return;
+    }
+    for (ConfigGroup<?> group : _cfgmgr.getGroups()) {
+      group.removeListener(this);
+    }
+    _cfgmgr.removeUpdateListener(this);
+    _attached = false;
+  }
+
+  /**
+   * Stores the index in its file (if any). Groups modified since they were last saved or
+   * indexed from their files will be reindexed when the index is next read.
+   */
+  public void save ()
+  {
+    File file = getIndexFile();
+    if (file == null) {
+      return;
+    }
+    try {
+      write(file);
+    } catch (IOException e) {
+      log.warning("Error writing config reference index.", "file", file, e);
+    }
+  }
+
+  /**
+   * Returns the configs that refer to the identified config.
+   */
+  public Set<ConfigId> getReferrers (Class<? extends ManagedConfig> clazz, String name)
+  {
+    return Collections.unmodifiableSet(_referrers.get(new ConfigId(clazz, name)));
+  }
+
+  /**
+   * Returns the configs that refer to any config of the specified class whose name starts with
+   * the given prefix.
+   */
+  public Set<ConfigId> getPrefixReferrers (Class<? extends ManagedConfig> clazz, String prefix)
+  {
+    Set<ConfigId> referrers = Sets.newHashSet();
+    for (Map.Entry<ConfigId, Collection<ConfigId>> entry : _referrers.asMap().entrySet()) {
+      ConfigId id = entry.getKey();
+      if (id.clazz == clazz && id.name.startsWith(prefix)) {
+        referrers.addAll(entry.getValue());
+      }
+    }
+    return referrers;
+  }
+
+  /**
+   * Returns the configs that refer to the specified resource.
+   */
+  public Set<ConfigId> getResourceReferrers (String path)
+  {
+    return Collections.unmodifiableSet(_resourceReferrers.get(path));
+  }
+
+  /**
+   * Returns the configs referred to by the identified config.
+   */
+  public Set<ConfigId> getReferences (Class<? extends ManagedConfig> clazz, String name)
+  {
+    return Collections.unmodifiableSet(_references.get(new ConfigId(clazz, name)));
+  }
+
+  /**
+   * Returns the resources referred to by the identified config.
+   */
+  public Set<String> getResources (Class<? extends ManagedConfig> clazz, String name)
+  {
+    return Collections.unmodifiableSet(_resources.get(new ConfigId(clazz, name)));
+  }
+
+  /**
+   * Finds the referenced configs that do not exist in the manager (or its ancestors), mapped to
+   * the configs that refer to them. Each referenced config is checked once, however many
+   * configs refer to it. Resource-loaded configs are not checked.
+   */
+  public SetMultimap<ConfigId, ConfigId> getDanglingReferences ()
+  {
+    SetMultimap<ConfigId, ConfigId> dangling = HashMultimap.create();
+    for (Map.Entry<ConfigId, Collection<ConfigId>> entry : _referrers.asMap().entrySet()) {
+      ConfigId id = entry.getKey();
+      if (!_cfgmgr.isResourceClass(id.clazz) && _cfgmgr.getRawConfig(id.clazz, id.name) == null) {
+        dangling.putAll(id, entry.getValue());
+      }
+    }
+    return dangling;
+  }
+
+  // documentation inherited from interface ConfigGroupListener
+  public void configAdded (ConfigEvent<ManagedConfig> event)
+  {
+    ConfigGroup<?> group = (ConfigGroup<?>)event.getSource();
+    ManagedConfig config = event.getConfig();
+    index(new ConfigId(group.getConfigClass(), config.getName()), config);
+  }
+
+  // documentation inherited from interface ConfigGroupListener
+  public void configRemoved (ConfigEvent<ManagedConfig> event)
+  {
+    ConfigGroup<?> group = (ConfigGroup<?>)event.getSource();
+    ConfigId id = new ConfigId(group.getConfigClass(), event.getConfig().getName());
+    if (group.getRawConfig(id.name) == null) {
+      unindex(id);
+    }
+  }
+
+  // documentation inherited from interface ConfigUpdateListener
+  public void configUpdated (ConfigEvent<ManagedConfig> event)
+  {
+    // only reindex configs that are (still) registered in one of our groups
+    ManagedConfig config = event.getConfig();
+    ConfigGroup<ManagedConfig> group = _cfgmgr.getGroup(config);
+    if (group != null && group.getRawConfig(config.getName()) == config) {
+      index(new ConfigId(group.getConfigClass(), config.getName()), config);
+    }
+  }
+
+  /**
+   * Clears out the entire index.
+   */
+  protected void clear ()
+  {
+    _referrers.clear();
+    _references.clear();
+    _resourceReferrers.clear();
+    _resources.clear();
+    _stamps.clear();
+  }
+
+  /**
+   * Replaces the entries for all configs in the specified group.
+   */
+  protected void reindex (ConfigGroup<?> group)
+  {
+    Class<?> clazz = group.getConfigClass();
+    for (ConfigId id : Lists.newArrayList(Sets.union(_references.keySet(), _resources.keySet()))) {
+      if (id.clazz == clazz) {
+        unindex(id);
+      }
+    }
+    for (ManagedConfig config : group.getRawConfigs()) {
+      index(new ConfigId(group.getConfigClass(), config.getName()), config);
+    }
+  }
+
+  /**
+   * Replaces the entries for the identified config with those found in the supplied config.
+   */
+  protected void index (ConfigId id, ManagedConfig config)
+  {
+    unindex(id);
+    _stamps.remove(id.clazz);
+    _gatherer.gather(config);
+    for (ConfigId ref : _gatherer.refs) {
+      _references.put(id, ref);
+      _referrers.put(ref, id);
+    }
+    for (String path : _gatherer.paths) {
+      _resources.put(id, path);
+      _resourceReferrers.put(path, id);
+    }
+  }
+
+  /**
+   * Removes the entries for the identified config.
+   */
+  protected void unindex (ConfigId id)
+  {
+    _stamps.remove(id.clazz);
+    for (ConfigId ref : _references.removeAll(id)) {
+      _referrers.remove(ref, id);
+    }
+    for (String path : _resources.removeAll(id)) {
+      _resourceReferrers.remove(path, id);
+    }
+  }
+
+  /**
+   * Attempts to read the index from the specified file.
+   *
+   * @return true if successful, false if the file was unreadable or out of date.
+   */
+  protected boolean read (File file)
+  {
+    clear();
+    try {
+      DataInputStream in = new DataInputStream(
+          new BufferedInputStream(new FileInputStream(file)));
+      try {
+        if (in.readInt() != VERSION) {
+          return false;
+        }
+        for (int ii = 0, nn = in.readInt(); ii < nn; ii++) {
+          _stamps.put(readClass(in), in.readLong());
+        }
+        for (int ii = 0, nn = in.readInt(); ii < nn; ii++) {
+          ConfigId id = new ConfigId(readClass(in), in.readUTF());
+          for (int jj = 0, mm = in.readInt(); jj < mm; jj++) {
+            ConfigId ref = new ConfigId(readClass(in), in.readUTF());
+            _references.put(id, ref);
+            _referrers.put(ref, id);
+          }
+          for (int jj = 0, mm = in.readInt(); jj < mm; jj++) {
+            String path = in.readUTF();
+            _resources.put(id, path);
+            _resourceReferrers.put(path, id);
+          }
+        }
+      } finally {
+        in.close();
+      }
+      return true;
+
+    } catch (Exception e) { // IOException, ClassNotFoundException, ClassCastException
+      log.warning("Error reading config reference index.", "file", file, e);
+      clear();
+      return false;
+    }
+  }
+
+  /**
+   * Writes the index to the specified file.
+   */
+  protected void write (File file)
+    throws IOException
+  {
+    DataOutputStream out = new DataOutputStream(
+        new BufferedOutputStream(new FileOutputStream(file)));
+    try {
+      out.writeInt(VERSION);
+      out.writeInt(_stamps.size());
+      for (Map.Entry<Class<?>, Long> entry : _stamps.entrySet()) {
+        out.writeUTF(entry.getKey().getName());
+        out.writeLong(entry.getValue());
+      }
+      Set<ConfigId> ids = Sets.union(_references.keySet(), _resources.keySet());
+      out.writeInt(ids.size());
+      for (ConfigId id : ids) {
+        out.writeUTF(id.clazz.getName());
+        out.writeUTF(id.name);
+        Set<ConfigId> refs = _references.get(id);
+        out.writeInt(refs.size());
+        for (ConfigId ref : refs) {
+          out.writeUTF(ref.clazz.getName());
+          out.writeUTF(ref.name);
+        }
+        Set<String> paths = _resources.get(id);
+        out.writeInt(paths.size());
+        for (String path : paths) {
+          out.writeUTF(path);
+        }
+      }
+    } finally {
+      out.close();
+    }
+  }
+
+  /**
+   * Reads a config class name from the stream.
+   */
+  protected static Class<? extends ManagedConfig> readClass (DataInputStream in)
+    throws IOException, ClassNotFoundException
+  {
+    return Class.forName(in.readUTF()).asSubclass(ManagedConfig.class);
+  }
+
+  /**
+   * Gathers the references and resources of one config at a time. Unlike the
+   * {@link DependencyGatherer.Default} gatherer, this follows references passed as arguments.
+   */
+  protected class Gatherer extends DependencyGatherer
+  {
+    /** The configs referenced by the last config gathered. */
+    public final Set<ConfigId> refs = Sets.newHashSet();
+
+    /** The resources referenced by the last config gathered. */
+    public final Set<String> paths = Sets.newHashSet();
+
+    /**
+     * Gathers the references of the specified config.
+     */
+    public void gather (ManagedConfig config)
+    {
+      refs.clear();
+      paths.clear();
+      findReferences(config);
+    }
+
+    @Override
+    protected void add (Class<? extends ManagedConfig> clazz, @Nullable ConfigReference<?> ref)
+    {
+      if (ref != null && ref.getName() != null) {
+        refs.add(new ConfigId(clazz, ref.getName()));
+      }
+    }
+
+    @Override
+    protected void addResource (String path)
+    {
+      paths.add(path);
+    }
+
+    @Override
+    protected boolean shouldWarn ()
+    {
+      return false;
+    }
+
+    @Override
+    protected Class<? extends ManagedConfig> getParameterConfigType (ConfigId id, String param)
+    {
+      // dangling references and bad arguments are reported by the validator, not here
+      ManagedConfig cfg = _cfgmgr.getRawConfig(id.clazz, id.name);
+      if (!(cfg instanceof ParameterizedConfig)) {
+        return null;
+      }
+      ParameterizedConfig pcfg = (ParameterizedConfig)cfg;
+      Parameter p = pcfg.getParameter(param);
+      Property prop = (p == null) ? null : p.getProperty(pcfg);
+      if (prop == null) {
+        return null;
+      }
+      Reference refAnno = prop.getAnnotation(Reference.class);
+      return (refAnno != null) ? refAnno.value() : getConfigReferenceType(prop.getGenericType());
+    }
+  }
+
+  /** The manager whose configs we index. */
+  protected final ConfigManager _cfgmgr;
+
+  /** The gatherer we reuse to find the references of each config. */
+  protected final Gatherer _gatherer = new Gatherer();
+
+  /** Maps referenced configs to the configs that refer to them. */
+  protected final SetMultimap<ConfigId, ConfigId> _referrers = HashMultimap.create();
+
+  /** Maps configs to the configs they refer to. */
+  protected final SetMultimap<ConfigId, ConfigId> _references = HashMultimap.create();
+
+  /** Maps resource paths to the configs that refer to them. */
+  protected final SetMultimap<String, ConfigId> _resourceReferrers = HashMultimap.create();
+
+  /** Maps configs to the resource paths they refer to. */
+  protected final SetMultimap<ConfigId, String> _resources = HashMultimap.create();
+
+  /** The modification times of the files of the groups whose entries match them. */
+  protected final Map<Class<?>, Long> _stamps = Maps.newHashMap();
+
+  /** Whether or not we're listening to the manager's groups. */
+  protected boolean _attached;
+
+  /** The name of the index file within the manager's config directory. */
+  protected static final String FILENAME = "references.dat";
+
+  /** The version of the index file format. */
+  protected static final int VERSION = 1;
+}
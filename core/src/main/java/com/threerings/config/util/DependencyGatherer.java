@@ -47,6 +47,7 @@ import com.threerings.config.ParameterizedConfig;
 import com.threerings.config.Reference;
 import com.threerings.config.util.ConfigId;
 
+import com.threerings.editor.Editable;
 import com.threerings.editor.Property;
 
 import static com.threerings.ClydeLog.log;
@@ -168,7 +169,15 @@ public abstract class DependencyGatherer
      */
     public void gather (ConfigManager cfgmgr)
     {
-      for (ConfigGroup<?> group : cfgmgr.getGroups()) {
+      gather(cfgmgr.getGroups());
+    }
+
+    /**
+     * Gather references from the specified groups, using pre-calculated parameter types.
+     */
+    public void gather (Iterable<? extends ConfigGroup<?>> groups)
+    {
+      for (ConfigGroup<?> group : groups) {
         for (ManagedConfig cfg : group.getRawConfigs()) {
           findReferences(cfg);
         }
@@ -333,6 +342,11 @@ public abstract class DependencyGatherer
                 throw new RuntimeException(iae); // shouldn't happen
               }
             }
+          } else {
+            Editable editAnno = f.getAnnotation(Editable.class);
+            if (editAnno != null && editAnno.editor().equals("resource")) {
+              addResource((String)o);
+            }
           }
 
         } else {
@@ -342,6 +356,14 @@ public abstract class DependencyGatherer
     }
   }
 
+  /**
+   * Note that we found a resource path in a field edited with the "resource" editor.
+   */
+  protected void addResource (String path)
+  {
+    // nothing by default
+  }
+
   /**
    * Note that we found a ConfigReference tagged with @NoDependency.
    */
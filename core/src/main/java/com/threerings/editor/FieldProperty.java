@@ -25,8 +25,12 @@
 
 package com.threerings.editor;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+
 import java.lang.reflect.Field;
 import java.lang.reflect.Member;
+import java.lang.reflect.Modifier;
 import java.lang.reflect.Type;
 
 import com.samskivert.util.StringUtil;
@@ -254,6 +258,34 @@ public class FieldProperty extends Property
     }
   }
 
+  @Override
+  public MethodHandle getGetterHandle ()
+  {
+    if (Modifier.isStatic(_field.getModifiers())) {
+      return null;
+    }
+    try {
+      return guardGetter(
+        MethodHandles.lookup().unreflectGetter(_field), _field.getDeclaringClass());
+    } catch (IllegalAccessException e) {
+      return null;
+    }
+  }
+
+  @Override
+  public MethodHandle getSetterHandle ()
+  {
+    if (Modifier.isStatic(_field.getModifiers())) {
+      return null;
+    }
+    try {
+      return guardSetter(MethodHandles.lookup().unreflectSetter(_field),
+        _field.getDeclaringClass(), _field.getType());
+    } catch (IllegalAccessException e) {
+      return null;
+    }
+  }
+
   /**
    * Logs a warning when we fail to set a field.
    */
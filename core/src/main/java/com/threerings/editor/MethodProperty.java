@@ -25,9 +25,14 @@
 
 package com.threerings.editor;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Member;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.lang.reflect.Type;
 
 import com.samskivert.util.StringUtil;
@@ -97,6 +102,80 @@ public class MethodProperty extends Property
     }
   }
 
+  @Override
+  public MethodHandle getGetterHandle ()
+  {
+    if (GET_FAILED == null || Modifier.isStatic(_getter.getModifiers())) {
+      return null;
+    }
+    try {
+      // exceptions thrown by the getter are logged, as in get
+      MethodHandle getter = MethodHandles.catchException(
+        MethodHandles.lookup().unreflect(_getter).asType(GETTER_TYPE),
+        Exception.class, GET_FAILED.bindTo(_getter));
+      return guardGetter(getter, _getter.getDeclaringClass());
+    } catch (IllegalAccessException e) {
+      return null;
+    }
+  }
+
+  @Override
+  public MethodHandle getSetterHandle ()
+  {
+    // path properties may use the getter in place of the setter
+    if (SET_FAILED == null || _setter.getParameterTypes().length != 1 ||
+        Modifier.isStatic(_setter.getModifiers())) {
+      return null;
+    }
+    try {
+      // runtime exceptions thrown by the setter are rethrown and others logged, as in set
+      MethodHandle setter = MethodHandles.catchException(
+        MethodHandles.lookup().unreflect(_setter).asType(SETTER_TYPE),
+        Exception.class, SET_FAILED.bindTo(_setter));
+      return guardSetter(
+        setter, _setter.getDeclaringClass(), _setter.getParameterTypes()[0]);
+    } catch (IllegalAccessException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Handles an exception thrown by a getter invoked through its handle.
+   */
+  protected static Object getFailed (Method getter, Exception e, Object object)
+  {
+    log.warning("Failed to get property [getter=" + getter + "].", e);
+    return null;
+  }
+
+  /**
+   * Handles an exception thrown by a setter invoked through its handle.
+   */
+  protected static void setFailed (Method setter, Exception e, Object object, Object value)
+  {
+    if (e instanceof RuntimeException) {
+      throw (RuntimeException)e;
+    }
+    log.warning("Failed to set property [setter=" + setter + "].", e);
+  }
+
   /** The getter and setter methods. */
   protected Method _getter, _setter;
+
+  /** Handles for the exception handlers. */
+  protected static final MethodHandle GET_FAILED, SET_FAILED;
+  static {
+    MethodHandles.Lookup lookup = MethodHandles.lookup();
+    MethodHandle getFailed = null, setFailed = null;
+    try {
+      getFailed = lookup.findStatic(MethodProperty.class, "getFailed", MethodType.methodType(
+        Object.class, Method.class, Exception.class, Object.class));
+      setFailed = lookup.findStatic(MethodProperty.class, "setFailed", MethodType.methodType(
+        void.class, Method.class, Exception.class, Object.class, Object.class));
+    } catch (Exception e) {
+      log.warning("Failed to find exception handlers, handles will not be created.", e);
+    }
+    GET_FAILED = getFailed;
+    SET_FAILED = setFailed;
+  }
 }
@@ -25,6 +25,10 @@
 
 package com.threerings.editor;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
 import java.lang.reflect.Array;
 import java.lang.reflect.Field;
 import java.lang.reflect.Member;
@@ -49,6 +53,7 @@ import com.threerings.config.ManagedConfig;
 import com.threerings.config.Parameter;
 import com.threerings.config.ParameterizedConfig;
 import com.threerings.editor.util.PropertyUtil;
+import com.threerings.util.DeepOmit;
 
 import static com.threerings.editor.Log.log;
 
@@ -233,7 +238,23 @@ public class PathProperty extends Property
   @Override
   public void set (Object object, Object value)
   {
+    if (_setters == null) {
+      _setters = compileSetters();
+    }
     for (int ii = 0; ii < _paths.length; ii++) {
+      MethodHandle setter = _setters[ii];
+      if (setter != null) {
+        try {
+          setter.invokeExact(object, value);
+        } catch (RuntimeException e) {
+          throw e;
+        } catch (Error e) {
+          throw e;
+        } catch (Throwable t) {
+          log.warning("Failed to set property.", "name", _name, t);
+        }
+        continue;
+      }
       Property[] path = _paths[ii];
       Object obj = object;
       int last = path.length - 1;
@@ -245,6 +266,50 @@ public class PathProperty extends Property
     }
   }
 
+  /**
+   * Compiles the property chains into direct setter handles, so that applying a value doesn't
+   * require walking the chain reflectively.  Chains that can't be compiled (because they
+   * contain argument subscripts, for instance) have <code>null</code> entries and are applied
+   * through {@link #setProperty}.
+   */
+  protected MethodHandle[] compileSetters ()
+  {
+    MethodHandle[] setters = new MethodHandle[_paths.length];
+    for (int ii = 0; ii < _paths.length; ii++) {
+      // use the same coercion rules as setProperty on the paths after the first
+      setters[ii] = compilePath(_paths[ii], ii > 0);
+    }
+    return setters;
+  }
+
+  /**
+   * Attempts to compile the supplied property chain into a setter handle of type
+   * <code>(Object, Object)void</code>, returning <code>null</code> on failure.
+   */
+  protected static MethodHandle compilePath (Property[] path, boolean coerce)
+  {
+    if (COERCE == null) {
+      return null;
+    }
+    int last = path.length - 1;
+    MethodHandle setter = path[last].getSetterHandle();
+    if (setter == null) {
+      return null;
+    }
+    if (coerce) {
+      setter = MethodHandles.filterArguments(
+        setter, 1, MethodHandles.insertArguments(COERCE, 1, path[last].getType()));
+    }
+    for (int ii = last - 1; ii >= 0; ii--) {
+      MethodHandle getter = path[ii].getGetterHandle();
+      if (getter == null) {
+        return null;
+      }
+      setter = MethodHandles.filterArguments(setter, 0, getter);
+    }
+    return setter;
+  }
+
   /**
    * Sets the property value.
    */
@@ -326,6 +391,14 @@ public class PathProperty extends Property
                 (List<Object>)base.get(object);
               list.set(idx, value);
             }
+            public MethodHandle getGetterHandle () {
+              return (LIST_GET == null) ? null : guardGetter(
+                getElementHandle(LIST_GET, GETTER_TYPE), Object.class);
+            }
+            public MethodHandle getSetterHandle () {
+              return (LIST_SET == null) ? null : guardSetter(
+                getElementHandle(LIST_SET, SETTER_TYPE), Object.class, Object.class);
+            }
           };
         }
       } else if (value.getClass().isArray()) {
@@ -337,6 +410,17 @@ public class PathProperty extends Property
             public void set (Object object, Object value) {
               Array.set(base.get(object), idx, value);
             }
+            public MethodHandle getGetterHandle () {
+              Class<?> type = base.getType();
+              return type.isArray() ? guardGetter(getElementHandle(
+                MethodHandles.arrayElementGetter(type), GETTER_TYPE), Object.class) : null;
+            }
+            public MethodHandle getSetterHandle () {
+              Class<?> type = base.getType();
+              return type.isArray() ? guardSetter(getElementHandle(
+                MethodHandles.arrayElementSetter(type), SETTER_TYPE),
+                Object.class, type.getComponentType()) : null;
+            }
           };
         }
       }
@@ -510,7 +594,7 @@ public class PathProperty extends Property
   {
     public IndexProperty (Property base, int idx)
     {
-      _name = (_base = base).getName() + "[" + idx + "]";
+      _name = (_base = base).getName() + "[" + (_idx = idx) + "]";
     }
 
     @Override
@@ -537,10 +621,56 @@ public class PathProperty extends Property
       return _base.getGenericComponentType();
     }
 
+    /**
+     * Composes an element accessor (whose first two parameters are the container and the
+     * index) with the base property's getter, returning <code>null</code> if the base can't
+     * be read directly.
+     */
+    protected MethodHandle getElementHandle (MethodHandle accessor, MethodType type)
+    {
+      MethodHandle getter = _base.getGetterHandle();
+      if (getter == null) {
+        return null;
+      }
+      accessor = MethodHandles.insertArguments(accessor, 1, _idx);
+      getter = getter.asType(MethodType.methodType(accessor.type().parameterType(0), Object.class));
+      return MethodHandles.filterArguments(accessor, 0, getter).asType(type);
+    }
+
     /** The base property. */
     protected Property _base;
+
+    /** The index of the component. */
+    protected int _idx;
   }
 
   /** The property chains for each path. */
   protected Property[][] _paths;
+
+  /** The compiled setters for each path (created on first use). */
+  @DeepOmit
+  protected transient MethodHandle[] _setters;
+
+  /** Coerces values for paths after the first. */
+  protected static final MethodHandle COERCE;
+
+  /** List accessors for indexed list components. */
+  protected static final MethodHandle LIST_GET, LIST_SET;
+  static {
+    MethodHandles.Lookup lookup = MethodHandles.lookup();
+    MethodHandle coerce = null, get = null, set = null;
+    try {
+      coerce = lookup.findStatic(PathProperty.class, "coerce",
+        MethodType.methodType(Object.class, Object.class, Class.class));
+      get = lookup.findVirtual(List.class, "get",
+        MethodType.methodType(Object.class, int.class));
+      set = lookup.findVirtual(List.class, "set",
+        MethodType.methodType(Object.class, int.class, Object.class));
+    } catch (Exception e) {
+      log.warning("Failed to find path accessors, paths will not be compiled.", e);
+    }
+    COERCE = coerce;
+    LIST_GET = get;
+    LIST_SET = set;
+  }
 }
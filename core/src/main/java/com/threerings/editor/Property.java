@@ -27,6 +27,10 @@ package com.threerings.editor;
 
 import java.lang.annotation.Annotation;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
 import java.lang.reflect.AnnotatedElement;
 import java.lang.reflect.Array;
 import java.lang.reflect.GenericArrayType;
@@ -206,7 +210,7 @@ public abstract class Property extends DeepObject
    *
    * @return the arguments of the generic class or interface, or <code>null</code> if not found.
    */
-  public Class<?>[] getArgumentTypes (Class<?> clazz)
+  public synchronized Class<?>[] getArgumentTypes (Class<?> clazz)
   {
     if (_argumentTypes == null) {
       _argumentTypes = new HashMap<Class<?>, Class<?>[]>(0);
@@ -245,7 +249,7 @@ public abstract class Property extends DeepObject
    *
    * @return the arguments of the generic class or interface, or <code>null</code> if not found.
    */
-  public Type[] getGenericArgumentTypes (Class<?> clazz)
+  public synchronized Type[] getGenericArgumentTypes (Class<?> clazz)
   {
     if (_genericArgumentTypes == null) {
       _genericArgumentTypes = new HashMap<Class<?>, Type[]>(0);
@@ -543,6 +547,77 @@ public abstract class Property extends DeepObject
    */
   public abstract void set (Object object, Object value);
 
+  /**
+   * Returns a method handle of type <code>(Object)Object</code> that retrieves the value of the
+   * property directly, or <code>null</code> if the property can only be read through
+   * {@link #get}.
+   */
+  public MethodHandle getGetterHandle ()
+  {
+    return null;
+  }
+
+  /**
+   * Returns a method handle of type <code>(Object, Object)void</code> that sets the value of the
+   * property directly, or <code>null</code> if the property can only be written through
+   * {@link #set}.
+   */
+  public MethodHandle getSetterHandle ()
+  {
+    return null;
+  }
+
+  /**
+   * Guards a direct getter handle so that objects it isn't known to accept are passed to
+   * {@link #get} instead, which preserves the reflective path's exceptions and logging.
+   *
+   * @param getter the direct getter, or <code>null</code>.
+   * @param owner the type of object that the getter accepts.
+   * @return the guarded handle of type <code>(Object)Object</code>, or <code>null</code> if
+   * the getter was <code>null</code>.
+   */
+  protected MethodHandle guardGetter (MethodHandle getter, Class<?> owner)
+  {
+    if (getter == null || GET == null) {
+      return null;
+    }
+    return MethodHandles.guardWithTest(
+      IS_INSTANCE.bindTo(owner), getter.asType(GETTER_TYPE), GET.bindTo(this));
+  }
+
+  /**
+   * Guards a direct setter handle so that objects and values it isn't known to accept are
+   * passed to {@link #set} instead, which preserves the reflective path's exceptions and
+   * logging.
+   *
+   * @param setter the direct setter, or <code>null</code>.
+   * @param owner the type of object that the setter accepts.
+   * @param type the type of value that the setter accepts.
+   * @return the guarded handle of type <code>(Object, Object)void</code>, or <code>null</code>
+   * if the setter was <code>null</code>.
+   */
+  protected MethodHandle guardSetter (MethodHandle setter, Class<?> owner, Class<?> type)
+  {
+    if (setter == null || SET == null) {
+      return null;
+    }
+    boolean primitive = type.isPrimitive();
+    MethodHandle test = MethodHandles.insertArguments(CAN_SET, 0, owner,
+      primitive ? ClassUtil.objectEquivalentOf(type) : type, primitive);
+    return MethodHandles.guardWithTest(test, setter.asType(SETTER_TYPE), SET.bindTo(this));
+  }
+
+  /**
+   * Checks whether a guarded setter may be applied directly to the supplied object and value.
+   *
+   * @param wtype the type of value accepted, with primitive types replaced by their wrappers.
+   */
+  protected static boolean canSet (
+    Class<?> owner, Class<?> wtype, boolean primitive, Object object, Object value)
+  {
+    return owner.isInstance(object) && (value == null ? !primitive : wtype.isInstance(value));
+  }
+
   @Override
   public String toString ()
   {
@@ -792,6 +867,34 @@ public abstract class Property extends DeepObject
   @DeepOmit
   protected HashMap<Class<?>, Type[]> _genericArgumentTypes;
 
+  /** The type of the handles returned by {@link #getGetterHandle}. */
+  protected static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+  /** The type of the handles returned by {@link #getSetterHandle}. */
+  protected static final MethodType SETTER_TYPE =
+    MethodType.methodType(void.class, Object.class, Object.class);
+
+  /** Handles for the reflective accessors and the guard tests. */
+  protected static final MethodHandle GET, SET, IS_INSTANCE, CAN_SET;
+  static {
+    MethodHandles.Lookup lookup = MethodHandles.lookup();
+    MethodHandle get = null, set = null, isInstance = null, canSet = null;
+    try {
+      get = lookup.findVirtual(Property.class, "get", GETTER_TYPE);
+      set = lookup.findVirtual(Property.class, "set", SETTER_TYPE);
+      isInstance = lookup.findVirtual(Class.class, "isInstance",
+        MethodType.methodType(boolean.class, Object.class));
+      canSet = lookup.findStatic(Property.class, "canSet", MethodType.methodType(
+        boolean.class, Class.class, Class.class, boolean.class, Object.class, Object.class));
+    } catch (Exception e) {
+      log.warning("Failed to find property accessors, handles will not be created.", e);
+    }
+    GET = get;
+    SET = set;
+    IS_INSTANCE = isInstance;
+    CAN_SET = canSet;
+  }
+
   /** Class<?> lists read from the type configuration. */
   protected static HashMap<String, Class<?>[]> _configTypes = new HashMap<String, Class<?>[]>();
 
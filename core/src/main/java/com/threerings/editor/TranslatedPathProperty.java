@@ -53,12 +53,12 @@ public class TranslatedPathProperty extends PathProperty
   }
 
   @Override
-  protected void setProperty (Object obj, Object value, Property prop, boolean coerce)
+  public void set (Object object, Object value)
   {
     if (value instanceof String && _msgs.exists((String)value)) {
       value = _msgs.xlate((String)value);
     }
-    super.setProperty(obj, value, prop, coerce);
+    super.set(object, value);
   }
 
   /** Our message bundle. */
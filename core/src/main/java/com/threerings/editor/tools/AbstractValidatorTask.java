@@ -26,8 +26,11 @@
 package com.threerings.editor.tools;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
 
 import org.apache.tools.ant.BuildException;
+import org.apache.tools.ant.Project;
 
 import com.threerings.tools.FileSetTask;
 
@@ -35,6 +38,7 @@ import com.threerings.resource.ResourceManager;
 import com.threerings.util.ResourceContext;
 import com.threerings.util.MessageManager;
 
+import com.threerings.editor.util.BatchValidator;
 import com.threerings.editor.util.Validator;
 
 import com.threerings.config.ConfigManager;
@@ -44,6 +48,15 @@ import com.threerings.config.ConfigManager;
  */
 public abstract class AbstractValidatorTask extends FileSetTask
 {
+  /**
+   * Sets the file in which to cache validation results between runs.  Files whose contents
+   * (and the configs and resources they reference) are unchanged will not be revalidated.
+   */
+  public void setCacheFile (File file)
+  {
+    _cacheFile = file;
+  }
+
   @Override
   public void execute ()
     throws BuildException
@@ -64,12 +77,86 @@ public abstract class AbstractValidatorTask extends FileSetTask
   protected abstract boolean validate (
       ConfigManager cfgmgr, Iterable<File> files, Validator validator);
 
+  /**
+   * Validates the supplied files in parallel using {@link #validateFile}, writing the reports to
+   * the stream of the given validator in the order of the files.
+   */
+  protected boolean validateFiles (
+      final ConfigManager cfgmgr, Iterable<File> files, Validator validator)
+  {
+    BatchValidator.ResultCache cache = null;
+    if (_cacheFile != null) {
+      cache = BatchValidator.ResultCache.read(_cacheFile,
+          getClass().getName() + ":" + BatchValidator.getConfigStamp(cfgmgr));
+    }
+    final int[] counts = new int[2];
+    BatchValidator batch = new BatchValidator(cache) {
+      @Override public boolean report (Result result, PrintStream out) {
+        counts[0]++;
+        counts[1] += result.cached ? 1 : 0;
+        return AbstractValidatorTask.this.report(result, out);
+      }
+      @Override protected Validator createValidator (File file, PrintStream out) {
+        return AbstractValidatorTask.this.createValidator(out);
+      }
+      @Override protected boolean validate (File file, Validator validator)
+          throws Exception {
+        return validateFile(cfgmgr, file, validator);
+      }
+    };
+    long start = System.currentTimeMillis();
+    boolean valid = batch.validate(files, validator.getPrintStream());
+    long elapsed = Math.max(System.currentTimeMillis() - start, 1L);
+    log("Validated " + counts[0] + " files (" + counts[1] + " cached) in " + elapsed + "ms (" +
+      (counts[0] * 1000L / elapsed) + " files/s).");
+
+    if (cache != null) {
+      try {
+        cache.write(_cacheFile);
+      } catch (IOException e) {
+        log("Failed to write validation cache: " + e, Project.MSG_WARN);
+      }
+    }
+    return valid;
+  }
+
+  /**
+   * Validates a single file for {@link #validateFiles}.  This is called on a worker thread with
+   * a validator used for this file alone, so it must not modify state shared with other files.
+   */
+  protected abstract boolean validateFile (ConfigManager cfgmgr, File file, Validator validator)
+    throws Exception;
+
+  /**
+   * Writes out the report for a file validated by {@link #validateFiles}.
+   *
+   * @return whether or not the file validated.
+   */
+  protected boolean report (BatchValidator.Result result, PrintStream out)
+  {
+    out.print(result.output);
+    if (result.error != null) {
+      log("Error validating '" + result.file + "': " + result.error, Project.MSG_ERR);
+      return false;
+    }
+    return result.valid;
+  }
+
   /**
    * Create the validator to use for this task.
    */
   protected Validator createValidator ()
   {
-    return new Validator(System.err);
+    return createValidator(System.err);
+  }
+
+  /**
+   * Create a validator that writes to the specified stream.  When validating files in parallel,
+   * this is called on the worker threads to create a validator for each file.
+   */
+  protected Validator createValidator (PrintStream out)
+  {
+    return new Validator(out);
   }
 
   /**
@@ -147,4 +234,7 @@ public abstract class AbstractValidatorTask extends FileSetTask
     /** The config manager. */
     protected ConfigManager _cfgmgr;
   }
+
+  /** The file in which to cache validation results, if any. */
+  protected File _cacheFile;
 }
@@ -34,6 +34,10 @@ import java.io.File;
 import java.io.IOException;
 import java.io.PrintStream;
 
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
 import java.util.prefs.Preferences;
 
 import javax.swing.JButton;
@@ -49,17 +53,20 @@ import org.apache.tools.ant.DirectoryScanner;
 import org.apache.tools.ant.Project;
 import org.apache.tools.ant.types.FileSet;
 
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+
 import com.samskivert.swing.GroupLayout;
 import com.samskivert.swing.util.SwingUtil;
 
+import com.threerings.editor.util.BatchValidator;
 import com.threerings.editor.util.EditorContext;
 import com.threerings.editor.util.Validator;
 import com.threerings.expr.MutableBoolean;
 import com.threerings.expr.MutableInteger;
 import com.threerings.util.MessageBundle;
 
-import static com.threerings.editor.Log.log;
-
 /**
  * Allows users to validate a batch of files defined by an Ant-style fileset.
  */
@@ -128,37 +135,60 @@ public abstract class BatchValidateDialog extends JDialog
 
     // find all matching files
     FileSet fs = new FileSet();
-    final File dir = _ctx.getResourceManager().getResourceFile("");
+    File dir = _ctx.getResourceManager().getResourceFile("");
     fs.setDir(dir);
     fs.setIncludes(includes);
     fs.setExcludes(excludes);
     DirectoryScanner ds = fs.getDirectoryScanner(new Project());
-    final String[] files = ds.getIncludedFiles();
+    final Map<File, String> paths = Maps.newLinkedHashMap();
+    for (String path : ds.getIncludedFiles()) {
+      paths.put(new File(dir, path), path);
+    }
+
+    // validate the files on the worker pool
+    final BatchValidator batch = new BatchValidator() {
+      @Override protected Validator createValidator (File file, PrintStream out) {
+        return BatchValidateDialog.this.createValidator(paths.get(file), out);
+      }
+      @Override protected boolean validate (File file, Validator validator) throws Exception {
+        return BatchValidateDialog.this.validate(validator, paths.get(file));
+      }
+    };
+    final List<ListenableFuture<BatchValidator.Result>> results = batch.submit(paths.keySet());
     final MutableInteger idx = new MutableInteger();
     final MutableBoolean valid = new MutableBoolean(true);
 
-    // perform each validation as a separate element on the run queue so that we can display
-    // results as they come in
+    // display the results in order as they come in
     Runnable runnable = new Runnable() {
       public void run () {
-        if (idx.value < files.length && isVisible()) {
-          String file = files[idx.value++];
-          try {
-            valid.value &= validate(createValidator(file, out), file);
-          } catch (Exception e) {
-            log.warning("Error in validation.", "file", file, e);
+        if (!isVisible()) {
+          for (Future<?> result : results) {
+            result.cancel(false);
           }
-          EventQueue.invokeLater(this);
-        } else {
+          return;
+        }
+        for (; idx.value < results.size() && results.get(idx.value).isDone(); idx.value++) {
+          valid.value &= batch.report(Futures.getUnchecked(results.get(idx.value)), out);
+        }
+        out.flush();
+        if (idx.value == results.size()) {
           _start.setEnabled(true);
         }
       }
     };
-    EventQueue.invokeLater(runnable);
+    Executor edt = new Executor() {
+      public void execute (Runnable command) {
+        EventQueue.invokeLater(command);
+      }
+    };
+    for (ListenableFuture<BatchValidator.Result> result : results) {
+      result.addListener(runnable, edt);
+    }
+    runnable.run();
   }
 
   /**
-   * Create the validator to use for this batch validate.
+   * Create the validator to use for this batch validate.  Called on a worker thread.
    */
   protected Validator createValidator (String where, PrintStream out)
   {
@@ -166,7 +196,8 @@ public abstract class BatchValidateDialog extends JDialog
   }
 
   /**
-   * Performs the actual validation.
+   * Performs the actual validation.  This is called on a worker thread with a validator used for
+   * the specified file alone, so it must not modify state shared with other files.
    */
   protected abstract boolean validate (Validator validator, String path) throws Exception;
 
@@ -26,11 +26,11 @@
 package com.threerings.editor.tools;
 
 import java.io.File;
+import java.io.PrintStream;
 
 import org.apache.tools.ant.BuildException;
 
-import com.threerings.resource.ResourceManager;
-
+import com.threerings.editor.util.BatchValidator;
 import com.threerings.editor.util.Validator;
 
 import com.threerings.config.ConfigManager;
@@ -48,22 +48,37 @@ public class ConfigValidatorTask extends AbstractValidatorTask
     boolean valid = cfgmgr.validateReferences(validator);
 
     // validate the resource configs
-    ResourceManager rsrcmgr = cfgmgr.getResourceManager();
-    for (File source : files) {
-      String path = rsrcmgr.getResourcePath(source);
-      if (path == null) continue;
-      ManagedConfig config = cfgmgr.getResourceConfig(path);
-      if (config == null) continue;
-      validator.pushWhere(path);
-      try {
-        valid &= config.validateReferences(validator);
-      } catch (Exception e) {
-        throw new BuildException("Error validating '" + path + "': " + e);
-      } finally {
-        validator.popWhere();
-      }
+    return validateFiles(cfgmgr, files, validator) && valid;
+  }
+
+  @Override
+  protected boolean validateFile (ConfigManager cfgmgr, File source, Validator validator)
+  {
+    String path = cfgmgr.getResourceManager().getResourcePath(source);
+    if (path == null) {
+      return true;
+    }
+    // the resource cache is safe to use from any thread; at worst, two workers will both load
+    // a config that one references and the other validates
+    ManagedConfig config = cfgmgr.getResourceConfig(path);
+    if (config == null) {
+      return true;
     }
+    validator.pushWhere(path);
+    try {
+      return config.validateReferences(validator);
+    } finally {
+      validator.popWhere();
+    }
+  }
 
-    return valid;
+  @Override
+  protected boolean report (BatchValidator.Result result, PrintStream out)
+  {
+    if (result.error != null) {
+      out.print(result.output);
+      throw new BuildException("Error validating '" + result.file + "': " + result.error);
+    }
+    return super.report(result, out);
   }
 }
@@ -0,0 +1,389 @@
+//
+// $Id$
+
+package com.threerings.editor.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import javax.annotation.Nullable;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+import com.threerings.util.WorkerPool;
+
+import com.threerings.config.ConfigGroup;
+import com.threerings.config.ConfigManager;
+
+import static com.threerings.editor.Log.log;
+
+/**
+ * Validates batches of files on the {@link WorkerPool}.  Each file is validated with a
+ * {@link Validator} of its own that writes to a buffer, and the buffered reports are written out
+ * in the order in which the files were supplied, so the output is the same no matter how the work
+ * is divided.  Results may be cached by file content so that unchanged files are not revalidated.
+ */
+public abstract class BatchValidator
+{
+  /**
+   * The result of validating a single file.
+   */
+  public static class Result
+  {
+    /** The file validated. */
+    public final File file;
+
+    /** Whether or not the file validated. */
+    public final boolean valid;
+
+    /** The validation report. */
+    public final String output;
+
+    /** The exception thrown during validation, if any. */
+    public final Exception error;
+
+    /** Whether or not the result came from the cache. */
+    public final boolean cached;
+
+    public Result (File file, boolean valid, String output, Exception error, boolean cached)
+    {
+      this.file = file;
+      this.valid = valid;
+      this.output = output;
+      this.error = error;
+      this.cached = cached;
+    }
+  }
+
+  /**
+   * Caches validation results by file content.  A cached result is reused if the hash of the
+   * file is unchanged, the stamp of the cache (which identifies the state of everything the files
+   * are validated against) matches, and none of the resources checked has been modified since.
+   */
+  public static class ResultCache
+  {
+    /**
+     * Reads the cache from the specified file.
+     *
+     * @return the cache read, or an empty cache if the file doesn't exist, couldn't be read, or
+     * has a different stamp.
+     */
+    public static ResultCache read (File file, String stamp)
+    {
+      ResultCache cache = new ResultCache(stamp);
+      if (!file.isFile()) {
+        return cache;
+      }
+      try {
+        DataInputStream in = new DataInputStream(
+            new BufferedInputStream(new FileInputStream(file)));
+        try {
+          if (in.readInt() != VERSION || !in.readUTF().equals(stamp)) {
+            return cache;
+          }
+          for (int ii = 0, nn = in.readInt(); ii < nn; ii++) {
+            String path = in.readUTF();
+            String hash = in.readUTF();
+            boolean valid = in.readBoolean();
+            byte[] output = new byte[in.readInt()];
+            in.readFully(output);
+            Entry entry = new Entry(hash, valid, new String(output, Charsets.UTF_8));
+            for (int jj = 0, mm = in.readInt(); jj < mm; jj++) {
+              entry.resources.put(in.readUTF(), in.readLong());
+            }
+            cache._entries.put(path, entry);
+          }
+        } finally {
+          in.close();
+        }
+      } catch (IOException e) {
+        log.warning("Error reading validation cache.", "file", file, e);
+        cache._entries.clear();
+      }
+      return cache;
+    }
+
+    /**
+     * Creates an empty cache with the supplied stamp.
+     */
+    public ResultCache (String stamp)
+    {
+      _stamp = stamp;
+    }
+
+    /**
+     * Returns the cached result for the specified file, or null if there is none or it is out of
+     * date.  This may be called from any thread.
+     */
+    public Result get (File file, String hash)
+    {
+      String path = file.getPath();
+      Entry entry = _entries.get(path);
+      if (entry == null || !entry.hash.equals(hash)) {
+        return null;
+      }
+      for (Map.Entry<String, Long> resource : entry.resources.entrySet()) {
+        if (new File(resource.getKey()).lastModified() != resource.getValue()) {
+          return null;
+        }
+      }
+      _current.put(path, entry);
+      return new Result(file, entry.valid, entry.output, null, true);
+    }
+
+    /**
+     * Stores a result in the cache.  This may be called from any thread.
+     *
+     * @param resources the resource files checked during validation, mapped to their
+     * last-modified times.
+     */
+    public void put (Result result, String hash, Map<String, Long> resources)
+    {
+      Entry entry = new Entry(hash, result.valid, result.output);
+      entry.resources.putAll(resources);
+      _current.put(result.file.getPath(), entry);
+    }
+
+    /**
+     * Writes the entries for the files looked up or stored since the cache was read to the
+     * specified file.
+     */
+    public void write (File file)
+      throws IOException
+    {
+      DataOutputStream out = new DataOutputStream(
+          new BufferedOutputStream(new FileOutputStream(file)));
+      try {
+        out.writeInt(VERSION);
+        out.writeUTF(_stamp);
+        out.writeInt(_current.size());
+        for (Map.Entry<String, Entry> mentry : _current.entrySet()) {
+          Entry entry = mentry.getValue();
+          out.writeUTF(mentry.getKey());
+          out.writeUTF(entry.hash);
+          out.writeBoolean(entry.valid);
+          byte[] output = entry.output.getBytes(Charsets.UTF_8);
+          out.writeInt(output.length);
+          out.write(output);
+          out.writeInt(entry.resources.size());
+          for (Map.Entry<String, Long> resource : entry.resources.entrySet()) {
+            out.writeUTF(resource.getKey());
+            out.writeLong(resource.getValue());
+          }
+        }
+      } finally {
+        out.close();
+      }
+    }
+
+    /**
+     * A cached result.
+     */
+    protected static class Entry
+    {
+      /** The hash of the file's contents. */
+      public final String hash;
+
+      /** Whether or not the file validated. */
+      public final boolean valid;
+
+      /** The validation report. */
+      public final String output;
+
+      /** The resource files checked, mapped to their last-modified times. */
+      public final Map<String, Long> resources = Maps.newHashMap();
+
+      public Entry (String hash, boolean valid, String output)
+      {
+        this.hash = hash;
+        this.valid = valid;
+        this.output = output;
+      }
+    }
+
+    /** The stamp identifying the state validated against. */
+    protected final String _stamp;
+
+    /** The entries read from the cache file, mapped by file path. */
+    protected final Map<String, Entry> _entries = Maps.newConcurrentMap();
+
+    /** The entries looked up or stored since the cache was read. */
+    protected final Map<String, Entry> _current = Maps.newConcurrentMap();
+
+    /** The version of the cache file format. */
+    protected static final int VERSION = 1;
+  }
+
+  /**
+   * Computes a stamp identifying the state of the configs in the supplied manager, for use with
+   * {@link ResultCache}.
+   */
+  public static String getConfigStamp (ConfigManager cfgmgr)
+  {
+    Hasher hasher = Hashing.md5().newHasher();
+    for (ConfigGroup<?> group : cfgmgr.getGroups()) {
+      hasher.putString(group.getName(), Charsets.UTF_8).putLong(group.getLastModified());
+    }
+    return hasher.hash().toString();
+  }
+
+  /**
+   * Creates a validator without a result cache.
+   */
+  public BatchValidator ()
+  {
+    this(null);
+  }
+
+  /**
+   * Creates a validator that will use the supplied result cache.
+   */
+  public BatchValidator (@Nullable ResultCache cache)
+  {
+    _cache = cache;
+  }
+
+  /**
+   * Returns a reference to the result cache, if any.
+   */
+  public ResultCache getCache ()
+  {
+    return _cache;
+  }
+
+  /**
+   * Validates the supplied files, writing their reports to the given stream in order.
+   *
+   * @return true if all of the files validated.
+   */
+  public boolean validate (Iterable<File> files, PrintStream out)
+  {
+    boolean valid = true;
+    for (Future<Result> future : submit(files)) {
+      try {
+        valid &= report(Uninterruptibles.getUninterruptibly(future), out);
+      } catch (ExecutionException e) {
+        throw new RuntimeException(e.getCause());
+      }
+    }
+    return valid;
+  }
+
+  /**
+   * Submits the supplied files for validation on the worker pool.
+   *
+   * @return the list of pending results, in the order of the files.
+   */
+  public List<ListenableFuture<Result>> submit (Iterable<File> files)
+  {
+    ListeningExecutorService executor =
+      MoreExecutors.listeningDecorator(WorkerPool.getExecutor());
+    List<ListenableFuture<Result>> results = Lists.newArrayList();
+    for (final File file : files) {
+      results.add(executor.submit(new Callable<Result>() {
+        public Result call () {
+          return getResult(file);
+        }
+      }));
+    }
+    return results;
+  }
+
+  /**
+   * Writes out the report for the specified result.
+   *
+   * @return whether or not the file validated.
+   */
+  public boolean report (Result result, PrintStream out)
+  {
+    out.print(result.output);
+    if (result.error != null) {
+      log.warning("Error validating file.", "file", result.file, result.error);
+    }
+    return result.valid;
+  }
+
+  /**
+   * Validates the specified file or fetches its result from the cache.  Called on a worker
+   * thread.
+   */
+  protected Result getResult (File file)
+  {
+    String hash = null;
+    if (_cache != null) {
+      try {
+        hash = Files.hash(file, Hashing.md5()).toString();
+        Result result = _cache.get(file, hash);
+        if (result != null) {
+          return result;
+        }
+      } catch (IOException e) {
+        // the validation will presumably fail in the same way
+        hash = null;
+      }
+    }
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    PrintStream out = new PrintStream(bytes);
+    Validator validator = createValidator(file, out);
+    Map<String, Long> resources = null;
+    if (hash != null) {
+      validator.setResourceRecord(resources = Maps.newHashMap());
+    }
+    boolean valid = false;
+    Exception error = null;
+    try {
+      valid = validate(file, validator);
+    } catch (Exception e) {
+      error = e;
+    }
+    out.flush();
+    Result result = new Result(file, valid, bytes.toString(), error, false);
+    if (hash != null && error == null) {
+      _cache.put(result, hash, resources);
+    }
+    return result;
+  }
+
+  /**
+   * Creates the validator to use for the specified file.  Called on a worker thread.
+   */
+  protected Validator createValidator (File file, PrintStream out)
+  {
+    return new Validator(out);
+  }
+
+  /**
+   * Validates the specified file.  This is called on a worker thread with a validator used for
+   * this file alone, so implementations must not modify state shared with other files.
+   *
+   * @return whether or not the file validated.
+   */
+  protected abstract boolean validate (File file, Validator validator)
+    throws Exception;
+
+  /** The result cache, if any. */
+  protected ResultCache _cache;
+}
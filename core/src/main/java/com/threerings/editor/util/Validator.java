@@ -3,6 +3,7 @@
 
 package com.threerings.editor.util;
 
+import java.io.File;
 import java.io.PrintStream;
 
 import java.lang.reflect.ParameterizedType;
@@ -16,6 +17,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import javax.annotation.Nullable;
+
 import com.samskivert.util.StringUtil;
 
 import com.google.common.base.Joiner;
@@ -93,6 +96,18 @@ public class Validator
     _out.println(getWhere() + " " + message);
   }
 
+  /**
+   * Sets the map in which to record the files of the resources (and resource configs) checked
+   * during validation, along with their last-modified times (zero if they don't exist).  This
+   * lets callers determine whether a cached result is still current.
+   *
+   * @param record the map in which to record the resources, or null to stop recording.
+   */
+  public void setResourceRecord (@Nullable Map<String, Long> record)
+  {
+    _resourceRecord = record;
+  }
+
   /**
    * Push an identifier onto the "where" string.
    * This should be immediately followed by a try block that pops in its finally.
@@ -324,6 +339,9 @@ public class Validator
       result = false;
     }
     for (ConfigId configId : _configs) {
+      if (_resourceRecord != null && cfgmgr.isResourceClass(configId.clazz)) {
+        recordResource(cfgmgr, configId.name);
+      }
       if (cfgmgr.getConfig(configId.clazz, configId.name) == null) {
         noteMissing(configId);
         result = false;
@@ -334,6 +352,9 @@ public class Validator
           Multimaps.asMap(_configsByConstraints).entrySet()) {
         Predicate<ManagedConfig> pred = PropertyUtil.getRawConfigPredicate(entry.getKey());
         for (ConfigId configId : entry.getValue()) {
+          if (_resourceRecord != null && cfgmgr.isResourceClass(configId.clazz)) {
+            recordResource(cfgmgr, configId.name);
+          }
           ManagedConfig cfg = cfgmgr.getRawConfig(configId.clazz, configId.name);
           if (cfg == null) {
             noteMissing(configId);
@@ -363,6 +384,20 @@ public class Validator
         ConfigGroup.getName(configId.clazz) + ": " + configId.name);
   }
 
+  /**
+   * Records the last-modified time of the specified resource in the resource record.
+   *
+   * @return the resource file.
+   */
+  protected File recordResource (ConfigManager cfgmgr, String path)
+  {
+    File file = cfgmgr.getResourceManager().getResourceFile(path);
+    if (_resourceRecord != null) {
+      _resourceRecord.put(file.getPath(), file.lastModified());
+    }
+    return file;
+  }
+
   /**
    * Adds a resource to the resources set.  If the resource has a stripped extension, it will
    * postfix an extension if a there's a single valid extension available.
@@ -439,7 +474,7 @@ public class Validator
      */
     protected boolean validateFullPath (ConfigManager cfgmgr, String path)
     {
-      return cfgmgr.getResourceManager().getResourceFile(path).exists();
+      return recordResource(cfgmgr, path).exists();
     }
 
     @Override
@@ -479,4 +514,7 @@ public class Validator
 
   /** Configs organized by their constraints. Initialized only when needed. */
   protected ListMultimap<ReferenceConstraints, ConfigId> _configsByConstraints;
+
+  /** If non-null, the map in which we record the resource files checked and their times. */
+  protected Map<String, Long> _resourceRecord;
 }
@@ -41,8 +41,6 @@ import java.util.Map;
 import java.util.Set;
 import java.util.EnumSet;
 
-import java.util.zip.DeflaterOutputStream;
-
 import com.google.common.collect.ImmutableCollection;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
@@ -72,6 +70,10 @@ public class BinaryExporter extends Exporter
   /** The compressed format flag. */
   public static final short COMPRESSED_FORMAT_FLAG = 0x1000;
 
+  /** The bits of the format flags that hold the id of the compression {@link Codec}.  Exports
+   * made before codecs were introduced leave these clear, which selects {@link Codec#DEFLATE}. */
+  public static final short CODEC_MASK = 0x000F;
+
   /** Indicates that a stored class is final. */
   public static final byte FINAL_CLASS_FLAG = (byte)(1 << 0);
 
@@ -109,9 +111,20 @@ public class BinaryExporter extends Exporter
    * @param compress if true, compress the output.
    */
   public BinaryExporter (OutputStream out, boolean compress)
+  {
+    this(out, compress ? Codec.DEFLATE : null);
+  }
+
+  /**
+   * Creates an exporter to write to the specified stream.
+   *
+   * @param codec the codec with which to compress the output, or <code>null</code> to leave it
+   * uncompressed.
+   */
+  public BinaryExporter (OutputStream out, Codec codec)
   {
     _out = new DataOutputStream(_base = out);
-    _compress = compress;
+    _codec = codec;
 
     // populate the class map with the bootstrap classes
     for (Class<?> clazz : BOOTSTRAP_CLASSES) {
@@ -134,11 +147,11 @@ public class BinaryExporter extends Exporter
       // write the preamble
       _out.writeInt(MAGIC_NUMBER);
       _out.writeShort(VERSION);
-      _out.writeShort(_compress ? COMPRESSED_FORMAT_FLAG : 0x0);
+      _out.writeShort(_codec == null ? 0x0 : COMPRESSED_FORMAT_FLAG | _codec.getId());
 
       // everything thereafter will be compressed if so requested
-      if (_compress) {
-        _out = new DataOutputStream(_defout = new DeflaterOutputStream(_base));
+      if (_codec != null) {
+        _out = new DataOutputStream(_compout = _codec.createOutputStream(_base));
       }
 
       // initialize mapping
@@ -224,7 +237,7 @@ public class BinaryExporter extends Exporter
   public void close ()
     throws IOException
   {
-    // close the underlying stream (automatically finishes the deflation)
+    // close the underlying stream (automatically finishes the compression)
     _out.close();
   }
 
@@ -232,9 +245,9 @@ public class BinaryExporter extends Exporter
   public void finish ()
     throws IOException
   {
-    // finish up the deflation, provided we ever started
-    if (_defout != null) {
-      _defout.finish();
+    // finish up the compression, provided we ever started
+    if (_compout != null) {
+      _codec.finish(_compout);
     }
   }
 
@@ -609,11 +622,11 @@ public class BinaryExporter extends Exporter
   /** The stream that we use for writing data. */
   protected DataOutputStream _out;
 
-  /** Whether or not to compress the output. */
-  protected boolean _compress;
+  /** The codec with which to compress the output, or null for none. */
+  protected Codec _codec;
 
-  /** The deflater stream between the data output and the underlying output. */
-  protected DeflaterOutputStream _defout;
+  /** The compressing stream between the data output and the underlying output. */
+  protected OutputStream _compout;
 
   /** Maps objects written to their integer ids.  A null value indicates that the stream has not
    * yet been initialized. */
@@ -30,6 +30,9 @@ import java.io.IOException;
 import java.io.InputStream;
 
 import java.lang.reflect.Array;
+
+import java.nio.ByteBuffer;
+
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -37,8 +40,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.EnumSet;
 
-import java.util.zip.InflaterInputStream;
-
 import com.google.common.base.Supplier;
 import com.google.common.collect.HashMultiset;
 import com.google.common.collect.ImmutableList;
@@ -52,6 +53,8 @@ import com.google.common.collect.Multiset;
 
 import com.samskivert.util.HashIntMap;
 
+import com.threerings.export.util.ByteBufferDataInputStream;
+
 import static com.threerings.export.Log.log;
 
 /**
@@ -78,7 +81,8 @@ public class BinaryImporter extends Importer
    */
   public BinaryImporter (InputStream in)
   {
-    _in = new DataInputStream(_base = in);
+    _base = in;
+    _in = (in instanceof ByteBufferDataInputStream) ? (DataInputStream)in : new DataInputStream(in);
 
     // populate the class map with the bootstrap classes
     for (int ii = 0; ii < BinaryExporter.BOOTSTRAP_CLASSES.length; ii++) {
@@ -89,6 +93,16 @@ public class BinaryImporter extends Importer
     _stringClass = getClassWrapper(String.class);
   }
 
+  /**
+   * Creates an importer to read from the specified buffer, starting at its current position.
+   * Uncompressed data is read directly from the buffer, with primitive arrays and buffers
+   * copied out in bulk.
+   */
+  public BinaryImporter (ByteBuffer buffer)
+  {
+    this(new ByteBufferDataInputStream(buffer));
+  }
+
   @Override
   public Object readObject ()
     throws IOException
@@ -132,7 +146,13 @@ public class BinaryImporter extends Importer
       boolean compressed = (flags & BinaryExporter.COMPRESSED_FORMAT_FLAG) != 0;
 
       // the rest of the stream may be compressed
-      if (compressed) _in = new DataInputStream(createInflaterStream());
+      if (compressed) {
+        int id = flags & BinaryExporter.CODEC_MASK;
+        if ((_codec = Codec.getCodec(id)) == null) {
+          throw new IOException(String.format("Unknown codec [id=%d].", id));
+        }
+        _in = new DataInputStream(createInflaterStream());
+      }
 
       _objectIdReader = _idReaderSupplier.get();
       _classIdReader = _idReaderSupplier.get();
@@ -485,11 +505,12 @@ public class BinaryImporter extends Importer
   }
 
   /**
-   * Create the inflater stream, overrideable.
+   * Create the stream that decompresses the data using the codec identified in the preamble,
+   * overrideable.
    */
   protected InputStream createInflaterStream ()
   {
-    return new InflaterInputStream(_base);
+    return _codec.createInputStream(_base);
   }
 
   /**
@@ -873,6 +894,9 @@ public class BinaryImporter extends Importer
   /** The stream that we use for reading data. */
   protected DataInputStream _in;
 
+  /** The codec with which the data is compressed, if any. */
+  protected Codec _codec;
+
   /** Maps ids to objects read.  A null value indicates that the stream has not yet been
    * initialized. */
   protected HashIntMap<Object> _objects;
@@ -0,0 +1,183 @@
+//
+// $Id$
+//
+// Clyde library - tools for developing networked games
+// Copyright (C) 2005-2012 Three Rings Design, Inc.
+// http://code.google.com/p/clyde/
+//
+// Redistribution and use in source and binary forms, with or without modification, are permitted
+// provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this list of
+//    conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+//    conditions and the following disclaimer in the documentation and/or other materials provided
+//    with the distribution.
+//
+// THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR IMPLIED WARRANTIES,
+// INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+// PARTICULAR PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT,
+// INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+// TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+// LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package com.threerings.export;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * A compression codec that may be applied to the body of a binary export.  The id of the codec
+ * is recorded in the format flags written by {@link BinaryExporter}, allowing the importer to
+ * select the matching decoder.
+ */
+public abstract class Codec
+{
+  /** The original (zlib) compression, recorded with id zero so that exports made before codecs
+   * were introduced still load. */
+  public static final Codec DEFLATE = new Codec(0, "deflate") {
+    public OutputStream createOutputStream (OutputStream out) {
+      return new DeflaterOutputStream(out);
+    }
+    public void finish (OutputStream out) throws IOException {
+      ((DeflaterOutputStream)out).finish();
+    }
+    public InputStream createInputStream (InputStream in) {
+      return new InflaterInputStream(in);
+    }
+  };
+
+  /** A fast LZ77 codec: the output is larger than that of {@link #DEFLATE}, but it decodes
+   * several times faster. */
+  public static final Codec LZ = new LZCodec(1, "lz");
+
+  /**
+   * Returns the codec with the specified id, or <code>null</code> if there is no such codec.
+   */
+  public static Codec getCodec (int id)
+  {
+    return (id >= 0 && id < _codecs.length) ? _codecs[id] : null;
+  }
+
+  /**
+   * Returns the codec with the specified name, or <code>null</code> if there is no such codec.
+   */
+  public static Codec getCodec (String name)
+  {
+    for (Codec codec : _codecs) {
+      if (codec != null && codec.getName().equals(name)) {
+        return codec;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns an array containing all registered codecs.
+   */
+  public static Codec[] getCodecs ()
+  {
+    int count = 0;
+    for (Codec codec : _codecs) {
+      if (codec != null) {
+        count++;
+      }
+    }
+    Codec[] codecs = new Codec[count];
+    int idx = 0;
+    for (Codec codec : _codecs) {
+      if (codec != null) {
+        codecs[idx++] = codec;
+      }
+    }
+    return codecs;
+  }
+
+  /**
+   * Registers a codec so that it may be selected by id or name.
+   *
+   * @throws IllegalArgumentException if the codec's id does not fit within
+   * {@link BinaryExporter#CODEC_MASK} or is already in use.
+   */
+  public static void register (Codec codec)
+  {
+    int id = codec.getId();
+    if (id < 0 || id >= _codecs.length) {
+      throw new IllegalArgumentException("Invalid codec id [id=" + id + "].");
+    }
+    if (_codecs[id] != null) {
+      throw new IllegalArgumentException("Duplicate codec id [id=" + id + "].");
+    }
+    _codecs[id] = codec;
+  }
+
+  /**
+   * Creates a new codec.
+   *
+   * @param id the id to record in the format flags.
+   */
+  protected Codec (int id, String name)
+  {
+    _id = id;
+    _name = name;
+  }
+
+  /**
+   * Returns the id of the codec.
+   */
+  public int getId ()
+  {
+    return _id;
+  }
+
+  /**
+   * Returns the name of the codec.
+   */
+  public String getName ()
+  {
+    return _name;
+  }
+
+  /**
+   * Creates a stream that will compress data written to it and pass it to the supplied stream.
+   */
+  public abstract OutputStream createOutputStream (OutputStream out);
+
+  /**
+   * Finishes writing compressed data to a stream created by {@link #createOutputStream} without
+   * closing the underlying stream.
+   */
+  public abstract void finish (OutputStream out)
+    throws IOException;
+
+  /**
+   * Creates a stream that will decompress data read from the supplied stream.
+   */
+  public abstract InputStream createInputStream (InputStream in);
+
+  @Override
+  public String toString ()
+  {
+    return _name;
+  }
+
+  /** The id of the codec. */
+  protected final int _id;
+
+  /** The name of the codec. */
+  protected final String _name;
+
+  /** The registered codecs, indexed by id. */
+  protected static Codec[] _codecs = new Codec[BinaryExporter.CODEC_MASK + 1];
+
+  static {
+    register(DEFLATE);
+    register(LZ);
+  }
+}
@@ -0,0 +1,496 @@
+//
+// $Id$
+//
+// Clyde library - tools for developing networked games
+// Copyright (C) 2005-2012 Three Rings Design, Inc.
+// http://code.google.com/p/clyde/
+//
+// Redistribution and use in source and binary forms, with or without modification, are permitted
+// provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this list of
+//    conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+//    conditions and the following disclaimer in the documentation and/or other materials provided
+//    with the distribution.
+//
+// THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR IMPLIED WARRANTIES,
+// INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+// PARTICULAR PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT,
+// INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+// TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+// LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package com.threerings.export;
+
+import java.io.EOFException;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+
+import java.util.Arrays;
+
+/**
+ * A pure Java LZ77 codec in the style of LZ4: literals and matches are written as byte-aligned
+ * sequences without entropy coding, which makes decoding little more than a series of array
+ * copies.
+ *
+ * <p>The stream consists of blocks of at most {@link #BLOCK_SIZE} uncompressed bytes, each
+ * preceded by its uncompressed length and its compressed length (zero if the block is stored
+ * uncompressed) as variable-length integers.  A zero uncompressed length marks the end of the
+ * stream.  Within a compressed block, each sequence is a token byte (high nibble: literal
+ * length, low nibble: match length minus {@link #MIN_MATCH}), any length extension bytes, the
+ * literals, and (unless the sequence ends the block) a two-byte little-endian match offset
+ * followed by any match length extension bytes.
+ */
+public class LZCodec extends Codec
+{
+  /** The maximum number of uncompressed bytes in a block. */
+  public static final int BLOCK_SIZE = 64 * 1024;
+
+  /**
+   * Creates a new LZ codec.
+   */
+  public LZCodec (int id, String name)
+  {
+    super(id, name);
+  }
+
+  @Override
+  public OutputStream createOutputStream (OutputStream out)
+  {
+    return new LZOutputStream(out);
+  }
+
+  @Override
+  public void finish (OutputStream out)
+    throws IOException
+  {
+    ((LZOutputStream)out).finish();
+  }
+
+  @Override
+  public InputStream createInputStream (InputStream in)
+  {
+    return new LZInputStream(in);
+  }
+
+  /**
+   * Compresses a block of data.
+   *
+   * @param dest the destination buffer, which must be at least {@link #getMaxCompressedLength}
+   * bytes long.
+   * @param table the hash table, which must be {@link #HASH_SIZE} entries long.
+   * @return the length of the compressed data.
+   */
+  public static int compress (byte[] src, int len, byte[] dest, int[] table)
+  {
+    Arrays.fill(table, -1);
+    int ip = 0, anchor = 0, op = 0;
+    for (int limit = len - MIN_MATCH; ip <= limit; ) {
+      int seq = readInt(src, ip);
+      int hash = (seq * -1640531535) >>> (32 - HASH_LOG);
+      int ref = table[hash];
+      table[hash] = ip;
+      if (ref < 0 || ip - ref > MAX_OFFSET || readInt(src, ref) != seq) {
+        // skip ahead faster the longer we go without finding a match
+        ip += 1 + ((ip - anchor) >> SKIP_SHIFT);
+        continue;
+      }
+      int mlen = MIN_MATCH;
+      while (ip + mlen < len && src[ref + mlen] == src[ip + mlen]) {
+        mlen++;
+      }
+      int llen = ip - anchor;
+      int mcode = mlen - MIN_MATCH;
+      dest[op++] = (byte)((Math.min(llen, 15) << 4) | Math.min(mcode, 15));
+      op = writeLength(llen, dest, op);
+      System.arraycopy(src, anchor, dest, op, llen);
+      op += llen;
+      int offset = ip - ref;
+      dest[op++] = (byte)offset;
+      dest[op++] = (byte)(offset >> 8);
+      op = writeLength(mcode, dest, op);
+      ip += mlen;
+      anchor = ip;
+    }
+    // the final sequence contains only literals
+    int llen = len - anchor;
+    dest[op++] = (byte)(Math.min(llen, 15) << 4);
+    op = writeLength(llen, dest, op);
+    System.arraycopy(src, anchor, dest, op, llen);
+    return op + llen;
+  }
+
+  /**
+   * Decompresses a block of data.
+   *
+   * @param len the uncompressed length.
+   * @throws StreamCorruptedException if the data is invalid.
+   */
+  public static void decompress (byte[] src, int clen, byte[] dest, int len)
+    throws IOException
+  {
+    int ip = 0, op = 0;
+    while (true) {
+      if (ip >= clen) {
+        throw new StreamCorruptedException("Missing sequence token.");
+      }
+      int token = src[ip++] & 0xFF;
+      int llen = token >>> 4;
+      if (llen == 15) {
+        int b;
+        do {
+          if (ip >= clen) {
+            throw new StreamCorruptedException("Truncated literal length.");
+          }
+          llen += (b = src[ip++] & 0xFF);
+        } while (b == 255);
+      }
+      if (ip + llen > clen || op + llen > len) {
+        throw new StreamCorruptedException("Literals out of bounds.");
+      }
+      System.arraycopy(src, ip, dest, op, llen);
+      ip += llen;
+      op += llen;
+      if (ip == clen) {
+        break;
+      }
+      if (ip + 2 > clen) {
+        throw new StreamCorruptedException("Truncated match offset.");
+      }
+      int offset = (src[ip++] & 0xFF) | (src[ip++] & 0xFF) << 8;
+      int mlen = token & 0x0F;
+      if (mlen == 15) {
+        int b;
+        do {
+          if (ip >= clen) {
+            throw new StreamCorruptedException("Truncated match length.");
+          }
+          mlen += (b = src[ip++] & 0xFF);
+        } while (b == 255);
+      }
+      mlen += MIN_MATCH;
+      int ref = op - offset;
+      if (offset == 0 || ref < 0 || op + mlen > len) {
+        throw new StreamCorruptedException("Match out of bounds.");
+      }
+      if (offset >= mlen) {
+        System.arraycopy(dest, ref, dest, op, mlen);
+        op += mlen;
+      } else {
+        // overlapping matches repeat the preceding bytes
+        for (int end = op + mlen; op < end; ) {
+          dest[op++] = dest[ref++];
+        }
+      }
+    }
+    if (op != len) {
+      throw new StreamCorruptedException("Block length mismatch [expected=" + len +
+        ", actual=" + op + "].");
+    }
+  }
+
+  /**
+   * Returns the maximum length of the compressed form of a block of the specified length.
+   */
+  public static int getMaxCompressedLength (int len)
+  {
+    return len + len/255 + 16;
+  }
+
+  /**
+   * Compresses data into blocks.
+   */
+  protected static class LZOutputStream extends FilterOutputStream
+  {
+    /**
+     * Creates a new stream that writes compressed data to the supplied stream.
+     */
+    public LZOutputStream (OutputStream out)
+    {
+      super(out);
+    }
+
+    /**
+     * Writes any buffered data and the end-of-stream marker without closing the underlying
+     * stream.
+     */
+    public void finish ()
+      throws IOException
+    {
+      if (!_finished) {
+        writeBlock();
+        out.write(0);
+        _finished = true;
+      }
+    }
+
+    @Override
+    public void write (int b)
+      throws IOException
+    {
+      if (_count == BLOCK_SIZE) {
+        writeBlock();
+      }
+      _buf[_count++] = (byte)b;
+    }
+
+    @Override
+    public void write (byte[] b, int off, int len)
+      throws IOException
+    {
+      while (len > 0) {
+        if (_count == BLOCK_SIZE) {
+          writeBlock();
+        }
+        int length = Math.min(len, BLOCK_SIZE - _count);
+        System.arraycopy(b, off, _buf, _count, length);
+        _count += length;
+        off += length;
+        len -= length;
+      }
+    }
+
+    @Override
+    public void flush ()
+      throws IOException
+    {
+      writeBlock();
+      out.flush();
+    }
+
+    @Override
+    public void close ()
+      throws IOException
+    {
+      finish();
+      out.close();
+    }
+
+    /**
+     * Writes out the buffered data, if any, as a block.
+     */
+    protected void writeBlock ()
+      throws IOException
+    {
+      if (_count == 0) {
+        return;
+      }
+      if (_finished) {
+        throw new IOException("Stream already finished.");
+      }
+      int clen = compress(_buf, _count, _cbuf, _table);
+      writeVarInt(_count);
+      if (clen < _count) {
+        writeVarInt(clen);
+        out.write(_cbuf, 0, clen);
+      } else {
+        writeVarInt(0);
+        out.write(_buf, 0, _count);
+      }
+      _count = 0;
+    }
+
+    /**
+     * Writes a variable-length integer to the underlying stream.
+     */
+    protected void writeVarInt (int value)
+      throws IOException
+    {
+      for (; (value & ~0x7F) != 0; value >>>= 7) {
+        out.write((value & 0x7F) | 0x80);
+      }
+      out.write(value);
+    }
+
+    /** The uncompressed data buffer. */
+    protected byte[] _buf = new byte[BLOCK_SIZE];
+
+    /** The number of bytes in the uncompressed buffer. */
+    protected int _count;
+
+    /** The compressed data buffer. */
+    protected byte[] _cbuf = new byte[getMaxCompressedLength(BLOCK_SIZE)];
+
+    /** The match hash table. */
+    protected int[] _table = new int[HASH_SIZE];
+
+    /** Set when we have written the end-of-stream marker. */
+    protected boolean _finished;
+  }
+
+  /**
+   * Decompresses blocks of data.
+   */
+  protected static class LZInputStream extends InputStream
+  {
+    /**
+     * Creates a new stream that reads compressed data from the supplied stream.
+     */
+    public LZInputStream (InputStream in)
+    {
+      _in = in;
+    }
+
+    @Override
+    public int read ()
+      throws IOException
+    {
+      return (_pos < _count || readBlock()) ? (_buf[_pos++] & 0xFF) : -1;
+    }
+
+    @Override
+    public int read (byte[] b, int off, int len)
+      throws IOException
+    {
+      if (len == 0) {
+        return 0;
+      }
+      if (_pos == _count && !readBlock()) {
+        return -1;
+      }
+      int length = Math.min(len, _count - _pos);
+      System.arraycopy(_buf, _pos, b, off, length);
+      _pos += length;
+      return length;
+    }
+
+    @Override
+    public int available ()
+    {
+      return _count - _pos;
+    }
+
+    @Override
+    public void close ()
+      throws IOException
+    {
+      _in.close();
+    }
+
+    /**
+     * Reads the next block into the buffer.
+     *
+     * @return false if we have reached the end of the stream.
+     */
+    protected boolean readBlock ()
+      throws IOException
+    {
+      if (_eof) {
+        return false;
+      }
+      int len = readVarInt();
+      if (len == 0) {
+        _eof = true;
+        return false;
+      }
+      int clen = readVarInt();
+      if (len > BLOCK_SIZE || clen >= len) {
+        throw new StreamCorruptedException("Invalid block header [length=" + len +
+          ", compressed=" + clen + "].");
+      }
+      if (clen == 0) {
+        readFully(_buf, len);
+      } else {
+        readFully(_cbuf, clen);
+        decompress(_cbuf, clen, _buf, len);
+      }
+      _pos = 0;
+      _count = len;
+      return true;
+    }
+
+    /**
+     * Reads a variable-length integer from the underlying stream.
+     */
+    protected int readVarInt ()
+      throws IOException
+    {
+      int value = 0;
+      for (int shift = 0; shift < 32; shift += 7) {
+        int b = _in.read();
+        if (b < 0) {
+          throw new EOFException();
+        }
+        value |= (b & 0x7F) << shift;
+        if ((b & 0x80) == 0) {
+          return value;
+        }
+      }
+      throw new StreamCorruptedException("Invalid variable-length integer.");
+    }
+
+    /**
+     * Reads exactly the specified number of bytes from the underlying stream.
+     */
+    protected void readFully (byte[] b, int len)
+      throws IOException
+    {
+      for (int off = 0; off < len; ) {
+        int read = _in.read(b, off, len - off);
+        if (read < 0) {
+          throw new EOFException();
+        }
+        off += read;
+      }
+    }
+
+    /** The underlying stream. */
+    protected InputStream _in;
+
+    /** The uncompressed data buffer. */
+    protected byte[] _buf = new byte[BLOCK_SIZE];
+
+    /** The read position within the buffer and the number of bytes it contains. */
+    protected int _pos, _count;
+
+    /** The compressed data buffer. */
+    protected byte[] _cbuf = new byte[BLOCK_SIZE];
+
+    /** Set when we have read the end-of-stream marker. */
+    protected boolean _eof;
+  }
+
+  /**
+   * Writes the extension bytes for a sequence length, if necessary.
+   */
+  protected static int writeLength (int length, byte[] dest, int op)
+  {
+    if (length >= 15) {
+      for (length -= 15; length >= 255; length -= 255) {
+        dest[op++] = (byte)255;
+      }
+      dest[op++] = (byte)length;
+    }
+    return op;
+  }
+
+  /**
+   * Reads a little-endian integer from the specified array.
+   */
+  protected static int readInt (byte[] b, int off)
+  {
+    return (b[off] & 0xFF) | (b[off + 1] & 0xFF) << 8 |
+      (b[off + 2] & 0xFF) << 16 | (b[off + 3] & 0xFF) << 24;
+  }
+
+  /** The minimum length of a match. */
+  protected static final int MIN_MATCH = 4;
+
+  /** The maximum offset of a match. */
+  protected static final int MAX_OFFSET = 0xFFFF;
+
+  /** The base-2 log of the hash table size. */
+  protected static final int HASH_LOG = 12;
+
+  /** The size of the hash table. */
+  protected static final int HASH_SIZE = 1 << HASH_LOG;
+
+  /** Controls how quickly we skip ahead through incompressible data. */
+  protected static final int SKIP_SHIFT = 6;
+}
@@ -32,9 +32,10 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
 import com.threerings.util.ReflectionUtil;
@@ -64,6 +65,18 @@ public class ObjectMarshaller
     return _prototype;
   }
 
+  /**
+   * Returns the exportable fields of the class (those written by the default field writer).
+   */
+  public Field[] getFields ()
+  {
+    Field[] fields = new Field[_fields.length];
+    for (int ii = 0; ii < fields.length; ii++) {
+      fields[ii] = _fields[ii]._field;
+    }
+    return fields;
+  }
+
   /**
    * Reads the fields of an object from the specified importer.
    */
@@ -238,6 +251,5 @@ public class ObjectMarshaller
   protected Object _prototype;
 
   /** Maps classes to created marshallers. */
-  protected static HashMap<Class<?>, ObjectMarshaller> _marshallers =
-    new HashMap<Class<?>, ObjectMarshaller>();
+  protected static Map<Class<?>, ObjectMarshaller> _marshallers = Maps.newConcurrentMap();
 }
@@ -38,12 +38,15 @@ import java.nio.IntBuffer;
 import java.nio.LongBuffer;
 import java.nio.ShortBuffer;
 
-import java.util.HashMap;
+import java.util.Map;
 
 import com.google.common.base.Charsets;
+import com.google.common.collect.Maps;
 
 import org.lwjgl.BufferUtils;
 
+import com.threerings.export.util.ByteBufferDataInputStream;
+
 import static com.threerings.export.Log.log;
 
 /**
@@ -116,6 +119,22 @@ public abstract class Streamer<T>
     return streamer;
   }
 
+  /**
+   * Returns a big-endian buffer containing the next <code>length</code> bytes of the stream, for
+   * bulk reads of primitive data.  If the stream reads from a buffer, this is simply a view of
+   * it; otherwise, the bytes are read into a new array.
+   */
+  protected static ByteBuffer readBytes (DataInputStream in, int length)
+    throws IOException
+  {
+    if (in instanceof ByteBufferDataInputStream) {
+      return ((ByteBufferDataInputStream)in).slice(length);
+    }
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return ByteBuffer.wrap(bytes);
+  }
+
   /**
    * Writes an object to the stream.
    */
@@ -129,8 +148,7 @@ public abstract class Streamer<T>
     throws IOException, ClassNotFoundException;
 
   /** Registered streamers. */
-  protected static HashMap<Class<?>, Streamer<?>> _streamers =
-      new HashMap<Class<?>, Streamer<?>>();
+  protected static Map<Class<?>, Streamer<?>> _streamers = Maps.newConcurrentMap();
   static {
     // register basic streamers for wrapper types, primitive arrays
     Streamer<?> streamer = new Streamer<Boolean>() {
@@ -262,9 +280,7 @@ public abstract class Streamer<T>
       }
       public byte[] read (DataInputStream in) throws IOException {
         byte[] value = new byte[in.readInt()];
-        for (int ii = 0; ii < value.length; ii++) {
-          value[ii] = in.readByte();
-        }
+        in.readFully(value);
         return value;
       }
     });
@@ -277,9 +293,7 @@ public abstract class Streamer<T>
       }
       public char[] read (DataInputStream in) throws IOException {
         char[] value = new char[in.readInt()];
-        for (int ii = 0; ii < value.length; ii++) {
-          value[ii] = in.readChar();
-        }
+        readBytes(in, value.length * 2).asCharBuffer().get(value);
         return value;
       }
     });
@@ -292,9 +306,7 @@ public abstract class Streamer<T>
       }
       public double[] read (DataInputStream in) throws IOException {
         double[] value = new double[in.readInt()];
-        for (int ii = 0; ii < value.length; ii++) {
-          value[ii] = in.readDouble();
-        }
+        readBytes(in, value.length * 8).asDoubleBuffer().get(value);
         return value;
       }
     });
@@ -307,9 +319,7 @@ public abstract class Streamer<T>
       }
       public float[] read (DataInputStream in) throws IOException {
         float[] value = new float[in.readInt()];
-        for (int ii = 0; ii < value.length; ii++) {
-          value[ii] = in.readFloat();
-        }
+        readBytes(in, value.length * 4).asFloatBuffer().get(value);
         return value;
       }
     });
@@ -322,9 +332,7 @@ public abstract class Streamer<T>
       }
       public int[] read (DataInputStream in) throws IOException {
         int[] value = new int[in.readInt()];
-        for (int ii = 0; ii < value.length; ii++) {
-          value[ii] = in.readInt();
-        }
+        readBytes(in, value.length * 4).asIntBuffer().get(value);
         return value;
       }
     });
@@ -337,9 +345,7 @@ public abstract class Streamer<T>
       }
       public long[] read (DataInputStream in) throws IOException {
         long[] value = new long[in.readInt()];
-        for (int ii = 0; ii < value.length; ii++) {
-          value[ii] = in.readLong();
-        }
+        readBytes(in, value.length * 8).asLongBuffer().get(value);
         return value;
       }
     });
@@ -352,9 +358,7 @@ public abstract class Streamer<T>
       }
       public short[] read (DataInputStream in) throws IOException {
         short[] value = new short[in.readInt()];
-        for (int ii = 0; ii < value.length; ii++) {
-          value[ii] = in.readShort();
-        }
+        readBytes(in, value.length * 2).asShortBuffer().get(value);
         return value;
       }
     });
@@ -379,9 +383,7 @@ public abstract class Streamer<T>
       }
       public ByteBuffer read (DataInputStream in) throws IOException {
         ByteBuffer value = BufferUtils.createByteBuffer(in.readInt());
-        for (int ii = 0, nn = value.limit(); ii < nn; ii++) {
-          value.put(ii, in.readByte());
-        }
+        value.duplicate().put(readBytes(in, value.limit()));
         return value;
       }
     });
@@ -394,9 +396,7 @@ public abstract class Streamer<T>
       }
       public CharBuffer read (DataInputStream in) throws IOException {
         CharBuffer value = BufferUtils.createCharBuffer(in.readInt());
-        for (int ii = 0, nn = value.limit(); ii < nn; ii++) {
-          value.put(ii, in.readChar());
-        }
+        value.duplicate().put(readBytes(in, value.limit() * 2).asCharBuffer());
         return value;
       }
     });
@@ -409,9 +409,7 @@ public abstract class Streamer<T>
       }
       public DoubleBuffer read (DataInputStream in) throws IOException {
         DoubleBuffer value = BufferUtils.createDoubleBuffer(in.readInt());
-        for (int ii = 0, nn = value.limit(); ii < nn; ii++) {
-          value.put(ii, in.readDouble());
-        }
+        value.duplicate().put(readBytes(in, value.limit() * 8).asDoubleBuffer());
         return value;
       }
     });
@@ -424,9 +422,7 @@ public abstract class Streamer<T>
       }
       public FloatBuffer read (DataInputStream in) throws IOException {
         FloatBuffer value = BufferUtils.createFloatBuffer(in.readInt());
-        for (int ii = 0, nn = value.limit(); ii < nn; ii++) {
-          value.put(ii, in.readFloat());
-        }
+        value.duplicate().put(readBytes(in, value.limit() * 4).asFloatBuffer());
         return value;
       }
     });
@@ -439,9 +435,7 @@ public abstract class Streamer<T>
       }
       public IntBuffer read (DataInputStream in) throws IOException {
         IntBuffer value = BufferUtils.createIntBuffer(in.readInt());
-        for (int ii = 0, nn = value.limit(); ii < nn; ii++) {
-          value.put(ii, in.readInt());
-        }
+        value.duplicate().put(readBytes(in, value.limit() * 4).asIntBuffer());
         return value;
       }
     });
@@ -454,9 +448,7 @@ public abstract class Streamer<T>
       }
       public LongBuffer read (DataInputStream in) throws IOException {
         LongBuffer value = BufferUtils.createLongBuffer(in.readInt());
-        for (int ii = 0, nn = value.limit(); ii < nn; ii++) {
-          value.put(ii, in.readLong());
-        }
+        value.duplicate().put(readBytes(in, value.limit() * 8).asLongBuffer());
         return value;
       }
     });
@@ -469,9 +461,7 @@ public abstract class Streamer<T>
       }
       public ShortBuffer read (DataInputStream in) throws IOException {
         ShortBuffer value = BufferUtils.createShortBuffer(in.readInt());
-        for (int ii = 0, nn = value.limit(); ii < nn; ii++) {
-          value.put(ii, in.readShort());
-        }
+        value.duplicate().put(readBytes(in, value.limit() * 2).asShortBuffer());
         return value;
       }
     });
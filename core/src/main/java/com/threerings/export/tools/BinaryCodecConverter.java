@@ -0,0 +1,275 @@
+//
+// $Id$
+//
+// Clyde library - tools for developing networked games
+// Copyright (C) 2005-2012 Three Rings Design, Inc.
+// http://code.google.com/p/clyde/
+//
+// Redistribution and use in source and binary forms, with or without modification, are permitted
+// provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this list of
+//    conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+//    conditions and the following disclaimer in the documentation and/or other materials provided
+//    with the distribution.
+//
+// THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR IMPLIED WARRANTIES,
+// INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+// PARTICULAR PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT,
+// INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+// TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+// LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package com.threerings.export.tools;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import java.util.List;
+
+import org.apache.tools.ant.DirectoryScanner;
+
+import com.google.common.collect.Lists;
+
+import com.samskivert.util.ArrayUtil;
+
+import com.threerings.export.BinaryExporter;
+import com.threerings.export.BinaryImporter;
+import com.threerings.export.Codec;
+
+import static com.threerings.export.Log.log;
+
+/**
+ * Re-encodes binary export files with a given compression codec, reporting the encode and decode
+ * throughput and compression ratio of every available codec on the same data.
+ */
+public class BinaryCodecConverter
+{
+  /**
+   * Program entry point.
+   */
+  public static void main (String[] args)
+    throws Exception
+  {
+    // consume the options
+    boolean write = true;
+    while (args.length > 0 && args[0].startsWith("-")) {
+      String options = args[0];
+      args = ArrayUtil.splice(args, 0, 1);
+      for (int ii = 1, nn = options.length(); ii < nn; ii++) {
+        char option = options.charAt(ii);
+        switch (option) {
+          case 'n':
+            write = false;
+            break;
+          default:
+            System.err.println("Unrecognized option: -" + option);
+            System.exit(1);
+        }
+      }
+    }
+
+    Codec codec = (args.length == 2) ? Codec.getCodec(args[0]) : null;
+    if (codec == null) {
+      System.err.println(
+        "Usage: BinaryCodecConverter [-options] <codec> <binary input file pattern>");
+      System.err.println();
+      System.err.println(
+        "where codec is one of:");
+      for (Codec available : Codec.getCodecs()) {
+        System.err.println("    " + available.getName());
+      }
+      System.err.println();
+      System.err.println(
+        "and options include:");
+      System.err.println(
+        "    -n            report statistics only; do not rewrite files");
+      return;
+    }
+    convert(args[1], write ? codec : null);
+  }
+
+  /**
+   * Measures (and, if a codec is given, converts) the file(s) identified by the given pattern,
+   * then prints the statistics for each codec.
+   *
+   * @param codec the codec with which to rewrite the files, or <code>null</code> to leave them
+   * unchanged.
+   */
+  public static void convert (String pattern, Codec codec)
+    throws IOException
+  {
+    DirectoryScanner scanner = new DirectoryScanner();
+    scanner.setBasedir(".");
+    scanner.setIncludes(new String[] { pattern });
+    scanner.scan();
+    Codec[] codecs = Codec.getCodecs();
+    Stats[] stats = new Stats[codecs.length];
+    for (int ii = 0; ii < codecs.length; ii++) {
+      stats[ii] = new Stats(codecs[ii]);
+    }
+    int count = 0;
+    for (String source : scanner.getIncludedFiles()) {
+      try {
+        List<Object> objects = read(source);
+        byte[] raw = write(objects, null);
+        for (Stats stat : stats) {
+          stat.measure(raw);
+        }
+        if (codec != null) {
+          replace(new File(source), write(objects, codec));
+        }
+        count++;
+      } catch (IOException e) {
+        log.warning("Error converting file.", "file", source, e);
+      }
+    }
+
+    System.out.println(count + " file(s)" + (codec == null ? "" : " converted to " + codec));
+    System.out.println(String.format("%-10s %14s %14s %8s %12s %12s",
+      "codec", "raw bytes", "encoded bytes", "ratio", "encode MB/s", "decode MB/s"));
+    for (Stats stat : stats) {
+      System.out.println(stat);
+    }
+  }
+
+  /**
+   * Reads all of the objects in the specified file.
+   */
+  protected static List<Object> read (String source)
+    throws IOException
+  {
+    BinaryImporter in = new BinaryImporter(new FileInputStream(source));
+    List<Object> objects = Lists.newArrayList();
+    try {
+      while (true) {
+        objects.add(in.readObject());
+      }
+    } catch (EOFException e) {
+      // no problem
+    } finally {
+      in.close();
+    }
+    return objects;
+  }
+
+  /**
+   * Writes the supplied objects to a byte array using the given codec (or none).
+   */
+  protected static byte[] write (List<Object> objects, Codec codec)
+    throws IOException
+  {
+    ByteArrayOutputStream bout = new ByteArrayOutputStream();
+    BinaryExporter out = new BinaryExporter(bout, codec);
+    try {
+      for (int ii = 0, nn = objects.size(); ii < nn; ii++) {
+        out.writeObject(objects.get(ii));
+      }
+    } finally {
+      out.close();
+    }
+    return bout.toByteArray();
+  }
+
+  /**
+   * Replaces the contents of the specified file by writing them to a temporary file in the same
+   * directory and renaming it over the original, so that a failure never leaves the file
+   * truncated.
+   */
+  protected static void replace (File file, byte[] bytes)
+    throws IOException
+  {
+    File tmp = File.createTempFile(file.getName(), ".tmp", file.getAbsoluteFile().getParentFile());
+    try {
+      FileOutputStream out = new FileOutputStream(tmp);
+      try {
+        out.write(bytes);
+      } finally {
+        out.close();
+      }
+      Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      tmp.delete(); // no-op if the move succeeded
+    }
+  }
+
+  /**
+   * Accumulates the statistics for a single codec.
+   */
+  protected static class Stats
+  {
+    /** The codec being measured. */
+    public final Codec codec;
+
+    /** The total number of raw and encoded bytes. */
+    public long rawBytes, encodedBytes;
+
+    /** The total time spent encoding and decoding, in nanoseconds. */
+    public long encodeTime, decodeTime;
+
+    /**
+     * Creates a new set of statistics for the specified codec.
+     */
+    public Stats (Codec codec)
+    {
+      this.codec = codec;
+    }
+
+    /**
+     * Encodes and decodes the supplied data, adding the results to the totals.
+     */
+    public void measure (byte[] raw)
+      throws IOException
+    {
+      ByteArrayOutputStream bout = new ByteArrayOutputStream(raw.length);
+      long start = System.nanoTime();
+      OutputStream out = codec.createOutputStream(bout);
+      out.write(raw);
+      codec.finish(out);
+      encodeTime += System.nanoTime() - start;
+      byte[] encoded = bout.toByteArray();
+
+      byte[] buf = new byte[raw.length];
+      start = System.nanoTime();
+      InputStream in = codec.createInputStream(new ByteArrayInputStream(encoded));
+      for (int off = 0, read; off < buf.length; off += read) {
+        if ((read = in.read(buf, off, buf.length - off)) < 0) {
+          throw new EOFException();
+        }
+      }
+      decodeTime += System.nanoTime() - start;
+
+      rawBytes += raw.length;
+      encodedBytes += encoded.length;
+    }
+
+    @Override
+    public String toString ()
+    {
+      return String.format("%-10s %14d %14d %8.3f %12.1f %12.1f", codec, rawBytes, encodedBytes,
+        (rawBytes == 0) ? 0f : (double)encodedBytes / rawBytes,
+        getThroughput(encodeTime), getThroughput(decodeTime));
+    }
+
+    /**
+     * Returns the throughput in (raw) megabytes per second for the given time.
+     */
+    protected double getThroughput (long time)
+    {
+      return (time == 0L) ? 0.0 : (rawBytes / (1024.0 * 1024.0)) / (time / 1e9);
+    }
+  }
+}
@@ -37,6 +37,7 @@ import com.samskivert.util.ArrayUtil;
 import com.samskivert.util.FileUtil;
 
 import com.threerings.export.BinaryExporter;
+import com.threerings.export.Codec;
 import com.threerings.export.XMLImporter;
 
 import static com.threerings.export.Log.log;
@@ -111,9 +112,19 @@ public class XMLToBinaryConverter
    */
   public static void convert (String source, String dest, boolean compress)
     throws IOException
+  {
+    convert(source, dest, compress ? Codec.DEFLATE : null);
+  }
+
+  /**
+   * Performs the actual conversion, compressing the output with the specified codec (if
+   * non-null).
+   */
+  public static void convert (String source, String dest, Codec codec)
+    throws IOException
   {
     XMLImporter in = new XMLImporter(new FileInputStream(source));
-    BinaryExporter out = new BinaryExporter(new FileOutputStream(dest), compress);
+    BinaryExporter out = new BinaryExporter(new FileOutputStream(dest), codec);
     try {
       while (true) {
         out.writeObject(in.readObject());
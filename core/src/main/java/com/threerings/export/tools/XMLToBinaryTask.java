@@ -35,6 +35,8 @@ import org.apache.tools.ant.DirectoryScanner;
 import org.apache.tools.ant.Task;
 import org.apache.tools.ant.types.FileSet;
 
+import com.threerings.export.Codec;
+
 /**
  * Converts XML export files into binary export files.
  */
@@ -56,6 +58,15 @@ public class XMLToBinaryTask extends Task
     _compress = compress;
   }
 
+  /**
+   * Sets the name of the codec with which to compress the resulting files (defaults to
+   * <code>deflate</code>).
+   */
+  public void setCodec (String codec)
+  {
+    _codec = codec;
+  }
+
   /**
    * Adds a fileset to the list of sets to process.
    */
@@ -68,12 +79,16 @@ public class XMLToBinaryTask extends Task
   public void execute ()
     throws BuildException
   {
+    Codec codec = Codec.getCodec(_codec);
+    if (codec == null) {
+      throw new BuildException("Unknown codec: " + _codec);
+    }
     for (FileSet fs : _filesets) {
       DirectoryScanner ds = fs.getDirectoryScanner(getProject());
       File fromDir = fs.getDir(getProject());
       for (String file : ds.getIncludedFiles()) {
         try {
-          convert(fromDir, file);
+          convert(fromDir, file, codec);
         } catch (Exception e) {
           System.err.println("Error converting " + new File(fromDir, file) + ": " + e);
         }
@@ -84,7 +99,7 @@ public class XMLToBinaryTask extends Task
   /**
    * Converts a single file.
    */
-  protected void convert (File sourceDir, String sourceName)
+  protected void convert (File sourceDir, String sourceName, Codec codec)
     throws IOException
   {
     // find the path of the target file
@@ -107,7 +122,7 @@ public class XMLToBinaryTask extends Task
     }
 
     // perform the conversion
-    XMLToBinaryConverter.convert(source.getPath(), target.getPath(), _compress);
+    XMLToBinaryConverter.convert(source.getPath(), target.getPath(), _compress ? codec : null);
   }
 
   /** The directory in which we will generate our output (in a directory tree mirroring the
@@ -117,6 +132,9 @@ public class XMLToBinaryTask extends Task
   /** Whether or not to compress the output files. */
   protected boolean _compress = true;
 
+  /** The name of the codec with which to compress the output files. */
+  protected String _codec = "deflate";
+
   /** A list of filesets that contain XML exports. */
   protected ArrayList<FileSet> _filesets = new ArrayList<FileSet>();
 }
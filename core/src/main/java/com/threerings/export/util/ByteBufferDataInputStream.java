@@ -0,0 +1,125 @@
+//
+// $Id$
+//
+// Clyde library - tools for developing networked games
+// Copyright (C) 2005-2012 Three Rings Design, Inc.
+// http://code.google.com/p/clyde/
+//
+// Redistribution and use in source and binary forms, with or without modification, are permitted
+// provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this list of
+//    conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+//    conditions and the following disclaimer in the documentation and/or other materials provided
+//    with the distribution.
+//
+// THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR IMPLIED WARRANTIES,
+// INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+// PARTICULAR PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT,
+// INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+// TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+// LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package com.threerings.export.util;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.InputStream;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link DataInputStream} that reads directly from a {@link ByteBuffer} (often a memory-mapped
+ * file) rather than through a chain of synchronized streams.  Consumers that know about this
+ * class can also obtain views of the buffer for bulk reads of primitive data.
+ */
+public class ByteBufferDataInputStream extends DataInputStream
+{
+  /**
+   * Creates a new stream that will read from the supplied buffer, starting at its current
+   * position.
+   */
+  public ByteBufferDataInputStream (ByteBuffer buffer)
+  {
+    super(new BufferInputStream(buffer.slice()));
+  }
+
+  /**
+   * Returns a big-endian view of the next <code>length</code> bytes of the buffer and advances
+   * past them.
+   *
+   * @throws EOFException if fewer than <code>length</code> bytes remain.
+   */
+  public ByteBuffer slice (int length)
+    throws EOFException
+  {
+    ByteBuffer buffer = ((BufferInputStream)in).buffer;
+    if (length > buffer.remaining()) {
+      throw new EOFException();
+    }
+    ByteBuffer slice = buffer.slice();
+    slice.limit(length);
+    buffer.position(buffer.position() + length);
+    return slice;
+  }
+
+  /**
+   * Returns the underlying stream.  Reads from this stream advance this one, and vice versa.
+   */
+  public InputStream getInputStream ()
+  {
+    return in;
+  }
+
+  /**
+   * An unsynchronized input stream reading from a buffer.
+   */
+  protected static class BufferInputStream extends InputStream
+  {
+    /** The buffer from which we read. */
+    public final ByteBuffer buffer;
+
+    public BufferInputStream (ByteBuffer buffer)
+    {
+      this.buffer = buffer;
+    }
+
+    @Override
+    public int read ()
+    {
+      return buffer.hasRemaining() ? (buffer.get() & 0xFF) : -1;
+    }
+
+    @Override
+    public int read (byte[] b, int off, int len)
+    {
+      if (len == 0) {
+        return 0;
+      }
+      int remaining = buffer.remaining();
+      if (remaining == 0) {
+        return -1;
+      }
+      len = Math.min(len, remaining);
+      buffer.get(b, off, len);
+      return len;
+    }
+
+    @Override
+    public long skip (long n)
+    {
+      int skipped = (int)Math.max(0L, Math.min(n, buffer.remaining()));
+      buffer.position(buffer.position() + skipped);
+      return skipped;
+    }
+
+    @Override
+    public int available ()
+    {
+      return buffer.remaining();
+    }
+  }
+}
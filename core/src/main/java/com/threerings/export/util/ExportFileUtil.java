@@ -25,12 +25,14 @@
 
 package com.threerings.export.util;
 
-import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
 import com.google.common.io.Closer;
+import com.google.common.io.Files;
 
 import com.threerings.export.BinaryImporter;
 
@@ -47,8 +49,7 @@ public class ExportFileUtil
   {
     Closer closer = Closer.create();
     try {
-      BinaryImporter in = closer.register(
-        new BinaryImporter(new BufferedInputStream(new FileInputStream(file))));
+      BinaryImporter in = closer.register(createImporter(file));
       return clazz.cast(in.readObject());
 
     } catch (ClassCastException cce) {
@@ -59,4 +60,38 @@ public class ExportFileUtil
       closer.close();
     }
   }
+
+  /**
+   * Creates an importer that reads directly from the contents of the specified file, which are
+   * read into a heap buffer.
+   */
+  public static BinaryImporter createImporter (File file)
+    throws IOException
+  {
+    return createImporter(file, false);
+  }
+
+  /**
+   * Creates an importer that reads directly from the contents of the specified file.
+   *
+   * @param map if true, map large files into memory rather than reading them into a heap
+   * buffer (small ones are always read).  This avoids copying the file, but on some platforms
+   * (notably Windows) a mapped file can't be overwritten or deleted until the buffer is
+   * garbage-collected, so files that may be rewritten by the same process shouldn't be mapped.
+   */
+  public static BinaryImporter createImporter (File file, boolean map)
+    throws IOException
+  {
+    ByteBuffer buffer;
+    if (!map || file.length() < MIN_MAPPED_LENGTH) {
+      buffer = ByteBuffer.wrap(Files.toByteArray(file));
+    } else {
+      buffer = Files.map(file, FileChannel.MapMode.READ_ONLY);
+    }
+    return new BinaryImporter(buffer);
+  }
+
+  /** Files smaller than this are read rather than mapped (mapping has a fixed cost that isn't
+   * worth paying for small files). */
+  protected static final long MIN_MAPPED_LENGTH = 64 * 1024;
 }
@@ -25,7 +25,14 @@
 
 package com.threerings.expr;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.samskivert.util.ObserverList;
 import com.samskivert.util.WeakObserverList;
@@ -39,6 +46,96 @@ import com.threerings.expr.util.ScopeUtil;
 public class DynamicScope
   implements Scope, ScopeUpdateListener
 {
+  /**
+   * Starts a batched update.  Until the matching call to {@link #endBatchedUpdate}, updates to
+   * scopes made on the calling thread are only noted; the updated scopes then notify their
+   * listeners once each, ancestors first, so that scopes beneath several updated ones are only
+   * rebound once.  Changes to scope parents are always propagated immediately.  Only one thread
+   * batches at a time: calls from other threads while a batch is in progress are ignored.
+   */
+  public static synchronized void startBatchedUpdate ()
+  {
+    Thread thread = Thread.currentThread();
+    if (_batchThread == null) {
+      _batchThread = thread;
+    }
+    if (_batchThread == thread) {
+      _batchDepth++;
+    }
+  }
+
+  /**
+   * Ends a batched update, notifying the listeners of the scopes updated during the batch.
+   */
+  public static void endBatchedUpdate ()
+  {
+    DynamicScope[] scopes;
+    synchronized (DynamicScope.class) {
+      if (_batchThread != Thread.currentThread() || --_batchDepth > 0) {
+        return;
+      }
+      _batchThread = null;
+      if (_pendingUpdates.isEmpty()) {
+        return;
+      }
+      scopes = _pendingUpdates.toArray(new DynamicScope[_pendingUpdates.size()]);
+      _pendingUpdates.clear();
+    }
+    for (DynamicScope scope : scopes) {
+      int depth = 0;
+      for (Scope parent = scope._parentScope; parent != null; parent = parent.getParentScope()) {
+        depth++;
+      }
+      scope._updateDepth = depth;
+    }
+    Arrays.sort(scopes, DEPTH_ORDER);
+
+    // notifying a scope notifies its descendants, which clears their pending flags
+    int ii = 0;
+    try {
+      for (; ii < scopes.length; ii++) {
+        DynamicScope scope = scopes[ii];
+        if (scope._updatePending) {
+          scope.notifyUpdated();
+        } else {
+          _coalescedUpdateCount.incrementAndGet();
+        }
+      }
+    } finally {
+      // if a listener failed, don't leave the rest marked as pending
+      for (; ii < scopes.length; ii++) {
+        scopes[ii]._updatePending = false;
+      }
+    }
+  }
+
+  /**
+   * Returns the number of scope update notifications since the last call to
+   * {@link #resetStats}.
+   */
+  public static int getUpdateCount ()
+  {
+    return _updateCount.get();
+  }
+
+  /**
+   * Returns the number of scope updates absorbed into others by batching since the last call to
+   * {@link #resetStats}.
+   */
+  public static int getCoalescedUpdateCount ()
+  {
+    return _coalescedUpdateCount.get();
+  }
+
+  /**
+   * Resets the update stats.
+   */
+  public static void resetStats ()
+  {
+    _updateCount.set(0);
+    _coalescedUpdateCount.set(0);
+  }
+
   /**
    * Creates a new scope that is its own owner.
    */
@@ -89,8 +186,13 @@ public class DynamicScope
     if ((_parentScope = parent) != null) {
       _parentScope.addListener(this);
     }
+    symbolsChanged();
     ScopeUtil.updateBound(_owner, _parentScope);
-    wasUpdated();
+
+    // the descendants must be rebound right away, even within a batch
+    if (_compoundDepth == 0) {
+      notifyUpdated();
+    }
   }
 
   /**
@@ -101,6 +203,9 @@ public class DynamicScope
     if (_symbols == null) {
       _symbols = new HashMap<String, Object>(1);
     }
+    if (!_symbols.containsKey(name)) {
+      symbolsChanged();
+    }
     _symbols.put(name, value);
     wasUpdated();
   }
@@ -111,7 +216,10 @@ public class DynamicScope
   public void remove (String name)
   {
     if (_symbols != null) {
-      _symbols.remove(name);
+      if (_symbols.containsKey(name)) {
+        _symbols.remove(name);
+        symbolsChanged();
+      }
       wasUpdated();
     }
   }
@@ -136,11 +244,35 @@ public class DynamicScope
   }
 
   /**
-   * Notes that this scope has been updated.
+   * Notes that this scope has been updated.  Within a batched update, the notification is
+   * deferred until the end of the batch.
    */
   public void wasUpdated ()
   {
-    if (_compoundDepth == 0 && _listeners != null) {
+    if (_compoundDepth > 0) {
+      return;
+    }
+    if (_batchThread != Thread.currentThread()) {
+      notifyUpdated();
+
+    } else if (_updatePending) {
+      _coalescedUpdateCount.incrementAndGet();
+
+    } else {
+      _updatePending = true;
+      _pendingUpdates.add(this);
+    }
+  }
+
+  /**
+   * Notifies the listeners that this scope has been updated.  Subclasses that react to their
+   * own updates should override this rather than {@link #wasUpdated}.
+   */
+  protected void notifyUpdated ()
+  {
+    _updatePending = false;
+    _updateCount.incrementAndGet();
+    if (_listeners != null) {
       final ScopeEvent event = new ScopeEvent(this);
       _listeners.apply(new ObserverList.ObserverOp<ScopeUpdateListener>() {
         public boolean apply (ScopeUpdateListener listener) {
@@ -151,6 +283,72 @@ public class DynamicScope
     }
   }
 
+  /**
+   * Determines whether this scope has a mapping for the named symbol, although that mapping may
+   * be to <code>null</code> or to an object of the wrong type.  Subclasses that map additional
+   * symbols in {@link #get} should override this to include them.
+   */
+  public boolean containsSymbol (String name)
+  {
+    return (_symbols != null && _symbols.containsKey(name)) ||
+      ScopeUtil.containsScoped(_owner, name);
+  }
+
+  /**
+   * Returns the scopes, starting with this one and rising up through its ancestors, that may
+   * have mappings for the named symbol.  The lists are cached until the set of symbols mapped
+   * here or above changes.  Lookups may be made concurrently from multiple threads, as long as
+   * the symbols themselves aren't changed meanwhile.
+   */
+  public Scope[] getSymbolScopes (String name)
+  {
+    getSymbolStamp();
+    Map<String, Scope[]> table = _symbolScopes;
+    Scope[] scopes = (table == null) ? null : table.get(name);
+    if (scopes != null) {
+      return scopes;
+    }
+    ArrayList<Scope> list = new ArrayList<Scope>();
+    if (ScopeUtil.mayContain(this, name)) {
+      list.add(this);
+    }
+    // check the simple scopes individually up to the next scope with its own symbol table
+    Scope parent = _parentScope;
+    for (; parent != null && !(parent instanceof DynamicScope); parent = parent.getParentScope()) {
+      if (ScopeUtil.mayContain(parent, name)) {
+        list.add(parent);
+      }
+    }
+    DynamicScope dparent = (DynamicScope)parent;
+    if (dparent != null) {
+      Collections.addAll(list, dparent.getSymbolScopes(name));
+    }
+    if (table == null) {
+      // if two threads race to create the table, one's entries are lost and recomputed later
+      _symbolParent = dparent;
+      _symbolParentStamp = (dparent == null) ? 0 : dparent.getSymbolStamp();
+      _symbolScopes = table = new ConcurrentHashMap<String, Scope[]>();
+    }
+    table.put(name, scopes = list.toArray(new Scope[list.size()]));
+    return scopes;
+  }
+
+  /**
+   * Returns a stamp that changes whenever the set of symbols mapped by this scope or the scopes
+   * above it (as far as this scope's symbol table knows) changes.
+   */
+  public int getSymbolStamp ()
+  {
+    if (_symbolParent != null) {
+      int stamp = _symbolParent.getSymbolStamp();
+      if (stamp != _symbolParentStamp) {
+        _symbolParentStamp = stamp;
+        symbolsChanged();
+      }
+    }
+    return _symbolStamp;
+  }
+
   /**
    * Releases the resources associated with this scope.
    */
@@ -160,6 +358,8 @@ public class DynamicScope
       _parentScope.removeListener(this);
     }
     _listeners = null;
+    _symbolScopes = null;
+    _updatePending = false;
   }
 
   // documentation inherited from interface Scope
@@ -214,6 +414,16 @@ public class DynamicScope
     wasUpdated();
   }
 
+  /**
+   * Notes that the set of symbols mapped by this scope or its ancestors has changed, invalidating
+   * the symbol tables here and (through their stamps) below.
+   */
+  protected void symbolsChanged ()
+  {
+    _symbolStamp++;
+    _symbolScopes = null;
+  }
+
   protected void checkCreateListeners ()
   {
     if (_listeners == null) {
@@ -239,9 +449,49 @@ public class DynamicScope
   /** The mappings for the dynamic symbols in this scope. */
   protected HashMap<String, Object> _symbols;
 
+  /** For each symbol looked up since the symbols last changed, the scopes that may map it. */
+  protected volatile Map<String, Scope[]> _symbolScopes;
+
+  /** The nearest dynamic scope above this one when the symbol table was created. */
+  protected volatile DynamicScope _symbolParent;
+
+  /** The symbol stamp of the parent when last checked. */
+  protected volatile int _symbolParentStamp;
+
+  /** Incremented whenever the symbols mapped here or above change. */
+  protected volatile int _symbolStamp;
+
   /** The listeners to this scope. */
   protected WeakObserverList<ScopeUpdateListener> _listeners;
 
+  /** Whether this scope has an update waiting for the end of the batch. */
+  protected boolean _updatePending;
+
+  /** The depth of this scope in its hierarchy, as computed at the end of the last batch. */
+  protected int _updateDepth;
+
+  /** The depth of batched updates. */
+  protected static int _batchDepth;
+
+  /** The thread performing the batched update, if any. */
+  protected static volatile Thread _batchThread;
+
+  /** The scopes updated during the current batch. */
+  protected static ArrayList<DynamicScope> _pendingUpdates = new ArrayList<DynamicScope>();
+
+  /** The number of update notifications since the stats were last reset. */
+  protected static AtomicInteger _updateCount = new AtomicInteger();
+
+  /** The number of coalesced updates since the stats were last reset. */
+  protected static AtomicInteger _coalescedUpdateCount = new AtomicInteger();
+
+  /** Sorts scopes so that ancestors precede their descendants. */
+  protected static final Comparator<DynamicScope> DEPTH_ORDER = new Comparator<DynamicScope>() {
+    public int compare (DynamicScope s1, DynamicScope s2) {
+      return s1._updateDepth - s2._updateDepth;
+    }
+  };
+
   /** Used to force initialization. */
   protected static final Scope INVALID_SCOPE = new DynamicScope(null);
 }
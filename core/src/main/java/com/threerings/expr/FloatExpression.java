@@ -69,6 +69,27 @@ public abstract class FloatExpression extends DeepObject
 
     @Override
     public Evaluator createEvaluator (Scope scope)
+    {
+      // the parsed constants can't change without reparsing, so we can always compile
+      return getExpression().createCompiledEvaluator(scope);
+    }
+
+    @Override
+    public Evaluator createCompiledEvaluator (Scope scope)
+    {
+      return getExpression().createCompiledEvaluator(scope);
+    }
+
+    @Override
+    public void invalidate ()
+    {
+      _expr = null;
+    }
+
+    /**
+     * Returns the parsed expression, parsing it if necessary.
+     */
+    protected FloatExpression getExpression ()
     {
       if (_expr == null) {
         try {
@@ -80,13 +101,7 @@ public abstract class FloatExpression extends DeepObject
           _expr = new Constant(0f);
         }
       }
-      return _expr.createEvaluator(scope);
-    }
-
-    @Override
-    public void invalidate ()
-    {
-      _expr = null;
+      return _expr;
     }
 
     /** The cached, parsed expression. */
@@ -127,6 +142,12 @@ public abstract class FloatExpression extends DeepObject
         }
       };
     }
+
+    @Override
+    public Evaluator createCompiledEvaluator (Scope scope)
+    {
+      return new ConstantEvaluator(value);
+    }
   }
 
   /**
@@ -204,6 +225,15 @@ public abstract class FloatExpression extends DeepObject
       return createEvaluator(operand.createEvaluator(scope));
     }
 
+    @Override
+    public Evaluator createCompiledEvaluator (Scope scope)
+    {
+      Evaluator eval = operand.createCompiledEvaluator(scope);
+      Evaluator result = createEvaluator(eval);
+      return (eval instanceof ConstantEvaluator) ?
+        new ConstantEvaluator(result.evaluate()) : result;
+    }
+
     @Override
     public void invalidate ()
     {
@@ -416,6 +446,16 @@ public abstract class FloatExpression extends DeepObject
         firstOperand.createEvaluator(scope), secondOperand.createEvaluator(scope));
     }
 
+    @Override
+    public Evaluator createCompiledEvaluator (Scope scope)
+    {
+      Evaluator eval1 = firstOperand.createCompiledEvaluator(scope);
+      Evaluator eval2 = secondOperand.createCompiledEvaluator(scope);
+      Evaluator result = createEvaluator(eval1, eval2);
+      return (eval1 instanceof ConstantEvaluator && eval2 instanceof ConstantEvaluator) ?
+        new ConstantEvaluator(result.evaluate()) : result;
+    }
+
     @Override
     public void invalidate ()
     {
@@ -437,6 +477,17 @@ public abstract class FloatExpression extends DeepObject
     @Override
     protected Evaluator createEvaluator (final Evaluator eval1, final Evaluator eval2)
     {
+      // (addition is commutative, so either operand may be folded in)
+      if (eval1 instanceof ConstantEvaluator || eval2 instanceof ConstantEvaluator) {
+        final boolean first = (eval1 instanceof ConstantEvaluator);
+        final Evaluator eval = first ? eval2 : eval1;
+        final float value = ((ConstantEvaluator)(first ? eval1 : eval2)).value;
+        return new Evaluator() {
+          public float evaluate () {
+            return eval.evaluate() + value;
+          }
+        };
+      }
       return new Evaluator() {
         public float evaluate () {
           return eval1.evaluate() + eval2.evaluate();
@@ -453,6 +504,21 @@ public abstract class FloatExpression extends DeepObject
     @Override
     protected Evaluator createEvaluator (final Evaluator eval1, final Evaluator eval2)
     {
+      if (eval1 instanceof ConstantEvaluator) {
+        final float value = ((ConstantEvaluator)eval1).value;
+        return new Evaluator() {
+          public float evaluate () {
+            return value - eval2.evaluate();
+          }
+        };
+      } else if (eval2 instanceof ConstantEvaluator) {
+        final float value = ((ConstantEvaluator)eval2).value;
+        return new Evaluator() {
+          public float evaluate () {
+            return eval1.evaluate() - value;
+          }
+        };
+      }
       return new Evaluator() {
         public float evaluate () {
           return eval1.evaluate() - eval2.evaluate();
@@ -469,6 +535,17 @@ public abstract class FloatExpression extends DeepObject
     @Override
     protected Evaluator createEvaluator (final Evaluator eval1, final Evaluator eval2)
     {
+      // (multiplication is commutative, so either operand may be folded in)
+      if (eval1 instanceof ConstantEvaluator || eval2 instanceof ConstantEvaluator) {
+        final boolean first = (eval1 instanceof ConstantEvaluator);
+        final Evaluator eval = first ? eval2 : eval1;
+        final float value = ((ConstantEvaluator)(first ? eval1 : eval2)).value;
+        return new Evaluator() {
+          public float evaluate () {
+            return eval.evaluate() * value;
+          }
+        };
+      }
       return new Evaluator() {
         public float evaluate () {
           return eval1.evaluate() * eval2.evaluate();
@@ -485,6 +562,21 @@ public abstract class FloatExpression extends DeepObject
     @Override
     protected Evaluator createEvaluator (final Evaluator eval1, final Evaluator eval2)
     {
+      if (eval1 instanceof ConstantEvaluator) {
+        final float value = ((ConstantEvaluator)eval1).value;
+        return new Evaluator() {
+          public float evaluate () {
+            return value / eval2.evaluate();
+          }
+        };
+      } else if (eval2 instanceof ConstantEvaluator) {
+        final float value = ((ConstantEvaluator)eval2).value;
+        return new Evaluator() {
+          public float evaluate () {
+            return eval1.evaluate() / value;
+          }
+        };
+      }
       return new Evaluator() {
         public float evaluate () {
           return eval1.evaluate() / eval2.evaluate();
@@ -584,11 +676,46 @@ public abstract class FloatExpression extends DeepObject
     public abstract float evaluate ();
   }
 
+  /**
+   * An evaluator for a fixed value, produced when compiling.
+   */
+  public static class ConstantEvaluator extends Evaluator
+  {
+    /** The value of the constant. */
+    public final float value;
+
+    /**
+     * Creates a new constant evaluator with the specified value.
+     */
+    public ConstantEvaluator (float value)
+    {
+      this.value = value;
+    }
+
+    @Override
+    public float evaluate ()
+    {
+      return value;
+    }
+  }
+
   /**
    * Creates an expression evaluator for the supplied context.
    */
   public abstract Evaluator createEvaluator (Scope scope);
 
+  /**
+   * Creates an evaluator that computes the same values as that returned by
+   * {@link #createEvaluator}, but with constant subexpressions folded into single values and
+   * constant operands fused into the operations that use them, so that fewer evaluators are
+   * invoked.  Unlike those of the regular evaluator, the constants are captured at creation
+   * time, so this is only appropriate where they can't be edited in place.
+   */
+  public Evaluator createCompiledEvaluator (Scope scope)
+  {
+    return createEvaluator(scope);
+  }
+
   /**
    * Invalidates any cached data.
    */
@@ -54,6 +54,16 @@ public abstract class SimpleScope
     }
   }
 
+  /**
+   * Determines whether this scope has a mapping for the named symbol, although that mapping may
+   * be to <code>null</code> or to an object of the wrong type.  Subclasses that map additional
+   * symbols in {@link #get} should override this to include them.
+   */
+  public boolean containsSymbol (String name)
+  {
+    return ScopeUtil.containsScoped(this, name);
+  }
+
   // documentation inherited from interface Scope
   public String getScopeName ()
   {
@@ -47,6 +47,7 @@ import com.threerings.math.Vector3f;
 import com.threerings.opengl.renderer.Color4f;
 
 import com.threerings.expr.Bound;
+import com.threerings.expr.DynamicScope;
 import com.threerings.expr.Function;
 import com.threerings.expr.Variable;
 import com.threerings.expr.MutableBoolean;
@@ -54,6 +55,7 @@ import com.threerings.expr.MutableFloat;
 import com.threerings.expr.MutableInteger;
 import com.threerings.expr.MutableLong;
 import com.threerings.expr.Scoped;
+import com.threerings.expr.SimpleScope;
 
 import static com.threerings.ClydeLog.log;
 
@@ -67,20 +69,48 @@ public class ScopeUtil
    */
   public static void updateBound (Object object, Scope scope)
   {
-    for (Field field : getBound(object.getClass())) {
-      String name = field.getAnnotation(Bound.class).value();
-      if (name.isEmpty()) {
-        name = stripUnderscore(field.getName());
-      }
-      @SuppressWarnings("unchecked") Class<Object> type = (Class<Object>)field.getType();
+    // without a scope, every field would just be set to its current value
+    if (scope == null) {
+      return;
+    }
+    for (Binding binding : getBindings(object.getClass())) {
+      Field field = binding.field;
       try {
-        field.set(object, resolve(scope, name, field.get(object), type));
+        Object value = field.get(object);
+        field.set(object, (binding.qualifier == null) ?
+          resolve(scope, binding.name, value, binding.type) :
+          resolve(scope, binding.qualifier, binding.name, value, binding.type));
       } catch (IllegalAccessException e) {
         log.warning("Error accessing bound field.", "field", field, e);
       }
     }
   }
 
+  /**
+   * Determines whether the specified scope may have a mapping for the named symbol.  Scopes that
+   * override {@link Scope#get} without also overriding <code>containsSymbol</code> are assumed
+   * to map every symbol.
+   */
+  public static boolean mayContain (Scope scope, String name)
+  {
+    if (_opaque.get(scope.getClass())) {
+      return true;
+    } else if (scope instanceof DynamicScope) {
+      return ((DynamicScope)scope).containsSymbol(name);
+    } else {
+      return ((SimpleScope)scope).containsSymbol(name);
+    }
+  }
+
+  /**
+   * Determines whether the specified object has a scoped member with the given name (or the
+   * name is <code>this</code>, which always refers to the object).
+   */
+  public static boolean containsScoped (Object object, String name)
+  {
+    return "this".equals(name) || getScoped(object.getClass()).containsKey(name);
+  }
+
   /**
    * Attempts to resolve, then call the specified function with the given arguments.
    */
@@ -223,16 +253,39 @@ public class ScopeUtil
   {
     // if the name includes a scope qualifier, look for that scope
     int idx = name.indexOf(':');
-    if (idx != -1) {
-      String qualifier = name.substring(0, idx);
-      name = name.substring(idx + 1);
-      while (scope != null && !qualifier.equals(scope.getScopeName())) {
-        scope = scope.getParentScope();
-      }
+    return (idx == -1) ? resolveUnqualified(scope, name, defvalue, clazz) :
+      resolve(scope, name.substring(0, idx), name.substring(idx + 1), defvalue, clazz);
+  }
+
+  /**
+   * Attempts to resolve the identified symbol in the named scope (or its ancestors).
+   */
+  protected static <T> T resolve (
+    Scope scope, String qualifier, String name, T defvalue, Class<T> clazz)
+  {
+    while (scope != null && !qualifier.equals(scope.getScopeName())) {
+      scope = scope.getParentScope();
     }
+    return resolveUnqualified(scope, name, defvalue, clazz);
+  }
 
-    // rise up through the scopes looking for the requested symbol
+  /**
+   * Attempts to resolve an unqualified symbol in the given scope or its ancestors.
+   */
+  protected static <T> T resolveUnqualified (Scope scope, String name, T defvalue, Class<T> clazz)
+  {
+    // rise up through the scopes looking for the requested symbol until we reach one with a
+    // symbol table, which lists the scopes from there on up that may contain it
     for (; scope != null; scope = scope.getParentScope()) {
+      if (scope instanceof DynamicScope) {
+        for (Scope sscope : ((DynamicScope)scope).getSymbolScopes(name)) {
+          T value = sscope.get(name, clazz);
+          if (value != null) {
+            return value;
+          }
+        }
+        break;
+      }
       T value = scope.get(name, clazz);
       if (value != null) {
         return value;
@@ -428,36 +481,33 @@ public class ScopeUtil
   }
 
   /**
-   * Retrieves the list of the specified class's bound fields.
+   * Retrieves the binding plan for the specified class.
    */
-  protected static Field[] getBound (Class<?> clazz)
+  protected static Binding[] getBindings (Class<?> clazz)
   {
-    Field[] fields = _bound.get(clazz);
-    if (fields == null) {
-      _bound.put(clazz, fields = createBound(clazz));
-    }
-    return fields;
+    return _bindings.get(clazz);
   }
 
   /**
-   * Creates the list of bound fields for the specified class.
+   * Creates the binding plan for the specified class.
    */
-  protected static Field[] createBound (Class<?> clazz)
+  protected static Binding[] createBindings (Class<?> clazz)
   {
-    // add the superclass fields
-    ArrayList<Field> fields = new ArrayList<Field>();
+    // add the superclass bindings
+    ArrayList<Binding> bindings = new ArrayList<Binding>();
     Class<?> sclazz = clazz.getSuperclass();
     if (sclazz != null) {
-      Collections.addAll(fields, getBound(sclazz));
+      Collections.addAll(bindings, getBindings(sclazz));
     }
     // add all bound fields
     for (Field field : clazz.getDeclaredFields()) {
-      if (field.isAnnotationPresent(Bound.class)) {
+      Bound bound = field.getAnnotation(Bound.class);
+      if (bound != null) {
         field.setAccessible(true);
-        fields.add(field);
+        bindings.add(new Binding(field, bound.value()));
       }
     }
-    return fields.toArray(new Field[fields.size()]);
+    return bindings.toArray(new Binding[bindings.size()]);
   }
 
   /**
@@ -465,15 +515,7 @@ public class ScopeUtil
    */
   protected static Map<String, Member> getScoped (Class<?> clazz)
   {
-    Map<String, Member> members = _scoped.get(clazz);
-    if (members == null) {
-      // populate a mutable HashMap, but then copy it into an ImmutableMap
-      members = Maps.newHashMap();
-      populateScoped(clazz, members);
-      members = ImmutableMap.copyOf(members);
-      _scoped.put(clazz, members);
-    }
-    return members;
+    return _scoped.get(clazz);
   }
 
   /**
@@ -490,7 +532,7 @@ public class ScopeUtil
     for (Field field : clazz.getDeclaredFields()) {
       if (field.isAnnotationPresent(Scoped.class)) {
         field.setAccessible(true);
-        Object oldValue = members.put(stripUnderscore(field.getName()), field);
+        Object oldValue = members.put(stripUnderscore(field.getName()).intern(), field);
         if (oldValue != null) {
           log.warning("Scoped field overwrote member from superclass",
             "clazz", clazz, "name", field.getName());
@@ -501,7 +543,7 @@ public class ScopeUtil
     for (Method method : clazz.getDeclaredMethods()) {
       if (method.isAnnotationPresent(Scoped.class)) {
         method.setAccessible(true);
-        Object oldValue = members.put(method.getName(), method);
+        Object oldValue = members.put(method.getName().intern(), method);
         if (oldValue != null) {
           log.warning("Scoped method overwrote member from superclass",
             "clazz", clazz, "name", method.getName());
@@ -518,9 +560,78 @@ public class ScopeUtil
     return (name.charAt(0) == '_') ? name.substring(1) : name;
   }
 
-  /** Cached bound fields. */
-  protected static Map<Class<?>, Field[]> _bound = Maps.newHashMap();
+  /**
+   * Checks whether instances of the specified scope class may map symbols that their
+   * <code>containsSymbol</code> method doesn't know about.
+   */
+  protected static boolean isOpaque (Class<?> clazz)
+  {
+    try {
+      Class<?> gclazz = clazz.getMethod("get", String.class, Class.class).getDeclaringClass();
+      Class<?> cclazz = clazz.getMethod("containsSymbol", String.class).getDeclaringClass();
+      return !gclazz.isAssignableFrom(cclazz);
+    } catch (NoSuchMethodException e) {
+      return true;
+    }
+  }
+
+  /**
+   * A precompiled binding for a bound field.
+   */
+  protected static class Binding
+  {
+    /** The bound field. */
+    public final Field field;
+
+    /** The interned name of the symbol to which the field is bound. */
+    public final String name;
+
+    /** The interned scope qualifier, or <code>null</code> for none. */
+    public final String qualifier;
+
+    /** The type of the field. */
+    public final Class<Object> type;
+
+    /**
+     * Creates a binding for the specified field to the named symbol (or, if the name is empty,
+     * to the field name sans underscore).
+     */
+    @SuppressWarnings("unchecked")
+    public Binding (Field field, String name)
+    {
+      this.field = field;
+      if (name.isEmpty()) {
+        name = stripUnderscore(field.getName());
+      }
+      int idx = name.indexOf(':');
+      this.qualifier = (idx == -1) ? null : name.substring(0, idx).intern();
+      this.name = name.substring(idx + 1).intern();
+      this.type = (Class<Object>)field.getType();
+    }
+  }
+
+  /** Cached binding plans. */
+  protected static final ClassValue<Binding[]> _bindings = new ClassValue<Binding[]>() {
+    protected Binding[] computeValue (Class<?> clazz) {
+      return createBindings(clazz);
+    }
+  };
 
   /** Cached scoped members. */
-  protected static Map<Class<?>, Map<String, Member>> _scoped = Maps.newHashMap();
+  protected static final ClassValue<Map<String, Member>> _scoped =
+    new ClassValue<Map<String, Member>>() {
+      protected Map<String, Member> computeValue (Class<?> clazz) {
+        // populate a mutable HashMap, but then copy it into an ImmutableMap
+        Map<String, Member> members = Maps.newHashMap();
+        populateScoped(clazz, members);
+        return ImmutableMap.copyOf(members);
+      }
+    };
+
+  /** Whether or not scope classes map symbols unknown to their symbol checks. */
+  protected static final ClassValue<Boolean> _opaque = new ClassValue<Boolean>() {
+    protected Boolean computeValue (Class<?> clazz) {
+      return isOpaque(clazz);
+    }
+  };
 }
@@ -219,24 +219,68 @@ public class Frustum
       return IntersectionType.NONE;
     }
 
-    // consider each side of the frustum as a potential separating axis
-    int ccount = 0;
-    for (int ii = 0; ii < 6; ii++) {
-      // determine how many vertices fall inside/outside the plane
-      int inside = 0;
-      Plane plane = _planes[ii];
-      for (int jj = 0; jj < 8; jj++) {
-        if (plane.getDistance(box.getVertex(jj, _vertex)) <= 0f) {
-          inside++;
+    // consider each side of the frustum as a potential separating axis: the box lies outside
+    // the plane if its vertex nearest the inside does, and inside if its farthest vertex does
+    Vector3f min = box.getMinimumExtent(), max = box.getMaximumExtent();
+    float[] planes = _planeData;
+    boolean contains = true;
+    for (int ii = 0; ii < PLANE_DATA_SIZE; ii += 4) {
+      float nx = planes[ii], ny = planes[ii + 1], nz = planes[ii + 2], constant = planes[ii + 3];
+      if (nx*(nx < 0f ? max.x : min.x) + ny*(ny < 0f ? max.y : min.y) +
+          nz*(nz < 0f ? max.z : min.z) + constant > 0f) {
+        return IntersectionType.NONE;
+      }
+      contains = contains && nx*(nx < 0f ? min.x : max.x) + ny*(ny < 0f ? min.y : max.y) +
+        nz*(nz < 0f ? min.z : max.z) + constant <= 0f;
+    }
+    return contains ? IntersectionType.CONTAINS : IntersectionType.INTERSECTS;
+  }
+
+  /**
+   * Determines which of a batch of (up to 64) boxes intersect the frustum.  The plane that
+   * last separated each box from the frustum is tested first, since with a coherent view it is
+   * likely to separate the box again.
+   *
+   * @param bounds the boxes, packed as minimum and maximum extents (six floats per box).
+   * @param planes for each box, the index of the plane to test first.  Updated with the index
+   * of the separating plane for each box that lies outside the frustum.
+   * @param offset the index of the first box to test.
+   * @param count the number of boxes to test (at most 64).
+   * @return a mask with bit <code>n</code> set if box <code>offset + n</code> intersects the
+   * frustum.
+   */
+  public long getIntersecting (float[] bounds, byte[] planes, int offset, int count)
+  {
+    float[] data = _planeData;
+    Vector3f fmin = _bounds.getMinimumExtent(), fmax = _bounds.getMaximumExtent();
+    float fminx = fmin.x, fminy = fmin.y, fminz = fmin.z;
+    float fmaxx = fmax.x, fmaxy = fmax.y, fmaxz = fmax.z;
+    long mask = 0L;
+    for (int ii = 0, bidx = offset * 6; ii < count; ii++, bidx += 6) {
+      float minx = bounds[bidx], miny = bounds[bidx + 1], minz = bounds[bidx + 2];
+      float maxx = bounds[bidx + 3], maxy = bounds[bidx + 4], maxz = bounds[bidx + 5];
+      if (fmaxx < minx || fminx > maxx || fmaxy < miny || fminy > maxy ||
+          fmaxz < minz || fminz > maxz) {
+        continue;
+      }
+      int plane = planes[offset + ii];
+      boolean outside = false;
+      for (int jj = 0; jj < 6; jj++) {
+        int pidx = plane * 4;
+        float nx = data[pidx], ny = data[pidx + 1], nz = data[pidx + 2];
+        if (nx*(nx < 0f ? maxx : minx) + ny*(ny < 0f ? maxy : miny) +
+            nz*(nz < 0f ? maxz : minz) + data[pidx + 3] > 0f) {
+          planes[offset + ii] = (byte)plane;
+          outside = true;
+          break;
         }
+        plane = (plane == 5) ? 0 : (plane + 1);
       }
-      if (inside == 0) {
-        return IntersectionType.NONE;
-      } else if (inside == 8) {
-        ccount++;
+      if (!outside) {
+        mask |= 1L << ii;
       }
     }
-    return (ccount == 6) ? IntersectionType.CONTAINS : IntersectionType.INTERSECTS;
+    return mask;
   }
 
   /**
@@ -266,6 +310,16 @@ public class Frustum
     _planes[4].fromPoints(_vertices[3], _vertices[2], _vertices[6]); // top
     _planes[5].fromPoints(_vertices[4], _vertices[5], _vertices[1]); // bottom
     _bounds.fromPoints(_vertices);
+
+    // pack the planes for the intersection tests
+    for (int ii = 0, idx = 0; ii < 6; ii++) {
+      Plane plane = _planes[ii];
+      Vector3f normal = plane.getNormal();
+      _planeData[idx++] = normal.x;
+      _planeData[idx++] = normal.y;
+      _planeData[idx++] = normal.z;
+      _planeData[idx++] = plane.constant;
+    }
   }
 
   /** The vertices of the frustum. */
@@ -278,6 +332,12 @@ public class Frustum
   /** The frustum's bounding box (as derived from the vertices). */
   protected Box _bounds = new Box();
 
+  /** The normals and constants of the planes, packed for the intersection tests. */
+  protected float[] _planeData = new float[PLANE_DATA_SIZE];
+
   /** A working vertex. */
   protected static Vector3f _vertex = new Vector3f();
+
+  /** The size of the packed plane data (four floats for each of the six planes). */
+  protected static final int PLANE_DATA_SIZE = 6 * 4;
 }
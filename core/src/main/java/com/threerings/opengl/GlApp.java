@@ -422,6 +422,8 @@ public abstract class GlApp extends DynamicScope
   protected void willShutdown ()
   {
     _soundmgr.shutdown();
+    _imgcache.dispose();
+    _shadcache.dispose();
   }
 
   /**
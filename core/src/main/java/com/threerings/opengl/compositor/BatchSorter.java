@@ -0,0 +1,388 @@
+//
+// $Id$
+//
+// Clyde library - tools for developing networked games
+// Copyright (C) 2005-2012 Three Rings Design, Inc.
+// http://code.google.com/p/clyde/
+//
+// Redistribution and use in source and binary forms, with or without modification, are permitted
+// provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this list of
+//    conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+//    conditions and the following disclaimer in the documentation and/or other materials provided
+//    with the distribution.
+//
+// THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR IMPLIED WARRANTIES,
+// INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+// PARTICULAR PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT,
+// INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+// TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+// LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package com.threerings.opengl.compositor;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import com.threerings.opengl.renderer.Batch;
+
+import com.threerings.opengl.compositor.config.RenderQueueConfig.SortMode;
+
+/**
+ * Sorts lists of batches by packing each batch's {@link SortMode#getSortKey sort key} into a
+ * long and radix-sorting the keys.  For {@link SortMode#BY_STATE}, the state keys are first
+ * reduced to their ranks among the distinct state keys seen; the ranks are retained between
+ * sorts, so that the (comparison-based) ranking need only be redone when new state keys appear.
+ * When the same batches are sorted with the same keys as in the previous sort, the previous
+ * order is reused.
+ */
+public class BatchSorter
+{
+  /**
+   * Sorts the supplied list in place.
+   */
+  public void sort (List<Batch> batches, SortMode mode)
+  {
+    int size = batches.size();
+    if (mode == SortMode.NONE || size < 2) {
+      setLastSize(0);
+      return;
+    }
+    if (_batches.length < size) {
+      int length = Math.max(size, _batches.length * 2);
+      _batches = new Batch[length];
+      _keys = new long[length];
+      _order = new int[length];
+      _lastBatches = new Batch[length];
+      _lastKeys = new long[length];
+      _sortKeys = new long[length];
+      _sortOrder = new int[length];
+      _lastSize = 0;
+    }
+    Batch[] sbatches = _batches;
+    for (int ii = 0; ii < size; ii++) {
+      sbatches[ii] = batches.get(ii);
+    }
+
+    // compute the keys
+    long[] keys = _keys;
+    if (mode.usesStateRanks()) {
+      updateRanks(sbatches, size);
+      int[] ranks = _ranks;
+      for (int ii = 0; ii < size; ii++) {
+        keys[ii] = mode.getSortKey(sbatches[ii], ranks[ii]);
+      }
+    } else {
+      for (int ii = 0; ii < size; ii++) {
+        keys[ii] = mode.getSortKey(sbatches[ii], 0);
+      }
+    }
+
+    // reuse the last order if nothing has changed; otherwise, remember the input and sort
+    if (!matchesLast(mode, size)) {
+      _lastMode = mode;
+      setLastSize(size);
+      System.arraycopy(sbatches, 0, _lastBatches, 0, size);
+      System.arraycopy(keys, 0, _lastKeys, 0, size);
+      int[] order = _order;
+      for (int ii = 0; ii < size; ii++) {
+        order[ii] = ii;
+      }
+      sort(size);
+    }
+
+    // write the batches back in sorted order
+    int[] order = _order;
+    for (int ii = 0; ii < size; ii++) {
+      batches.set(ii, sbatches[order[ii]]);
+    }
+    Arrays.fill(sbatches, 0, size, null);
+  }
+
+  /**
+   * Sets the size of the last sort, releasing the references beyond it.
+   */
+  protected void setLastSize (int size)
+  {
+    if (size < _lastSize) {
+      Arrays.fill(_lastBatches, size, _lastSize, null);
+    }
+    _lastSize = size;
+  }
+
+  /**
+   * Checks whether the batches and keys to sort match those of the last sort.
+   */
+  protected boolean matchesLast (SortMode mode, int size)
+  {
+    if (mode != _lastMode || size != _lastSize) {
+      return false;
+    }
+    Batch[] batches = _batches, lbatches = _lastBatches;
+    long[] keys = _keys, lkeys = _lastKeys;
+    for (int ii = 0; ii < size; ii++) {
+      if (batches[ii] != lbatches[ii] || keys[ii] != lkeys[ii]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Sorts the first <code>size</code> keys, permuting the order to match.  The sort is stable.
+   */
+  protected void sort (int size)
+  {
+    long[] keys = _keys;
+    int[] order = _order;
+    if (size < MIN_RADIX_SIZE) {
+      // insertion sort
+      for (int ii = 1; ii < size; ii++) {
+        long key = keys[ii];
+        int idx = order[ii], jj = ii - 1;
+        for (; jj >= 0 && Long.compareUnsigned(keys[jj], key) > 0; jj--) {
+          keys[jj + 1] = keys[jj];
+          order[jj + 1] = order[jj];
+        }
+        keys[jj + 1] = key;
+        order[jj + 1] = idx;
+      }
+      return;
+    }
+
+    // count the occurrences of each byte value at each position
+    int[] counts = _counts;
+    Arrays.fill(counts, 0);
+    for (int ii = 0; ii < size; ii++) {
+      long key = keys[ii];
+      for (int pos = 0; pos < 8; pos++) {
+        counts[(pos << 8) | (int)((key >>> (pos << 3)) & 0xFF)]++;
+      }
+    }
+
+    // sort by each byte from least to most significant, skipping those shared by all keys
+    long[] okeys = _sortKeys;
+    int[] oorder = _sortOrder;
+    for (int pos = 0; pos < 8; pos++) {
+      int base = pos << 8, shift = pos << 3;
+      if (counts[base | (int)((keys[0] >>> shift) & 0xFF)] == size) {
+        continue;
+      }
+      for (int ii = 0, offset = 0; ii < 256; ii++) {
+        int count = counts[base + ii];
+        counts[base + ii] = offset;
+        offset += count;
+      }
+      for (int ii = 0; ii < size; ii++) {
+        long key = keys[ii];
+        int dest = counts[base | (int)((key >>> shift) & 0xFF)]++;
+        okeys[dest] = key;
+        oorder[dest] = order[ii];
+      }
+      long[] tkeys = keys;
+      keys = okeys;
+      okeys = tkeys;
+      int[] torder = order;
+      order = oorder;
+      oorder = torder;
+    }
+    if (keys != _keys) {
+      _sortKeys = _keys;
+      _keys = keys;
+      _sortOrder = _order;
+      _order = order;
+    }
+  }
+
+  /**
+   * Finds the ranks of the state keys of the batches, reranking the known keys if any are new.
+   */
+  protected void updateRanks (Batch[] batches, int size)
+  {
+    if (_ranks.length < size) {
+      _ranks = new int[_batches.length];
+    }
+    _stamp++;
+    boolean added = false;
+    for (int ii = 0; ii < size; ii++) {
+      int[] key = batches[ii].key;
+      int slot = findSlot(key);
+      if (_states[slot] == null) {
+        addState(slot, key);
+        added = true;
+      } else {
+        _stateStamps[slot] = _stamp;
+      }
+      _ranks[ii] = slot;
+    }
+    if (added) {
+      rerank(batches, size);
+    }
+    for (int ii = 0; ii < size; ii++) {
+      _ranks[ii] = _stateRanks[_ranks[ii]];
+    }
+  }
+
+  /**
+   * Finds the slot containing the specified state key, or the empty slot where it belongs.
+   */
+  protected int findSlot (int[] key)
+  {
+    int length = getTrimmedLength(key), hash = 1;
+    for (int ii = 0; ii < length; ii++) {
+      hash = 31*hash + key[ii];
+    }
+    int mask = _states.length - 1;
+    for (int slot = (hash ^ (hash >>> 16)) & mask; ; slot = (slot + 1) & mask) {
+      int[] state = _states[slot];
+      if (state == null || Batch.compareKeys(state, key) == 0) {
+        return slot;
+      }
+    }
+  }
+
+  /**
+   * Stores a copy of a state key in an empty slot, growing the table if necessary.
+   */
+  protected void addState (int slot, int[] key)
+  {
+    _states[slot] = (key == null) ? new int[0] : Arrays.copyOf(key, getTrimmedLength(key));
+    _stateStamps[slot] = _stamp;
+    if (++_stateCount * 2 > _states.length) {
+      rehash(_states.length * 2);
+    }
+  }
+
+  /**
+   * Ranks the state keys in use in the current sort, drops the rest, and finds the new slots
+   * of the batches' keys.
+   */
+  protected void rerank (Batch[] batches, int size)
+  {
+    // gather the current states and rebuild the table
+    int[][] states = new int[_stateCount][];
+    int count = 0;
+    for (int ii = 0; ii < _states.length; ii++) {
+      if (_states[ii] != null && _stateStamps[ii] == _stamp) {
+        states[count++] = _states[ii];
+      }
+    }
+    Arrays.sort(states, 0, count, STATE_COMP);
+    int capacity = Math.max(MIN_STATE_CAPACITY, Integer.highestOneBit(count) * 4);
+    _states = new int[capacity][];
+    _stateRanks = new int[capacity];
+    _stateStamps = new int[capacity];
+    for (int ii = 0; ii < count; ii++) {
+      int slot = findSlot(states[ii]);
+      _states[slot] = states[ii];
+      _stateStamps[slot] = _stamp;
+      _stateRanks[slot] = ii;
+    }
+    _stateCount = count;
+
+    // the slots found before are no longer valid
+    for (int ii = 0; ii < size; ii++) {
+      _ranks[ii] = findSlot(batches[ii].key);
+    }
+  }
+
+  /**
+   * Rehashes the state table with the specified capacity.
+   */
+  protected void rehash (int capacity)
+  {
+    int[][] ostates = _states;
+    int[] ostamps = _stateStamps, oranks = _stateRanks;
+    _states = new int[capacity][];
+    _stateStamps = new int[capacity];
+    _stateRanks = new int[capacity];
+    for (int ii = 0; ii < ostates.length; ii++) {
+      int[] state = ostates[ii];
+      if (state != null) {
+        int slot = findSlot(state);
+        _states[slot] = state;
+        _stateStamps[slot] = ostamps[ii];
+        _stateRanks[slot] = oranks[ii];
+      }
+    }
+  }
+
+  /**
+   * Returns the length of the key without trailing zeros (which {@link Batch#compareKeys}
+   * treats as equivalent to missing values).
+   */
+  protected static int getTrimmedLength (int[] key)
+  {
+    int length = (key == null) ? 0 : key.length;
+    while (length > 0 && key[length - 1] == 0) {
+      length--;
+    }
+    return length;
+  }
+
+  /** The batches being sorted. */
+  protected Batch[] _batches = new Batch[0];
+
+  /** The sort keys of the batches. */
+  protected long[] _keys = new long[0];
+
+  /** The sorted order of the batches. */
+  protected int[] _order = new int[0];
+
+  /** The ranks of the batches' state keys (or their table slots, while finding them). */
+  protected int[] _ranks = new int[0];
+
+  /** Holds the keys between passes of the radix sort. */
+  protected long[] _sortKeys = new long[0];
+
+  /** Holds the order between passes of the radix sort. */
+  protected int[] _sortOrder = new int[0];
+
+  /** The byte counts for each position. */
+  protected int[] _counts = new int[8 * 256];
+
+  /** The mode of the last sort. */
+  protected SortMode _lastMode;
+
+  /** The batches of the last sort. */
+  protected Batch[] _lastBatches = new Batch[0];
+
+  /** The keys of the last sort. */
+  protected long[] _lastKeys = new long[0];
+
+  /** The number of batches in the last sort (or zero if there is none to reuse). */
+  protected int _lastSize;
+
+  /** The hash table of known state keys (trimmed copies). */
+  protected int[][] _states = new int[MIN_STATE_CAPACITY][];
+
+  /** The ranks of the state keys in the table. */
+  protected int[] _stateRanks = new int[MIN_STATE_CAPACITY];
+
+  /** The stamp of the last sort to use each state key. */
+  protected int[] _stateStamps = new int[MIN_STATE_CAPACITY];
+
+  /** The number of state keys in the table. */
+  protected int _stateCount;
+
+  /** The stamp of the current sort. */
+  protected int _stamp;
+
+  /** Orders state keys. */
+  protected static final Comparator<int[]> STATE_COMP = new Comparator<int[]>() {
+    public int compare (int[] k1, int[] k2) {
+      return Batch.compareKeys(k1, k2);
+    }
+  };
+
+  /** The minimum size for which we use the radix sort (rather than an insertion sort). */
+  protected static final int MIN_RADIX_SIZE = 48;
+
+  /** The minimum (and initial) capacity of the state table. */
+  protected static final int MIN_STATE_CAPACITY = 64;
+}
@@ -239,7 +239,7 @@ public class RenderQueue
 
     // sort each list
     for (int ii = 0, nn = _lists.size(); ii < nn; ii++) {
-      _config.sortMode.sort(_lists.get(ii));
+      _lists.get(ii).sort(_config.sortMode);
     }
   }
 
@@ -308,6 +308,14 @@ public class RenderQueue
       _priority = priority;
     }
 
+    /**
+     * Sorts the list in place.
+     */
+    public void sort (RenderQueueConfig.SortMode mode)
+    {
+      _sorter.sort(this, mode);
+    }
+
     // documentation inherited from interface Comparable
     public int compareTo (PriorityList other)
     {
@@ -316,6 +324,9 @@ public class RenderQueue
 
     /** The priority level of this list. */
     protected int _priority;
+
+    /** Sorts the list, retaining state between frames. */
+    protected BatchSorter _sorter = new BatchSorter();
   }
 
   /**
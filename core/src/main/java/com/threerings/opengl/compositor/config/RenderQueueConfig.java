@@ -68,21 +68,36 @@ public class RenderQueueConfig extends ManagedConfig
         int comp = Batch.compareKeys(b1.key, b2.key);
         return (comp == 0) ? Float.compare(b2.depth, b1.depth) : comp;
       }
-    }),
+    }) {
+      public boolean usesStateRanks () {
+        return true;
+      }
+      public long getSortKey (Batch batch, int rank) {
+        return ((long)rank << 32) | (~getSortableDepth(batch) & 0xFFFFFFFFL);
+      }
+    },
 
     /** Sorts batches by depth, back-to-front. */
     BACK_TO_FRONT(new Comparator<Batch>() {
       public int compare (Batch b1, Batch b2) {
         return Float.compare(b1.depth, b2.depth);
       }
-    }),
+    }) {
+      public long getSortKey (Batch batch, int rank) {
+        return getSortableDepth(batch) & 0xFFFFFFFFL;
+      }
+    },
 
     /** Sorts batches by depth, front-to-back. */
     FRONT_TO_BACK(new Comparator<Batch>() {
       public int compare (Batch b1, Batch b2) {
         return Float.compare(b2.depth, b1.depth);
       }
-    });
+    }) {
+      public long getSortKey (Batch batch, int rank) {
+        return ~getSortableDepth(batch) & 0xFFFFFFFFL;
+      }
+    };
 
     /**
      * Sorts the supplied list of batches.
@@ -92,11 +107,42 @@ public class RenderQueueConfig extends ManagedConfig
       QuickSort.sort(batches, _comparator);
     }
 
+    /**
+     * Checks whether the {@link #getSortKey sort keys} depend on the ranks of the batches'
+     * state keys.
+     */
+    public boolean usesStateRanks ()
+    {
+      return false;
+    }
+
+    /**
+     * Returns a key for the supplied batch whose unsigned order is consistent with that of the
+     * comparator, or -1 if the mode doesn't sort.
+     *
+     * @param rank the rank of the batch's state key among those being sorted, if
+     * {@link #usesStateRanks} (otherwise zero).
+     */
+    public long getSortKey (Batch batch, int rank)
+    {
+      return -1L;
+    }
+
     SortMode (Comparator<Batch> comparator)
     {
       _comparator = comparator;
     }
 
+    /**
+     * Maps the depth of the batch to an int whose unsigned order matches that of
+     * {@link Float#compare}.
+     */
+    protected static int getSortableDepth (Batch batch)
+    {
+      int bits = Float.floatToIntBits(batch.depth);
+      return bits ^ ((bits >> 31) | Integer.MIN_VALUE);
+    }
+
     /** The comparator used to sort the batches. */
     protected final Comparator<Batch> _comparator;
   }
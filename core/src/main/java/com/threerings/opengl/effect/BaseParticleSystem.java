@@ -26,8 +26,12 @@
 package com.threerings.opengl.effect;
 
 import java.util.IdentityHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.Uninterruptibles;
 
 import com.threerings.expr.Bound;
 import com.threerings.expr.MutableInteger;
@@ -38,6 +42,9 @@ import com.threerings.math.Box;
 import com.threerings.math.Quaternion;
 import com.threerings.math.Transform3D;
 import com.threerings.math.Vector3f;
+import com.threerings.probs.ColorFunctionVariable;
+import com.threerings.probs.FloatFunctionVariable;
+import com.threerings.util.WorkerPool;
 
 import com.threerings.opengl.camera.Camera;
 import com.threerings.opengl.compositor.Enqueueable;
@@ -51,6 +58,8 @@ import com.threerings.opengl.scene.SceneElement.TickPolicy;
 import com.threerings.opengl.util.DebugBounds;
 import com.threerings.opengl.util.GlContext;
 
+import static com.threerings.opengl.Log.log;
+
 /**
  * Base class for {@link ParticleSystem} and {@link MetaParticleSystem}.
  */
@@ -78,20 +87,16 @@ public abstract class BaseParticleSystem extends Model.Implementation
     {
       _config = config;
 
-      // recreate the particles and adjust the counts
-      Particle[] oparts = _particles;
-      _particles = new Particle[config.particleCount];
-      for (int ii = 0; ii < _particles.length; ii++) {
-        _particles[ii] = (oparts == null || oparts.length <= ii) ?
-          new Particle() : oparts[ii];
-      }
-      if (oparts == null) {
+      // (re)create the particles and adjust the counts
+      int count = config.particleCount;
+      if (_pool == null) {
+        _pool = new ParticlePool(count);
         _living.value = 0;
-        _preliving = _particles.length;
+        _preliving = count;
       } else {
-        _living.value = Math.min(_living.value, _particles.length);
-        _preliving = Math.min(_living.value + _preliving, _particles.length) -
-          _living.value;
+        _pool.setCapacity(count);
+        _living.value = Math.min(_living.value, count);
+        _preliving = Math.min(_living.value + _preliving, count) - _living.value;
       }
 
       // create the counter, placer, and shooter
@@ -150,7 +155,7 @@ public abstract class BaseParticleSystem extends Model.Implementation
       // reset the counter and counts
       _counter.reset();
       _living.value = 0;
-      _preliving = _particles.length;
+      _preliving = _pool.getCapacity();
     }
 
     /**
@@ -160,6 +165,27 @@ public abstract class BaseParticleSystem extends Model.Implementation
      */
     public boolean tick (float elapsed)
     {
+      return finishTick(simulate(elapsed));
+    }
+
+    /**
+     * Checks whether the layer may be {@link #simulate simulated} on a thread other than the
+     * one that ticks the system.
+     */
+    public boolean isSimulationThreadSafe ()
+    {
+      return false;
+    }
+
+    /**
+     * Updates the particle state and the bounds of the layer without touching any state
+     * outside of the layer (the first half of {@link #tick}).
+     *
+     * @return true if this layer has completed, false if it is still active.
+     */
+    protected boolean simulate (float elapsed)
+    {
+      _simulated = false;
       if (!_config.visible || _completed) {
         return true;
       } else if ((_total += elapsed) <= _config.startTime) {
@@ -176,47 +202,66 @@ public abstract class BaseParticleSystem extends Model.Implementation
         influence.tick(elapsed);
       }
 
-      // update the living particles and the bounds
-      _bounds.setToEmpty();
-      float msize = 0f;
-      float scale = 1f;
-      if (!_config.moveParticlesWithEmitter) {
-        scale = _worldTransform.approximateUniformScale();
-      }
+      // age the living particles, moving those that have expired to the end of the list
+      ParticlePool pool = _pool;
+      pool.clearOrder();
+      pool.age(elapsed, _living.value);
+      float[] ages = pool.getAges();
       for (int ii = 0; ii < _living.value; ii++) {
-        Particle particle = _particles[ii];
-        if (particle.tick(elapsed)) {
-          // apply the influences
-          for (Influence influence : _influences) {
-            influence.apply(particle);
-          }
-          // modulate by the inherited color, if any
-          if (_colorState != null) {
-            particle.getColor().multLocal(_colorState.getColor());
-          }
-          // multiply by the inherited scale, if any
-          if (!_config.moveParticlesWithEmitter) {
-            particle.setSize(particle.getSize() * scale);
-          }
-          // add to bounds
-          _bounds.addLocal(particle.getPosition());
-          msize = Math.max(msize, particle.getSize());
+        if (ages[ii] < 1f) {
+          continue;
+        }
+        killParticle(ii);
 
-        } else {
-          killParticle(ii);
+        // move this particle to the end of the list
+        if (ii != --_living.value) {
+          swapParticles(ii, _living.value);
+          ii--; // check the swapped particle on the next iteration
+        }
+        // then to the end of the preliving list
+        if (_preliving != 0) {
+          swapParticles(_living.value, _living.value + _preliving);
+        }
+      }
 
-          // move this particle to the end of the list
-          if (ii != --_living.value) {
-            swapParticles(ii, _living.value);
-            ii--; // update the swapped particle on the next iteration
-          }
-          // then to the end of the preliving list
-          if (_preliving != 0) {
-            swapParticles(_living.value, _living.value + _preliving);
-          }
+      // take an Euler step and update the age-dependent state of the survivors, using column
+      // passes for the functions that all particles share
+      int living = _living.value;
+      pool.integrate(elapsed, living);
+      ColorFunction colorfunc = (_config.color instanceof ColorFunctionVariable.Fixed) ?
+        ((ColorFunctionVariable.Fixed)_config.color).function : null;
+      FloatFunction sizefunc = (_config.size instanceof FloatFunctionVariable.Fixed) ?
+        ((FloatFunctionVariable.Fixed)_config.size).function : null;
+      if (colorfunc != null) {
+        pool.updateColors(colorfunc, _config.alphaMode, living);
+      }
+      if (sizefunc != null) {
+        pool.updateSizes(sizefunc, living);
+      }
+      Particle[] particles = pool.getParticles();
+      if (colorfunc == null || sizefunc == null || hasParticleFunctions()) {
+        for (int ii = 0; ii < living; ii++) {
+          particles[ii].update(elapsed, colorfunc == null, sizefunc == null);
         }
       }
 
+      // apply the influences
+      for (Influence influence : _influences) {
+        influence.apply(pool, living);
+      }
+      // modulate by the inherited color, if any
+      if (_colorState != null) {
+        pool.modulateColors(_colorState.getColor(), living);
+      }
+      // multiply by the inherited scale, if any
+      if (!_config.moveParticlesWithEmitter) {
+        pool.scaleSizes(_worldTransform.approximateUniformScale(), living);
+      }
+
+      // update the bounds
+      _bounds.setToEmpty();
+      float msize = pool.addBounds(0, living, _bounds);
+
       // check for completion
       if (_living.value == 0 && _preliving == 0 && !_config.respawnDeadParticles) {
         return (_completed = true);
@@ -224,28 +269,30 @@ public abstract class BaseParticleSystem extends Model.Implementation
 
       // find out how many particles the counter thinks we should emit
       int count = _counter.count(elapsed, _config.respawnDeadParticles ?
-        (_particles.length - _living.value) : _preliving);
+        (pool.getCapacity() - _living.value) : _preliving);
 
       // spawn those particles
-      for (int ii = _living.value, nn = _living.value + count; ii < nn; ii++) {
-        Particle particle = _particles[ii];
+      int first = _living.value;
+      for (int ii = first, nn = first + count; ii < nn; ii++) {
+        Particle particle = particles[ii];
         _placer.place(particle);
-        _config.orientation.getValue(particle.getOrientation());
-        vectorToLayer(
+        _config.orientation.getValue(_orientation);
+        particle.setVelocity(vectorToLayer(
           _shooter.shoot(particle).multLocal(_config.speed.getValue()),
-          _config.rotateVelocitiesWithEmitter);
-        _config.angularVelocity.getValue(particle.getAngularVelocity());
+          _config.rotateVelocitiesWithEmitter));
+        _config.angularVelocity.getValue(_angularVelocity);
         if (_config.shouldRotateOrientations()) {
           boolean emitter = _config.rotateOrientationsWithEmitter;
-          rotationToLayer(particle.getOrientation(), emitter);
-          vectorToLayer(particle.getAngularVelocity(), emitter);
+          rotationToLayer(_orientation, emitter);
+          vectorToLayer(_angularVelocity, emitter);
         }
+        particle.setOrientation(_orientation);
+        particle.setAngularVelocity(_angularVelocity);
         initParticle(ii);
         _living.value++;
         _preliving = Math.max(_preliving - 1, 0);
-        _bounds.addLocal(particle.getPosition());
-        msize = Math.max(msize, particle.getSize());
       }
+      msize = Math.max(msize, pool.addBounds(first, _living.value, _bounds));
 
       // expand the bounds (TODO: account for tails)
       if (_bounds.isEmpty()) {
@@ -253,13 +300,26 @@ public abstract class BaseParticleSystem extends Model.Implementation
       }
       float amount = _geometryRadius * msize;
       _bounds.expandLocal(amount, amount, amount);
-
-      // add bounds to parent
-      addBounds();
+      _simulated = true;
 
       return false;
     }
 
+    /**
+     * Completes a tick after {@link #simulate} by adding the layer's bounds to those of its
+     * parent, if the simulation updated them.
+     *
+     * @param completed the value returned by {@link #simulate}.
+     * @return the completion value, for chaining.
+     */
+    protected boolean finishTick (boolean completed)
+    {
+      if (!completed && _simulated) {
+        addBounds();
+      }
+      return completed;
+    }
+
     /**
      * Transforms a point in-place from world space or emitter space into the space of
      * the layer (either world space or emitter space, depending on the value of
@@ -329,9 +389,16 @@ public abstract class BaseParticleSystem extends Model.Implementation
      */
     protected void swapParticles (int idx0, int idx1)
     {
-      Particle tmp = _particles[idx0];
-      _particles[idx0] = _particles[idx1];
-      _particles[idx1] = tmp;
+      _pool.swap(idx0, idx1);
+    }
+
+    /**
+     * Checks whether the particles have functions of age other than color and size (which
+     * {@link Particle#update} must evaluate).
+     */
+    protected boolean hasParticleFunctions ()
+    {
+      return false;
     }
 
     /**
@@ -339,7 +406,7 @@ public abstract class BaseParticleSystem extends Model.Implementation
      */
     protected void initParticle (int idx)
     {
-      _particles[idx].init(_config.lifespan.getValue(), _config.alphaMode,
+      _pool.getParticles()[idx].init(_config.lifespan.getValue(), _config.alphaMode,
         _config.color, _config.size, null, null, null);
     }
 
@@ -403,7 +470,7 @@ public abstract class BaseParticleSystem extends Model.Implementation
     /** The particles in the layer (first the living particles, then the pre-living particles,
      * then the dead particles). */
     @Scoped
-    protected Particle[] _particles;
+    protected ParticlePool _pool;
 
     /** The particle counter. */
     protected Counter _counter;
@@ -430,8 +497,27 @@ public abstract class BaseParticleSystem extends Model.Implementation
     /** Whether or not the layer has completed. */
     protected boolean _completed;
 
+    /** Set by {@link #simulate} when the layer's bounds should be added to the parent's. */
+    protected boolean _simulated;
+
     /** Holds the world/world inverse rotation. */
     protected Quaternion _wrot = new Quaternion();
+
+    /** Holds the orientation of a particle being spawned. */
+    protected Quaternion _orientation = new Quaternion();
+
+    /** Holds the angular velocity of a particle being spawned. */
+    protected Vector3f _angularVelocity = new Vector3f();
+  }
+
+  /**
+   * Sets whether to simulate the {@link Layer#isSimulationThreadSafe thread-safe} layers of
+   * systems with at least {@link #MIN_CONCURRENT_PARTICLES} particles concurrently, on the
+   * shared worker pool.
+   */
+  public static void setConcurrentLayerTick (boolean concurrent)
+  {
+    _concurrentLayerTick = concurrent;
   }
 
   /**
@@ -572,10 +658,7 @@ public abstract class BaseParticleSystem extends Model.Implementation
     resetBounds();
 
     // tick the layers (they will expand the bounds)
-    _completed = true;
-    for (Layer layer : _layers) {
-      _completed &= layer.tick(elapsed);
-    }
+    _completed = tickLayers(elapsed);
 
     // update the bounds if necessary
     if (!_bounds.equals(_nbounds)) {
@@ -680,14 +763,87 @@ public abstract class BaseParticleSystem extends Model.Implementation
   {
     for (float remaining = _config.warmupTime; remaining > 0f; ) {
       float welapsed = Math.min(remaining, _config.warmupGranularity);
-      for (Layer layer : _layers) {
-        layer.tick(welapsed);
-      }
+      tickLayers(welapsed);
       remaining -= welapsed;
     }
     _warmed = true;
   }
 
+  /**
+   * Ticks the layers, concurrently if enabled and worthwhile.
+   *
+   * @return true if all of the layers have completed.
+   */
+  protected boolean tickLayers (float elapsed)
+  {
+    if (_concurrentLayerTick) {
+      int safe = 0, particles = 0;
+      for (Layer layer : _layers) {
+        if (layer.isSimulationThreadSafe()) {
+          safe++;
+          particles += layer.getConfig().particleCount;
+        }
+      }
+      if (safe > 1 && particles >= MIN_CONCURRENT_PARTICLES) {
+        return tickLayersConcurrently(elapsed, safe);
+      }
+    }
+    boolean completed = true;
+    for (Layer layer : _layers) {
+      completed &= layer.tick(elapsed);
+    }
+    return completed;
+  }
+
+  /**
+   * Simulates the thread-safe layers on the worker pool (and this thread), then finishes their
+   * ticks and ticks the remaining layers in order.
+   *
+   * @param safe the number of thread-safe layers.
+   * @return true if all of the layers have completed.
+   */
+  protected boolean tickLayersConcurrently (final float elapsed, int safe)
+  {
+    final Layer[] layers = _layers;
+    final boolean[] completed = new boolean[layers.length];
+    final AtomicInteger next = new AtomicInteger();
+    final CountDownLatch remaining = new CountDownLatch(layers.length);
+
+    // each task claims layers until none remain; we wait for the claimed layers rather than the
+    // tasks so that we can't deadlock if all of the workers are busy (or we are one of them)
+    Runnable task = new Runnable() {
+      public void run () {
+        for (int idx; (idx = next.getAndIncrement()) < layers.length; ) {
+          Layer layer = layers[idx];
+          try {
+            if (layer.isSimulationThreadSafe()) {
+              completed[idx] = layer.simulate(elapsed);
+            }
+          } catch (Throwable t) {
+            log.warning("Error simulating particle layer.", "layer", layer.getConfig(), t);
+          } finally {
+            remaining.countDown();
+          }
+        }
+      }
+    };
+    ExecutorService executor = WorkerPool.getExecutor();
+    for (int ii = 0, nn = Math.min(WorkerPool.THREADS, safe - 1); ii < nn; ii++) {
+      executor.execute(task);
+    }
+    task.run();
+    Uninterruptibles.awaitUninterruptibly(remaining);
+
+    // finish in order
+    boolean allCompleted = true;
+    for (int ii = 0; ii < layers.length; ii++) {
+      Layer layer = layers[ii];
+      allCompleted &= layer.isSimulationThreadSafe() ?
+        layer.finishTick(completed[ii]) : layer.tick(elapsed);
+    }
+    return allCompleted;
+  }
+
   /**
    * Resets the bounds before the tick.
    */
@@ -752,6 +908,12 @@ public abstract class BaseParticleSystem extends Model.Implementation
   /** If true, the particle system has completed. */
   protected boolean _completed;
 
+  /** Whether or not to simulate thread-safe layers concurrently. */
+  protected static boolean _concurrentLayerTick;
+
   /** Working vector. */
   protected static Vector3f _vector = new Vector3f();
+
+  /** The minimum number of particles in the thread-safe layers for a concurrent tick. */
+  protected static final int MIN_CONCURRENT_PARTICLES = 2048;
 }
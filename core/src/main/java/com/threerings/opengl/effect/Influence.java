@@ -36,7 +36,7 @@ public interface Influence
   public void tick (float elapsed);
 
   /**
-   * Applies this influence to the specified particle.
+   * Applies this influence to the first <code>count</code> particles in the pool.
    */
-  public void apply (Particle particle);
+  public void apply (ParticlePool pool, int count);
 }
@@ -87,9 +87,9 @@ public class MetaParticleSystem extends BaseParticleSystem
       for (int ii = 0; ii < _living.value; ii++) {
         Model model = _models[ii];
         if (alignment != Alignment.FIXED) {
-          Particle particle = _particles[ii];
+          Particle particle = _pool.getParticles()[ii];
           if (alignment == Alignment.VELOCITY) {
-            Vector3f velocity = particle.getVelocity();
+            Vector3f velocity = particle.getVelocity(_velocity);
             _view.cross(velocity, _t);
             float length = _t.length();
             if (length > FloatMath.EPSILON) {
@@ -101,7 +101,8 @@ public class MetaParticleSystem extends BaseParticleSystem
               _vrot.set(Quaternion.IDENTITY);
             }
           }
-          _vrot.mult(particle.getOrientation(), model.getLocalTransform().getRotation());
+          _vrot.mult(particle.getOrientation(_orientation),
+            model.getLocalTransform().getRotation());
         }
       }
     }
@@ -167,12 +168,14 @@ public class MetaParticleSystem extends BaseParticleSystem
         return true;
       }
       // update and tick the models
+      Particle[] particles = _pool.getParticles();
       for (int ii = 0; ii < _living.value; ii++) {
-        Particle particle = _particles[ii];
+        Particle particle = particles[ii];
         Model model = _models[ii];
         model.getLocalTransform().set(
-          particle.getPosition(), particle.getOrientation(), particle.getSize());
-        model.getColorState().getColor().set(particle.getColor());
+          particle.getPosition(_position), particle.getOrientation(_orientation),
+          particle.getSize());
+        particle.getColor(model.getColorState().getColor());
         model.tick(elapsed);
         _parentBounds.addLocal(model.getBounds());
       }
@@ -247,6 +250,12 @@ public class MetaParticleSystem extends BaseParticleSystem
 
     /** Holds the axis vectors. */
     protected Vector3f _s = new Vector3f(), _t = new Vector3f(), _r = new Vector3f();
+
+    /** Holds the position and velocity of the particle being updated. */
+    protected Vector3f _position = new Vector3f(), _velocity = new Vector3f();
+
+    /** Holds the orientation of the particle being updated. */
+    protected Quaternion _orientation = new Quaternion();
   }
 
   /**
@@ -34,20 +34,49 @@ import com.threerings.probs.FloatFunctionVariable;
 
 import com.threerings.opengl.renderer.Color4f;
 
+import static com.threerings.opengl.effect.ParticlePool.QUATERNION_SIZE;
+import static com.threerings.opengl.effect.ParticlePool.VECTOR_SIZE;
+
 /**
- * Contains the state of a single particle.
+ * Provides access to the state of a single particle.  The frequently accessed state (position,
+ * velocity, color, etc.) lives in the columns of the owning {@link ParticlePool}; this object
+ * holds the rest (the functions of age and the position history).
  */
 public final class Particle
 {
-  /** The depth of the particle (used for depth sorting). */
-  public float depth;
+  /**
+   * Creates a new particle at the specified index of the pool.
+   */
+  public Particle (ParticlePool pool, int index)
+  {
+    _pool = pool;
+    _index = index;
+  }
+
+  /**
+   * Returns the particle's current index in the pool.
+   */
+  public int getIndex ()
+  {
+    return _index;
+  }
+
+  /**
+   * Retrieves the particle's position.
+   *
+   * @return a reference to the result vector, for chaining.
+   */
+  public Vector3f getPosition (Vector3f result)
+  {
+    return get(_pool.getPositions(), result);
+  }
 
   /**
-   * Returns a reference to the particle's position.
+   * Sets the particle's position.
    */
-  public Vector3f getPosition ()
+  public void setPosition (Vector3f position)
   {
-    return _position;
+    set(_pool.getPositions(), position);
   }
 
   /**
@@ -56,7 +85,7 @@ public final class Particle
    */
   public Vector3f getPosition (float t, Vector3f result)
   {
-    return (_lengthfunc == null) ? result.set(_position) : _history.get(t, result);
+    return (_lengthfunc == null) ? getPosition(result) : _history.get(t, result);
   }
 
   /**
@@ -64,39 +93,81 @@ public final class Particle
    */
   public float getSize (float t)
   {
-    return _sizefunc.getValue(Math.max(_age - t*_length*_lifescale, 0f));
+    return _sizefunc.getValue(Math.max(_pool.getAges()[_index] - t*_length*_lifescale, 0f));
   }
 
   /**
-   * Returns a reference to the particle's (linear) velocity.
+   * Retrieves the particle's (linear) velocity.
+   *
+   * @return a reference to the result vector, for chaining.
+   */
+  public Vector3f getVelocity (Vector3f result)
+  {
+    return get(_pool.getVelocities(), result);
+  }
+
+  /**
+   * Sets the particle's (linear) velocity.
    */
-  public Vector3f getVelocity ()
+  public void setVelocity (Vector3f velocity)
   {
-    return _velocity;
+    set(_pool.getVelocities(), velocity);
   }
 
   /**
-   * Returns a reference to the particle's orientation.
+   * Retrieves the particle's orientation.
+   *
+   * @return a reference to the result quaternion, for chaining.
    */
-  public Quaternion getOrientation ()
+  public Quaternion getOrientation (Quaternion result)
   {
-    return _orientation;
+    float[] orientations = _pool.getOrientations();
+    int idx = _index * QUATERNION_SIZE;
+    return result.set(
+      orientations[idx], orientations[idx + 1], orientations[idx + 2], orientations[idx + 3]);
   }
 
   /**
-   * Returns a reference to the particle's angular velocity.
+   * Sets the particle's orientation.
    */
-  public Vector3f getAngularVelocity ()
+  public void setOrientation (Quaternion orientation)
   {
-    return _angularVelocity;
+    float[] orientations = _pool.getOrientations();
+    int idx = _index * QUATERNION_SIZE;
+    orientations[idx] = orientation.x;
+    orientations[idx + 1] = orientation.y;
+    orientations[idx + 2] = orientation.z;
+    orientations[idx + 3] = orientation.w;
   }
 
   /**
-   * Returns a reference to the particle's color.
+   * Retrieves the particle's angular velocity.
+   *
+   * @return a reference to the result vector, for chaining.
    */
-  public Color4f getColor ()
+  public Vector3f getAngularVelocity (Vector3f result)
   {
-    return _color;
+    return get(_pool.getAngularVelocities(), result);
+  }
+
+  /**
+   * Sets the particle's angular velocity.
+   */
+  public void setAngularVelocity (Vector3f angularVelocity)
+  {
+    set(_pool.getAngularVelocities(), angularVelocity);
+  }
+
+  /**
+   * Retrieves the particle's color.
+   *
+   * @return a reference to the result color, for chaining.
+   */
+  public Color4f getColor (Color4f result)
+  {
+    float[] colors = _pool.getColors();
+    int idx = _index * QUATERNION_SIZE;
+    return result.set(colors[idx], colors[idx + 1], colors[idx + 2], colors[idx + 3]);
   }
 
   /**
@@ -104,7 +175,7 @@ public final class Particle
    */
   public void setSize (float size)
   {
-    _size = size;
+    _pool.getSizes()[_index] = size;
   }
 
   /**
@@ -112,7 +183,7 @@ public final class Particle
    */
   public float getSize ()
   {
-    return _size;
+    return _pool.getSizes()[_index];
   }
 
   /**
@@ -120,25 +191,25 @@ public final class Particle
    */
   public float getFrame ()
   {
-    return _frame;
+    return _pool.getFrames()[_index];
   }
 
   /**
-   * Initializes the particle.
+   * Initializes the particle.  The position should already have been set.
    */
   public void init (
     float lifespan, AlphaMode alphaMode, ColorFunctionVariable color,
     FloatFunctionVariable size, FloatFunctionVariable length,
     FloatFunctionVariable frame, Transform3D historyTransform)
   {
-    _age = 0f;
-    _lifescale = 1f / lifespan;
-    _history.init(_position, historyTransform);
+    _pool.getAges()[_index] = 0f;
+    _pool.getLifescales()[_index] = _lifescale = 1f / lifespan;
+    _history.init(getPosition(_position), historyTransform);
     _alphaMode = alphaMode;
     _colorfunc = color.getValue(_colorfunc);
-    _alphaMode.apply(_colorfunc.getValue(0f, _color));
+    storeColor(_alphaMode.apply(_colorfunc.getValue(0f, _color)));
     _sizefunc = size.getValue(_sizefunc);
-    _size = _sizefunc.getValue(0f);
+    setSize(_sizefunc.getValue(0f));
     if (length == null) {
       _lengthfunc = null;
       _length = 0f;
@@ -148,64 +219,89 @@ public final class Particle
     }
     if (frame == null) {
       _framefunc = null;
-      _frame = 0f;
+      _pool.getFrames()[_index] = 0f;
     } else {
       _framefunc = frame.getValue(_framefunc);
-      _frame = _framefunc.getValue(0f);
+      _pool.getFrames()[_index] = _framefunc.getValue(0f);
     }
   }
 
   /**
-   * Updates the particle state based on the elapsed time in seconds.
+   * Updates the state that depends on the particle's age, once the pool has advanced the age
+   * and taken the Euler step for the elapsed time in seconds.
    *
-   * @return true if the particle is still alive, false if it is dead.
+   * @param color whether to update the color (false if the layer updates the colors of all
+   * particles with a shared function).
+   * @param size whether to update the size (false if the layer does so).
    */
-  public boolean tick (float elapsed)
+  public void update (float elapsed, boolean color, boolean size)
   {
-    if ((_age += elapsed * _lifescale) >= 1f) {
-      return false;
-    }
-    // take an Euler step
-    _position.addScaledLocal(_velocity, elapsed);
-    _orientation.integrateLocal(_angularVelocity, elapsed);
+    float age = _pool.getAges()[_index];
 
     // update color, size
-    _alphaMode.apply(_colorfunc.getValue(_age, _color));
-    _size = _sizefunc.getValue(_age);
+    if (color) {
+      storeColor(_alphaMode.apply(_colorfunc.getValue(age, _color)));
+    }
+    if (size) {
+      setSize(_sizefunc.getValue(age));
+    }
 
     // update length and record the new position if we have a tail
     if (_lengthfunc != null) {
-      _length = _lengthfunc.getValue(_age);
-      _history.record(_position, elapsed, _length);
+      _length = _lengthfunc.getValue(age);
+      _history.record(getPosition(_position), elapsed, _length);
     }
 
     // update texture frame
     if (_framefunc != null) {
-      _frame = _framefunc.getValue(_age);
+      _pool.getFrames()[_index] = _framefunc.getValue(age);
     }
-    return true;
   }
 
-  /** The particle's proportional age (0 to 1). */
-  protected float _age;
+  /**
+   * Stores the specified color in the pool.
+   */
+  protected void storeColor (Color4f color)
+  {
+    float[] colors = _pool.getColors();
+    int idx = _index * QUATERNION_SIZE;
+    colors[idx] = color.r;
+    colors[idx + 1] = color.g;
+    colors[idx + 2] = color.b;
+    colors[idx + 3] = color.a;
+  }
 
-  /** The reciprocal of the particle's lifespan. */
-  protected float _lifescale;
+  /**
+   * Reads this particle's entry of a vector column.
+   */
+  protected Vector3f get (float[] column, Vector3f result)
+  {
+    int idx = _index * VECTOR_SIZE;
+    return result.set(column[idx], column[idx + 1], column[idx + 2]);
+  }
 
-  /** The particle's position. */
-  protected Vector3f _position = new Vector3f();
+  /**
+   * Writes this particle's entry of a vector column.
+   */
+  protected void set (float[] column, Vector3f value)
+  {
+    int idx = _index * VECTOR_SIZE;
+    column[idx] = value.x;
+    column[idx + 1] = value.y;
+    column[idx + 2] = value.z;
+  }
 
-  /** The particle's position history. */
-  protected PositionHistory _history = new PositionHistory();
+  /** The pool containing the particle. */
+  protected ParticlePool _pool;
 
-  /** The particle's (linear) velocity. */
-  protected Vector3f _velocity = new Vector3f();
+  /** The particle's current index in the pool. */
+  protected int _index;
 
-  /** The particle's orientation. */
-  protected Quaternion _orientation = new Quaternion();
+  /** The reciprocal of the particle's lifespan. */
+  protected float _lifescale;
 
-  /** The particle's angular velocity. */
-  protected Vector3f _angularVelocity = new Vector3f();
+  /** The particle's position history. */
+  protected PositionHistory _history = new PositionHistory();
 
   /** The particle's alpha mode. */
   protected AlphaMode _alphaMode = AlphaMode.TRANSLUCENT;
@@ -213,15 +309,12 @@ public final class Particle
   /** The particle's color as a function of its proportional age. */
   protected ColorFunction _colorfunc;
 
-  /** The particle's current color. */
+  /** Holds the particle's color before it is stored in the pool. */
   protected Color4f _color = new Color4f(0f, 0f, 0f, 0f);
 
   /** The particle's size as a function of its proportional age. */
   protected FloatFunction _sizefunc;
 
-  /** The particle's current size. */
-  protected float _size;
-
   /** The particle's length as a function of its proportional age. */
   protected FloatFunction _lengthfunc;
 
@@ -231,6 +324,6 @@ public final class Particle
   /** The particle's texture frame as a function of its proportional age. */
   protected FloatFunction _framefunc;
 
-  /** The particle's current texture frame. */
-  protected float _frame;
+  /** Holds the particle's position when recording the history. */
+  protected Vector3f _position = new Vector3f();
 }
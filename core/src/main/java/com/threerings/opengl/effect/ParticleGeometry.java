@@ -110,7 +110,10 @@ public abstract class ParticleGeometry extends DynamicGeometry
     protected void updateData ()
     {
       // get everything into local variables
-      Particle[] particles = _particles;
+      ParticlePool pool = _pool;
+      float[] positions = pool.getPositions(), orientations = pool.getOrientations();
+      float[] colors = pool.getColors(), frames = pool.getFrames();
+      int[] order = pool.getOrder();
       float[] data = _data;
       int stride = _stride;
       Vector3f n = _n;
@@ -127,20 +130,20 @@ public abstract class ParticleGeometry extends DynamicGeometry
       int normalIdx = _normalOffset;
       int vertexIdx = _vertexOffset;
       for (int ii = 0, nn = _living.value; ii < nn; ii++) {
-        Particle particle = particles[ii];
+        int pidx = (order == null) ? ii : order[ii];
 
         // determine the texture coordinate offsets
-        int frame = FloatMath.round(particle.getFrame());
+        int frame = FloatMath.round(frames[pidx]);
         float uoff = (frame % udivs) * uscale, voff = (frame / udivs) * vscale;
 
         // write the vertex attributes and advance the positions
         texCoordIdx = write(data, texCoordIdx, stride, uoff, voff);
-        colorIdx = write(data, colorIdx, stride, particle.getColor());
+        colorIdx = write(data, colorIdx, stride, colors, pidx * 4);
         if (normals) {
           normalIdx = write(data, normalIdx, stride,
-            particle.getOrientation().transformUnitZ(n));
+            get(orientations, pidx, _orientation).transformUnitZ(n));
         }
-        vertexIdx = write(data, vertexIdx, stride, particle.getPosition());
+        vertexIdx = write(data, vertexIdx, stride, get(positions, pidx, _position));
       }
     }
   }
@@ -184,7 +187,11 @@ public abstract class ParticleGeometry extends DynamicGeometry
     protected void updateData ()
     {
       // get everything in local variables
-      Particle[] particles = _particles;
+      ParticlePool pool = _pool;
+      float[] positions = pool.getPositions(), velocities = pool.getVelocities();
+      float[] orientations = pool.getOrientations(), colors = pool.getColors();
+      float[] sizes = pool.getSizes(), frames = pool.getFrames();
+      int[] order = pool.getOrder();
       float[] data = _data;
       int stride = _stride;
       Vector3f s = _s, n = _n;
@@ -208,37 +215,38 @@ public abstract class ParticleGeometry extends DynamicGeometry
       int normalIdx = _normalOffset;
       int vertexIdx = _vertexOffset;
       for (int ii = 0, nn = _living.value; ii < nn; ii++) {
-        Particle particle = particles[ii];
+        int pidx = (order == null) ? ii : order[ii];
 
         // determine the texture coordinate offsets
-        int frame = FloatMath.round(particle.getFrame());
+        int frame = FloatMath.round(frames[pidx]);
         float uoff = (frame % udivs) * uscale, voff = (frame / udivs) * vscale;
 
         // extract the color
-        Color4f color = particle.getColor();
-        float cr = color.r, cg = color.g, cb = color.b, ca = color.a;
+        int cidx = pidx * 4;
+        float cr = colors[cidx], cg = colors[cidx + 1];
+        float cb = colors[cidx + 2], ca = colors[cidx + 3];
 
         // and the position
-        Vector3f position = particle.getPosition();
-        float px = position.x, py = position.y, pz = position.z;
+        int vidx = pidx * 3;
+        float px = positions[vidx], py = positions[vidx + 1], pz = positions[vidx + 2];
 
         // compute the offset
         if (alignment == Alignment.VELOCITY) {
-          Vector3f velocity = particle.getVelocity();
+          Vector3f velocity = get(velocities, pidx, _velocity);
           float length = velocity.length();
           if (length < FloatMath.EPSILON) {
             s.set(Vector3f.ZERO);
           } else {
-            velocity.mult(particle.getSize() / length, s);
+            velocity.mult(sizes[pidx] / length, s);
           }
           if (normals) {
-            particle.getOrientation().transformUnitZ(n);
+            get(orientations, pidx, _orientation).transformUnitZ(n);
           }
         } else {
           Quaternion rot = (alignment == Alignment.BILLBOARD) ?
-            vrot.mult(particle.getOrientation(), rotation) :
-            particle.getOrientation();
-          rot.transformUnitX(s).multLocal(particle.getSize());
+            vrot.mult(get(orientations, pidx, _orientation), rotation) :
+            get(orientations, pidx, _orientation);
+          rot.transformUnitX(s).multLocal(sizes[pidx]);
           if (normals) {
             rot.transformUnitZ(n);
           }
@@ -319,7 +327,11 @@ public abstract class ParticleGeometry extends DynamicGeometry
     protected void updateData ()
     {
       // get everything in local variables
-      Particle[] particles = _particles;
+      ParticlePool pool = _pool;
+      Particle[] particles = pool.getParticles();
+      float[] orientations = pool.getOrientations(), colors = pool.getColors();
+      float[] frames = pool.getFrames();
+      int[] order = pool.getOrder();
       float[] data = _data;
       int stride = _stride;
       int segments = _segments;
@@ -338,19 +350,21 @@ public abstract class ParticleGeometry extends DynamicGeometry
       int normalIdx = _normalOffset;
       int vertexIdx = _vertexOffset;
       for (int ii = 0, nn = _living.value; ii < nn; ii++) {
-        Particle particle = particles[ii];
+        int pidx = (order == null) ? ii : order[ii];
+        Particle particle = particles[pidx];
 
         // determine the texture coordinate offsets
-        int frame = FloatMath.round(particle.getFrame());
+        int frame = FloatMath.round(frames[pidx]);
         float uoff = (frame % udivs) * uscale, voff = (frame / udivs) * vscale;
 
         // extract the color
-        Color4f color = particle.getColor();
-        float cr = color.r, cg = color.g, cb = color.b, ca = color.a;
+        int cidx = pidx * 4;
+        float cr = colors[cidx], cg = colors[cidx + 1];
+        float cb = colors[cidx + 2], ca = colors[cidx + 3];
 
         // write the initial segments, then the final one
         if (normals) {
-          particle.getOrientation().transformUnitZ(n);
+          get(orientations, pidx, _orientation).transformUnitZ(n);
           float nx = n.x, ny = n.y, nz = n.z;
 
           for (int jj = 0; jj <= segments; jj++) {
@@ -416,7 +430,11 @@ public abstract class ParticleGeometry extends DynamicGeometry
     protected void updateData ()
     {
       // get everything in local variables
-      Particle[] particles = _particles;
+      ParticlePool pool = _pool;
+      float[] positions = pool.getPositions(), velocities = pool.getVelocities();
+      float[] orientations = pool.getOrientations(), colors = pool.getColors();
+      float[] sizes = pool.getSizes(), frames = pool.getFrames();
+      int[] order = pool.getOrder();
       float[] data = _data;
       int stride = _stride;
       Vector3f s = _s, t = _t, n = _n, view = _view;
@@ -445,24 +463,25 @@ public abstract class ParticleGeometry extends DynamicGeometry
       int normalIdx = _normalOffset;
       int vertexIdx = _vertexOffset;
       for (int ii = 0, nn = _living.value; ii < nn; ii++) {
-        Particle particle = particles[ii];
+        int pidx = (order == null) ? ii : order[ii];
 
         // determine the texture coordinate offsets
-        int frame = FloatMath.round(particle.getFrame());
+        int frame = FloatMath.round(frames[pidx]);
         float uoff = (frame % udivs) * uscale, voff = (frame / udivs) * vscale;
 
         // extract the color
-        Color4f color = particle.getColor();
-        float cr = color.r, cg = color.g, cb = color.b, ca = color.a;
+        int cidx = pidx * 4;
+        float cr = colors[cidx], cg = colors[cidx + 1];
+        float cb = colors[cidx + 2], ca = colors[cidx + 3];
 
         // and the position
-        Vector3f position = particle.getPosition();
-        float px = position.x, py = position.y, pz = position.z;
+        int vidx = pidx * 3;
+        float px = positions[vidx], py = positions[vidx + 1], pz = positions[vidx + 2];
 
         // compute the offsets
-        float size = particle.getSize();
+        float size = sizes[pidx];
         if (alignment == Alignment.VELOCITY) {
-          Vector3f velocity = particle.getVelocity();
+          Vector3f velocity = get(velocities, pidx, _velocity);
           view.cross(velocity, t);
           float length = t.length();
           if (length > FloatMath.EPSILON) {
@@ -477,8 +496,8 @@ public abstract class ParticleGeometry extends DynamicGeometry
           }
         } else {
           Quaternion rot = (alignment == Alignment.BILLBOARD) ?
-            vrot.mult(particle.getOrientation(), rotation) :
-            particle.getOrientation();
+            vrot.mult(get(orientations, pidx, _orientation), rotation) :
+            get(orientations, pidx, _orientation);
           rot.transformUnitX(s).multLocal(size);
           rot.transformUnitY(t).multLocal(size);
           if (normals) {
@@ -585,7 +604,11 @@ public abstract class ParticleGeometry extends DynamicGeometry
     protected void updateData ()
     {
       // get everything in local variables
-      Particle[] particles = _particles;
+      ParticlePool pool = _pool;
+      Particle[] particles = pool.getParticles();
+      float[] colors = pool.getColors(), sizes = pool.getSizes();
+      float[] frames = pool.getFrames();
+      int[] order = pool.getOrder();
       float[] data = _data;
       int stride = _stride;
       int segments = _segments;
@@ -609,12 +632,14 @@ public abstract class ParticleGeometry extends DynamicGeometry
       int normalIdx = _normalOffset;
       int vertexIdx = _vertexOffset;
       for (int ii = 0, nn = _living.value; ii < nn; ii++) {
-        Particle particle = particles[ii];
+        int pidx = (order == null) ? ii : order[ii];
+        Particle particle = particles[pidx];
 
         // extract the color and size
-        Color4f color = particle.getColor();
-        float cr = color.r, cg = color.g, cb = color.b, ca = color.a;
-        float size = particle.getSize();
+        int cidx = pidx * 4;
+        float cr = colors[cidx], cg = colors[cidx + 1];
+        float cb = colors[cidx + 2], ca = colors[cidx + 3];
+        float size = sizes[pidx];
 
         // compute the position
         particle.getPosition(0f, position);
@@ -626,7 +651,7 @@ public abstract class ParticleGeometry extends DynamicGeometry
         float tx = t.x, ty = t.y, tz = t.z;
 
         // determine the texture coordinate offsets
-        int frame = FloatMath.round(particle.getFrame());
+        int frame = FloatMath.round(frames[pidx]);
         float uoff = (frame % udivs) * uscale, voff = (frame / udivs) * vscale;
 
         // write the first two vertices
@@ -808,7 +833,11 @@ public abstract class ParticleGeometry extends DynamicGeometry
     protected void updateData ()
     {
       // get everything in local variables
-      Particle[] particles = _particles;
+      ParticlePool pool = _pool;
+      float[] positions = pool.getPositions(), velocities = pool.getVelocities();
+      float[] orientations = pool.getOrientations(), colors = pool.getColors();
+      float[] sizes = pool.getSizes(), frames = pool.getFrames();
+      int[] order = pool.getOrder();
       float[] data = _data, source = _source;
       int stride = _stride, sourceStride = _sourceStride;
       Transform3D xform = _xform;
@@ -839,23 +868,24 @@ public abstract class ParticleGeometry extends DynamicGeometry
       int normalIdx = _normalOffset;
       int vertexIdx = _vertexOffset;
       for (int ii = 0, nn = _living.value; ii < nn; ii++) {
-        Particle particle = particles[ii];
+        int pidx = (order == null) ? ii : order[ii];
 
         // determine the texture coordinate offsets
-        int frame = FloatMath.round(particle.getFrame());
+        int frame = FloatMath.round(frames[pidx]);
         float uoff = (frame % udivs) * uscale, voff = (frame / udivs) * vscale;
 
         // extract the color
-        Color4f color = particle.getColor();
-        float cr = color.r, cg = color.g, cb = color.b, ca = color.a;
+        int cidx = pidx * 4;
+        float cr = colors[cidx], cg = colors[cidx + 1];
+        float cb = colors[cidx + 2], ca = colors[cidx + 3];
 
         // compute the particle transform matrix
         float m00, m10, m20, m30;
         float m01, m11, m21, m31;
         float m02, m12, m22, m32;
-        float size = particle.getSize();
+        float size = sizes[pidx];
         if (alignment == Alignment.VELOCITY) {
-          Vector3f velocity = particle.getVelocity();
+          Vector3f velocity = get(velocities, pidx, _velocity);
           view.cross(velocity, t);
           float length = t.length();
           if (length > FloatMath.EPSILON) {
@@ -867,17 +897,17 @@ public abstract class ParticleGeometry extends DynamicGeometry
             t.set(Vector3f.ZERO);
             r.set(Vector3f.ZERO);
           }
-          Vector3f position = particle.getPosition();
+          Vector3f position = get(positions, pidx, _position);
           m00 = s.x*size; m10 = t.x*size; m20 = r.x*size; m30 = position.x;
           m01 = s.y*size; m11 = t.y*size; m21 = r.y*size; m31 = position.y;
           m02 = s.z*size; m12 = t.z*size; m22 = r.z*size; m32 = position.z;
 
         } else {
           xform.set(
-            particle.getPosition(),
+            get(positions, pidx, _position),
             (alignment == Alignment.BILLBOARD) ?
-              vrot.mult(particle.getOrientation(), rotation) :
-              particle.getOrientation(),
+              vrot.mult(get(orientations, pidx, _orientation), rotation) :
+              get(orientations, pidx, _orientation),
             size);
           xform.update(Transform3D.AFFINE);
           Matrix4f m = xform.getMatrix();
@@ -890,7 +920,7 @@ public abstract class ParticleGeometry extends DynamicGeometry
         int sourceVertexIdx = _sourceVertexOffset;
         if (normals) {
           int sourceNormalIdx = _sourceNormalOffset;
-          float rsize = 1f / particle.getSize();
+          float rsize = 1f / sizes[pidx];
           float n00 = m00*rsize, n10 = m10*rsize, n20 = m20*rsize;
           float n01 = m01*rsize, n11 = m11*rsize, n21 = m21*rsize;
           float n02 = m02*rsize, n12 = m12*rsize, n22 = m22*rsize;
@@ -1037,7 +1067,7 @@ public abstract class ParticleGeometry extends DynamicGeometry
     // (re)create the data array if necessary
     _data = (_config.data == null) ? null : _config.data.get();
     if (_data == null) {
-      int size = _particles.length * getParticleVertexCount() * _stride;
+      int size = _pool.getCapacity() * getParticleVertexCount() * _stride;
       _config.data = new SoftReference<float[]>(_data = new float[size]);
     }
 
@@ -1088,9 +1118,9 @@ public abstract class ParticleGeometry extends DynamicGeometry
   protected ShortBuffer createIndices ()
   {
     int[] prototype = getPrototypeIndices();
-    ShortBuffer indices = BufferUtils.createShortBuffer(_particles.length * prototype.length);
+    ShortBuffer indices = BufferUtils.createShortBuffer(_pool.getCapacity() * prototype.length);
     int vpp = getParticleVertexCount();
-    for (int ii = 0, offset = 0; ii < _particles.length; ii++, offset += vpp) {
+    for (int ii = 0, offset = 0; ii < _pool.getCapacity(); ii++, offset += vpp) {
       for (int index : prototype) {
         indices.put((short)(offset + index));
       }
@@ -1134,6 +1164,28 @@ public abstract class ParticleGeometry extends DynamicGeometry
     }
   }
 
+  /**
+   * Reads the vector at the specified particle index of a pool column.
+   *
+   * @return a reference to the result vector, for chaining.
+   */
+  protected static Vector3f get (float[] column, int pidx, Vector3f result)
+  {
+    int idx = pidx * 3;
+    return result.set(column[idx], column[idx + 1], column[idx + 2]);
+  }
+
+  /**
+   * Reads the quaternion at the specified particle index of a pool column.
+   *
+   * @return a reference to the result quaternion, for chaining.
+   */
+  protected static Quaternion get (float[] column, int pidx, Quaternion result)
+  {
+    int idx = pidx * 4;
+    return result.set(column[idx], column[idx + 1], column[idx + 2], column[idx + 3]);
+  }
+
   /**
    * Writes a pair of values to the data buffer at the specified position and returns the
    * position advanced by the stride (the hope is that these methods will be inlined; if not,
@@ -1172,6 +1224,19 @@ public abstract class ParticleGeometry extends DynamicGeometry
     return idx + stride;
   }
 
+  /**
+   * Writes a quadruplet from a pool column to the data buffer at the specified position and
+   * returns the position advanced by the stride.
+   */
+  protected static int write (float[] data, int idx, int stride, float[] column, int cidx)
+  {
+    data[idx] = column[cidx];
+    data[idx + 1] = column[cidx + 1];
+    data[idx + 2] = column[cidx + 2];
+    data[idx + 3] = column[cidx + 3];
+    return idx + stride;
+  }
+
   /**
    * Writes a vector to the data buffer at the specified position and returns the position
    * advanced by the stride.
@@ -1203,7 +1268,7 @@ public abstract class ParticleGeometry extends DynamicGeometry
 
   /** The particles to render. */
   @Bound
-  protected Particle[] _particles;
+  protected ParticlePool _pool;
 
   /** The number of particles currently active. */
   @Bound
@@ -1250,6 +1315,12 @@ public abstract class ParticleGeometry extends DynamicGeometry
   /** Used to compute particle rotations. */
   protected Quaternion _rotation = new Quaternion(), _vrot = new Quaternion();
 
+  /** Holds the orientation of the current particle. */
+  protected Quaternion _orientation = new Quaternion();
+
+  /** Holds the velocity of the current particle. */
+  protected Vector3f _velocity = new Vector3f();
+
   /** Used to compute particle offsets. */
   protected Vector3f _s = new Vector3f(), _t = new Vector3f(), _r = new Vector3f();
 
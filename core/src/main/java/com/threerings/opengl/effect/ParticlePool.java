@@ -0,0 +1,445 @@
+//
+// $Id$
+//
+// Clyde library - tools for developing networked games
+// Copyright (C) 2005-2012 Three Rings Design, Inc.
+// http://code.google.com/p/clyde/
+//
+// Redistribution and use in source and binary forms, with or without modification, are permitted
+// provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this list of
+//    conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+//    conditions and the following disclaimer in the documentation and/or other materials provided
+//    with the distribution.
+//
+// THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR IMPLIED WARRANTIES,
+// INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+// PARTICULAR PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT,
+// INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+// TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+// LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package com.threerings.opengl.effect;
+
+import java.util.Arrays;
+
+import com.threerings.math.Box;
+import com.threerings.math.FloatMath;
+import com.threerings.math.Transform3D;
+import com.threerings.math.Vector3f;
+
+import com.threerings.opengl.renderer.Color4f;
+
+/**
+ * Stores the frequently accessed state of a layer's particles in flat columns (one array per
+ * attribute), so that simulation passes and vertex generation can stream through them without
+ * visiting the individual {@link Particle} objects.
+ */
+public final class ParticlePool
+{
+  /** The number of components in each position, velocity, and angular velocity. */
+  public static final int VECTOR_SIZE = 3;
+
+  /** The number of components in each orientation and color. */
+  public static final int QUATERNION_SIZE = 4;
+
+  /**
+   * Creates a new pool with the specified capacity.
+   */
+  public ParticlePool (int capacity)
+  {
+    setCapacity(capacity);
+  }
+
+  /**
+   * Returns the number of particles in the pool.
+   */
+  public int getCapacity ()
+  {
+    return _particles.length;
+  }
+
+  /**
+   * Sets the number of particles in the pool, preserving the state of those particles that
+   * remain.
+   */
+  public void setCapacity (int capacity)
+  {
+    int ocapacity = _particles.length;
+    if (capacity == ocapacity) {
+      return;
+    }
+    _positions = Arrays.copyOf(_positions, capacity * VECTOR_SIZE);
+    _velocities = Arrays.copyOf(_velocities, capacity * VECTOR_SIZE);
+    _orientations = Arrays.copyOf(_orientations, capacity * QUATERNION_SIZE);
+    _angularVelocities = Arrays.copyOf(_angularVelocities, capacity * VECTOR_SIZE);
+    _colors = Arrays.copyOf(_colors, capacity * QUATERNION_SIZE);
+    _sizes = Arrays.copyOf(_sizes, capacity);
+    _frames = Arrays.copyOf(_frames, capacity);
+    _ages = Arrays.copyOf(_ages, capacity);
+    _lifescales = Arrays.copyOf(_lifescales, capacity);
+    _ids = Arrays.copyOf(_ids, capacity);
+    _particles = Arrays.copyOf(_particles, capacity);
+    for (int ii = ocapacity; ii < capacity; ii++) {
+      Particle particle = _particles[ii] = new Particle(this, ii);
+      _orientations[ii*QUATERNION_SIZE + 3] = 1f;
+      _ids[ii] = System.identityHashCode(particle);
+    }
+    _order = null;
+    _keys = null;
+  }
+
+  /**
+   * Returns a reference to the particle objects, which hold the state that does not live in
+   * the columns.
+   */
+  public Particle[] getParticles ()
+  {
+    return _particles;
+  }
+
+  /**
+   * Returns a reference to the position column (x, y, and z for each particle).
+   */
+  public float[] getPositions ()
+  {
+    return _positions;
+  }
+
+  /**
+   * Returns a reference to the (linear) velocity column (x, y, and z for each particle).
+   */
+  public float[] getVelocities ()
+  {
+    return _velocities;
+  }
+
+  /**
+   * Returns a reference to the orientation column (x, y, z, and w for each particle).
+   */
+  public float[] getOrientations ()
+  {
+    return _orientations;
+  }
+
+  /**
+   * Returns a reference to the angular velocity column (x, y, and z for each particle).
+   */
+  public float[] getAngularVelocities ()
+  {
+    return _angularVelocities;
+  }
+
+  /**
+   * Returns a reference to the color column (r, g, b, and a for each particle).
+   */
+  public float[] getColors ()
+  {
+    return _colors;
+  }
+
+  /**
+   * Returns a reference to the size column.
+   */
+  public float[] getSizes ()
+  {
+    return _sizes;
+  }
+
+  /**
+   * Returns a reference to the texture frame column.
+   */
+  public float[] getFrames ()
+  {
+    return _frames;
+  }
+
+  /**
+   * Returns a reference to the proportional age column (0 to 1).
+   */
+  public float[] getAges ()
+  {
+    return _ages;
+  }
+
+  /**
+   * Returns a reference to the column containing the reciprocals of the particles' lifespans.
+   */
+  public float[] getLifescales ()
+  {
+    return _lifescales;
+  }
+
+  /**
+   * Returns a reference to the column of particle identifiers, which remain constant for each
+   * particle for the life of the pool (and are used to seed per-particle noise).
+   */
+  public int[] getIds ()
+  {
+    return _ids;
+  }
+
+  /**
+   * Returns the order in which to render the particles (as computed by the last call to
+   * {@link #sortByDepth}), or <code>null</code> to render them in index order.
+   */
+  public int[] getOrder ()
+  {
+    return _ordered ? _order : null;
+  }
+
+  /**
+   * Swaps the two particles at the specified indices.
+   */
+  public void swap (int idx0, int idx1)
+  {
+    swap(_positions, idx0, idx1, VECTOR_SIZE);
+    swap(_velocities, idx0, idx1, VECTOR_SIZE);
+    swap(_orientations, idx0, idx1, QUATERNION_SIZE);
+    swap(_angularVelocities, idx0, idx1, VECTOR_SIZE);
+    swap(_colors, idx0, idx1, QUATERNION_SIZE);
+    swap(_sizes, idx0, idx1, 1);
+    swap(_frames, idx0, idx1, 1);
+    swap(_ages, idx0, idx1, 1);
+    swap(_lifescales, idx0, idx1, 1);
+
+    int id = _ids[idx0];
+    _ids[idx0] = _ids[idx1];
+    _ids[idx1] = id;
+
+    Particle particle = _particles[idx0];
+    (_particles[idx0] = _particles[idx1])._index = idx0;
+    (_particles[idx1] = particle)._index = idx1;
+  }
+
+  /**
+   * Advances the ages of the first <code>count</code> particles.
+   */
+  public void age (float elapsed, int count)
+  {
+    float[] ages = _ages, lifescales = _lifescales;
+    for (int ii = 0; ii < count; ii++) {
+      ages[ii] += elapsed * lifescales[ii];
+    }
+  }
+
+  /**
+   * Takes an Euler step for the positions and orientations of the first <code>count</code>
+   * particles.
+   */
+  public void integrate (float elapsed, int count)
+  {
+    float[] positions = _positions, velocities = _velocities;
+    for (int ii = 0, nn = count * VECTOR_SIZE; ii < nn; ii++) {
+      positions[ii] += velocities[ii] * elapsed;
+    }
+    float[] orientations = _orientations, angularVelocities = _angularVelocities;
+    float hstep = 0.5f * elapsed;
+    for (int ii = 0, vidx = 0, qidx = 0; ii < count;
+        ii++, vidx += VECTOR_SIZE, qidx += QUATERNION_SIZE) {
+      float qx = hstep * angularVelocities[vidx];
+      float qy = hstep * angularVelocities[vidx + 1];
+      float qz = hstep * angularVelocities[vidx + 2];
+      if (qx == 0f && qy == 0f && qz == 0f) {
+        continue;
+      }
+      float x = orientations[qidx], y = orientations[qidx + 1];
+      float z = orientations[qidx + 2], w = orientations[qidx + 3];
+      float nx = x + (qx*w + qy*z - qz*y);
+      float ny = y + (qy*w + qz*x - qx*z);
+      float nz = z + (qz*w + qx*y - qy*x);
+      float nw = w + (-qx*x - qy*y - qz*z);
+      float rlength = 1f / FloatMath.sqrt(nx*nx + ny*ny + nz*nz + nw*nw);
+      orientations[qidx] = nx * rlength;
+      orientations[qidx + 1] = ny * rlength;
+      orientations[qidx + 2] = nz * rlength;
+      orientations[qidx + 3] = nw * rlength;
+    }
+  }
+
+  /**
+   * Sets the colors of the first <code>count</code> particles by evaluating a function shared
+   * by all of them at their ages.
+   */
+  public void updateColors (ColorFunction function, AlphaMode alphaMode, int count)
+  {
+    float[] ages = _ages, colors = _colors;
+    Color4f color = _color;
+    for (int ii = 0, idx = 0; ii < count; ii++, idx += QUATERNION_SIZE) {
+      alphaMode.apply(function.getValue(ages[ii], color));
+      colors[idx] = color.r;
+      colors[idx + 1] = color.g;
+      colors[idx + 2] = color.b;
+      colors[idx + 3] = color.a;
+    }
+  }
+
+  /**
+   * Sets the sizes of the first <code>count</code> particles by evaluating a function shared by
+   * all of them at their ages.
+   */
+  public void updateSizes (FloatFunction function, int count)
+  {
+    float[] ages = _ages, sizes = _sizes;
+    for (int ii = 0; ii < count; ii++) {
+      sizes[ii] = function.getValue(ages[ii]);
+    }
+  }
+
+  /**
+   * Modulates the colors of the first <code>count</code> particles by the supplied color.
+   */
+  public void modulateColors (Color4f color, int count)
+  {
+    float r = color.r, g = color.g, b = color.b, a = color.a;
+    float[] colors = _colors;
+    for (int ii = 0, nn = count * QUATERNION_SIZE; ii < nn; ii += QUATERNION_SIZE) {
+      colors[ii] *= r;
+      colors[ii + 1] *= g;
+      colors[ii + 2] *= b;
+      colors[ii + 3] *= a;
+    }
+  }
+
+  /**
+   * Multiplies the sizes of the first <code>count</code> particles by the supplied scale.
+   */
+  public void scaleSizes (float scale, int count)
+  {
+    float[] sizes = _sizes;
+    for (int ii = 0; ii < count; ii++) {
+      sizes[ii] *= scale;
+    }
+  }
+
+  /**
+   * Expands the supplied bounds to include the positions of the particles in the specified
+   * range.
+   *
+   * @return the maximum size of the particles in the range (or zero if the range is empty).
+   */
+  public float addBounds (int start, int end, Box bounds)
+  {
+    if (start >= end) {
+      return 0f;
+    }
+    float[] positions = _positions, sizes = _sizes;
+    float minX = Float.POSITIVE_INFINITY, minY = minX, minZ = minX;
+    float maxX = Float.NEGATIVE_INFINITY, maxY = maxX, maxZ = maxX;
+    float msize = 0f;
+    for (int ii = start, idx = start * VECTOR_SIZE; ii < end; ii++, idx += VECTOR_SIZE) {
+      float x = positions[idx], y = positions[idx + 1], z = positions[idx + 2];
+      minX = (x < minX) ? x : minX;
+      minY = (y < minY) ? y : minY;
+      minZ = (z < minZ) ? z : minZ;
+      maxX = (x > maxX) ? x : maxX;
+      maxY = (y > maxY) ? y : maxY;
+      maxZ = (z > maxZ) ? z : maxZ;
+      float size = sizes[ii];
+      msize = (size > msize) ? size : msize;
+    }
+    bounds.addLocal(_vector.set(minX, minY, minZ));
+    bounds.addLocal(_vector.set(maxX, maxY, maxZ));
+    return msize;
+  }
+
+  /**
+   * Sorts the first <code>count</code> particles by increasing depth under the supplied
+   * transform, storing the result in the {@link #getOrder render order}.
+   */
+  public void sortByDepth (Transform3D xform, int count)
+  {
+    int capacity = _particles.length;
+    if (_order == null) {
+      _order = new int[capacity];
+      _keys = new long[capacity];
+    }
+    // pack the sortable bits of each depth above its index and sort the primitive keys
+    float[] positions = _positions;
+    long[] keys = _keys;
+    Vector3f vector = _vector;
+    for (int ii = 0, idx = 0; ii < count; ii++, idx += VECTOR_SIZE) {
+      int bits = Float.floatToIntBits(xform.transformPointZ(
+        vector.set(positions[idx], positions[idx + 1], positions[idx + 2])) + 0f);
+      keys[ii] = ((long)(bits ^ ((bits >> 31) & 0x7FFFFFFF)) << 32) | ii;
+    }
+    Arrays.sort(keys, 0, count);
+    int[] order = _order;
+    for (int ii = 0; ii < count; ii++) {
+      order[ii] = (int)keys[ii];
+    }
+    _ordered = true;
+  }
+
+  /**
+   * Clears the render order, so that particles will be rendered in index order.
+   */
+  public void clearOrder ()
+  {
+    _ordered = false;
+  }
+
+  /**
+   * Swaps the elements of a column.
+   */
+  protected static void swap (float[] column, int idx0, int idx1, int size)
+  {
+    for (int ii = idx0 * size, jj = idx1 * size, nn = ii + size; ii < nn; ii++, jj++) {
+      float tmp = column[ii];
+      column[ii] = column[jj];
+      column[jj] = tmp;
+    }
+  }
+
+  /** The particle objects. */
+  protected Particle[] _particles = new Particle[0];
+
+  /** The particle positions. */
+  protected float[] _positions = new float[0];
+
+  /** The particle velocities. */
+  protected float[] _velocities = new float[0];
+
+  /** The particle orientations. */
+  protected float[] _orientations = new float[0];
+
+  /** The particle angular velocities. */
+  protected float[] _angularVelocities = new float[0];
+
+  /** The particle colors. */
+  protected float[] _colors = new float[0];
+
+  /** The particle sizes. */
+  protected float[] _sizes = new float[0];
+
+  /** The particle texture frames. */
+  protected float[] _frames = new float[0];
+
+  /** The proportional particle ages. */
+  protected float[] _ages = new float[0];
+
+  /** The reciprocals of the particle lifespans. */
+  protected float[] _lifescales = new float[0];
+
+  /** The particle identifiers. */
+  protected int[] _ids = new int[0];
+
+  /** The render order computed by the last depth sort. */
+  protected int[] _order;
+
+  /** The packed depth/index keys used to sort. */
+  protected long[] _keys;
+
+  /** Whether or not the render order is valid. */
+  protected boolean _ordered;
+
+  /** A working vector. */
+  protected Vector3f _vector = new Vector3f();
+
+  /** A working color. */
+  protected Color4f _color = new Color4f();
+}
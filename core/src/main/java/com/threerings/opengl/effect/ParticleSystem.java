@@ -25,10 +25,6 @@
 
 package com.threerings.opengl.effect;
 
-import java.util.Comparator;
-
-import com.samskivert.util.QuickSort;
-
 import com.threerings.expr.Scope;
 import com.threerings.expr.Scoped;
 import com.threerings.expr.util.ScopeUtil;
@@ -74,15 +70,12 @@ public class ParticleSystem extends BaseParticleSystem
         _transformState.setDirty(true);
       }
 
-      // sort by depth if so required (TODO: radix or incremental sort?)
+      // sort by depth if so required
       ParticleSystemConfig.Layer psconfig = (ParticleSystemConfig.Layer)_config;
       if (psconfig.depthSort) {
-        Transform3D xform = _transformState.getModelview();
-        for (int ii = 0, nn = _living.value; ii < nn; ii++) {
-          Particle particle = _particles[ii];
-          particle.depth = xform.transformPointZ(particle.getPosition());
-        }
-        QuickSort.sort(_particles, 0, _living.value - 1, DEPTH_COMP);
+        _pool.sortByDepth(_transformState.getModelview(), _living.value);
+      } else {
+        _pool.clearOrder();
       }
 
       // update the center if necessary
@@ -123,6 +116,12 @@ public class ParticleSystem extends BaseParticleSystem
       _geometryRadius = psconfig.geometry.getRadius(_ctx);
     }
 
+    @Override
+    public boolean isSimulationThreadSafe ()
+    {
+      return true;
+    }
+
     @Override
     public void composite ()
     {
@@ -145,11 +144,19 @@ public class ParticleSystem extends BaseParticleSystem
       }
     }
 
+    @Override
+    protected boolean hasParticleFunctions ()
+    {
+      ParticleSystemConfig.Layer psconfig = (ParticleSystemConfig.Layer)_config;
+      return psconfig.geometry.getSegments() > 0 ||
+        psconfig.textureDivisionsS > 1 || psconfig.textureDivisionsT > 1;
+    }
+
     @Override
     protected void initParticle (int idx)
     {
       ParticleSystemConfig.Layer psconfig = (ParticleSystemConfig.Layer)_config;
-      _particles[idx].init(
+      _pool.getParticles()[idx].init(
         _config.lifespan.getValue(), _config.alphaMode, _config.color, _config.size,
         (psconfig.geometry.getSegments() > 0) ? psconfig.length : null,
         (psconfig.textureDivisionsS > 1 || psconfig.textureDivisionsT > 1) ?
@@ -233,11 +240,4 @@ public class ParticleSystem extends BaseParticleSystem
 
   /** World space bounds of each group. */
   protected Box[] _groupBounds = new Box[0];
-
-  /** Sorts particles by decreasing depth. */
-  protected static final Comparator<Particle> DEPTH_COMP = new Comparator<Particle>() {
-    public int compare (Particle p1, Particle p2) {
-      return Float.compare(p1.depth, p2.depth);
-    }
-  };
 }
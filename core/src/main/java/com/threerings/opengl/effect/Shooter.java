@@ -33,9 +33,10 @@ import com.threerings.math.Vector3f;
 public interface Shooter
 {
   /**
-   * Configures the supplied particle with an initial velocity.
+   * Computes an initial velocity for the supplied particle (which has already been placed).
    *
-   * @return a reference to the particle's velocity, for chaining.
+   * @return a reference to the velocity (which the layer will scale, transform, and store in
+   * the particle), for chaining.
    */
   public Vector3f shoot (Particle particle);
 }
@@ -37,7 +37,7 @@ import com.threerings.util.NoiseUtil;
 
 import com.threerings.opengl.effect.BaseParticleSystem.Layer;
 import com.threerings.opengl.effect.Influence;
-import com.threerings.opengl.effect.Particle;
+import com.threerings.opengl.effect.ParticlePool;
 
 /**
  * Modifies the state of a set of particles.
@@ -71,8 +71,8 @@ public abstract class InfluenceConfig extends DeepObject
         public void tick (float elapsed) {
           layer.vectorToLayer(acceleration.mult(elapsed, _delta), rotateWithEmitter);
         }
-        public void apply (Particle particle) {
-          particle.getVelocity().addLocal(_delta);
+        public void apply (ParticlePool pool, int count) {
+          addToColumn(pool.getVelocities(), count, _delta);
         }
         protected Vector3f _delta = new Vector3f();
       };
@@ -104,8 +104,8 @@ public abstract class InfluenceConfig extends DeepObject
           layer.vectorToLayer(direction.mult(strength * elapsed, _delta),
             rotateWithEmitter);
         }
-        public void apply (Particle particle) {
-          particle.getVelocity().addLocal(_delta);
+        public void apply (ParticlePool pool, int count) {
+          addToColumn(pool.getVelocities(), count, _delta);
         }
         protected Vector3f _delta = new Vector3f();
       };
@@ -128,8 +128,12 @@ public abstract class InfluenceConfig extends DeepObject
         public void tick (float elapsed) {
           _drag = Math.max(0f, 1f - amount*elapsed);
         }
-        public void apply (Particle particle) {
-          particle.getVelocity().multLocal(_drag);
+        public void apply (ParticlePool pool, int count) {
+          float[] velocities = pool.getVelocities();
+          float drag = _drag;
+          for (int ii = 0, nn = count * 3; ii < nn; ii++) {
+            velocities[ii] *= drag;
+          }
         }
         protected float _drag;
       };
@@ -153,9 +157,16 @@ public abstract class InfluenceConfig extends DeepObject
         public void tick (float elapsed) {
           _drag = amount * elapsed;
         }
-        public void apply (Particle particle) {
-          Vector3f velocity = particle.getVelocity();
-          velocity.multLocal(Math.max(0f, 1f - _drag*velocity.length()));
+        public void apply (ParticlePool pool, int count) {
+          float[] velocities = pool.getVelocities();
+          float drag = _drag;
+          for (int ii = 0, nn = count * 3; ii < nn; ii += 3) {
+            float vx = velocities[ii], vy = velocities[ii + 1], vz = velocities[ii + 2];
+            float scale = Math.max(0f, 1f - drag*FloatMath.sqrt(vx*vx + vy*vy + vz*vz));
+            velocities[ii] = vx * scale;
+            velocities[ii + 1] = vy * scale;
+            velocities[ii + 2] = vz * scale;
+          }
         }
         protected float _drag;
       };
@@ -198,16 +209,22 @@ public abstract class InfluenceConfig extends DeepObject
           // find divergence rotation
           _rotation.setToRotation(-divergence, _taxis);
         }
-        public void apply (Particle particle) {
-          // cross product of vortex axis and relative position is direction
-          _taxis.cross(particle.getPosition().subtract(_torigin, _vector), _vector);
-          float length = _vector.length();
-          if (length < FloatMath.EPSILON) {
-            return; // particle is on the axis
+        public void apply (ParticlePool pool, int count) {
+          float[] positions = pool.getPositions(), velocities = pool.getVelocities();
+          for (int ii = 0, nn = count * 3; ii < nn; ii += 3) {
+            // cross product of vortex axis and relative position is direction
+            _vector.set(positions[ii], positions[ii + 1], positions[ii + 2]);
+            _taxis.cross(_vector.subtractLocal(_torigin), _vector);
+            float length = _vector.length();
+            if (length < FloatMath.EPSILON) {
+              continue; // particle is on the axis
+            }
+            // normalize direction, scale by delta, rotate, add to velocity
+            _rotation.transformLocal(_vector.multLocal(_delta / length));
+            velocities[ii] += _vector.x;
+            velocities[ii + 1] += _vector.y;
+            velocities[ii + 2] += _vector.z;
           }
-          // normalize direction, scale by delta, rotate, add to velocity
-          particle.getVelocity().addLocal(
-            _rotation.transformLocal(_vector.multLocal(_delta / length)));
         }
         protected float _delta;
         protected Vector3f _torigin = new Vector3f();
@@ -259,34 +276,40 @@ public abstract class InfluenceConfig extends DeepObject
           layer.pointToLayer(_torigin.set(Vector3f.ZERO), true);
           layer.vectorToLayer(_taxis.set(axis), rotateWithEmitter);
         }
-        public void apply (Particle particle) {
-          // cross product of ring axis and particle position is tangent
-          particle.getPosition().subtract(_torigin, _position);
-          _taxis.cross(_position, _tangent);
-          float length = _tangent.length();
-          if (length < FloatMath.EPSILON) {
-            return; // particle is on the axis
-          }
-          _tangent.multLocal(1f / length);
-
-          // cross product of tangent and axis is direction from axis to position
-          _tangent.cross(_taxis, _vector);
-
-          // find vector from closest point on ring to position
-          _vector.multLocal(radius).addScaledLocal(
-            _taxis, height).subtractLocal(_position);
-          length = _vector.length();
-          if (length < FloatMath.EPSILON) {
-            return; // particle is on the ring
+        public void apply (ParticlePool pool, int count) {
+          float[] positions = pool.getPositions(), velocities = pool.getVelocities();
+          for (int ii = 0, nn = count * 3; ii < nn; ii += 3) {
+            // cross product of ring axis and particle position is tangent
+            _position.set(positions[ii], positions[ii + 1], positions[ii + 2]);
+            _position.subtractLocal(_torigin);
+            _taxis.cross(_position, _tangent);
+            float length = _tangent.length();
+            if (length < FloatMath.EPSILON) {
+              continue; // particle is on the axis
+            }
+            _tangent.multLocal(1f / length);
+
+            // cross product of tangent and axis is direction from axis to position
+            _tangent.cross(_taxis, _vector);
+
+            // find vector from closest point on ring to position
+            _vector.multLocal(radius).addScaledLocal(
+              _taxis, height).subtractLocal(_position);
+            length = _vector.length();
+            if (length < FloatMath.EPSILON) {
+              continue; // particle is on the ring
+            }
+            _vector.multLocal(1f / length);
+
+            // compute the rotation angle
+            _rotation.fromAngleAxis(-divergence, _tangent);
+
+            // cross product of vector and tangent is direction
+            _rotation.transformLocal(_vector.crossLocal(_tangent).multLocal(_delta));
+            velocities[ii] += _vector.x;
+            velocities[ii + 1] += _vector.y;
+            velocities[ii + 2] += _vector.z;
           }
-          _vector.multLocal(1f / length);
-
-          // compute the rotation angle
-          _rotation.fromAngleAxis(-divergence, _tangent);
-
-          // cross product of vector and tangent is direction
-          particle.getVelocity().addLocal(
-            _rotation.transformLocal(_vector.crossLocal(_tangent).multLocal(_delta)));
         }
         protected float _delta;
         protected Vector3f _torigin = new Vector3f();
@@ -322,18 +345,13 @@ public abstract class InfluenceConfig extends DeepObject
           _time += elapsed * frequency;
           _sstrength = strength * elapsed * 60f;
         }
-        public void apply (Particle particle) {
-          // using the system hash gives each particle a consistent unique identity;
-          // adding an offset to the time prevents synchronization of the zero points
-          // (the noise function is always zero at integers)
-          int pid = System.identityHashCode(particle);
-          float time = _time + (pid & 255) / 256f;
-          particle.getVelocity().addLocal(
-            NoiseUtil.getNoise(time, pid) * _sstrength,
-            NoiseUtil.getNoise(time, pid + 1) * _sstrength,
-            NoiseUtil.getNoise(time, pid + 2) * _sstrength);
+        public void apply (ParticlePool pool, int count) {
+          // the pool ids give each particle a consistent unique identity
+          addNoiseToColumn(
+            pool.getVelocities(), pool.getIds(), count, _time, _sstrength, _noise);
         }
         protected float _time, _sstrength;
+        protected float[] _noise = new float[NOISE_PERIOD * 3];
       };
     }
   }
@@ -359,16 +377,13 @@ public abstract class InfluenceConfig extends DeepObject
           _time += elapsed * frequency;
           _sstrength = strength * elapsed * 60f;
         }
-        public void apply (Particle particle) {
+        public void apply (ParticlePool pool, int count) {
           // jitter is just like wander, except it directly influences the position
-          int pid = System.identityHashCode(particle);
-          float time = _time + (pid & 255) / 256f;
-          particle.getPosition().addLocal(
-            NoiseUtil.getNoise(time, pid) * _sstrength,
-            NoiseUtil.getNoise(time, pid + 1) * _sstrength,
-            NoiseUtil.getNoise(time, pid + 2) * _sstrength);
+          addNoiseToColumn(
+            pool.getPositions(), pool.getIds(), count, _time, _sstrength, _noise);
         }
         protected float _time, _sstrength;
+        protected float[] _noise = new float[NOISE_PERIOD * 3];
       };
     }
   }
@@ -389,8 +404,8 @@ public abstract class InfluenceConfig extends DeepObject
         public void tick (float elapsed) {
           acceleration.mult(elapsed, _delta);
         }
-        public void apply (Particle particle) {
-          particle.getAngularVelocity().addLocal(_delta);
+        public void apply (ParticlePool pool, int count) {
+          addToColumn(pool.getAngularVelocities(), count, _delta);
         }
         protected Vector3f _delta = new Vector3f();
       };
@@ -401,4 +416,56 @@ public abstract class InfluenceConfig extends DeepObject
    * Creates the influence corresponding to this config for the specified layer.
    */
   public abstract Influence createInfluence (Layer layer);
+
+  /**
+   * Adds the supplied vector to the first <code>count</code> entries of a vector column.
+   */
+  protected static void addToColumn (float[] column, int count, Vector3f delta)
+  {
+    float dx = delta.x, dy = delta.y, dz = delta.z;
+    for (int ii = 0, nn = count * 3; ii < nn; ii += 3) {
+      column[ii] += dx;
+      column[ii + 1] += dy;
+      column[ii + 2] += dz;
+    }
+  }
+
+  /**
+   * Adds per-particle noise to the first <code>count</code> entries of a vector column.
+   *
+   * @param table a scratch array of size <code>NOISE_PERIOD * 3</code>.
+   */
+  protected static void addNoiseToColumn (
+    float[] column, int[] ids, int count, float time, float strength, float[] table)
+  {
+    // adding an offset to the time prevents synchronization of the zero points (the noise
+    // function is always zero at integers); since both the offset and the noise function
+    // depend only on the low bits of the id, with enough particles it's cheaper to compute
+    // the noise for each distinct value once
+    if (count <= NOISE_PERIOD) {
+      for (int ii = 0, idx = 0; ii < count; ii++, idx += 3) {
+        int pid = ids[ii];
+        float ptime = time + (pid & (NOISE_PERIOD - 1)) / (float)NOISE_PERIOD;
+        column[idx] += NoiseUtil.getNoise(ptime, pid) * strength;
+        column[idx + 1] += NoiseUtil.getNoise(ptime, pid + 1) * strength;
+        column[idx + 2] += NoiseUtil.getNoise(ptime, pid + 2) * strength;
+      }
+      return;
+    }
+    for (int ii = 0, idx = 0; ii < NOISE_PERIOD; ii++, idx += 3) {
+      float ptime = time + ii / (float)NOISE_PERIOD;
+      table[idx] = NoiseUtil.getNoise(ptime, ii) * strength;
+      table[idx + 1] = NoiseUtil.getNoise(ptime, ii + 1) * strength;
+      table[idx + 2] = NoiseUtil.getNoise(ptime, ii + 2) * strength;
+    }
+    for (int ii = 0, idx = 0; ii < count; ii++, idx += 3) {
+      int tidx = (ids[ii] & (NOISE_PERIOD - 1)) * 3;
+      column[idx] += table[tidx];
+      column[idx + 1] += table[tidx + 1];
+      column[idx + 2] += table[tidx + 2];
+    }
+  }
+
+  /** The period of the integer coordinate of {@link NoiseUtil#getNoise(float, int)}. */
+  protected static final int NOISE_PERIOD = 256;
 }
@@ -250,7 +250,7 @@ public abstract class PlacerConfig extends DeepObject
 
           // if it's solid, choose a random point in the rect; otherwise, choose an edge
           // pair according to their lengths
-          Vector3f position = particle.getPosition();
+          Vector3f position = _position;
           if (solid) {
             position.set(
               FloatMath.random(left, right),
@@ -274,9 +274,10 @@ public abstract class PlacerConfig extends DeepObject
           }
 
           // transform into world space, then into layer space
-          layer.pointToLayer(camera.getWorldTransform().transformPointLocal(position),
-            false);
+          particle.setPosition(layer.pointToLayer(
+            camera.getWorldTransform().transformPointLocal(position), false));
         }
+        protected Vector3f _position = new Vector3f();
       };
     }
   }
@@ -300,7 +301,7 @@ public abstract class PlacerConfig extends DeepObject
     // documentation inherited from interface Placer
     public void place (Particle particle)
     {
-      _layer.pointToLayer(place(particle.getPosition()), true);
+      particle.setPosition(_layer.pointToLayer(place(_position), true));
     }
 
     /**
@@ -312,5 +313,8 @@ public abstract class PlacerConfig extends DeepObject
 
     /** The owning layer. */
     protected Layer _layer;
+
+    /** Holds the position before it is stored in the particle. */
+    protected Vector3f _position = new Vector3f();
   }
 }
@@ -77,11 +77,12 @@ public abstract class ShooterConfig extends DeepObject
           float theta = Randoms.threadLocal().getFloat(FloatMath.TWO_PI);
 
           // set, transform
-          return matrix.transformVectorLocal(particle.getVelocity().set(
+          return matrix.transformVectorLocal(_velocity.set(
             FloatMath.cos(theta) * sina,
             FloatMath.sin(theta) * sina,
             cosa));
         }
+        protected Vector3f _velocity = new Vector3f();
       };
     }
   }
@@ -100,9 +101,9 @@ public abstract class ShooterConfig extends DeepObject
     {
       return new Shooter() {
         public Vector3f shoot (Particle particle) {
-          Vector3f velocity = particle.getVelocity().set(Vector3f.ZERO);
+          Vector3f velocity = _velocity.set(Vector3f.ZERO);
           layer.pointToLayer(velocity, true);
-          particle.getPosition().subtract(velocity, velocity);
+          particle.getPosition(_position).subtract(velocity, velocity);
           float length = velocity.length();
           if (length > 0.001f) { // use the vector from origin to particle
             velocity.multLocal(1f / length);
@@ -117,6 +118,7 @@ public abstract class ShooterConfig extends DeepObject
           }
           return velocity.addLocal(0f, 0f, upwardBias).normalizeLocal();
         }
+        protected Vector3f _velocity = new Vector3f(), _position = new Vector3f();
       };
     }
   }
@@ -464,14 +464,14 @@ public abstract class GeometryConfig extends DeepObject
         Stored stored = (Stored)tgeom.geometry;
         merged.bounds.addLocal(stored.bounds.transform(tgeom.transform));
 
-        // perform a bulk transfer of the array data
-        FloatBuffer obuf = stored.vertexArray.floatArray;
-        int olimit = obuf.limit(), opos = obuf.position();
-        int npos = opos + stored.getFirst() * stride;
+        // perform a bulk transfer of the array data (through a duplicate positioned from the
+        // absolute base, so that the shared source buffer is neither read nor modified and
+        // merges may run concurrently)
+        FloatBuffer obuf = stored.vertexArray.floatArray.duplicate();
+        int npos = stored.getFirst() * stride;
         int count = stored.getCount();
         obuf.limit(npos + count * stride).position(npos);
-        vbuf.put(stored.vertexArray.floatArray);
-        obuf.limit(olimit).position(opos);
+        vbuf.put(obuf);
 
         // then transform the vertices and normals in-place
         tgeom.transform.update(Transform3D.AFFINE);
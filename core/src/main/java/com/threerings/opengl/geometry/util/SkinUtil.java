@@ -0,0 +1,232 @@
+//
+// $Id$
+//
+// Clyde library - tools for developing networked games
+// Copyright (C) 2005-2012 Three Rings Design, Inc.
+// http://code.google.com/p/clyde/
+//
+// Redistribution and use in source and binary forms, with or without modification, are permitted
+// provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this list of
+//    conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+//    conditions and the following disclaimer in the documentation and/or other materials provided
+//    with the distribution.
+//
+// THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR IMPLIED WARRANTIES,
+// INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+// PARTICULAR PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT,
+// INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+// TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+// LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package com.threerings.opengl.geometry.util;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.threerings.math.Matrix4f;
+
+/**
+ * Methods for software skinning.  Bone matrices are first flattened into a contiguous palette;
+ * each vertex then blends the palette entries of its influencing bones into a single matrix and
+ * transforms its tangent, normal, and position once by the blended matrix.
+ */
+public class SkinUtil
+{
+  /** The number of floats in each palette entry (the upper three rows of the bone matrix). */
+  public static final int PALETTE_STRIDE = 12;
+
+  /** The number of bone influences per vertex. */
+  public static final int INFLUENCES = 4;
+
+  /** The number of vertices at or above which skinning is split across the fork-join pool. */
+  public static final int PARALLEL_THRESHOLD = 8192;
+
+  /**
+   * Creates a palette large enough to hold the specified bone matrices.
+   */
+  public static float[] createPalette (Matrix4f[] boneMatrices)
+  {
+    return new float[boneMatrices.length * PALETTE_STRIDE];
+  }
+
+  /**
+   * Copies the current values of the bone matrices into the supplied palette.
+   *
+   * @return a reference to the palette, for chaining.
+   */
+  public static float[] updatePalette (Matrix4f[] boneMatrices, float[] palette)
+  {
+    for (int ii = 0, pidx = 0; ii < boneMatrices.length; ii++) {
+      Matrix4f m = boneMatrices[ii];
+      palette[pidx++] = m.m00;
+      palette[pidx++] = m.m01;
+      palette[pidx++] = m.m02;
+      palette[pidx++] = m.m10;
+      palette[pidx++] = m.m11;
+      palette[pidx++] = m.m12;
+      palette[pidx++] = m.m20;
+      palette[pidx++] = m.m21;
+      palette[pidx++] = m.m22;
+      palette[pidx++] = m.m30;
+      palette[pidx++] = m.m31;
+      palette[pidx++] = m.m32;
+    }
+    return palette;
+  }
+
+  /**
+   * Skins a set of vertices and, optionally, their normals and tangents.  The source array
+   * contains, for each vertex, the tangent (if present), the normal (if present), and the
+   * position.  Large sets of vertices are split across the common fork-join pool.
+   *
+   * @param tidx the index of the first tangent in the destination array, or -1 for none.
+   * @param nidx the index of the first normal in the destination array, or -1 for none.
+   * @param vidx the index of the first vertex in the destination array.
+   * @param dinc the stride between adjacent vertices in the destination array.
+   */
+  public static void skinVertices (
+    float[] palette, float[] source, int[] boneIndices, float[] boneWeights, float[] dest,
+    int tidx, int nidx, int vidx, int dinc)
+  {
+    int count = source.length / getSourceStride(tidx, nidx);
+    if (count >= PARALLEL_THRESHOLD && ForkJoinPool.getCommonPoolParallelism() > 1) {
+      ForkJoinPool.commonPool().invoke(new SkinTask(
+        palette, source, boneIndices, boneWeights, dest, tidx, nidx, vidx, dinc, 0, count));
+    } else {
+      skinVertices(
+        palette, source, boneIndices, boneWeights, dest, tidx, nidx, vidx, dinc, 0, count);
+    }
+  }
+
+  /**
+   * Skins a range of vertices.
+   *
+   * @param start the index of the first vertex to skin.
+   * @param end the index after the last vertex to skin.
+   */
+  public static void skinVertices (
+    float[] palette, float[] source, int[] boneIndices, float[] boneWeights, float[] dest,
+    int tidx, int nidx, int vidx, int dinc, int start, int end)
+  {
+    boolean tangents = (tidx >= 0), normals = (nidx >= 0);
+    int sidx = start * getSourceStride(tidx, nidx);
+    int bidx = start * INFLUENCES;
+    int doff = start * dinc;
+    tidx += doff;
+    nidx += doff;
+    vidx += doff;
+    for (int vv = start; vv < end; vv++) {
+      // blend the palette entries of the influencing bones
+      float m00 = 0f, m01 = 0f, m02 = 0f;
+      float m10 = 0f, m11 = 0f, m12 = 0f;
+      float m20 = 0f, m21 = 0f, m22 = 0f;
+      float m30 = 0f, m31 = 0f, m32 = 0f;
+      for (int bmax = bidx + INFLUENCES; bidx < bmax; bidx++) {
+        float weight = boneWeights[bidx];
+        if (weight == 0f) {
+          continue;
+        }
+        int pidx = boneIndices[bidx] * PALETTE_STRIDE;
+        m00 += palette[pidx] * weight;
+        m01 += palette[pidx + 1] * weight;
+        m02 += palette[pidx + 2] * weight;
+        m10 += palette[pidx + 3] * weight;
+        m11 += palette[pidx + 4] * weight;
+        m12 += palette[pidx + 5] * weight;
+        m20 += palette[pidx + 6] * weight;
+        m21 += palette[pidx + 7] * weight;
+        m22 += palette[pidx + 8] * weight;
+        m30 += palette[pidx + 9] * weight;
+        m31 += palette[pidx + 10] * weight;
+        m32 += palette[pidx + 11] * weight;
+      }
+
+      // transform the tangent and normal by the upper 3x3 of the blended matrix
+      if (tangents) {
+        float sx = source[sidx++], sy = source[sidx++], sz = source[sidx++];
+        dest[tidx] = m00*sx + m10*sy + m20*sz;
+        dest[tidx + 1] = m01*sx + m11*sy + m21*sz;
+        dest[tidx + 2] = m02*sx + m12*sy + m22*sz;
+        tidx += dinc;
+      }
+      if (normals) {
+        float sx = source[sidx++], sy = source[sidx++], sz = source[sidx++];
+        dest[nidx] = m00*sx + m10*sy + m20*sz;
+        dest[nidx + 1] = m01*sx + m11*sy + m21*sz;
+        dest[nidx + 2] = m02*sx + m12*sy + m22*sz;
+        nidx += dinc;
+      }
+
+      // and the vertex by the full blended matrix
+      float sx = source[sidx++], sy = source[sidx++], sz = source[sidx++];
+      dest[vidx] = m00*sx + m10*sy + m20*sz + m30;
+      dest[vidx + 1] = m01*sx + m11*sy + m21*sz + m31;
+      dest[vidx + 2] = m02*sx + m12*sy + m22*sz + m32;
+      vidx += dinc;
+    }
+  }
+
+  /**
+   * Returns the number of source floats per vertex.
+   */
+  protected static int getSourceStride (int tidx, int nidx)
+  {
+    return 3 + (tidx >= 0 ? 3 : 0) + (nidx >= 0 ? 3 : 0);
+  }
+
+  /**
+   * Skins a range of vertices, splitting it in half until it falls below the threshold.
+   */
+  protected static class SkinTask extends RecursiveAction
+  {
+    public SkinTask (
+      float[] palette, float[] source, int[] boneIndices, float[] boneWeights, float[] dest,
+      int tidx, int nidx, int vidx, int dinc, int start, int end)
+    {
+      _palette = palette;
+      _source = source;
+      _boneIndices = boneIndices;
+      _boneWeights = boneWeights;
+      _dest = dest;
+      _tidx = tidx;
+      _nidx = nidx;
+      _vidx = vidx;
+      _dinc = dinc;
+      _start = start;
+      _end = end;
+    }
+
+    @Override
+    protected void compute ()
+    {
+      if (_end - _start <= PARALLEL_THRESHOLD / 2) {
+        skinVertices(_palette, _source, _boneIndices, _boneWeights, _dest,
+          _tidx, _nidx, _vidx, _dinc, _start, _end);
+        return;
+      }
+      int mid = (_start + _end) >>> 1;
+      invokeAll(
+        new SkinTask(_palette, _source, _boneIndices, _boneWeights, _dest,
+          _tidx, _nidx, _vidx, _dinc, _start, mid),
+        new SkinTask(_palette, _source, _boneIndices, _boneWeights, _dest,
+          _tidx, _nidx, _vidx, _dinc, mid, _end));
+    }
+
+    /** The skinning parameters. */
+    protected final float[] _palette, _source, _boneWeights, _dest;
+
+    /** The bone indices. */
+    protected final int[] _boneIndices;
+
+    /** The destination offsets and stride. */
+    protected final int _tidx, _nidx, _vidx, _dinc;
+
+    /** The range of vertices to skin. */
+    protected final int _start, _end;
+  }
+}
@@ -28,8 +28,6 @@ package com.threerings.opengl.gui;
 import java.util.Collection;
 import java.util.Comparator;
 
-import org.lwjgl.opengl.GL11;
-
 import com.google.common.base.Predicate;
 import com.google.common.collect.Collections2;
 
@@ -44,6 +42,7 @@ import com.threerings.opengl.gui.event.Event;
 import com.threerings.opengl.gui.event.MouseEvent;
 import com.threerings.opengl.gui.util.Dimension;
 import com.threerings.opengl.gui.util.Insets;
+import com.threerings.opengl.gui.util.RenderUtil;
 import com.threerings.opengl.renderer.Color4f;
 import com.threerings.opengl.renderer.Renderer;
 import com.threerings.opengl.util.GlContext;
@@ -142,6 +141,7 @@ public class ColorPicker extends Component
   public void setSelectedIndex (int sidx)
   {
     _sidx = Math.min(Math.max(sidx, 0), _colors.length - 1);
+    invalidateRendering();
   }
 
   // from Selectable<ColorRecord>
@@ -197,37 +197,22 @@ public class ColorPicker extends Component
   @Override
   protected void renderComponent (Renderer renderer)
   {
-    renderer.setTextureState(null);
     float swatchWidth = (float)getWidth() / _colors.length;
     int height = getHeight();
 
     // render the swatches
     Insets insets = getInsets();
     float x = insets.left, y = insets.bottom;
-    GL11.glBegin(GL11.GL_QUADS);
     for (int ii = 0; ii < _colors.length; ii++) {
       Color4f color = _colorizedRoots[ii];
-      GL11.glColor4f(color.r * _alpha, color.g * _alpha, color.b * _alpha, color.a * _alpha);
-      GL11.glVertex2f(x, y);
-      GL11.glVertex2f(x + swatchWidth, y);
-      GL11.glVertex2f(x + swatchWidth, y + height);
-      GL11.glVertex2f(x, y + height);
+      RenderUtil.drawRect(renderer, color.r * _alpha, color.g * _alpha, color.b * _alpha,
+        color.a * _alpha, x, y, swatchWidth, height);
       x += swatchWidth;
     }
-    GL11.glEnd();
 
     // outline the selected swatch
     x = insets.left + (_sidx * swatchWidth);
-    GL11.glLineWidth(2f);
-    GL11.glBegin(GL11.GL_LINE_LOOP);
-    GL11.glColor4f(_alpha, _alpha, _alpha, _alpha);
-    GL11.glVertex2f(x, y);
-    GL11.glVertex2f(x + swatchWidth, y);
-    GL11.glVertex2f(x + swatchWidth, y + height);
-    GL11.glVertex2f(x, y + height);
-    GL11.glEnd();
-    GL11.glLineWidth(1f);
-    renderer.invalidateColorState();
+    RenderUtil.drawOutline(renderer, Color4f.WHITE, _alpha, x, y, swatchWidth, height, 2f);
   }
 
   /** The colors available for selection. */
@@ -36,7 +36,6 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 
 import org.lwjgl.input.Keyboard;
-import org.lwjgl.opengl.GL11;
 
 import com.threerings.config.ArgumentMap;
 import com.threerings.config.ConfigEvent;
@@ -63,6 +62,7 @@ import com.threerings.opengl.gui.text.HTMLView;
 import com.threerings.opengl.gui.util.Dimension;
 import com.threerings.opengl.gui.util.Insets;
 import com.threerings.opengl.gui.util.Rectangle;
+import com.threerings.opengl.gui.util.RenderUtil;
 
 import static com.threerings.opengl.gui.Log.log;
 
@@ -464,6 +464,7 @@ public class Component
   public void setBackground (int state, Background background)
   {
     _backgrounds[state] = background;
+    invalidateRendering();
   }
 
   /**
@@ -495,7 +496,10 @@ public class Component
    */
   public void setAlpha (float alpha)
   {
-    _alpha = alpha;
+    if (_alpha != alpha) {
+      _alpha = alpha;
+      invalidateRendering();
+    }
   }
 
   /**
@@ -691,8 +695,11 @@ public class Component
    */
   public void setBounds (int x, int y, int width, int height)
   {
-    _x = x;
-    _y = y;
+    if (_x != x || _y != y) {
+      _x = x;
+      _y = y;
+      invalidateRendering();
+    }
     if (_width != width || _height != height) {
       _width = width;
       _height = height;
@@ -702,11 +709,13 @@ public class Component
 
   /**
    * Sets the transformation offset reference.  This is only used for rendering; it does not
-   * affect the component's behavior.
+   * affect the component's behavior.  If the transform is later modified in place, call
+   * {@link #invalidateRendering}.
    */
   public void setOffset (Transform2D offset)
   {
     _offset = offset;
+    invalidateRendering();
   }
 
   /**
@@ -880,6 +889,20 @@ public class Component
     }
   }
 
+  /**
+   * Notes that the appearance of this component has changed in a way that does not require it to
+   * be laid out again, so that the window will record it anew if it caches its rendering (see
+   * {@link Window#setRenderMode}).  Custom components whose appearance depends on state other
+   * than their layout, style and alpha must call this when that state changes.
+   */
+  public void invalidateRendering ()
+  {
+    Window window = getWindow();
+    if (window != null) {
+      window.invalidateRendering();
+    }
+  }
+
   /**
    * Translates into the component's coordinate space, renders the background and border and then
    * calls {@link #renderComponent} to allow the component to render itself.
@@ -890,10 +913,10 @@ public class Component
       return;
     }
     if (_offset != null) {
-      GL11.glPushMatrix();
+      RenderUtil.pushTransform();
       applyTransform();
     } else {
-      GL11.glTranslatef(_x, _y, 0);
+      RenderUtil.translate(_x, _y);
     }
 
     try {
@@ -908,9 +931,9 @@ public class Component
 
     } finally {
       if (_offset != null) {
-        GL11.glPopMatrix();
+        RenderUtil.popTransform();
       } else {
-        GL11.glTranslatef(-_x, -_y, 0);
+        RenderUtil.translate(-_x, -_y);
       }
     }
   }
@@ -1150,7 +1173,7 @@ public class Component
   {
     // normal translation
     float hwidth = _width/2f, hheight = _height/2f;
-    GL11.glTranslatef(_x + hwidth, _y + hheight, 0f);
+    RenderUtil.translate(_x + hwidth, _y + hheight);
 
     // offset transform
     int type = _offset.getType();
@@ -1160,17 +1183,16 @@ public class Component
 
       } else { // type == Transform2D.RIGID || type == Transform2D.UNIFORM
         Vector2f translation = _offset.getTranslation();
-        GL11.glTranslatef(translation.x, translation.y, 0f);
-        GL11.glRotatef(FloatMath.toDegrees(_offset.getRotation()), 0f, 0f, 1f);
+        RenderUtil.translate(translation.x, translation.y);
+        RenderUtil.rotate(_offset.getRotation());
         if (type == Transform2D.UNIFORM) {
-          float scale = _offset.getScale();
-          GL11.glScalef(scale, scale, 1f);
+          RenderUtil.scale(_offset.getScale());
         }
       }
     }
 
     // centering translation
-    GL11.glTranslatef(-hwidth, -hheight, 0f);
+    RenderUtil.translate(-hwidth, -hheight);
   }
 
   /**
@@ -30,7 +30,6 @@ import javax.swing.undo.UndoManager;
 import com.google.common.base.Strings;
 
 //import org.lwjgl.input.IME.State;
-import org.lwjgl.opengl.GL11;
 
 import com.samskivert.util.IntTuple;
 
@@ -56,6 +55,7 @@ import com.threerings.opengl.gui.text.LengthLimitedDocument;
 import com.threerings.opengl.gui.util.Dimension;
 import com.threerings.opengl.gui.util.Insets;
 import com.threerings.opengl.gui.util.Rectangle;
+import com.threerings.opengl.gui.util.RenderUtil;
 
 import static com.threerings.opengl.gui.Log.log;
 
@@ -520,6 +520,7 @@ public abstract class EditableTextComponent extends TextComponent
   protected void gainedFocus ()
   {
     _showCursor = true;
+    invalidateRendering();
 
     // perhaps hide the placeholder
     if (usePlaceholder()) {
@@ -533,6 +534,7 @@ public abstract class EditableTextComponent extends TextComponent
   protected void lostFocus ()
   {
     _showCursor = false;
+    invalidateRendering();
     _undomgr.discardAllEdits();
 
     // perhaps show the placeholder
@@ -578,12 +580,7 @@ public abstract class EditableTextComponent extends TextComponent
     if (!_text.isEditable()) {
       return;
     }
-    renderer.setColorState(getColor());
-    renderer.setTextureState(null);
-    GL11.glBegin(GL11.GL_LINE_STRIP);
-    GL11.glVertex2f(x, y);
-    GL11.glVertex2f(x, y + height);
-    GL11.glEnd();
+    RenderUtil.drawRect(renderer, getColor(), 1f, x, y, 1f, height);
   }
 
   /**
@@ -688,6 +685,7 @@ public abstract class EditableTextComponent extends TextComponent
     _selp = selectPos;
 
     selectionWasSet();
+    invalidateRendering();
   }
 
   /**
@@ -25,7 +25,7 @@
 
 package com.threerings.opengl.gui;
 
-import org.lwjgl.opengl.GL11;
+import com.threerings.math.FloatMath;
 
 import com.threerings.opengl.renderer.Color4f;
 import com.threerings.opengl.renderer.Renderer;
@@ -36,6 +36,7 @@ import com.threerings.opengl.gui.text.TextFactory;
 import com.threerings.opengl.gui.util.Dimension;
 import com.threerings.opengl.gui.util.Insets;
 import com.threerings.opengl.gui.util.Rectangle;
+import com.threerings.opengl.gui.util.RenderUtil;
 
 /**
  * Handles the underlying layout and rendering for {@link Label} and {@link Button}.
@@ -266,7 +267,7 @@ public class LabelRenderer
    */
   public void render (Renderer renderer, int x, int y, int contWidth, int contHeight, float alpha)
   {
-    GL11.glTranslatef(x, y, 0);
+    RenderUtil.translate(x, y);
     try {
       if (_icon != null) {
         _icon.render(renderer, _ix, _iy, alpha);
@@ -275,17 +276,17 @@ public class LabelRenderer
         Dimension size = _config.glyphs.size;
         int ox = getOffsetX(size.width, size.height, _textRotation) + _tx;
         int oy = getOffsetY(size.width, size.height, _textRotation) + _ty;
-        GL11.glTranslatef(ox, oy, 0);
-        GL11.glRotatef(_textRotation * 90, 0, 0, 1);
+        RenderUtil.pushTransform();
+        RenderUtil.translate(ox, oy);
+        RenderUtil.rotate(_textRotation * FloatMath.HALF_PI);
         try {
           renderText(renderer, contWidth, contHeight, alpha);
         } finally {
-          GL11.glRotatef(_textRotation * -90, 0, 0, 1);
-          GL11.glTranslatef(-ox, -oy, 0);
+          RenderUtil.popTransform();
         }
       }
     } finally {
-      GL11.glTranslatef(-x, -y, 0);
+      RenderUtil.translate(-x, -y);
     }
   }
 
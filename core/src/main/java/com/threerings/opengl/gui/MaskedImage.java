@@ -41,6 +41,8 @@ import com.threerings.opengl.renderer.Renderer;
 import com.threerings.opengl.renderer.Texture2D;
 import com.threerings.opengl.renderer.TextureUnit;
 
+import com.threerings.opengl.gui.util.RenderUtil;
+
 /**
  * An image with a mask.
  */
@@ -96,6 +98,8 @@ public class MaskedImage extends Image
     float mlt = sy / (float)theight * mheight;
     float mut = (sy + sheight) / (float)theight  * mheight;
 
+    // the stream has only one set of texture coordinates, so we draw directly
+    RenderUtil.beginDirect(renderer);
     float a = color.a * alpha;
     renderer.setColorState(color.r * a, color.g * a, color.b * a, a);
     renderer.setTextureState(_units);
@@ -118,6 +122,7 @@ public class MaskedImage extends Image
       ARBMultitexture.GL_TEXTURE1_ARB, mls, mut);
     GL11.glVertex2f(tx, ty+theight);
     GL11.glEnd();
+    RenderUtil.endDirect(renderer);
   }
 
 
@@ -57,6 +57,7 @@ import com.threerings.opengl.compositor.RenderQueue;
 import com.threerings.opengl.gui.util.Dimension;
 import com.threerings.opengl.gui.util.Insets;
 import com.threerings.opengl.gui.util.Rectangle;
+import com.threerings.opengl.gui.util.RenderUtil;
 import com.threerings.opengl.model.Model;
 import com.threerings.opengl.model.ModelAdapter;
 import com.threerings.opengl.model.config.ModelConfig;
@@ -368,7 +369,12 @@ public class RenderableView extends Component
           _width - insets.getHorizontal(), _height - insets.getVertical(), _alpha);
       }
     } else {
-      renderView(renderer);
+      RenderUtil.beginDirect(renderer);
+      try {
+        renderView(renderer);
+      } finally {
+        RenderUtil.endDirect(renderer);
+      }
     }
   }
 
@@ -25,19 +25,20 @@
 
 package com.threerings.opengl.gui;
 
-import org.lwjgl.opengl.GL11;
-
 import com.threerings.config.ConfigReference;
 
 import com.threerings.opengl.renderer.Renderer;
 import com.threerings.opengl.util.GlContext;
 
 import com.threerings.opengl.gui.config.StyleConfig;
+import com.threerings.opengl.gui.event.ChangeEvent;
+import com.threerings.opengl.gui.event.ChangeListener;
 import com.threerings.opengl.gui.event.MouseWheelListener;
 import com.threerings.opengl.gui.layout.BorderLayout;
 import com.threerings.opengl.gui.util.Dimension;
 import com.threerings.opengl.gui.util.Insets;
 import com.threerings.opengl.gui.util.Rectangle;
+import com.threerings.opengl.gui.util.RenderUtil;
 
 import static com.threerings.opengl.Log.log;
 
@@ -283,6 +284,19 @@ public class ScrollPane extends Container
         }
       }
       add(_target = target);
+
+      // scrolling changes our appearance without changing our layout
+      ChangeListener listener = new ChangeListener() {
+        public void stateChanged (ChangeEvent event) {
+          invalidateRendering();
+        }
+      };
+      if (_vmodel != null) {
+        _vmodel.addChangeListener(listener);
+      }
+      if (_hmodel != null) {
+        _hmodel.addChangeListener(listener);
+      }
     }
 
     /**
@@ -518,7 +532,7 @@ public class ScrollPane extends Container
       Insets insets = getInsets();
       int yoffset = getYOffset();
       int xoffset = getXOffset();
-      GL11.glTranslatef(xoffset, yoffset, 0);
+      RenderUtil.translate(xoffset, yoffset);
       Rectangle oscissor = intersectScissor(
         this, renderer, _srect,
         (getAbsoluteX() + insets.left) - xoffset,
@@ -530,7 +544,7 @@ public class ScrollPane extends Container
         _target.render(renderer);
       } finally {
         renderer.setScissor(oscissor);
-        GL11.glTranslatef(-xoffset, -yoffset, 0);
+        RenderUtil.translate(-xoffset, -yoffset);
       }
     }
 
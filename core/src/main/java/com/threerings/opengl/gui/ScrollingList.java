@@ -25,8 +25,6 @@
 
 package com.threerings.opengl.gui;
 
-import org.lwjgl.opengl.GL11;
-
 import java.util.Collection;
 import java.util.ArrayList;
 import java.util.List;
@@ -40,6 +38,7 @@ import com.threerings.opengl.gui.event.ChangeEvent;
 import com.threerings.opengl.gui.layout.BorderLayout;
 import com.threerings.opengl.gui.util.Insets;
 import com.threerings.opengl.gui.util.Rectangle;
+import com.threerings.opengl.gui.util.RenderUtil;
 import com.threerings.opengl.gui.layout.GroupLayout;
 
 /**
@@ -395,7 +394,7 @@ public abstract class ScrollingList<V, C extends Component> extends Container
     protected void renderComponent (Renderer renderer)
     {
       Insets insets = getInsets();
-      GL11.glTranslatef(0, _offset, 0);
+      RenderUtil.translate(0, _offset);
       Rectangle oscissor = intersectScissor(
         this, renderer, _srect,
         getAbsoluteX() + insets.left,
@@ -409,7 +408,7 @@ public abstract class ScrollingList<V, C extends Component> extends Container
         }
       } finally {
         renderer.setScissor(oscissor);
-        GL11.glTranslatef(0, -_offset, 0);
+        RenderUtil.translate(0, -_offset);
       }
     }
 
@@ -25,12 +25,15 @@
 
 package com.threerings.opengl.gui;
 
+import com.threerings.opengl.renderer.Renderer;
 import com.threerings.opengl.util.GlContext;
 
 import com.threerings.opengl.gui.event.ActionEvent;
 import com.threerings.opengl.gui.event.ActionListener;
 import com.threerings.opengl.gui.layout.LayoutManager;
 import com.threerings.opengl.gui.util.Dimension;
+import com.threerings.opengl.gui.util.QuadStream;
+import com.threerings.opengl.gui.util.RenderUtil;
 
 /**
  * A window defines the top-level of a component hierarchy. It must be created with a stylesheet
@@ -39,6 +42,22 @@ import com.threerings.opengl.gui.util.Dimension;
 public class Window extends Container
   implements Comparable<Window>
 {
+  /** The ways in which a window may be rendered. */
+  public enum RenderMode
+  {
+    /** Components draw themselves directly. */
+    IMMEDIATE,
+
+    /** Components are recorded into a {@link QuadStream} each frame and drawn in batches. */
+    BATCHED,
+
+    /**
+     * As with {@link #BATCHED}, but the recorded stream is reused until the window is
+     * invalidated (see {@link Component#invalidateRendering}).
+     */
+    CACHED
+  }
+
   public Window (GlContext ctx, LayoutManager layout)
   {
     super(ctx);
@@ -126,6 +145,34 @@ public class Window extends Container
     return false;
   }
 
+  /**
+   * Sets the render mode of this window.
+   */
+  public void setRenderMode (RenderMode mode)
+  {
+    if (_renderMode != mode) {
+      _renderMode = mode;
+      _stream = (mode == RenderMode.IMMEDIATE) ? null : new QuadStream();
+    }
+  }
+
+  /**
+   * Returns the render mode of this window.
+   */
+  public RenderMode getRenderMode ()
+  {
+    return _renderMode;
+  }
+
+  /**
+   * Returns the stream recorded when last rendered (whose draw call and vertex counts may be of
+   * interest), or null if the window is rendered immediately.
+   */
+  public QuadStream getQuadStream ()
+  {
+    return _stream;
+  }
+
   /**
    * Returns the root node that manages this window.
    */
@@ -183,10 +230,37 @@ public class Window extends Container
       "A window may not be added as a child of any other component. Add it to a BRootNode.");
   }
 
+  @Override // from Component
+  public void invalidateRendering ()
+  {
+    _renderDirty = true;
+  }
+
+  @Override // from Component
+  public void render (Renderer renderer)
+  {
+    if (_stream == null) {
+      super.render(renderer);
+      return;
+    }
+    if (!(_renderMode == RenderMode.CACHED && !_renderDirty && _stream.isComplete())) {
+      _renderDirty = false;
+      _stream.clear();
+      QuadStream ostream = RenderUtil.setStream(_stream);
+      try {
+        super.render(renderer);
+      } finally {
+        RenderUtil.setStream(ostream);
+      }
+    }
+    _stream.render(renderer);
+  }
+
   @Override // from Component
   public void invalidate ()
   {
     super.invalidate();
+    _renderDirty = true;
 
     if (_root != null) {
       // when an invalidation call reaches an attached top-level window, let the root node
@@ -323,4 +397,13 @@ public class Window extends Container
 
   /** Used to associate this window with a parent window. */
   protected Window _parentWindow;
+
+  /** How the window is rendered. */
+  protected RenderMode _renderMode = RenderMode.IMMEDIATE;
+
+  /** The stream recorded for the window, if not rendered immediately. */
+  protected QuadStream _stream;
+
+  /** Whether or not the appearance of the window has changed since its stream was recorded. */
+  protected boolean _renderDirty = true;
 }
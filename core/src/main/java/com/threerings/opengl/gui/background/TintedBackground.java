@@ -25,11 +25,11 @@
 
 package com.threerings.opengl.gui.background;
 
-import org.lwjgl.opengl.GL11;
-
 import com.threerings.opengl.renderer.Color4f;
 import com.threerings.opengl.renderer.Renderer;
 
+import com.threerings.opengl.gui.util.RenderUtil;
+
 /**
  * Displays a partially transparent solid color in the background.
  */
@@ -49,15 +49,7 @@ public class TintedBackground extends Background
   {
     super.render(renderer, x, y, width, height, alpha);
 
-    float a = _color.a * alpha;
-    renderer.setColorState(_color.r * a, _color.g * a, _color.b * a, a);
-    renderer.setTextureState(null);
-    GL11.glBegin(GL11.GL_QUADS);
-    GL11.glVertex2f(x, y);
-    GL11.glVertex2f(x + width, y);
-    GL11.glVertex2f(x + width, y + height);
-    GL11.glVertex2f(x, y + height);
-    GL11.glEnd();
+    RenderUtil.drawRect(renderer, _color, alpha, x, y, width, height);
   }
 
   protected Color4f _color = new Color4f();
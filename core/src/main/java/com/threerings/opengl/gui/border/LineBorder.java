@@ -25,12 +25,11 @@
 
 package com.threerings.opengl.gui.border;
 
-import org.lwjgl.opengl.GL11;
-
 import com.threerings.opengl.renderer.Color4f;
 import com.threerings.opengl.renderer.Renderer;
 
 import com.threerings.opengl.gui.util.Insets;
+import com.threerings.opengl.gui.util.RenderUtil;
 
 /**
  * Defines a border that displays a single line around the bordered component in a specified color.
@@ -60,19 +59,8 @@ public class LineBorder extends Border
   {
     super.render(renderer, x, y, width, height, alpha);
     float offset = _width / 2f;
-
-    float a = _color.a * alpha;
-    renderer.setColorState(_color.r * a, _color.g * a, _color.b * a, a);
-    renderer.setTextureState(null);
-    GL11.glLineWidth(_width);
-    GL11.glBegin(GL11.GL_LINE_STRIP);
-    GL11.glVertex2f(x + offset, y + offset);
-    GL11.glVertex2f(x + width - offset, y + offset);
-    GL11.glVertex2f(x + width - offset, y + height - offset);
-    GL11.glVertex2f(x + offset, y + height - offset);
-    GL11.glVertex2f(x + offset, y + offset);
-    GL11.glEnd();
-    GL11.glLineWidth(1f);
+    RenderUtil.drawOutline(renderer, _color, alpha, x + offset, y + offset,
+      width - _width, height - _width, _width);
   }
 
   protected Color4f _color = new Color4f();
@@ -25,10 +25,12 @@
 
 package com.threerings.opengl.gui.icon;
 
-import org.lwjgl.opengl.GL11;
+import com.threerings.math.FloatMath;
 
 import com.threerings.opengl.renderer.Renderer;
 
+import com.threerings.opengl.gui.util.RenderUtil;
+
 /**
  * Rotates a sub-icon.
  */
@@ -67,13 +69,13 @@ public class RotatedIcon extends Icon
   public void render (Renderer renderer, int x, int y, float alpha)
   {
     int hwidth = _icon.getWidth()/2, hheight = _icon.getHeight()/2;
-    GL11.glPushMatrix();
-    GL11.glTranslatef(x + hwidth, y + hheight, 0f);
-    GL11.glRotatef(_rotation, 0f, 0f, 1f);
+    RenderUtil.pushTransform();
+    RenderUtil.translate(x + hwidth, y + hheight);
+    RenderUtil.rotate(FloatMath.toRadians(_rotation));
     try {
       _icon.render(renderer, -hwidth, -hheight, alpha);
     } finally {
-      GL11.glPopMatrix();
+      RenderUtil.popTransform();
     }
   }
 
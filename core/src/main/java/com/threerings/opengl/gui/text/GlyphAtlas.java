@@ -0,0 +1,475 @@
+//
+// $Id$
+//
+// Clyde library - tools for developing networked games
+// Copyright (C) 2005-2012 Three Rings Design, Inc.
+// http://code.google.com/p/clyde/
+//
+// Redistribution and use in source and binary forms, with or without modification, are permitted
+// provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this list of
+//    conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+//    conditions and the following disclaimer in the documentation and/or other materials provided
+//    with the distribution.
+//
+// THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR IMPLIED WARRANTIES,
+// INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+// PARTICULAR PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT,
+// INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+// TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+// LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package com.threerings.opengl.gui.text;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.awt.font.LineMetrics;
+import java.awt.image.BufferedImage;
+
+import java.util.List;
+
+import com.google.common.collect.Lists;
+
+import com.samskivert.util.HashIntMap;
+
+/**
+ * Rasterizes glyphs into a set of shared, dynamically packed images (pages) for use as textures.
+ * Glyphs are rendered in white so that they may be tinted with any color; each combination of
+ * character, style, kind and effect size is rasterized once.  This class does not depend on
+ * OpenGL: the regions of the pages that have been modified since they were last uploaded are
+ * available through {@link Page#getPendingRegions}.
+ */
+public class GlyphAtlas
+{
+  /** The plain glyph kind. */
+  public static final int FILL = 0;
+
+  /** The outlined glyph kind, stroked with the effect size. */
+  public static final int STROKE = 1;
+
+  /** The glow glyph kind, stroked repeatedly with diminishing widths. */
+  public static final int GLOW = 2;
+
+  /**
+   * A rasterized glyph.
+   */
+  public static class Glyph
+  {
+    /** The advance width of the glyph. */
+    public final int advance;
+
+    /** The bounds of the glyph relative to its origin on the baseline (with y pointing up). */
+    public final int x, y, width, height;
+
+    /** The index of the page containing the glyph, or -1 if the glyph is blank. */
+    public final int page;
+
+    /** The texture coordinates of the glyph. */
+    public final float s1, t1, s2, t2;
+
+    public Glyph (int advance)
+    {
+      this(advance, 0, 0, 0, 0, -1, 0f, 0f, 0f, 0f);
+    }
+
+    public Glyph (
+      int advance, int x, int y, int width, int height,
+      int page, float s1, float t1, float s2, float t2)
+    {
+      this.advance = advance;
+      this.x = x;
+      this.y = y;
+      this.width = width;
+      this.height = height;
+      this.page = page;
+      this.s1 = s1;
+      this.t1 = t1;
+      this.s2 = s2;
+      this.t2 = t2;
+    }
+
+    /**
+     * Checks whether the glyph is blank (whitespace).
+     */
+    public boolean isBlank ()
+    {
+      return page == -1;
+    }
+  }
+
+  /**
+   * A single page of glyphs, packed into horizontal shelves.
+   */
+  public static class Page
+  {
+    public Page (int size, boolean antialias)
+    {
+      _image = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+      _graphics = _image.createGraphics();
+      _graphics.setColor(Color.white);
+      _graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+        antialias ? RenderingHints.VALUE_ANTIALIAS_ON : RenderingHints.VALUE_ANTIALIAS_OFF);
+      _graphics.setRenderingHint(
+        RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_NORMALIZE);
+    }
+
+    /**
+     * Returns a reference to the page image.
+     */
+    public BufferedImage getImage ()
+    {
+      return _image;
+    }
+
+    /**
+     * Returns the regions of the page that have been modified since the last call to
+     * {@link #clearPendingRegions}.  Each region contains exactly one glyph.
+     */
+    public List<Rectangle> getPendingRegions ()
+    {
+      return _pending;
+    }
+
+    /**
+     * Clears the list of modified regions (after they have been uploaded, for instance).
+     */
+    public void clearPendingRegions ()
+    {
+      _pending.clear();
+    }
+
+    /**
+     * Attempts to allocate a region of the specified size.  Rather than simply filling each row
+     * before moving on to the next, this looks for the shelf whose height is the closest fit,
+     * so that short glyphs (punctuation, effects of small sizes) do not waste space in shelves
+     * opened for tall ones.
+     *
+     * @return the allocated region, or null if there isn't enough room in the page.
+     */
+    public Rectangle allocate (int width, int height)
+    {
+      int size = _image.getWidth();
+      int pwidth = width + PADDING, pheight = height + PADDING;
+      Shelf best = null;
+      for (Shelf shelf : _shelves) {
+        if (shelf.height >= pheight && shelf.x + pwidth <= size &&
+            shelf.height <= pheight + pheight/2 && (best == null || shelf.height < best.height)) {
+          best = shelf;
+        }
+      }
+      if (best == null) {
+        if (_top + pheight > size || pwidth > size) {
+          return null;
+        }
+        _shelves.add(best = new Shelf(_top, pheight));
+        _top += pheight;
+      }
+      Rectangle region = new Rectangle(best.x, best.y, width, height);
+      best.x += pwidth;
+      return region;
+    }
+
+    /**
+     * A row of glyphs.
+     */
+    protected static class Shelf
+    {
+      /** The vertical location and height of the shelf. */
+      public final int y, height;
+
+      /** The location of the next free column. */
+      public int x;
+
+      public Shelf (int y, int height)
+      {
+        this.y = y;
+        this.height = height;
+      }
+    }
+
+    /** The page image. */
+    protected BufferedImage _image;
+
+    /** The graphics context used to render into the image. */
+    protected Graphics2D _graphics;
+
+    /** The shelves allocated so far. */
+    protected List<Shelf> _shelves = Lists.newArrayList();
+
+    /** The top of the unallocated space. */
+    protected int _top;
+
+    /** The regions modified since they were last cleared. */
+    protected List<Rectangle> _pending = Lists.newArrayList();
+  }
+
+  /**
+   * Creates an atlas for the supplied font with pages of the default size.
+   */
+  public GlyphAtlas (Font font, boolean antialias)
+  {
+    this(font, antialias, DEFAULT_PAGE_SIZE);
+  }
+
+  /**
+   * Creates an atlas for the supplied font.
+   */
+  public GlyphAtlas (Font font, boolean antialias, int pageSize)
+  {
+    _antialias = antialias;
+    _pageSize = pageSize;
+
+    // we need a graphics context to retrieve the metrics
+    BufferedImage stub = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+    Graphics2D gfx = stub.createGraphics();
+    try {
+      gfx.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+        antialias ? RenderingHints.VALUE_ANTIALIAS_ON : RenderingHints.VALUE_ANTIALIAS_OFF);
+      for (int ii = 0; ii < _fonts.length; ii++) {
+        _fonts[ii] = (ii == 0) ? font : font.deriveFont(font.getStyle() | ii);
+        _metrics[ii] = gfx.getFontMetrics(_fonts[ii]);
+      }
+      _frc = gfx.getFontRenderContext();
+    } finally {
+      gfx.dispose();
+    }
+    _lineMetrics = font.getLineMetrics("J", _frc);
+  }
+
+  /**
+   * Returns the font used for the specified style.
+   *
+   * @param style a combination of {@link Font#BOLD} and {@link Font#ITALIC}.
+   */
+  public Font getFont (int style)
+  {
+    return _fonts[style & STYLE_MASK];
+  }
+
+  /**
+   * Returns the metrics of the font used for the specified style.
+   */
+  public FontMetrics getMetrics (int style)
+  {
+    return _metrics[style & STYLE_MASK];
+  }
+
+  /**
+   * Returns the line metrics of the base font (used to position underlines and strikethroughs).
+   */
+  public LineMetrics getLineMetrics ()
+  {
+    return _lineMetrics;
+  }
+
+  /**
+   * Returns the size of the pages.
+   */
+  public int getPageSize ()
+  {
+    return _pageSize;
+  }
+
+  /**
+   * Returns the pages allocated so far.
+   */
+  public List<Page> getPages ()
+  {
+    return _pages;
+  }
+
+  /**
+   * Returns the advance width of the specified character in the given style.
+   */
+  public int getAdvance (char c, int style)
+  {
+    return getMetrics(style).charWidth(c);
+  }
+
+  /**
+   * Returns the plain glyph for the specified character in the given style.
+   */
+  public Glyph getGlyph (char c, int style)
+  {
+    return getGlyph(c, style, FILL, 0);
+  }
+
+  /**
+   * Returns the glyph for the specified character, rasterizing it if necessary.
+   *
+   * @param style a combination of {@link Font#BOLD} and {@link Font#ITALIC}.
+   * @param kind the kind of glyph: {@link #FILL}, {@link #STROKE} or {@link #GLOW}.
+   * @param size the effect size (ignored for plain glyphs).
+   */
+  public Glyph getGlyph (char c, int style, int kind, int size)
+  {
+    style &= STYLE_MASK;
+    if (kind == FILL) {
+      size = 0;
+    }
+    // the key combines the character with the style, kind and size
+    int key = (size << 20) | (kind << 18) | (style << 16) | c;
+    Glyph glyph = _glyphs.get(key);
+    if (glyph == null) {
+      _glyphs.put(key, glyph = createGlyph(c, style, kind, size));
+    }
+    return glyph;
+  }
+
+  /**
+   * Returns a glyph that covers a solid block of texels (with the same texture coordinates at
+   * each corner), used for decorations such as underlines.
+   */
+  public Glyph getSolid ()
+  {
+    if (_solid == null) {
+      Rectangle region = new Rectangle(SOLID_SIZE, SOLID_SIZE);
+      int pidx = allocate(region);
+      if (pidx == -1) {
+        return new Glyph(0); // pages too small to hold even the block
+      }
+      Page page = _pages.get(pidx);
+      page._graphics.fill(region);
+      page._pending.add(region);
+      float s = (region.x + SOLID_SIZE/2f) / _pageSize;
+      float t = (region.y + SOLID_SIZE/2f) / _pageSize;
+      _solid = new Glyph(0, 0, 0, SOLID_SIZE, SOLID_SIZE, pidx, s, t, s, t);
+    }
+    return _solid;
+  }
+
+  /**
+   * Creates and rasterizes a glyph.
+   */
+  protected Glyph createGlyph (char c, int style, int kind, int size)
+  {
+    int advance = getAdvance(c, style);
+    GlyphVector vector = _fonts[style].createGlyphVector(_frc, String.valueOf(c));
+    Rectangle bounds = vector.getPixelBounds(_frc, 0f, 0f);
+    if (bounds.width <= 0 || bounds.height <= 0) {
+      return new Glyph(advance);
+    }
+    int grow = 1 + (kind == FILL ? 0 : (size + 1) / 2);
+    bounds.grow(grow, grow);
+
+    // find a page with room for the glyph
+    Rectangle region = new Rectangle(bounds.width, bounds.height);
+    int pidx = allocate(region);
+    if (pidx == -1) {
+      return new Glyph(advance); // too large for any page
+    }
+    Page page = _pages.get(pidx);
+
+    // render the glyph into the page
+    Graphics2D gfx = page._graphics;
+    gfx.setClip(region);
+    Shape outline = vector.getOutline(region.x - bounds.x, region.y - bounds.y);
+    if (kind == STROKE) {
+      gfx.setStroke(new BasicStroke(size, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+      gfx.draw(outline);
+
+    } else if (kind == GLOW) {
+      // layer progressively narrower strokes so that the glow fades out with distance
+      Object ohint = gfx.getRenderingHint(RenderingHints.KEY_ANTIALIASING);
+      gfx.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+      float alphaScale = Math.max(size, 2f) / 2f;
+      gfx.setColor(new Color(1f, 1f, 1f, 1f / alphaScale));
+      for (int ii = size; ii > 0; ii--) {
+        gfx.setStroke(new BasicStroke(ii, BasicStroke.CAP_ROUND, BasicStroke.JOIN_MITER, 1));
+        gfx.draw(outline);
+      }
+      gfx.setColor(Color.white);
+      gfx.setRenderingHint(RenderingHints.KEY_ANTIALIASING, ohint);
+
+    } else {
+      gfx.fill(outline);
+    }
+    gfx.setClip(null);
+    page._pending.add(region);
+
+    return new Glyph(
+      advance, bounds.x, -bounds.y - bounds.height, bounds.width, bounds.height, pidx,
+      (float)region.x / _pageSize, (float)region.y / _pageSize,
+      (float)(region.x + region.width) / _pageSize, (float)(region.y + region.height) / _pageSize);
+  }
+
+  /**
+   * Allocates a region of the size of the one supplied in the last page, or in a new page if the
+   * last is full, setting the location of the region to that allocated.
+   *
+   * @return the index of the page containing the region, or -1 if it's too large for any page.
+   */
+  protected int allocate (Rectangle region)
+  {
+    int pidx = Math.max(_pages.size() - 1, 0);
+    Rectangle allocated = getPage(pidx).allocate(region.width, region.height);
+    if (allocated == null &&
+        (allocated = getPage(++pidx).allocate(region.width, region.height)) == null) {
+      return -1;
+    }
+    region.setLocation(allocated.x, allocated.y);
+    return pidx;
+  }
+
+  /**
+   * Returns the page at the specified index, creating it if necessary.
+   */
+  protected Page getPage (int idx)
+  {
+    while (_pages.size() <= idx) {
+      _pages.add(new Page(_pageSize, _antialias));
+    }
+    return _pages.get(idx);
+  }
+
+  /** Whether or not to antialias the glyphs. */
+  protected boolean _antialias;
+
+  /** The width and height of the pages. */
+  protected int _pageSize;
+
+  /** The fonts for each style. */
+  protected Font[] _fonts = new Font[STYLE_MASK + 1];
+
+  /** The metrics of the fonts for each style. */
+  protected FontMetrics[] _metrics = new FontMetrics[STYLE_MASK + 1];
+
+  /** The line metrics of the base font. */
+  protected LineMetrics _lineMetrics;
+
+  /** The render context used to create glyph vectors. */
+  protected FontRenderContext _frc;
+
+  /** The glyphs rasterized so far. */
+  protected HashIntMap<Glyph> _glyphs = new HashIntMap<Glyph>();
+
+  /** The pages allocated so far. */
+  protected List<Page> _pages = Lists.newArrayList();
+
+  /** The solid glyph, if created. */
+  protected Glyph _solid;
+
+  /** The mask for the style bits. */
+  protected static final int STYLE_MASK = Font.BOLD | Font.ITALIC;
+
+  /** The default width/height of the pages. */
+  protected static final int DEFAULT_PAGE_SIZE = 512;
+
+  /** The space left between glyphs to avoid bleeding when filtering. */
+  protected static final int PADDING = 1;
+
+  /** The size of the solid block. */
+  protected static final int SOLID_SIZE = 3;
+}
@@ -0,0 +1,412 @@
+//
+// $Id$
+//
+// Clyde library - tools for developing networked games
+// Copyright (C) 2005-2012 Three Rings Design, Inc.
+// http://code.google.com/p/clyde/
+//
+// Redistribution and use in source and binary forms, with or without modification, are permitted
+// provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this list of
+//    conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+//    conditions and the following disclaimer in the documentation and/or other materials provided
+//    with the distribution.
+//
+// THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR IMPLIED WARRANTIES,
+// INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+// PARTICULAR PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT,
+// INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+// TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+// LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package com.threerings.opengl.gui.text;
+
+import java.awt.FontMetrics;
+import java.awt.font.LineMetrics;
+
+import java.util.List;
+
+import com.google.common.collect.Lists;
+
+import com.samskivert.util.IntTuple;
+
+import com.threerings.opengl.renderer.Color4f;
+
+import com.threerings.opengl.gui.UIConstants;
+import com.threerings.opengl.gui.util.Dimension;
+
+/**
+ * The layout of a line of text as a list of textured quads over the pages of a
+ * {@link GlyphAtlas}.  Layouts do not depend on the text or effect colors (quads refer to them
+ * by index), so they may be cached and shared between texts that differ only in color.  Layouts
+ * are created without reference to OpenGL.
+ */
+public class GlyphLayout
+  implements UIConstants
+{
+  /** The style bit for underlined text. */
+  public static final int UNDERLINE = 1 << 2;
+
+  /** The style bit for struck-through text. */
+  public static final int STRIKE = 1 << 3;
+
+  /** The color index of the text color. */
+  public static final int TEXT_COLOR = 0;
+
+  /** The color index of the effect color. */
+  public static final int EFFECT_COLOR = 1;
+
+  /**
+   * A single textured quad.
+   */
+  public static class Quad
+  {
+    /** The location and size of the quad relative to the origin of the text. */
+    public final int x, y, width, height;
+
+    /** The index of the atlas page to texture the quad with. */
+    public final int page;
+
+    /** The texture coordinates of the quad. */
+    public final float s1, t1, s2, t2;
+
+    /** The index of the quad's color (see {@link GlyphLayout#getColor}). */
+    public final int color;
+
+    public Quad (GlyphAtlas.Glyph glyph, int x, int y, int color)
+    {
+      this(glyph, x + glyph.x, y + glyph.y, glyph.width, glyph.height, color);
+    }
+
+    public Quad (GlyphAtlas.Glyph glyph, int x, int y, int width, int height, int color)
+    {
+      this.x = x;
+      this.y = y;
+      this.width = width;
+      this.height = height;
+      this.page = glyph.page;
+      this.s1 = glyph.s1;
+      this.t1 = glyph.t1;
+      this.s2 = glyph.s2;
+      this.t2 = glyph.t2;
+      this.color = color;
+    }
+  }
+
+  /**
+   * Lays out the supplied text on a single line.
+   *
+   * @param styles the style bits of each character (a combination of {@link java.awt.Font#BOLD},
+   * {@link java.awt.Font#ITALIC}, {@link #UNDERLINE} and {@link #STRIKE}), or null for none.
+   * @param colors the color of each character, or null to use the text color.  Individual
+   * entries may also be null.
+   * @param useAdvance if true, the advance to the next insertion point will be included in the
+   * bounds of the layout.
+   */
+  public static GlyphLayout layout (
+    GlyphAtlas atlas, String text, int[] styles, Color4f[] colors,
+    int effect, int effectSize, boolean useAdvance)
+  {
+    return new GlyphLayout(
+      atlas, text, styles, colors, 0, text.length(), effect, effectSize, useAdvance);
+  }
+
+  /**
+   * Lays out the supplied text on as many lines as necessary to avoid exceeding the specified
+   * width.  Lines are broken at newlines and, where possible, at whitespace or break characters
+   * (the whitespace at which a line is broken is omitted).
+   *
+   * @see #layout
+   */
+  public static GlyphLayout[] wrap (
+    GlyphAtlas atlas, String text, int[] styles, Color4f[] colors,
+    int effect, int effectSize, int maxWidth)
+  {
+    List<GlyphLayout> lines = Lists.newArrayList();
+    int start = 0, width = 0;
+    for (int ii = 0, nn = text.length(); ii < nn; ii++) {
+      char c = text.charAt(ii);
+      int advance = atlas.getAdvance(c, getStyle(styles, ii));
+      if (c != '\n' && width + advance <= maxWidth) {
+        width += advance;
+        continue;
+      }
+      int end, next;
+      if (c == '\n' || c == ' ') {
+        end = ii;
+        next = ii + 1;
+
+      } else {
+        // scan backwards, see if we can break on a space
+        IntTuple span = getBreakSpan(text, start, ii + 1);
+        if (span != null) {
+          end = span.left;
+          next = span.right;
+        } else {
+          end = next = ii;
+        }
+      }
+      lines.add(new GlyphLayout(
+        atlas, text, styles, colors, start, end, effect, effectSize, true));
+      start = next;
+      width = 0;
+      for (int jj = next; jj <= ii; jj++) {
+        width += atlas.getAdvance(text.charAt(jj), getStyle(styles, jj));
+      }
+    }
+    // add the final line
+    lines.add(new GlyphLayout(
+      atlas, text, styles, colors, start, text.length(), effect, effectSize, true));
+    return lines.toArray(new GlyphLayout[lines.size()]);
+  }
+
+  /**
+   * Creates the layout of the specified region of the text.
+   */
+  public GlyphLayout (
+    GlyphAtlas atlas, String text, int[] styles, Color4f[] colors, int start, int end,
+    int effect, int effectSize, boolean useAdvance)
+  {
+    FontMetrics metrics = atlas.getMetrics(0);
+    int length = _length = end - start;
+    _positions = new int[length + 1];
+
+    // determine the offsets of the text within the bounds
+    int ox = 0, oy = metrics.getDescent() + metrics.getLeading(), margin = 0;
+    switch (effect) {
+    case SHADOW:
+      ox = 1;
+      oy += effectSize;
+      margin = effectSize;
+      break;
+    case OUTLINE:
+    case GLOW:
+      ox = effectSize;
+      oy += effectSize;
+      margin = effectSize*2;
+      break;
+    }
+
+    // effects that go below the text, the text itself, and effects that go on top
+    List<Quad> below = Lists.newArrayList();
+    List<Quad> above = Lists.newArrayList();
+    List<Color4f> palette = Lists.newArrayList();
+    palette.add(null); // placeholders for the text and effect colors
+    palette.add(null);
+    int x = 0, right = 0;
+    for (int ii = 0; ii < length; ii++) {
+      char c = text.charAt(start + ii);
+      int style = getStyle(styles, start + ii);
+      GlyphAtlas.Glyph glyph = atlas.getGlyph(c, style);
+      _positions[ii] = x;
+      int gx = ox + x;
+      x += glyph.advance;
+      if (glyph.isBlank()) {
+        continue;
+      }
+      right = Math.max(right, x - glyph.advance + glyph.x + glyph.width);
+      int color = getColorIndex(palette, colors, start + ii);
+
+      switch (effect) {
+      case SHADOW:
+        below.add(new Quad(glyph, gx + effectSize - 2, oy - effectSize, EFFECT_COLOR));
+        break;
+      case OUTLINE:
+        Quad outline = new Quad(
+          atlas.getGlyph(c, style, GlyphAtlas.STROKE, effectSize), gx, oy, EFFECT_COLOR);
+        (effectSize > 1 ? below : above).add(outline);
+        break;
+      case GLOW:
+        below.add(new Quad(
+          atlas.getGlyph(c, style, GlyphAtlas.GLOW, effectSize), gx, oy, EFFECT_COLOR));
+        break;
+      }
+      _quads.add(new Quad(glyph, gx, oy, color));
+    }
+    _positions[length] = x;
+    _quads.addAll(0, below);
+    _quads.addAll(above);
+    addDecorations(atlas, text, styles, colors, palette, start, ox, oy);
+    _palette = palette.toArray(new Color4f[palette.size()]);
+    _size = new Dimension(
+      Math.max((useAdvance ? x : right) + margin, 1),
+      Math.max(metrics.getHeight() + margin, 1));
+  }
+
+  /**
+   * Returns the length in characters of the text.
+   */
+  public int getLength ()
+  {
+    return _length;
+  }
+
+  /**
+   * Returns the dimensions of the text.
+   */
+  public Dimension getSize ()
+  {
+    return _size;
+  }
+
+  /**
+   * Returns the quads to render, in order.
+   */
+  public List<Quad> getQuads ()
+  {
+    return _quads;
+  }
+
+  /**
+   * Returns the color with the specified index.
+   */
+  public Color4f getColor (int idx, Color4f color, Color4f effectColor)
+  {
+    switch (idx) {
+    case TEXT_COLOR: return color;
+    case EFFECT_COLOR: return effectColor;
+    default: return _palette[idx];
+    }
+  }
+
+  /**
+   * Returns the index of the character nearest the specified x coordinate.
+   */
+  public int getHitPos (int x)
+  {
+    for (int ii = 0; ii < _length; ii++) {
+      if (x < (_positions[ii] + _positions[ii + 1]) / 2) {
+        return ii;
+      }
+    }
+    return _length;
+  }
+
+  /**
+   * Returns the x position of the cursor before the character at the specified index.
+   */
+  public int getCursorPos (int index)
+  {
+    return _positions[Math.max(0, Math.min(index, _length))];
+  }
+
+  /**
+   * Adds the quads for underlines and strikethroughs, merging runs of characters with the same
+   * decoration and color.
+   */
+  protected void addDecorations (
+    GlyphAtlas atlas, String text, int[] styles, Color4f[] colors, List<Color4f> palette,
+    int start, int ox, int oy)
+  {
+    if (styles == null) {
+      return;
+    }
+    GlyphAtlas.Glyph solid = atlas.getSolid();
+    if (solid.isBlank()) {
+      return; // the pages are too small to hold the block
+    }
+    LineMetrics lmetrics = atlas.getLineMetrics();
+    int[] bits = { UNDERLINE, STRIKE };
+    float[] offsets = { lmetrics.getUnderlineOffset(), lmetrics.getStrikethroughOffset() };
+    float[] thicknesses = {
+      lmetrics.getUnderlineThickness(), lmetrics.getStrikethroughThickness() };
+    for (int ii = 0; ii < bits.length; ii++) {
+      int height = Math.max(Math.round(thicknesses[ii]), 1);
+      int y = oy - Math.round(offsets[ii]) - height;
+      for (int jj = 0, length = _length; jj < length; ) {
+        if ((getStyle(styles, start + jj) & bits[ii]) == 0) {
+          jj++;
+          continue;
+        }
+        int color = getColorIndex(palette, colors, start + jj);
+        int kk = jj + 1;
+        while (kk < length && (getStyle(styles, start + kk) & bits[ii]) != 0 &&
+            getColorIndex(palette, colors, start + kk) == color) {
+          kk++;
+        }
+        _quads.add(new Quad(solid, ox + _positions[jj], y,
+          _positions[kk] - _positions[jj], height, color));
+        jj = kk;
+      }
+    }
+  }
+
+  /**
+   * Returns the style of the character at the specified index.
+   */
+  protected static int getStyle (int[] styles, int idx)
+  {
+    return (styles == null) ? 0 : styles[idx];
+  }
+
+  /**
+   * Returns the index of the color of the character at the specified index, adding it to the
+   * palette if necessary.
+   */
+  protected static int getColorIndex (List<Color4f> palette, Color4f[] colors, int idx)
+  {
+    Color4f color = (colors == null) ? null : colors[idx];
+    if (color == null) {
+      return TEXT_COLOR;
+    }
+    int cidx = palette.lastIndexOf(color);
+    if (cidx == -1) {
+      palette.add(color);
+      cidx = palette.size() - 1;
+    }
+    return cidx;
+  }
+
+  /**
+   * Searches for an appropriate break span within the specified region of the text (see
+   * {@link CharacterTextFactory#getBreakSpan}).
+   *
+   * @return the start (inclusive) and end (exclusive) indices of the span,
+   * or <code>null</code> if no span was found.
+   */
+  protected static IntTuple getBreakSpan (String text, int start, int end)
+  {
+    for (int ii = end - 2; ii > start; ii--) {
+      char c = text.charAt(ii);
+      if (Character.isWhitespace(c)) {
+        for (int jj = ii - 1; jj >= start; jj--) {
+          if (!Character.isWhitespace(text.charAt(jj))) {
+            return new IntTuple(jj + 1, ii + 1);
+          }
+        }
+        return null; // no non-whitespace before whitespace
+
+      } else if (isBreakChar(c) && !Character.isWhitespace(text.charAt(ii - 1))) {
+        return new IntTuple(ii + 1, ii + 1);
+      }
+    }
+    return null; // no whitespace
+  }
+
+  /**
+   * Returns true if the character is a valid break character.
+   */
+  protected static boolean isBreakChar (char c)
+  {
+    return '-' == c || (c >= 0x4E00 && c <= 0x9FFF);
+  }
+
+  /** The length of the text. */
+  protected int _length;
+
+  /** The size of the text. */
+  protected Dimension _size;
+
+  /** The cursor positions before each character (and after the last). */
+  protected int[] _positions;
+
+  /** The quads to render. */
+  protected List<Quad> _quads = Lists.newArrayList();
+
+  /** The colors referenced by the quads (the first two entries are placeholders). */
+  protected Color4f[] _palette;
+}
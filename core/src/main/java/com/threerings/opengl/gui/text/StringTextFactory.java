@@ -25,41 +25,38 @@
 
 package com.threerings.opengl.gui.text;
 
-import java.awt.AlphaComposite;
-import java.awt.BasicStroke;
 import java.awt.Color;
-import java.awt.Composite;
 import java.awt.Font;
-import java.awt.Graphics2D;
-import java.awt.RenderingHints;
-import java.awt.Shape;
-import java.awt.Stroke;
-import java.awt.font.LineBreakMeasurer;
-import java.awt.font.TextAttribute;
-import java.awt.font.TextHitInfo;
-import java.awt.font.TextLayout;
-import java.awt.geom.Rectangle2D;
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
-import java.text.AttributedString;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Map;
-import com.samskivert.util.RunAnywhere;
-import com.samskivert.util.StringUtil;
+import java.util.Arrays;
+import java.util.List;
+
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.GL11;
+
+import com.google.common.base.Objects;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
 
 import com.threerings.opengl.renderer.Color4f;
 import com.threerings.opengl.renderer.Renderer;
+import com.threerings.opengl.renderer.Texture2D;
+import com.threerings.opengl.renderer.TextureUnit;
 
-import com.threerings.opengl.gui.UIConstants;
-import com.threerings.opengl.gui.Image;
 import com.threerings.opengl.gui.util.Dimension;
+import com.threerings.opengl.gui.util.RenderUtil;
 
 import static com.threerings.opengl.gui.Log.log;
 
 /**
- * Formats text by using the AWT to render runs of text into a bitmap and then texturing a quad
- * with the result.  This text factory handles a simple styled text syntax:
+ * Formats text by laying out its characters as quads over a shared {@link GlyphAtlas}.  Layouts
+ * are cached by text, effect and wrap width, so repeatedly creating the same strings (in any
+ * color) neither rasterizes nor allocates textures.  This text factory handles a simple styled
+ * text syntax:
  *
  * <pre>
  * &#064;=b(this text would be bold)
@@ -77,16 +74,16 @@ public class StringTextFactory extends TextFactory
    */
   public StringTextFactory (Font font, boolean antialias)
   {
-    _antialias = antialias;
-    _attrs.put(TextAttribute.FONT, font);
-
-    // we need a graphics context to figure out how big our text is going to be, but we need an
-    // image to get the graphics context, but we don't want to create our image until we know
-    // how big our text needs to be. dooh!
-    _stub = new BufferedImage(1, 1, BufferedImage.TYPE_4BYTE_ABGR);
+    _atlas = new GlyphAtlas(font, antialias);
+    _height = _atlas.getMetrics(0).getHeight();
+  }
 
-    // compute the height of our font by creating a sample text and storing its height
-    _height = createText("J", Color4f.BLACK).getSize().height;
+  /**
+   * Returns a reference to the glyph atlas.
+   */
+  public GlyphAtlas getAtlas ()
+  {
+    return _atlas;
   }
 
   // documentation inherited
@@ -102,23 +99,8 @@ public class StringTextFactory extends TextFactory
     if (text.equals("")) {
       text = " ";
     }
-
-    Graphics2D gfx = _stub.createGraphics();
-    TextLayout layout;
-    try {
-      if (_antialias) {
-        gfx.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING,
-                   RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
-      }
-      layout = new TextLayout(
-        parseStyledText(text, _attrs, null, effect != UIConstants.PLAIN).getIterator(),
-        gfx.getFontRenderContext());
-    } finally {
-      gfx.dispose();
-    }
-
-    return createText(text, layout, color, effect, effectSize, effectColor,
-             text.length(), useAdvance);
+    return createText(getLayouts(text, effect, effectSize, useAdvance, -1)[0],
+      color, effectColor);
   }
 
   // documentation inherited
@@ -129,308 +111,158 @@ public class StringTextFactory extends TextFactory
     if (text.isEmpty()) {
       text = " ";
     }
-
-    ArrayList<Text> texts = new ArrayList<Text>();
-    Graphics2D gfx = _stub.createGraphics();
-    TextLayout layout;
-    try {
-      if (_antialias) {
-        gfx.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING,
-                   RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
-      }
-
-      String[] bare = new String[1];
-      AttributedString atext = parseStyledText(text, _attrs, bare, effect != UIConstants.PLAIN);
-      LineBreakMeasurer measurer = new LineBreakMeasurer(
-        atext.getIterator(), gfx.getFontRenderContext());
-      text = bare[0];
-
-      int pos = 0;
-      while (pos < text.length()) {
-        // stop at the next newline or the end of the line if there are no newlines in the
-        // text
-        int nextret = text.indexOf('\n', pos);
-        if (nextret == -1) {
-          nextret = text.length();
-        }
-
-        // measure out as much text as we can render in one line
-        layout = measurer.nextLayout(maxWidth, nextret, false);
-        String origText = text.substring(pos, measurer.getPosition());
-
-        // skip past any newline that we used to terminate our wrap
-        pos = measurer.getPosition();
-        if (pos < text.length() && text.charAt(pos) == '\n') {
-          pos++;
-        }
-
-        texts.add(createText(origText, layout, color,
-                   effect, effectSize, effectColor, origText.length(), true));
-      }
-
-    } finally {
-      gfx.dispose();
+    GlyphLayout[] layouts = getLayouts(text, effect, effectSize, true, maxWidth);
+    Text[] texts = new Text[layouts.length];
+    for (int ii = 0; ii < layouts.length; ii++) {
+      texts[ii] = createText(layouts[ii], color, effectColor);
     }
-
-    return texts.toArray(new Text[texts.size()]);
+    return texts;
   }
 
-  /** Helper function. */
-  protected Text createText (String origText, final TextLayout layout, Color4f color,
-                int effect, int effectSize, Color4f effectColor,
-                final int length, boolean useAdvance)
+  /**
+   * Returns the cached layouts for the specified text, creating them if necessary.
+   *
+   * @param maxWidth the width at which to wrap the text, or -1 to lay it out on a single line.
+   */
+  protected GlyphLayout[] getLayouts (
+    String text, int effect, int effectSize, boolean useAdvance, int maxWidth)
   {
-    // determine the size of our rendered text
-    final Dimension size = new Dimension();
-    Rectangle2D bounds = layout.getBounds();
-
-    // MacOS font rendering is buggy, so we must compute the outline and use that for bounds
-    // computation and rendering
-    if (effect == OUTLINE || effect == GLOW || RunAnywhere.isMacOS()) {
-      bounds = layout.getOutline(null).getBounds();
-    }
-    if (useAdvance) {
-      size.width = (int)Math.round(Math.max(bounds.getX(), 0) + layout.getAdvance());
-    } else {
-      size.width = (int)Math.round(Math.max(bounds.getX(), 0) + bounds.getWidth());
-    }
-    size.height = (int)(layout.getLeading() + layout.getAscent() + layout.getDescent());
-
-    // blank text results in a zero sized bounds, bump it up to 1x1 to avoid freakout by the
-    // BufferedImage
-    size.width = Math.max(size.width, 1);
-    size.height = Math.max(size.height, 1);
-
-    switch (effect) {
-    case SHADOW:
-      size.width += effectSize;
-      size.height += effectSize;
-      break;
-    case OUTLINE:
-      size.width += effectSize*2;
-      size.height += effectSize*2;
-      break;
-    case GLOW:
-      size.width += effectSize*2;
-      size.height += effectSize*2;
-      break;
-    }
-
-    // render the text into the image
-    BufferedImage bimage = new BufferedImage(size.width, size.height,
-                         BufferedImage.TYPE_4BYTE_ABGR);
-    Graphics2D gfx = bimage.createGraphics();
-    try {
-      if (effect == OUTLINE) {
-        if (_antialias) {
-          gfx.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
-                     RenderingHints.VALUE_ANTIALIAS_ON);
-        }
-        float tx = effectSize - 1;
-        float ty = layout.getAscent() + effectSize;
-        gfx.translate(tx, ty);
-        if (effectSize > 1) {
-          gfx.setColor(new Color(effectColor.r, effectColor.g, effectColor.b,
-                      effectColor.a));
-          Stroke oldstroke = gfx.getStroke();
-          gfx.setStroke(new BasicStroke(effectSize, BasicStroke.CAP_ROUND,
-                         BasicStroke.JOIN_ROUND));
-          gfx.draw(layout.getOutline(null));
-          gfx.setStroke(oldstroke);
-        }
-        gfx.setColor(new Color(color.r, color.g, color.b, color.a));
-        gfx.fill(layout.getOutline(null));
-        if (effectSize == 1) {
-          gfx.setColor(new Color(effectColor.r, effectColor.g,
-                      effectColor.b, effectColor.a));
-          gfx.draw(layout.getOutline(null));
-        }
-
-      } else if (effect == GLOW ) {
-        // draw the background of the glow
-        char[] chars = origText.toCharArray();
-        int ox = 0;
-        for (char c : chars) {
-          BufferedImage img = getGlowBackground(c, size.height, effectColor, effectSize);
-          gfx.drawImage(img, null, ox, 0);
-          ox += (img.getWidth() - effectSize*2);
-        }
-
-        // draw the foreground of the glow
-        ox = effectSize;
-        for (char c : chars) {
-          if (c != '\n' && c != '\r') {
-            BufferedImage img = getGlowForeground(c, size.height, color, effectSize);
-            gfx.drawImage(img, null, ox, 0);
-            ox += img.getWidth();
-          }
-        }
-
+    LayoutKey key = new LayoutKey(text, effect, effectSize, useAdvance, maxWidth);
+    GlyphLayout[] layouts = _layouts.getIfPresent(key);
+    if (layouts == null) {
+      StyledText styled = parseStyledText(text, effect != PLAIN);
+      if (maxWidth < 0) {
+        layouts = new GlyphLayout[] { GlyphLayout.layout(
+          _atlas, styled.text, styled.styles, styled.colors, effect, effectSize, useAdvance) };
       } else {
-        // if we're antialiasing, we need to set a custom compositing rule to avoid
-        // incorrectly blending with the blank background
-        Composite ocomp = gfx.getComposite();
-        if (_antialias) {
-          gfx.setComposite(AlphaComposite.SrcOut);
-          // on the MacOS we're not using the TextLayout to render, so we have to
-          // explicitly activate anti-aliasing
-          if (RunAnywhere.isMacOS()) {
-            gfx.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
-                       RenderingHints.VALUE_ANTIALIAS_ON);
-          }
-        }
-
-        int dx = 0;
-        if (effect == SHADOW) {
-          gfx.setColor(new Color(effectColor.r, effectColor.g,
-                      effectColor.b, effectColor.a));
-          float tx = effectSize - 1;
-          float ty = layout.getAscent() + effectSize;
-          if (RunAnywhere.isMacOS()) {
-            gfx.translate(tx, ty);
-            gfx.fill(layout.getOutline(null));
-            gfx.translate(-tx, -ty);
-          } else {
-            layout.draw(gfx, tx, ty);
-          }
-          dx = 1;
-          gfx.setComposite(ocomp);
-        }
-
-        gfx.setColor(new Color(color.r, color.g, color.b, color.a));
-        if (RunAnywhere.isMacOS()) {
-          gfx.translate(dx, layout.getAscent());
-          gfx.fill(layout.getOutline(null));
-        } else {
-          layout.draw(gfx, dx, layout.getAscent());
-        }
+        layouts = GlyphLayout.wrap(
+          _atlas, styled.text, styled.styles, styled.colors, effect, effectSize, maxWidth);
       }
-
-    } finally {
-      gfx.dispose();
+      _layouts.put(key, layouts);
     }
+    return layouts;
+  }
 
-    // TODO: render into a properly sized image in the first place and create a JME Image
-    // directly
-    final Image image = new Image(bimage);
-
-//         final ByteBuffer idata =
-//             ByteBuffer.allocateDirect(4 * image.getWidth() * image.getHeight());
-//         idata.order(ByteOrder.nativeOrder());
-//         byte[] data = (byte[])image.getRaster().getDataElements(
-//             0, 0, image.getWidth(), image.getHeight(), null);
-//         idata.clear();
-//         idata.put(data);
-//         idata.flip();
-
-    // wrap it all up in the right object
+  /**
+   * Creates a text object to render the supplied layout.
+   */
+  protected Text createText (
+    final GlyphLayout layout, final Color4f color, final Color4f effectColor)
+  {
     return new Text() {
       public int getLength () {
-        return length;
+        return layout.getLength();
       }
       public Dimension getSize () {
-        return size;
+        return layout.getSize();
       }
       public int getHitPos (int x, int y) {
-        TextHitInfo info = layout.hitTestChar(x, y);
-        return info.getInsertionIndex();
+        return layout.getHitPos(x);
       }
       public int getCursorPos (int index) {
-        Shape[] carets = layout.getCaretShapes(index);
-        Rectangle2D bounds = carets[0].getBounds2D();
-        return (int)Math.round(bounds.getX() + bounds.getWidth()/2);
+        return layout.getCursorPos(index);
       }
       public void render (Renderer renderer, int x, int y, float alpha) {
-        image.render(renderer, x, y, alpha);
-      }
-      public void render (Renderer renderer, int x, int y, int w, int h, float alpha) {
-        image.render(renderer, x, y, w, h, alpha);
+        renderLayout(renderer, layout, x, y, color, effectColor, alpha);
       }
     };
   }
 
-  /** Helper function. */
-  protected BufferedImage getGlowBackground (char c, int height, Color4f color, int effectSize)
+  /**
+   * Renders a layout, grouping its quads into batches by page and color (or adding them to the
+   * active quad stream, which does its own batching).
+   */
+  protected void renderLayout (
+    Renderer renderer, GlyphLayout layout, int x, int y,
+    Color4f color, Color4f effectColor, float alpha)
   {
-    BufferedImage image = _cachedGlowBGs.get(_gkey.init(c, color, effectSize));
-    if (image != null) {
-      return image;
+    List<GlyphLayout.Quad> quads = layout.getQuads();
+    if (quads.isEmpty()) {
+      return;
     }
-
-    image = new BufferedImage(
-      computeWidth(c) + effectSize*2, height, BufferedImage.TYPE_4BYTE_ABGR);
-    Graphics2D gfx = image.createGraphics();
-    try {
-      gfx.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-      TextLayout layout = new TextLayout(
-        String.valueOf(c), _attrs.get(TextAttribute.FONT), gfx.getFontRenderContext());
-      float alphaScale = Math.max(effectSize, 2f) / 2f;
-      gfx.setColor(new Color(color.r, color.g, color.b, color.a / alphaScale));
-      gfx.translate(effectSize, layout.getAscent() + effectSize);
-      for (int ii = effectSize; ii > 0; ii--) {
-        gfx.setStroke(new BasicStroke(effectSize * ((float) ii / effectSize),
-                       BasicStroke.CAP_ROUND, BasicStroke.JOIN_MITER, 1));
-        gfx.draw(layout.getOutline(null));
+    updateTextures(renderer);
+    if (RenderUtil.getStream() != null) {
+      for (GlyphLayout.Quad quad : quads) {
+        int lx = x + quad.x, ly = y + quad.y;
+        RenderUtil.drawQuad(renderer, _textures.get(quad.page),
+          layout.getColor(quad.color, color, effectColor), alpha,
+          lx, ly, lx + quad.width, ly + quad.height, quad.s1, quad.t1, quad.s2, quad.t2);
       }
-    } finally {
-      gfx.dispose();
-    }
-    _cachedGlowBGs.put(_gkey.cloneKey(), image);
-
-    return image;
-  }
-
-  /** Helper function. */
-  protected BufferedImage getGlowForeground (char c, int height, Color4f color, int effectSize)
-  {
-    BufferedImage image = _cachedGlowFGs.get(_gkey.init(c, color, effectSize));
-    if (image != null) {
-      return image;
+      return;
     }
-
-    image = new BufferedImage(computeWidth(c), height, BufferedImage.TYPE_4BYTE_ABGR);
-    Graphics2D gfx = image.createGraphics();
-    try {
-      gfx.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-      TextLayout layout = new TextLayout(
-        String.valueOf(c), _attrs.get(TextAttribute.FONT), gfx.getFontRenderContext());
-      gfx.setColor(new Color(color.r, color.g, color.b, color.a));
-      gfx.translate(0, layout.getAscent() + effectSize);
-      gfx.fill(layout.getOutline(null));
-    } finally {
-      gfx.dispose();
+    renderer.setMatrixMode(GL11.GL_MODELVIEW);
+    int page = -1, cidx = -1;
+    for (int ii = 0, nn = quads.size(); ii < nn; ii++) {
+      GlyphLayout.Quad quad = quads.get(ii);
+      if (quad.page != page || quad.color != cidx) {
+        if (ii > 0) {
+          GL11.glEnd();
+        }
+        if (quad.page != page) {
+          renderer.setTextureState(_textures.get(page = quad.page));
+        }
+        if (quad.color != cidx) {
+          Color4f qcolor = layout.getColor(cidx = quad.color, color, effectColor);
+          float a = qcolor.a * alpha;
+          renderer.setColorState(qcolor.r * a, qcolor.g * a, qcolor.b * a, a);
+        }
+        GL11.glBegin(GL11.GL_QUADS);
+      }
+      int lx = x + quad.x, ly = y + quad.y;
+      int ux = lx + quad.width, uy = ly + quad.height;
+      GL11.glTexCoord2f(quad.s1, quad.t1);
+      GL11.glVertex2f(lx, ly);
+      GL11.glTexCoord2f(quad.s2, quad.t1);
+      GL11.glVertex2f(ux, ly);
+      GL11.glTexCoord2f(quad.s2, quad.t2);
+      GL11.glVertex2f(ux, uy);
+      GL11.glTexCoord2f(quad.s1, quad.t2);
+      GL11.glVertex2f(lx, uy);
     }
-    _cachedGlowFGs.put(_gkey.cloneKey(), image);
-
-    return image;
+    GL11.glEnd();
   }
 
-  /** Helper function. */
-  protected int computeWidth (char c)
+  /**
+   * Creates textures for any new atlas pages and uploads the glyphs added since the last call.
+   */
+  protected void updateTextures (Renderer renderer)
   {
-    Graphics2D gfx = _stub.createGraphics();
-    try {
-      TextLayout layout = new TextLayout(
-        String.valueOf(c), _attrs.get(TextAttribute.FONT), gfx.getFontRenderContext());
-      return (int) Math.ceil(layout.getAdvance());
-    } finally {
-      gfx.dispose();
+    List<GlyphAtlas.Page> pages = _atlas.getPages();
+    int size = _atlas.getPageSize();
+    for (int ii = 0, nn = pages.size(); ii < nn; ii++) {
+      if (ii == _textures.size()) {
+        Texture2D texture = new Texture2D(renderer);
+        // clear the page once so that the texels around the glyphs are transparent
+        texture.setImage(0, GL11.GL_RGBA, size, size, false, GL11.GL_RGBA,
+          GL11.GL_UNSIGNED_BYTE, BufferUtils.createByteBuffer(size * size * 4));
+        texture.setFilters(GL11.GL_LINEAR, GL11.GL_NEAREST);
+        _textures.add(new TextureUnit[] { new TextureUnit(texture) });
+      }
+      GlyphAtlas.Page page = pages.get(ii);
+      List<Rectangle> regions = page.getPendingRegions();
+      if (regions.isEmpty()) {
+        continue;
+      }
+      Texture2D texture = (Texture2D)_textures.get(ii)[0].texture;
+      BufferedImage image = page.getImage();
+      for (Rectangle region : regions) {
+        texture.setSubimage(
+          image.getSubimage(region.x, region.y, region.width, region.height), true,
+          region.x, region.y, region.width, region.height);
+      }
+      page.clearPendingRegions();
     }
   }
 
   /**
-   * Parses our simple styled text formatting codes and creates an attributed string to render
-   * them.
+   * Parses our simple styled text formatting codes into the raw text and the styles and colors
+   * of its characters.
    */
-  protected AttributedString parseStyledText (
-    String text, Map<TextAttribute, Font> attrs, String[] bare, boolean style)
+  protected StyledText parseStyledText (String text, boolean style)
   {
     // if there are no style commands in the text, skip the complexity
     if (!style || !text.contains("@=")) {
-      if (bare != null) {
-        bare[0] = text;
-      }
-      return new AttributedString(text, attrs);
+      return new StyledText(text, null, null);
     }
 
     // parse the style commands into an array of runs and extract the raw text along the way
@@ -520,46 +352,39 @@ public class StringTextFactory extends TextFactory
     }
 
     String rawtext = raw.toString();
-    if (bare != null) {
-      bare[0] = rawtext;
-    }
-
-    // now create an attributed string and add our styles
-    AttributedString string = new AttributedString(rawtext, attrs);
+    int[] sbits = new int[rawtext.length()];
+    Color4f[] colors = null;
     for (int ii = 0; ii < runs.size(); ii++) {
       StyleRun run = runs.get(ii);
       if (run.styles == null) {
         continue; // ignore runs we failed to parse
       }
+      int bits = 0;
       for (char runStyle : run.styles) {
         switch (runStyle) {
         case '#':
           if (run.color != null) {
-            string.addAttribute(TextAttribute.FOREGROUND, run.color,
-                      run.start, run.end);
+            if (colors == null) {
+              colors = new Color4f[rawtext.length()];
+            }
+            Arrays.fill(colors, run.start, run.end, new Color4f(run.color));
           }
           break;
 
         case 'i':
-          string.addAttribute(TextAttribute.POSTURE, TextAttribute.POSTURE_OBLIQUE,
-                    run.start, run.end);
+          bits |= Font.ITALIC;
           break;
 
         case 'b':
-          // setting TextAttribute.WEIGHT doesn't seem to work
-          string.addAttribute(
-            TextAttribute.FONT, attrs.get(TextAttribute.FONT).deriveFont(Font.BOLD),
-            run.start, run.end);
+          bits |= Font.BOLD;
           break;
 
         case 's':
-          string.addAttribute(TextAttribute.STRIKETHROUGH, TextAttribute.STRIKETHROUGH_ON,
-                    run.start, run.end);
+          bits |= GlyphLayout.STRIKE;
           break;
 
         case 'u':
-          string.addAttribute(TextAttribute.UNDERLINE, TextAttribute.UNDERLINE_ON,
-                    run.start, run.end);
+          bits |= GlyphLayout.UNDERLINE;
           break;
 
         case 0: // ignore blank spots
@@ -571,9 +396,11 @@ public class StringTextFactory extends TextFactory
           break;
         }
       }
+      for (int jj = run.start; jj < run.end; jj++) {
+        sbits[jj] |= bits;
+      }
     }
-
-    return string;
+    return new StyledText(rawtext, sbits, colors);
   }
 
   protected static class StyleRun
@@ -598,52 +425,88 @@ public class StringTextFactory extends TextFactory
     }
   }
 
-  protected static class GlowKey implements Cloneable
+  /**
+   * The raw text resulting from parsing the style codes, along with the styles and colors of
+   * its characters.
+   */
+  protected static class StyledText
+  {
+    /** The raw text. */
+    public final String text;
+
+    /** The style bits of each character, or null for none. */
+    public final int[] styles;
+
+    /** The color of each character, or null for none. */
+    public final Color4f[] colors;
+
+    public StyledText (String text, int[] styles, Color4f[] colors)
+    {
+      this.text = text;
+      this.styles = styles;
+      this.colors = colors;
+    }
+  }
+
+  /**
+   * Identifies a cached layout.
+   */
+  protected static class LayoutKey
   {
-    public char c;
-    public Color4f color;
-    public int size;
-
-    public GlowKey init (char c, Color4f color, int size) {
-      this.c = c;
-      this.color = color;
-      this.size = size;
-      return this;
+    public LayoutKey (
+      String text, int effect, int effectSize, boolean useAdvance, int maxWidth)
+    {
+      _text = text;
+      _effect = effect;
+      _effectSize = effectSize;
+      _useAdvance = useAdvance;
+      _maxWidth = maxWidth;
     }
 
-    public GlowKey cloneKey () {
-      try {
-        return (GlowKey)super.clone();
-      } catch (Exception e) {
-        throw new RuntimeException(e);
-      }
+    @Override // from Object
+    public int hashCode ()
+    {
+      return Objects.hashCode(_text, _effect, _effectSize, _useAdvance, _maxWidth);
     }
 
-    public boolean equals (Object other) {
-      if (!(other instanceof GlowKey)) {
+    @Override // from Object
+    public boolean equals (Object other)
+    {
+      if (!(other instanceof LayoutKey)) {
         return false;
       }
-      GlowKey okey = (GlowKey)other;
-      return (c == okey.c) && (size == okey.size) && color.equals(okey.color);
+      LayoutKey okey = (LayoutKey)other;
+      return _text.equals(okey._text) && _effect == okey._effect &&
+        _effectSize == okey._effectSize && _useAdvance == okey._useAdvance &&
+        _maxWidth == okey._maxWidth;
     }
 
-    public int hashCode () {
-      return c ^ size ^ color.hashCode();
-    }
+    /** The text. */
+    protected String _text;
+
+    /** The effect and effect size. */
+    protected int _effect, _effectSize;
+
+    /** Whether or not the advance is included in the bounds. */
+    protected boolean _useAdvance;
+
+    /** The wrap width, or -1 for none. */
+    protected int _maxWidth;
   }
 
-  protected boolean _antialias;
+  /** The height of our text. */
   protected int _height;
-  protected BufferedImage _stub;
 
-  protected Map<TextAttribute, Font> _attrs = new HashMap<TextAttribute, Font>();
+  /** The atlas containing our glyphs. */
+  protected GlyphAtlas _atlas;
 
-  // for caching glow fore- and backgrounds
-  protected Map<GlowKey, BufferedImage> _cachedGlowBGs = new HashMap<GlowKey, BufferedImage>();
-  protected Map<GlowKey, BufferedImage> _cachedGlowFGs = new HashMap<GlowKey, BufferedImage>();
+  /** The textures for each page of the atlas. */
+  protected List<TextureUnit[]> _textures = Lists.newArrayList();
 
-  // to avoid exercising the garbage collector
-  protected GlowKey _gkey = new GlowKey();
+  /** The cached layouts. */
+  protected Cache<LayoutKey, GlyphLayout[]> _layouts = CacheBuilder.newBuilder()
+    .maximumSize(LAYOUT_CACHE_SIZE)
+    .build();
 
   protected static final char NONE = '!';
   protected static final char BOLD = 'b';
@@ -651,4 +514,7 @@ public class StringTextFactory extends TextFactory
   protected static final char UNDERLINE = 'u';
   protected static final char STRIKE = 's';
   protected static final char COLOR = '#';
+
+  /** The maximum number of layouts to cache. */
+  protected static final int LAYOUT_CACHE_SIZE = 1024;
 }
@@ -0,0 +1,423 @@
+//
+// $Id$
+//
+// Clyde library - tools for developing networked games
+// Copyright (C) 2005-2012 Three Rings Design, Inc.
+// http://code.google.com/p/clyde/
+//
+// Redistribution and use in source and binary forms, with or without modification, are permitted
+// provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this list of
+//    conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+//    conditions and the following disclaimer in the documentation and/or other materials provided
+//    with the distribution.
+//
+// THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR IMPLIED WARRANTIES,
+// INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+// PARTICULAR PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT,
+// INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+// TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+// LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package com.threerings.opengl.gui.util;
+
+import java.nio.FloatBuffer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.GL11;
+
+import com.threerings.opengl.renderer.ClientArray;
+import com.threerings.opengl.renderer.Renderer;
+import com.threerings.opengl.renderer.TextureUnit;
+
+/**
+ * Records the quads drawn by a hierarchy of components into a single vertex stream, grouping
+ * them into draw calls by texture and scissor box.  Quads may be moved into an earlier draw call
+ * with the same state as long as they do not overlap anything drawn in between, so the result
+ * is the same as drawing them in order.  Recording does not depend on OpenGL, and a recorded
+ * stream may be rendered any number of times.
+ */
+public class QuadStream
+{
+  /**
+   * Saves the current transform, to be restored by {@link #popTransform}.
+   */
+  public void pushTransform ()
+  {
+    if (_depth == _stack.length) {
+      float[] nstack = new float[_stack.length * 2];
+      System.arraycopy(_stack, 0, nstack, 0, _stack.length);
+      _stack = nstack;
+    }
+    System.arraycopy(_transform, 0, _stack, _depth, TRANSFORM_SIZE);
+    _depth += TRANSFORM_SIZE;
+  }
+
+  /**
+   * Restores the transform saved by the last call to {@link #pushTransform}.
+   */
+  public void popTransform ()
+  {
+    _depth -= TRANSFORM_SIZE;
+    System.arraycopy(_stack, _depth, _transform, 0, TRANSFORM_SIZE);
+  }
+
+  /**
+   * Translates the current transform.
+   */
+  public void translate (float x, float y)
+  {
+    float[] m = _transform;
+    m[4] += m[0]*x + m[2]*y;
+    m[5] += m[1]*x + m[3]*y;
+  }
+
+  /**
+   * Rotates the current transform counterclockwise by the specified angle in radians.
+   */
+  public void rotate (float angle)
+  {
+    float[] m = _transform;
+    float c = (float)Math.cos(angle), s = (float)Math.sin(angle);
+    float m00 = m[0], m10 = m[1], m01 = m[2], m11 = m[3];
+    m[0] = m00*c + m01*s;
+    m[1] = m10*c + m11*s;
+    m[2] = m01*c - m00*s;
+    m[3] = m11*c - m10*s;
+  }
+
+  /**
+   * Scales the current transform uniformly.
+   */
+  public void scale (float scale)
+  {
+    float[] m = _transform;
+    m[0] *= scale;
+    m[1] *= scale;
+    m[2] *= scale;
+    m[3] *= scale;
+  }
+
+  /**
+   * Populates the supplied buffer with the current transform as a column-major 4x4 matrix.
+   */
+  public FloatBuffer getTransform (FloatBuffer result)
+  {
+    float[] m = _transform;
+    result.clear();
+    result.put(m[0]).put(m[1]).put(0f).put(0f);
+    result.put(m[2]).put(m[3]).put(0f).put(0f);
+    result.put(0f).put(0f).put(1f).put(0f);
+    result.put(m[4]).put(m[5]).put(0f).put(1f);
+    result.flip();
+    return result;
+  }
+
+  /**
+   * Sets the scissor box that applies to subsequent quads.
+   *
+   * @param scissor the scissor box, or null for none.
+   */
+  public void setScissor (Rectangle scissor)
+  {
+    if (scissor == null ? _scissor != null : !scissor.equals(_scissor)) {
+      _scissor = (scissor == null) ? null : new Rectangle(scissor);
+    }
+  }
+
+  /**
+   * Adds a quad to the stream.
+   *
+   * @param units the texture units with which to draw the quad, or null for none.
+   * @param r the red component of the color, premultiplied by alpha (as are the green and blue
+   * components).
+   */
+  public void add (
+    TextureUnit[] units, float r, float g, float b, float a,
+    float lx, float ly, float ux, float uy, float s1, float t1, float s2, float t2)
+  {
+    // transform the corners
+    float[] m = _transform, v = _vertices;
+    transform(m, lx, ly, v, 0);
+    transform(m, ux, ly, v, 2);
+    transform(m, ux, uy, v, 4);
+    transform(m, lx, uy, v, 6);
+    float minX = Math.min(Math.min(v[0], v[2]), Math.min(v[4], v[6]));
+    float minY = Math.min(Math.min(v[1], v[3]), Math.min(v[5], v[7]));
+    float maxX = Math.max(Math.max(v[0], v[2]), Math.max(v[4], v[6]));
+    float maxY = Math.max(Math.max(v[1], v[3]), Math.max(v[5], v[7]));
+
+    // look for an earlier draw call with the same state, stopping at the first that overlaps
+    Draw draw = null;
+    for (int ii = _draws.size() - 1, ll = Math.max(0, ii - MAX_LOOKBACK); ii >= ll; ii--) {
+      Draw odraw = _draws.get(ii);
+      if (odraw.units == units && (odraw.scissor == _scissor ||
+          (odraw.scissor != null && odraw.scissor.equals(_scissor)))) {
+        draw = odraw;
+        break;
+      }
+      if (odraw.intersects(minX, minY, maxX, maxY)) {
+        break;
+      }
+    }
+    if (draw == null) {
+      _draws.add(draw = new Draw(units, _scissor));
+    }
+    draw.add(v, r, g, b, a, s1, t1, s2, t2, minX, minY, maxX, maxY);
+    _quads++;
+    _buffer = null;
+  }
+
+  /**
+   * Checks whether the stream contains no quads.
+   */
+  public boolean isEmpty ()
+  {
+    return _draws.isEmpty();
+  }
+
+  /**
+   * Returns the number of draw calls submitted for the stream: those recorded so far, plus any
+   * already submitted by {@link #flush}.
+   */
+  public int getDrawCount ()
+  {
+    return _flushedDraws + _draws.size();
+  }
+
+  /**
+   * Returns the number of quads in the stream, including any already flushed.
+   */
+  public int getQuadCount ()
+  {
+    return _flushedQuads + _quads;
+  }
+
+  /**
+   * Returns the number of vertices in the stream, including any already flushed.
+   */
+  public int getVertexCount ()
+  {
+    return getQuadCount() * 4;
+  }
+
+  /**
+   * Checks whether the stream contains everything recorded since it was last cleared (that is,
+   * it has not been flushed), and thus may be rendered again in place of recording anew.
+   */
+  public boolean isComplete ()
+  {
+    return _flushedDraws == 0 && _flushedQuads == 0;
+  }
+
+  /**
+   * Renders the quads recorded so far and removes them from the stream, so that something else
+   * may be drawn on top of them.
+   */
+  public void flush (Renderer renderer)
+  {
+    render(renderer);
+    _flushedDraws += _draws.size();
+    _flushedQuads += _quads;
+    _draws.clear();
+    _quads = 0;
+    _buffer = null;
+  }
+
+  /**
+   * Clears the stream and resets the transform and scissor box.
+   */
+  public void clear ()
+  {
+    _draws.clear();
+    _quads = _flushedDraws = _flushedQuads = 0;
+    _buffer = null;
+    _transform[0] = _transform[3] = 1f;
+    _transform[1] = _transform[2] = _transform[4] = _transform[5] = 0f;
+    _depth = 0;
+    _scissor = null;
+  }
+
+  /**
+   * Renders the stream.
+   */
+  public void render (Renderer renderer)
+  {
+    if (_draws.isEmpty()) {
+      return;
+    }
+    if (_buffer == null) {
+      int size = _quads * 4 * VERTEX_SIZE;
+      if (_data == null || _data.capacity() < size) {
+        _data = BufferUtils.createFloatBuffer(
+          Math.max(size, (_data == null) ? 0 : 2 * _data.capacity()));
+      }
+      _data.clear();
+      for (int ii = 0, nn = _draws.size(); ii < nn; ii++) {
+        Draw draw = _draws.get(ii);
+        _data.put(draw.data, 0, draw.size);
+      }
+      _data.flip();
+      _buffer = _data;
+      int stride = VERTEX_SIZE * 4;
+      _texCoordArrays = new ClientArray[] { new ClientArray(2, stride, 0, _buffer) };
+      _colorArray = new ClientArray(4, stride, 8, _buffer);
+      _vertexArray = new ClientArray(2, stride, 24, _buffer);
+    }
+    renderer.setArrayState(0, null, _texCoordArrays, _colorArray, null, _vertexArray, null);
+    renderer.setMatrixMode(GL11.GL_MODELVIEW);
+    Rectangle oscissor = renderer.getScissor();
+    if (oscissor != null) {
+      oscissor = new Rectangle(oscissor);
+    }
+    int first = 0;
+    for (int ii = 0, nn = _draws.size(); ii < nn; ii++) {
+      Draw draw = _draws.get(ii);
+      int count = draw.size / VERTEX_SIZE;
+      renderer.setTextureState(draw.units);
+      renderer.setScissor(draw.scissor);
+      GL11.glDrawArrays(GL11.GL_QUADS, first, count);
+      first += count;
+    }
+    renderer.setScissor(oscissor);
+
+    // the current color is undefined after drawing with a color array
+    renderer.invalidateColorState();
+  }
+
+  /**
+   * Transforms a point, storing the result in the specified array.
+   */
+  protected static void transform (float[] m, float x, float y, float[] result, int idx)
+  {
+    result[idx] = m[0]*x + m[2]*y + m[4];
+    result[idx + 1] = m[1]*x + m[3]*y + m[5];
+  }
+
+  /**
+   * A group of quads drawn with the same state.
+   */
+  protected static class Draw
+  {
+    /** The texture units, or null for none. */
+    public final TextureUnit[] units;
+
+    /** The scissor box, or null for none. */
+    public final Rectangle scissor;
+
+    /** The interleaved vertex data. */
+    public float[] data = new float[4 * 4 * VERTEX_SIZE];
+
+    /** The number of floats used. */
+    public int size;
+
+    /** The bounds of the quads. */
+    public float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE;
+    public float maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE;
+
+    public Draw (TextureUnit[] units, Rectangle scissor)
+    {
+      this.units = units;
+      this.scissor = scissor;
+    }
+
+    /**
+     * Checks whether the bounds of this group intersect the specified bounds.
+     */
+    public boolean intersects (float minX, float minY, float maxX, float maxY)
+    {
+      return minX < this.maxX && maxX > this.minX && minY < this.maxY && maxY > this.minY;
+    }
+
+    /**
+     * Adds a quad to the group.
+     */
+    public void add (
+      float[] v, float r, float g, float b, float a, float s1, float t1, float s2, float t2,
+      float minX, float minY, float maxX, float maxY)
+    {
+      if (size + 4 * VERTEX_SIZE > data.length) {
+        float[] ndata = new float[data.length * 2];
+        System.arraycopy(data, 0, ndata, 0, size);
+        data = ndata;
+      }
+      size = put(v, 0, s1, t1, r, g, b, a, size);
+      size = put(v, 2, s2, t1, r, g, b, a, size);
+      size = put(v, 4, s2, t2, r, g, b, a, size);
+      size = put(v, 6, s1, t2, r, g, b, a, size);
+      this.minX = Math.min(this.minX, minX);
+      this.minY = Math.min(this.minY, minY);
+      this.maxX = Math.max(this.maxX, maxX);
+      this.maxY = Math.max(this.maxY, maxY);
+    }
+
+    /**
+     * Writes a single vertex.
+     *
+     * @return the new size.
+     */
+    protected int put (
+      float[] v, int vidx, float s, float t, float r, float g, float b, float a, int idx)
+    {
+      data[idx++] = s;
+      data[idx++] = t;
+      data[idx++] = r;
+      data[idx++] = g;
+      data[idx++] = b;
+      data[idx++] = a;
+      data[idx++] = v[vidx];
+      data[idx++] = v[vidx + 1];
+      return idx;
+    }
+  }
+
+  /** The recorded draw calls. */
+  protected List<Draw> _draws = new ArrayList<Draw>();
+
+  /** The number of quads recorded. */
+  protected int _quads;
+
+  /** The number of draw calls and quads already flushed. */
+  protected int _flushedDraws, _flushedQuads;
+
+  /** The current transform (the 2x2 matrix in column-major order, then the translation). */
+  protected float[] _transform = { 1f, 0f, 0f, 1f, 0f, 0f };
+
+  /** The transform stack. */
+  protected float[] _stack = new float[TRANSFORM_SIZE * 8];
+
+  /** The depth of the transform stack. */
+  protected int _depth;
+
+  /** The current scissor box, if any. */
+  protected Rectangle _scissor;
+
+  /** Holds transformed vertices. */
+  protected float[] _vertices = new float[8];
+
+  /** The vertex data buffer. */
+  protected FloatBuffer _data;
+
+  /** The buffer holding the current contents of the stream, or null if out of date. */
+  protected FloatBuffer _buffer;
+
+  /** The client arrays referring to the buffer. */
+  protected ClientArray[] _texCoordArrays;
+  protected ClientArray _colorArray, _vertexArray;
+
+  /** The number of floats in each transform. */
+  protected static final int TRANSFORM_SIZE = 6;
+
+  /** The number of floats in each vertex (texture coordinates, color, and position). */
+  protected static final int VERTEX_SIZE = 8;
+
+  /** The maximum number of draw calls to search back through for one with the same state. */
+  protected static final int MAX_LOOKBACK = 16;
+}
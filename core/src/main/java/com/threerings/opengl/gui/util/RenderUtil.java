@@ -0,0 +1,256 @@
+//
+// $Id$
+//
+// Clyde library - tools for developing networked games
+// Copyright (C) 2005-2012 Three Rings Design, Inc.
+// http://code.google.com/p/clyde/
+//
+// Redistribution and use in source and binary forms, with or without modification, are permitted
+// provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this list of
+//    conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+//    conditions and the following disclaimer in the documentation and/or other materials provided
+//    with the distribution.
+//
+// THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR IMPLIED WARRANTIES,
+// INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+// PARTICULAR PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT,
+// INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+// TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+// LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package com.threerings.opengl.gui.util;
+
+import java.nio.FloatBuffer;
+
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.GL11;
+
+import com.threerings.math.FloatMath;
+
+import com.threerings.opengl.renderer.Color4f;
+import com.threerings.opengl.renderer.Renderer;
+import com.threerings.opengl.renderer.TextureUnit;
+
+/**
+ * Drawing and transform methods for components.  When a {@link QuadStream} is being recorded
+ * (see {@link com.threerings.opengl.gui.Window#setRenderMode}), these add to the stream; otherwise,
+ * they draw immediately.  Code that issues OpenGL calls of its own while rendering a component
+ * must bracket them with {@link #beginDirect} and {@link #endDirect}.  All of these methods must
+ * be called on the rendering thread.
+ */
+public class RenderUtil
+{
+  /**
+   * Returns the stream being recorded, if any.
+   */
+  public static QuadStream getStream ()
+  {
+    return _stream;
+  }
+
+  /**
+   * Sets the stream to record.
+   *
+   * @param stream the stream to record, or null to draw immediately.
+   * @return the stream previously recorded, if any.
+   */
+  public static QuadStream setStream (QuadStream stream)
+  {
+    QuadStream ostream = _stream;
+    _stream = stream;
+    return ostream;
+  }
+
+  /**
+   * Saves the current transform.
+   */
+  public static void pushTransform ()
+  {
+    if (_stream != null) {
+      _stream.pushTransform();
+    } else {
+      GL11.glPushMatrix();
+    }
+  }
+
+  /**
+   * Restores the transform saved by the last call to {@link #pushTransform}.
+   */
+  public static void popTransform ()
+  {
+    if (_stream != null) {
+      _stream.popTransform();
+    } else {
+      GL11.glPopMatrix();
+    }
+  }
+
+  /**
+   * Translates the current transform.
+   */
+  public static void translate (float x, float y)
+  {
+    if (_stream != null) {
+      _stream.translate(x, y);
+    } else {
+      GL11.glTranslatef(x, y, 0f);
+    }
+  }
+
+  /**
+   * Rotates the current transform counterclockwise by the specified angle in radians.
+   */
+  public static void rotate (float angle)
+  {
+    if (_stream != null) {
+      _stream.rotate(angle);
+    } else {
+      GL11.glRotatef(FloatMath.toDegrees(angle), 0f, 0f, 1f);
+    }
+  }
+
+  /**
+   * Scales the current transform uniformly.
+   */
+  public static void scale (float scale)
+  {
+    if (_stream != null) {
+      _stream.scale(scale);
+    } else {
+      GL11.glScalef(scale, scale, 1f);
+    }
+  }
+
+  /**
+   * Draws a textured quad.
+   *
+   * @param units the texture units to use, or null for none.
+   */
+  public static void drawQuad (
+    Renderer renderer, TextureUnit[] units, Color4f color, float alpha,
+    float lx, float ly, float ux, float uy, float s1, float t1, float s2, float t2)
+  {
+    float a = color.a * alpha;
+    drawQuad(renderer, units, color.r * a, color.g * a, color.b * a, a,
+      lx, ly, ux, uy, s1, t1, s2, t2);
+  }
+
+  /**
+   * Draws a textured quad.
+   *
+   * @param r the red component of the color, premultiplied by alpha (as are the green and blue
+   * components).
+   */
+  public static void drawQuad (
+    Renderer renderer, TextureUnit[] units, float r, float g, float b, float a,
+    float lx, float ly, float ux, float uy, float s1, float t1, float s2, float t2)
+  {
+    if (_stream != null) {
+      _stream.setScissor(renderer.getScissor());
+      _stream.add(units, r, g, b, a, lx, ly, ux, uy, s1, t1, s2, t2);
+      return;
+    }
+    renderer.setColorState(r, g, b, a);
+    renderer.setTextureState(units);
+    renderer.setMatrixMode(GL11.GL_MODELVIEW);
+    GL11.glBegin(GL11.GL_QUADS);
+    GL11.glTexCoord2f(s1, t1);
+    GL11.glVertex2f(lx, ly);
+    GL11.glTexCoord2f(s2, t1);
+    GL11.glVertex2f(ux, ly);
+    GL11.glTexCoord2f(s2, t2);
+    GL11.glVertex2f(ux, uy);
+    GL11.glTexCoord2f(s1, t2);
+    GL11.glVertex2f(lx, uy);
+    GL11.glEnd();
+  }
+
+  /**
+   * Draws an untextured rectangle.
+   */
+  public static void drawRect (
+    Renderer renderer, Color4f color, float alpha, float x, float y, float width, float height)
+  {
+    float a = color.a * alpha;
+    drawRect(renderer, color.r * a, color.g * a, color.b * a, a, x, y, width, height);
+  }
+
+  /**
+   * Draws an untextured rectangle.
+   *
+   * @param r the red component of the color, premultiplied by alpha (as are the green and blue
+   * components).
+   */
+  public static void drawRect (
+    Renderer renderer, float r, float g, float b, float a,
+    float x, float y, float width, float height)
+  {
+    drawQuad(renderer, null, r, g, b, a, x, y, x + width, y + height, 0f, 0f, 0f, 0f);
+  }
+
+  /**
+   * Draws the outline of a rectangle with lines of the specified width centered on its edges.
+   */
+  public static void drawOutline (
+    Renderer renderer, Color4f color, float alpha,
+    float x, float y, float width, float height, float lineWidth)
+  {
+    float a = color.a * alpha;
+    float r = color.r * a, g = color.g * a, b = color.b * a;
+    if (_stream != null) {
+      // draw each edge as a rectangle
+      float h = lineWidth / 2f;
+      drawRect(renderer, r, g, b, a, x - h, y - h, width + lineWidth, lineWidth);
+      drawRect(renderer, r, g, b, a, x - h, y + height - h, width + lineWidth, lineWidth);
+      drawRect(renderer, r, g, b, a, x - h, y + h, lineWidth, height - lineWidth);
+      drawRect(renderer, r, g, b, a, x + width - h, y + h, lineWidth, height - lineWidth);
+      return;
+    }
+    renderer.setColorState(r, g, b, a);
+    renderer.setTextureState(null);
+    GL11.glLineWidth(lineWidth);
+    GL11.glBegin(GL11.GL_LINE_LOOP);
+    GL11.glVertex2f(x, y);
+    GL11.glVertex2f(x + width, y);
+    GL11.glVertex2f(x + width, y + height);
+    GL11.glVertex2f(x, y + height);
+    GL11.glEnd();
+    GL11.glLineWidth(1f);
+  }
+
+  /**
+   * Prepares to issue OpenGL calls directly: if a stream is being recorded, renders and flushes
+   * what it contains so far and applies its transform to the modelview matrix.
+   */
+  public static void beginDirect (Renderer renderer)
+  {
+    if (_stream != null) {
+      _stream.flush(renderer);
+      renderer.setMatrixMode(GL11.GL_MODELVIEW);
+      GL11.glPushMatrix();
+      GL11.glMultMatrix(_stream.getTransform(_matrix));
+    }
+  }
+
+  /**
+   * Restores the state after direct OpenGL calls.
+   */
+  public static void endDirect (Renderer renderer)
+  {
+    if (_stream != null) {
+      renderer.setMatrixMode(GL11.GL_MODELVIEW);
+      GL11.glPopMatrix();
+    }
+  }
+
+  /** The stream being recorded, if any. */
+  protected static QuadStream _stream;
+
+  /** Holds the stream transform. */
+  protected static FloatBuffer _matrix = BufferUtils.createFloatBuffer(16);
+}
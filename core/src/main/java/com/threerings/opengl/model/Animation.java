@@ -46,6 +46,7 @@ import com.threerings.math.Transform3D;
 import com.threerings.util.DeepUtil;
 
 import com.threerings.opengl.model.config.AnimationConfig;
+import com.threerings.opengl.model.config.AnimationTrack;
 import com.threerings.opengl.util.GlContext;
 
 import static com.threerings.opengl.Log.log;
@@ -271,7 +272,12 @@ public class Animation extends SimpleScope
           _snapshot[ii] = new Transform3D();
         }
       }
-      if (config.modifiers.length == 0) {
+      // use the shared compressed track if there are no modifiers
+      _track = (config.modifiers.length == 0) ? config.getTrack() : null;
+      if (_track != null) {
+        _transforms = null;
+        _frameCount = _track.getFrameCount();
+      } else if (config.modifiers.length == 0) {
         _transforms = config.transforms;
       } else {
         Transform3D[] nodeDefaults = new Transform3D[_targets.length];
@@ -282,6 +288,9 @@ public class Animation extends SimpleScope
         }
         _transforms = config.getModifiedTransforms(nodeDefaults);
       }
+      if (_track == null) {
+        _frameCount = _transforms.length;
+      }
 
       // create the executors
       _executors = new FrameExecutor[config.actions.length];
@@ -291,7 +300,7 @@ public class Animation extends SimpleScope
           action.frame, action.action.createExecutor(_ctx, this));
       }
 
-      if (_fidx >= _transforms.length) {
+      if (_fidx >= _frameCount) {
         _fidx = 0;
         _eidx = 0;
       }
@@ -302,7 +311,7 @@ public class Animation extends SimpleScope
     {
       // initialize frame counter
       int offset = Math.round(_config.offset.getValue() * getFrameRate());
-      _fidx = _eidx = Math.max(0, offset) % _transforms.length;
+      _fidx = _eidx = Math.max(0, offset) % _frameCount;
       _accum = 0f;
       _completed = false;
 
@@ -377,7 +386,7 @@ public class Animation extends SimpleScope
       executeActions();
 
       // check for loop or completion
-      int fcount = _transforms.length;
+      int fcount = _frameCount;
       if (_config.loop) {
         if (_fidx >= fcount) {
           _fidx %= fcount;
@@ -403,19 +412,11 @@ public class Animation extends SimpleScope
     @Override
     public void updateTransforms ()
     {
-      Transform3D[] t1, t2;
-      if (_transitioning) {
-        t1 = _snapshot;
-        t2 = _transforms[_fidx];
-      } else {
-        t1 = _transforms[_fidx];
-        t2 = _transforms[(_fidx + 1) % _transforms.length];
-      }
       for (int ii = 0; ii < _targets.length; ii++) {
-        // lerp into the target transform
+        // compute directly into the target transform
         Articulated.Node target = _targets[ii];
-        if (target != null) {
-          t1[ii].lerp(t2[ii], _accum, target.getLocalTransform());
+        if (target != null && !target.skipAnimation) {
+          getTransform(ii, target.getLocalTransform());
         }
       }
     }
@@ -423,23 +424,15 @@ public class Animation extends SimpleScope
     @Override
     public void blendTransforms (int update)
     {
-      Transform3D[] t1, t2;
-      if (_transitioning) {
-        t1 = _snapshot;
-        t2 = _transforms[_fidx];
-      } else {
-        t1 = _transforms[_fidx];
-        t2 = _transforms[(_fidx + 1) % _transforms.length];
-      }
       for (int ii = 0; ii < _targets.length; ii++) {
-        // first make sure the target exists
+        // first make sure the target exists and is animated
         Articulated.Node target = _targets[ii];
-        if (target == null) {
+        if (target == null || target.skipAnimation) {
           continue;
         }
-        // then see if we're the first to touch it, in which case we can lerp directly
+        // then see if we're the first to touch it, in which case we can compute directly
         if (target.lastUpdate != update) {
-          t1[ii].lerp(t2[ii], _accum, target.getLocalTransform());
+          getTransform(ii, target.getLocalTransform());
           target.lastUpdate = update;
           target.totalWeight = _weight;
           continue;
@@ -450,12 +443,29 @@ public class Animation extends SimpleScope
           continue;
         }
         float mweight = Math.min(_weight, 1f - target.totalWeight);
-        t1[ii].lerp(t2[ii], _accum, _xform);
+        getTransform(ii, _xform);
         target.getLocalTransform().lerpLocal(
           _xform, mweight / (target.totalWeight += mweight));
       }
     }
 
+    /**
+     * Computes the current transform of the specified target.
+     */
+    protected void getTransform (int idx, Transform3D result)
+    {
+      if (_transitioning) {
+        Transform3D next = (_track == null) ?
+          _transforms[_fidx][idx] : _track.sample(idx, _fidx, 0f, _sample);
+        _snapshot[idx].lerp(next, _accum, result);
+      } else if (_track == null) {
+        _transforms[_fidx][idx].lerp(
+          _transforms[(_fidx + 1) % _frameCount][idx], _accum, result);
+      } else {
+        _track.sample(idx, _fidx, _accum, result);
+      }
+    }
+
     @Override
     protected void blendToWeight (float weight, float interval)
     {
@@ -533,6 +543,12 @@ public class Animation extends SimpleScope
     /** The animation transforms after modifications are applied. */
     protected Transform3D[][] _transforms;
 
+    /** The shared compressed track, if we're using it in place of the transforms. */
+    protected AnimationTrack _track;
+
+    /** The number of frames in the animation. */
+    protected int _frameCount;
+
     /** A snapshot of the original transforms of the targets, for transitioning. */
     protected Transform3D[] _snapshot;
 
@@ -562,6 +578,9 @@ public class Animation extends SimpleScope
 
     /** A temporary transform for interpolation. */
     protected Transform3D _xform = new Transform3D();
+
+    /** Holds the sampled transform when transitioning. */
+    protected Transform3D _sample = new Transform3D();
   }
 
   /**
@@ -31,6 +31,7 @@ import java.util.HashMap;
 import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
@@ -48,12 +49,16 @@ import com.threerings.math.Ray3D;
 import com.threerings.math.Transform3D;
 import com.threerings.math.Vector3f;
 
+import com.threerings.opengl.camera.Camera;
 import com.threerings.opengl.compositor.Enqueueable;
 import com.threerings.opengl.material.Surface;
 import com.threerings.opengl.material.config.MaterialConfig;
 import com.threerings.opengl.model.config.ArticulatedConfig;
 import com.threerings.opengl.model.config.ArticulatedConfig.AnimationMapping;
+import com.threerings.opengl.model.config.ArticulatedConfig.AnimationDetail;
 import com.threerings.opengl.model.config.ArticulatedConfig.Attachment;
+import com.threerings.opengl.model.config.ArticulatedConfig.DetailLevel;
+import com.threerings.opengl.model.config.ArticulatedConfig.DetailMetric;
 import com.threerings.opengl.model.config.ArticulatedConfig.NodeTransform;
 import com.threerings.opengl.model.config.ArticulatedConfig.ViewTransformUpdater;
 import com.threerings.opengl.model.config.ArticulatedConfig.WorldTransformUpdater;
@@ -87,6 +92,10 @@ public class Articulated extends Model.Implementation
     /** The total weight of the animation transforms applied to this node. */
     public float totalWeight;
 
+    /** Whether or not animations should leave this node's transform alone (because it is
+     * optional at the current level of detail). */
+    public boolean skipAnimation;
+
     /**
      * Creates a new node.
      */
@@ -397,6 +406,31 @@ public class Articulated extends Model.Implementation
     protected Surface _surface;
   }
 
+  /**
+   * Returns the number of articulated model ticks since the last call to {@link #resetStats}.
+   */
+  public static int getSkeletonTickCount ()
+  {
+    return _skeletonTickCount.get();
+  }
+
+  /**
+   * Returns the number of skeleton updates since the last call to {@link #resetStats}.
+   */
+  public static int getSkeletonUpdateCount ()
+  {
+    return _skeletonUpdateCount.get();
+  }
+
+  /**
+   * Resets the skeleton stats.
+   */
+  public static void resetStats ()
+  {
+    _skeletonTickCount.set(0);
+    _skeletonUpdateCount.set(0);
+  }
+
   /**
    * Creates a new articulated implementation.
    */
@@ -559,6 +593,7 @@ public class Articulated extends Model.Implementation
   @Override
   public void updateBounds ()
   {
+    _skeletonCountdown = 0;
     tick(0f);
   }
 
@@ -664,8 +699,15 @@ public class Articulated extends Model.Implementation
       tracksCompleted |= _playingArray[ii].tick(elapsed);
     }
 
-    // update the local node transforms
-    updateTransforms();
+    // update the local node transforms if called for at the current level of detail;
+    // otherwise, continue interpolating toward the last pose
+    _skeletonTickCount.incrementAndGet();
+    if (shouldUpdateSkeleton() || tracksCompleted) {
+      updateSkeleton();
+      _skeletonUpdateCount.incrementAndGet();
+    } else {
+      interpolateSkeleton();
+    }
 
     // if any tracks have completed, remove them
     if (tracksCompleted) {
@@ -810,6 +852,28 @@ public class Articulated extends Model.Implementation
       _nodesByName.put(node.getConfig().name, node);
     }
 
+    // find the optional nodes and restore full animation detail
+    _optionalNodes.clear();
+    if (_config.animationDetail != null) {
+      for (AnimationDetail.OptionalNode onode : _config.animationDetail.optionalNodes) {
+        Node node = _nodesByName.get(onode.node);
+        if (node == null) {
+          continue;
+        }
+        if (node.getConfig().children.length > 0) {
+          log.warning("Optional animation node is not a leaf.", "node", onode.node);
+          continue;
+        }
+        _optionalNodes.add(node);
+      }
+    }
+    for (Node node : _nodes) {
+      node.skipAnimation = false;
+    }
+    _detailLevel = null;
+    _skeletonCountdown = 0;
+    _interpolatedCount = 0;
+
     // set the node transform updaters
     for (NodeTransform transform : _config.nodeTransforms) {
       Node node = _nodesByName.get(transform.node);
@@ -1018,6 +1082,135 @@ public class Articulated extends Model.Implementation
     }
   }
 
+  /**
+   * Evaluates the skeleton pose.  If the next evaluation is more than one tick away, the nodes
+   * touched by the animations don't take on the new pose immediately; rather, they are
+   * interpolated from their previous transforms toward it over the ticks until the next
+   * evaluation (see {@link #interpolateSkeleton}).
+   */
+  protected void updateSkeleton ()
+  {
+    _interpolatedCount = 0;
+    int steps = _skeletonCountdown;
+    if (steps <= 1) {
+      updateTransforms();
+      return;
+    }
+
+    // note the current transforms, then evaluate the pose through the blending path so that
+    // we can tell which nodes the animations touched
+    if (_poseFrom.length != _nodes.length) {
+      _poseFrom = createTransforms(_nodes.length);
+      _poseTo = createTransforms(_nodes.length);
+      _interpolated = new int[_nodes.length];
+    }
+    for (int ii = 0; ii < _nodes.length; ii++) {
+      _poseFrom[ii].set(_nodes[ii].getLocalTransform());
+    }
+    _update++;
+    for (int ii = 0, nn = _playing.size(); ii < nn; ii++) {
+      _playing.get(ii).blendTransforms(_update);
+    }
+    for (int ii = 0; ii < _nodes.length; ii++) {
+      Node node = _nodes[ii];
+      if (node.lastUpdate == _update) {
+        _poseTo[ii].set(node.getLocalTransform());
+        _interpolated[_interpolatedCount++] = ii;
+      }
+    }
+    _interpolationSteps = steps;
+    _interpolationStep = 0;
+    interpolateSkeleton();
+  }
+
+  /**
+   * Advances the interpolation of the animated nodes toward the last evaluated pose, which
+   * they reach on the tick before the next evaluation.
+   */
+  protected void interpolateSkeleton ()
+  {
+    if (_interpolatedCount == 0) {
+      return;
+    }
+    float t = (float)(++_interpolationStep) / _interpolationSteps;
+    for (int ii = 0; ii < _interpolatedCount; ii++) {
+      int idx = _interpolated[ii];
+      _poseFrom[idx].lerp(_poseTo[idx], t, _nodes[idx].getLocalTransform());
+    }
+    if (_interpolationStep >= _interpolationSteps) {
+      _interpolatedCount = 0;
+    }
+  }
+
+  /**
+   * Creates an array of identity transforms.
+   */
+  protected static Transform3D[] createTransforms (int count)
+  {
+    Transform3D[] transforms = new Transform3D[count];
+    for (int ii = 0; ii < count; ii++) {
+      transforms[ii] = new Transform3D();
+    }
+    return transforms;
+  }
+
+  /**
+   * Determines whether the skeleton should be updated on this tick according to the animation
+   * level of detail.
+   */
+  protected boolean shouldUpdateSkeleton ()
+  {
+    AnimationDetail detail = _config.animationDetail;
+    if (detail == null) {
+      return true;
+    }
+    Camera camera = _ctx.getCompositor().getCamera();
+    float distance = camera.getWorldTransform().extractTranslation(_eye).distance(
+      _nbounds.getCenter(_center));
+
+    // freeze if far enough away and out of view, updating as soon as we come back (we test
+    // against the bounds of the frustum because, unlike the frustum itself, they may safely be
+    // tested from worker threads)
+    if (detail.freezeDistance > 0f && distance >= detail.freezeDistance &&
+        !camera.getWorldVolume().getBounds().intersects(_nbounds)) {
+      _skeletonCountdown = 0;
+      return false;
+    }
+
+    // find the level of detail
+    float measure = distance;
+    if (detail.metric == DetailMetric.PROJECTED_SIZE) {
+      float height = camera.getTop() - camera.getBottom();
+      if (!camera.isOrtho()) {
+        height *= distance / camera.getNear();
+      }
+      measure = _nbounds.getDiagonalLength() / height;
+    }
+    setDetailLevel(detail.getLevel(measure));
+
+    // count down to the next update
+    if (--_skeletonCountdown > 0) {
+      return false;
+    }
+    _skeletonCountdown = (_detailLevel == null) ? 1 : _detailLevel.updateInterval;
+    return true;
+  }
+
+  /**
+   * Sets the animation level of detail, updating the optional nodes as necessary.
+   */
+  protected void setDetailLevel (DetailLevel level)
+  {
+    if (_detailLevel == level) {
+      return;
+    }
+    _detailLevel = level;
+    boolean skip = (level != null && level.skipOptionalNodes);
+    for (int ii = 0, nn = _optionalNodes.size(); ii < nn; ii++) {
+      _optionalNodes.get(ii).skipAnimation = skip;
+    }
+  }
+
   /**
    * Checks for an intersection with the skin mesh.
    */
@@ -1109,6 +1302,33 @@ public class Articulated extends Model.Implementation
   /** The model's tick policy. */
   protected TickPolicy _tickPolicy;
 
+  /** The nodes that may be left unanimated at reduced levels of detail. */
+  protected ArrayList<Node> _optionalNodes = new ArrayList<Node>(0);
+
+  /** The current animation level of detail, or <code>null</code> for full detail. */
+  protected DetailLevel _detailLevel;
+
+  /** The number of ticks remaining until the next skeleton update. */
+  protected int _skeletonCountdown;
+
+  /** The transforms of the nodes before and after the last skeleton evaluation. */
+  protected Transform3D[] _poseFrom = new Transform3D[0], _poseTo = new Transform3D[0];
+
+  /** The indices of the nodes being interpolated toward the last evaluated pose. */
+  protected int[] _interpolated = new int[0];
+
+  /** The number of valid entries in {@link #_interpolated}. */
+  protected int _interpolatedCount;
+
+  /** The current step and total number of steps of the pose interpolation. */
+  protected int _interpolationStep, _interpolationSteps;
+
+  /** Holds the camera position. */
+  protected Vector3f _eye = new Vector3f();
+
+  /** Holds the center of the bounds. */
+  protected Vector3f _center = new Vector3f();
+
   /** User attachments (their parent scopes are the nodes to which they're attached). */
   protected ArrayList<Model> _userAttachments = new ArrayList<Model>(0);
 
@@ -1127,4 +1347,10 @@ public class Articulated extends Model.Implementation
 
   /** If true, the model has completed. */
   protected boolean _completed;
+
+  /** The number of articulated model ticks since the stats were last reset. */
+  protected static AtomicInteger _skeletonTickCount = new AtomicInteger();
+
+  /** The number of skeleton updates since the stats were last reset. */
+  protected static AtomicInteger _skeletonUpdateCount = new AtomicInteger();
 }
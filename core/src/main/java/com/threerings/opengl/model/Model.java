@@ -603,6 +603,16 @@ public class Model extends DynamicScope
     return _visible;
   }
 
+  /**
+   * Sets whether the model may be ticked on a worker thread when its scene ticks concurrently.
+   * This should only be enabled for models whose ticks don't touch shared state (for instance,
+   * by executing frame actions, running scripts, or spawning transients).
+   */
+  public void setTickThreadSafe (boolean safe)
+  {
+    _tickThreadSafe = safe;
+  }
+
   /**
    * Check if we're 'showing' - us visible && parents showing.
    */
@@ -961,6 +971,13 @@ public class Model extends DynamicScope
     return _impl.getTickPolicy();
   }
 
+  // documentation inherited from interface SceneElement
+  public boolean isTickThreadSafe ()
+  {
+    // observers may modify the scene, so models with observers are always ticked serially
+    return _tickThreadSafe && _observers == null;
+  }
+
   // documentation inherited from interface SceneElement
   public Object getUserObject ()
   {
@@ -1025,6 +1042,7 @@ public class Model extends DynamicScope
       null : _influences.getDefinitions(_definitions);
     if (_definitions != definitions) {
       _definitions = definitions;
+      symbolsChanged();
       updated = true;
     }
 
@@ -1088,10 +1106,16 @@ public class Model extends DynamicScope
   }
 
   @Override
-  public void wasUpdated ()
+  public boolean containsSymbol (String name)
   {
-    super.wasUpdated();
-    if (_impl != null && _compoundDepth == 0) {
+    return super.containsSymbol(name) || (_definitions != null && _definitions.containsKey(name));
+  }
+
+  @Override
+  protected void notifyUpdated ()
+  {
+    super.notifyUpdated();
+    if (_impl != null) {
       updateFromConfig();
     }
   }
@@ -1315,6 +1339,9 @@ public class Model extends DynamicScope
   /** Visibility flag. */
   protected boolean _visible = true;
 
+  /** Whether the model may be ticked concurrently with other elements. */
+  protected boolean _tickThreadSafe;
+
   /** The model's color state. */
   @Scoped
   protected ColorState _colorState;
@@ -134,6 +134,18 @@ public class AnimationConfig extends ParameterizedConfig
    */
   public static class Imported extends Original
   {
+    /**
+     * Sets whether to discard the uncompressed frames of imported animations without modifiers
+     * once their tracks have been created.  This saves a considerable amount of memory, but is
+     * disabled by default: the tracks are quantized, so the frames cannot be recovered from them
+     * by tools that edit or export animation configs, nor by derived or parameterized copies
+     * that add modifiers after the frames have been discarded (such copies will fail to play).
+     */
+    public static void setDiscardFrames (boolean discard)
+    {
+      _discardFrames = discard;
+    }
+
     /** Messages to display after import. Editor only! */
     @Editable(constant=true, depends="source", weight=-1, tip="~Important import messages!")
     @DeepOmit
@@ -228,8 +240,38 @@ public class AnimationConfig extends ParameterizedConfig
     @Editable
     public float getDuration ()
     {
-      return transition +
-        (transforms == null ? 0f : (transforms.length - 1) / getScaledRate());
+      int count = getFrameCount();
+      return transition + (count == 0 ? 0f : (count - 1) / getScaledRate());
+    }
+
+    /**
+     * Returns the number of frames in the animation.
+     */
+    public int getFrameCount ()
+    {
+      // read the frames before the track, as the track is always set before they're discarded
+      Transform3D[][] frames = transforms;
+      if (frames != null) {
+        return frames.length;
+      }
+      AnimationTrack track = _track;
+      return (track == null) ? 0 : track.getFrameCount();
+    }
+
+    /**
+     * Returns the compressed track containing the animation frames, creating it if necessary.
+     *
+     * @return the track, or <code>null</code> if the frames cannot be compressed.
+     */
+    public synchronized AnimationTrack getTrack ()
+    {
+      if (_track == null && transforms != null) {
+        _track = AnimationTrack.create(transforms);
+        if (_track != null && _discardFrames && modifiers.length == 0) {
+          transforms = null;
+        }
+      }
+      return _track;
     }
 
     /**
@@ -278,6 +320,10 @@ public class AnimationConfig extends ParameterizedConfig
       if (targets == null) {
         return null;
       }
+      if (transforms == null && modifiers.length > 0) {
+        log.warning("Can't apply modifiers to discarded animation frames.", "source", _source);
+        return null;
+      }
       if (impl instanceof Animation.Imported) {
         ((Animation.Imported)impl).setConfig(this);
       } else {
@@ -286,6 +332,23 @@ public class AnimationConfig extends ParameterizedConfig
       return impl;
     }
 
+    @Override
+    public synchronized void invalidate ()
+    {
+      // if we've discarded the frames, the track is all we have left
+      if (transforms != null) {
+        _track = null;
+      }
+    }
+
+    @Override
+    public Object copy (Object dest, Object outer)
+    {
+      Imported result = (Imported)super.copy(dest, outer);
+      result._track = (result.transforms == transforms) ? _track : null;
+      return result;
+    }
+
     @Override
     public void preload (GlContext ctx)
     {
@@ -330,6 +393,7 @@ public class AnimationConfig extends ParameterizedConfig
       } else {
         def.update(this);
       }
+      _track = null;
     }
 
     /** The resource from which we read the animation data. */
@@ -338,6 +402,13 @@ public class AnimationConfig extends ParameterizedConfig
     /** Indicates that {@link #updateFromSource} should reload the data. */
     @DeepOmit
     protected transient boolean _reload;
+
+    /** The compressed track, shared between copies with the same frames. */
+    @DeepOmit
+    protected transient volatile AnimationTrack _track;
+
+    /** Whether to discard the uncompressed frames after creating the track. */
+    protected static boolean _discardFrames;
   }
 
   /**
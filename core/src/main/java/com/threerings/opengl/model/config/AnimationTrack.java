@@ -0,0 +1,463 @@
+//
+// $Id$
+//
+// Clyde library - tools for developing networked games
+// Copyright (C) 2005-2012 Three Rings Design, Inc.
+// http://code.google.com/p/clyde/
+//
+// Redistribution and use in source and binary forms, with or without modification, are permitted
+// provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this list of
+//    conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+//    conditions and the following disclaimer in the documentation and/or other materials provided
+//    with the distribution.
+//
+// THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR IMPLIED WARRANTIES,
+// INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+// PARTICULAR PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT,
+// INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+// TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+// LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package com.threerings.opengl.model.config;
+
+import java.util.Arrays;
+
+import com.threerings.math.FloatMath;
+import com.threerings.math.Quaternion;
+import com.threerings.math.Transform3D;
+import com.threerings.math.Vector3f;
+
+/**
+ * A compact, immutable representation of the frames of an imported animation, shared by all
+ * animations created from the same config.  Each target's transforms are reduced to the
+ * keyframes required to reproduce the original frames by interpolation (to within a small
+ * tolerance), and the rotations, translations, and scales of the keyframes are quantized to
+ * sixteen bits per component.
+ */
+public class AnimationTrack
+{
+  /**
+   * Creates a track from the supplied frames.
+   *
+   * @return the new track, or <code>null</code> if the frames cannot be represented (because
+   * they contain non-uniform scales or are too numerous).
+   */
+  public static AnimationTrack create (Transform3D[][] transforms)
+  {
+    int nframes = transforms.length;
+    if (nframes == 0 || nframes > Short.MAX_VALUE) {
+      return null;
+    }
+    int ntargets = transforms[0].length;
+    AnimationTrack track = new AnimationTrack(nframes, ntargets);
+
+    // extract the components of each target's transforms and add its keys
+    float[] values = new float[nframes * COMPONENTS];
+    short[] quantized = new short[nframes * COMPONENTS];
+    short[] keys = new short[nframes];
+    int nkeys = 0;
+    for (int ii = 0; ii < ntargets; ii++) {
+      int type = Transform3D.IDENTITY;
+      for (int jj = 0; jj < nframes; jj++) {
+        Transform3D transform = transforms[jj][ii];
+        type = Math.max(type, transform.getType());
+        if (type > Transform3D.UNIFORM) {
+          return null;
+        }
+        getComponents(transform, values, jj * COMPONENTS);
+      }
+      track._types[ii] = (byte)type;
+      track.quantize(ii, values, quantized);
+      int count = selectKeys(track, ii, values, quantized, keys);
+      track.addKeys(ii, nkeys, quantized, keys, count);
+      nkeys += count;
+    }
+    track.trimKeys(nkeys);
+    return track;
+  }
+
+  /**
+   * Returns the number of frames in the track.
+   */
+  public int getFrameCount ()
+  {
+    return _frameCount;
+  }
+
+  /**
+   * Returns the number of targets in the track.
+   */
+  public int getTargetCount ()
+  {
+    return _types.length;
+  }
+
+  /**
+   * Returns the total number of keyframes stored for all targets.
+   */
+  public int getKeyCount ()
+  {
+    return _keyFrames.length;
+  }
+
+  /**
+   * Returns the approximate number of bytes occupied by the track's data.
+   */
+  public int getSize ()
+  {
+    return 2*(_keyFrames.length + _rotations.length + _translations.length + _scales.length) +
+      4*(_keyOffsets.length + _ranges.length) + _types.length;
+  }
+
+  /**
+   * Samples the transform of a target.
+   *
+   * @param frame the index of the frame.
+   * @param t the interpolation parameter between the frame and the next one (wrapping around to
+   * the first frame after the last).
+   * @param result the transform in which to store the result.
+   * @return a reference to the result transform, for chaining.
+   */
+  public Transform3D sample (int target, int frame, float t, Transform3D result)
+  {
+    int type = _types[target];
+    if (type == Transform3D.IDENTITY) {
+      return result.setToIdentity();
+    }
+    int start = _keyOffsets[target], end = _keyOffsets[target + 1];
+    int k0, k1;
+    float u;
+    if (frame >= _frameCount - 1) {
+      // between the last frame and the first
+      k0 = end - 1;
+      k1 = start;
+      u = t;
+    } else {
+      // find the last key at or before the frame
+      int idx = Arrays.binarySearch(_keyFrames, start, end, (short)frame);
+      k0 = (idx >= 0) ? idx : (-idx - 2);
+      k1 = k0 + 1;
+      int f0 = _keyFrames[k0];
+      u = (frame + t - f0) / (_keyFrames[k1] - f0);
+    }
+    return interpolate(target, type, k0, k1, u, result);
+  }
+
+  /**
+   * Creates a new track with space for one key per frame.
+   */
+  protected AnimationTrack (int frameCount, int targetCount)
+  {
+    _frameCount = frameCount;
+    _types = new byte[targetCount];
+    _ranges = new float[targetCount * COMPONENTS * 2];
+    _keyOffsets = new int[targetCount + 1];
+    // allocate two extra keys to use as scratch space while selecting keys
+    int maxKeys = frameCount * targetCount + 2;
+    _keyFrames = new short[maxKeys];
+    _rotations = new short[maxKeys * 4];
+    _translations = new short[maxKeys * 3];
+    _scales = new short[maxKeys];
+  }
+
+  /**
+   * Computes the ranges of the specified target's components and quantizes its values.
+   */
+  protected void quantize (int target, float[] values, short[] quantized)
+  {
+    int roff = target * COMPONENTS * 2;
+    for (int cc = 0; cc < COMPONENTS; cc++) {
+      if (cc >= ROTATION && cc < ROTATION + 4) {
+        // rotation components are always quantized over [-1, +1]
+        for (int idx = cc; idx < values.length; idx += COMPONENTS) {
+          quantized[idx] = (short)Math.round(values[idx] * Short.MAX_VALUE);
+        }
+        continue;
+      }
+      float min = Float.MAX_VALUE, max = -Float.MAX_VALUE;
+      for (int idx = cc; idx < values.length; idx += COMPONENTS) {
+        min = Math.min(min, values[idx]);
+        max = Math.max(max, values[idx]);
+      }
+      float step = (max - min) / 65535f;
+      _ranges[roff + cc*2] = min;
+      _ranges[roff + cc*2 + 1] = step;
+      for (int idx = cc; idx < values.length; idx += COMPONENTS) {
+        int level = (step == 0f) ? 0 : Math.round((values[idx] - min) / step);
+        quantized[idx] = (short)(Math.min(level, 65535) + Short.MIN_VALUE);
+      }
+    }
+  }
+
+  /**
+   * Copies the quantized values of the selected keys into the track's arrays.
+   */
+  protected void addKeys (int target, int offset, short[] quantized, short[] keys, int count)
+  {
+    _keyOffsets[target] = offset;
+    _keyOffsets[target + 1] = offset + count;
+    for (int ii = 0; ii < count; ii++) {
+      setKey(offset + ii, quantized, keys[ii]);
+    }
+  }
+
+  /**
+   * Copies the quantized values of a frame into the specified key.
+   */
+  protected void setKey (int kidx, short[] quantized, short frame)
+  {
+    int qidx = frame * COMPONENTS;
+    _keyFrames[kidx] = frame;
+    System.arraycopy(quantized, qidx + ROTATION, _rotations, kidx * 4, 4);
+    System.arraycopy(quantized, qidx + TRANSLATION, _translations, kidx * 3, 3);
+    _scales[kidx] = quantized[qidx + SCALE];
+  }
+
+  /**
+   * Shrinks the key arrays to the number of keys actually used.
+   */
+  protected void trimKeys (int count)
+  {
+    _keyFrames = Arrays.copyOf(_keyFrames, count);
+    _rotations = Arrays.copyOf(_rotations, count * 4);
+    _translations = Arrays.copyOf(_translations, count * 3);
+    _scales = Arrays.copyOf(_scales, count);
+  }
+
+  /**
+   * Interpolates between two of a target's keys.
+   */
+  protected Transform3D interpolate (
+    int target, int type, int k0, int k1, float u, Transform3D result)
+  {
+    result.setType(type);
+    int roff = target * COMPONENTS * 2;
+
+    // lerp the translation
+    Vector3f translation = result.getTranslation();
+    int t0 = k0 * 3, t1 = k1 * 3;
+    translation.set(
+      lerp(roff, TRANSLATION, _translations[t0], _translations[t1], u),
+      lerp(roff, TRANSLATION + 1, _translations[t0 + 1], _translations[t1 + 1], u),
+      lerp(roff, TRANSLATION + 2, _translations[t0 + 2], _translations[t1 + 2], u));
+
+    // slerp the rotation
+    int r0 = k0 * 4, r1 = k1 * 4;
+    slerp(_rotations[r0], _rotations[r0 + 1], _rotations[r0 + 2], _rotations[r0 + 3],
+      _rotations[r1], _rotations[r1 + 1], _rotations[r1 + 2], _rotations[r1 + 3], u,
+      result.getRotation());
+
+    // and the scale
+    result.setScale(type == Transform3D.UNIFORM ?
+      lerp(roff, SCALE, _scales[k0], _scales[k1], u) : 1f);
+    return result;
+  }
+
+  /**
+   * Dequantizes and interpolates between two values of a component.
+   */
+  protected float lerp (int roff, int component, short q0, short q1, float u)
+  {
+    float min = _ranges[roff + component*2], step = _ranges[roff + component*2 + 1];
+    float v0 = min + (q0 - Short.MIN_VALUE) * step;
+    float v1 = min + (q1 - Short.MIN_VALUE) * step;
+    return v0 + u*(v1 - v0);
+  }
+
+  /**
+   * Selects the keys required to reproduce the specified target's frames.
+   *
+   * @return the number of keys selected.
+   */
+  protected static int selectKeys (
+    AnimationTrack track, int target, float[] values, short[] quantized, short[] keys)
+  {
+    // identity targets need only their endpoints
+    int nframes = values.length / COMPONENTS;
+    if (track._types[target] == Transform3D.IDENTITY) {
+      keys[0] = 0;
+      keys[1] = (short)(nframes - 1);
+      return (nframes == 1) ? 1 : 2;
+    }
+
+    // find the tolerances for the target
+    float tmax = 0f, smax = 0f;
+    for (int ii = 0; ii < nframes; ii++) {
+      int idx = ii * COMPONENTS;
+      for (int cc = 0; cc < 3; cc++) {
+        tmax = Math.max(tmax, Math.abs(values[idx + TRANSLATION + cc]));
+      }
+      smax = Math.max(smax, Math.abs(values[idx + SCALE]));
+    }
+    float ttol = Math.max(tmax * TRANSLATION_TOLERANCE, FloatMath.EPSILON);
+    float stol = Math.max(smax * SCALE_TOLERANCE, FloatMath.EPSILON);
+
+    // greedily extend each span until some frame within it can no longer be interpolated
+    // from its endpoints
+    Transform3D result = new Transform3D();
+    int count = 0;
+    keys[count++] = 0;
+    for (int start = 0, end = 1; end < nframes; ) {
+      int next = end + 1;
+      if (next < nframes && next - start <= MAX_KEY_SPAN &&
+          canInterpolate(track, target, values, quantized, start, next, ttol, stol, result)) {
+        end = next;
+      } else {
+        keys[count++] = (short)end;
+        start = end;
+        end = start + 1;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Determines whether all of the frames between the specified start and end frames can be
+   * interpolated from the quantized values of those frames.
+   */
+  protected static boolean canInterpolate (
+    AnimationTrack track, int target, float[] values, short[] quantized, int start, int end,
+    float ttol, float stol, Transform3D result)
+  {
+    // copy the endpoints into the scratch keys at the end of the arrays
+    int k0 = track._scales.length - 2, k1 = k0 + 1;
+    track.setKey(k0, quantized, (short)start);
+    track.setKey(k1, quantized, (short)end);
+    int type = track._types[target];
+    for (int ii = start + 1; ii < end; ii++) {
+      track.interpolate(target, type, k0, k1, (ii - start) / (float)(end - start), result);
+      int idx = ii * COMPONENTS;
+      Vector3f translation = result.getTranslation();
+      Quaternion rotation = result.getRotation();
+      float sign = (rotation.x*values[idx + ROTATION] + rotation.y*values[idx + ROTATION + 1] +
+        rotation.z*values[idx + ROTATION + 2] + rotation.w*values[idx + ROTATION + 3]) < 0f ?
+          -1f : +1f;
+      if (Math.abs(translation.x - values[idx + TRANSLATION]) > ttol ||
+          Math.abs(translation.y - values[idx + TRANSLATION + 1]) > ttol ||
+          Math.abs(translation.z - values[idx + TRANSLATION + 2]) > ttol ||
+          Math.abs(sign*rotation.x - values[idx + ROTATION]) > ROTATION_TOLERANCE ||
+          Math.abs(sign*rotation.y - values[idx + ROTATION + 1]) > ROTATION_TOLERANCE ||
+          Math.abs(sign*rotation.z - values[idx + ROTATION + 2]) > ROTATION_TOLERANCE ||
+          Math.abs(sign*rotation.w - values[idx + ROTATION + 3]) > ROTATION_TOLERANCE ||
+          (type == Transform3D.UNIFORM &&
+            Math.abs(result.getScale() - values[idx + SCALE]) > stol)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Extracts the translation, rotation, and scale of a transform into the supplied array.
+   */
+  protected static void getComponents (Transform3D transform, float[] values, int idx)
+  {
+    int type = transform.getType();
+    if (type == Transform3D.IDENTITY) {
+      values[idx + TRANSLATION] = values[idx + TRANSLATION + 1] =
+        values[idx + TRANSLATION + 2] = 0f;
+      values[idx + ROTATION] = values[idx + ROTATION + 1] = values[idx + ROTATION + 2] = 0f;
+      values[idx + ROTATION + 3] = values[idx + SCALE] = 1f;
+      return;
+    }
+    Vector3f translation = transform.getTranslation();
+    values[idx + TRANSLATION] = translation.x;
+    values[idx + TRANSLATION + 1] = translation.y;
+    values[idx + TRANSLATION + 2] = translation.z;
+    Quaternion rotation = transform.getRotation();
+    float rlen = FloatMath.sqrt(rotation.x*rotation.x + rotation.y*rotation.y +
+      rotation.z*rotation.z + rotation.w*rotation.w);
+    float rscale = (rlen == 0f) ? 0f : 1f / rlen;
+    values[idx + ROTATION] = rotation.x * rscale;
+    values[idx + ROTATION + 1] = rotation.y * rscale;
+    values[idx + ROTATION + 2] = rotation.z * rscale;
+    values[idx + ROTATION + 3] = (rlen == 0f) ? 1f : rotation.w * rscale;
+    values[idx + SCALE] = (type == Transform3D.UNIFORM) ? transform.getScale() : 1f;
+  }
+
+  /**
+   * Performs a spherical linear interpolation between two quantized quaternions, normalizing
+   * the result (as in {@link Quaternion#slerp(Quaternion, float, Quaternion)}).
+   */
+  protected static void slerp (
+    short qx0, short qy0, short qz0, short qw0, short qx1, short qy1, short qz1, short qw1,
+    float t, Quaternion result)
+  {
+    float scale = 1f / Short.MAX_VALUE;
+    float x = qx0 * scale, y = qy0 * scale, z = qz0 * scale, w = qw0 * scale;
+    float ox = qx1 * scale, oy = qy1 * scale, oz = qz1 * scale, ow = qw1 * scale;
+    float cosa = x*ox + y*oy + z*oz + w*ow;
+
+    // adjust signs if necessary
+    if (cosa < 0f) {
+      cosa = -cosa;
+      ox = -ox;
+      oy = -oy;
+      oz = -oz;
+      ow = -ow;
+    }
+
+    // calculate coefficients; if the angle is too close to zero, we must fall back
+    // to linear interpolation
+    float s0, s1;
+    if ((1f - cosa) > FloatMath.EPSILON) {
+      float angle = FloatMath.acos(Math.min(cosa, 1f)), sina = FloatMath.sin(angle);
+      s0 = FloatMath.sin((1f - t) * angle) / sina;
+      s1 = FloatMath.sin(t * angle) / sina;
+    } else {
+      s0 = 1f - t;
+      s1 = t;
+    }
+    float rx = s0*x + s1*ox, ry = s0*y + s1*oy, rz = s0*z + s1*oz, rw = s0*w + s1*ow;
+    float rscale = 1f / FloatMath.sqrt(rx*rx + ry*ry + rz*rz + rw*rw);
+    result.set(rx * rscale, ry * rscale, rz * rscale, rw * rscale);
+  }
+
+  /** The number of frames in the track. */
+  protected int _frameCount;
+
+  /** The type of each target's transforms. */
+  protected byte[] _types;
+
+  /** For each target and component (other than the rotation components), the minimum value
+   * and quantization step. */
+  protected float[] _ranges;
+
+  /** The offset of each target's first key (and, in the last element, the number of keys). */
+  protected int[] _keyOffsets;
+
+  /** The frame index of each key. */
+  protected short[] _keyFrames;
+
+  /** The quantized rotation of each key. */
+  protected short[] _rotations;
+
+  /** The quantized translation of each key. */
+  protected short[] _translations;
+
+  /** The quantized scale of each key. */
+  protected short[] _scales;
+
+  /** The offsets of the components within the extracted values. */
+  protected static final int TRANSLATION = 0, ROTATION = 3, SCALE = 7;
+
+  /** The number of components per transform. */
+  protected static final int COMPONENTS = 8;
+
+  /** The maximum number of frames between keys. */
+  protected static final int MAX_KEY_SPAN = 256;
+
+  /** The maximum translation error, relative to the target's largest translation. */
+  protected static final float TRANSLATION_TOLERANCE = 0.0001f;
+
+  /** The maximum error in each component of the (normalized) rotation. */
+  protected static final float ROTATION_TOLERANCE = 0.001f;
+
+  /** The maximum scale error, relative to the target's largest scale. */
+  protected static final float SCALE_TOLERANCE = 0.0001f;
+}
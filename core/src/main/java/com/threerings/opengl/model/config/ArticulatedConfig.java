@@ -77,6 +77,9 @@ public class ArticulatedConfig extends ModelConfig.Imported
   /** The options for billboard rotation about the y axis. */
   public enum BillboardRotationY { ALIGN_TO_VIEW, FACE_VIEWER };
 
+  /** The measures by which animation detail levels may be selected. */
+  public enum DetailMetric { DISTANCE, PROJECTED_SIZE };
+
   /**
    * A node within an {@link Articulated} model.
    */
@@ -416,6 +419,89 @@ public class ArticulatedConfig extends ModelConfig.Imported
     }
   }
 
+  /**
+   * Controls how often the skeleton is updated according to the model's distance from the
+   * camera or size on screen.
+   */
+  public class AnimationDetail extends DeepObject
+    implements Exportable
+  {
+    /** The measure used to select the level of detail. */
+    @Editable(hgroup="m")
+    public DetailMetric metric = DetailMetric.DISTANCE;
+
+    /** The distance beyond which the skeleton is frozen when out of view (zero for never). */
+    @Editable(min=0, step=0.01, hgroup="m")
+    public float freezeDistance;
+
+    /** The levels of detail, in order of decreasing detail. */
+    @Editable
+    public DetailLevel[] levels = new DetailLevel[0];
+
+    /** The leaf nodes that may be left unanimated at reduced levels of detail. */
+    @Editable(depends={"source"})
+    public OptionalNode[] optionalNodes = new OptionalNode[0];
+
+    /**
+     * Returns the level applicable to the supplied measure (the distance from the camera or the
+     * fraction of the view height covered by the model, depending on the metric), or
+     * <code>null</code> for full detail.
+     */
+    public DetailLevel getLevel (float measure)
+    {
+      DetailLevel result = null;
+      for (DetailLevel level : levels) {
+        if (metric == DetailMetric.DISTANCE ?
+            measure >= level.threshold : measure <= level.threshold) {
+          result = level;
+        }
+      }
+      return result;
+    }
+
+    /**
+     * Identifies a leaf node that may be left unanimated at reduced levels of detail.
+     */
+    public class OptionalNode extends DeepObject
+      implements Exportable
+    {
+      /** The name of the node. */
+      @Editable(editor="choice")
+      public String node;
+
+      /**
+       * Returns the options available for the node field.
+       */
+      @Keep
+      public String[] getNodeOptions ()
+      {
+        return getNodeNames();
+      }
+    }
+  }
+
+  /**
+   * A single animation level of detail.
+   */
+  public static class DetailLevel extends DeepObject
+    implements Exportable
+  {
+    /** The distance at or beyond which (or the projected size at or below which) the level
+     * applies. */
+    @Editable(min=0, step=0.01, hgroup="t")
+    public float threshold;
+
+    /** The number of ticks between skeleton updates.  Between updates, the animated nodes are
+     * interpolated toward the last evaluated pose, so they trail the animations by up to this
+     * many ticks. */
+    @Editable(min=1, hgroup="t")
+    public int updateInterval = 1;
+
+    /** Whether or not to leave the optional nodes unanimated. */
+    @Editable(hgroup="t")
+    public boolean skipOptionalNodes;
+  }
+
   /** The model's tick policy. */
   @Editable(hgroup="t")
   public TickPolicy tickPolicy = TickPolicy.DEFAULT;
@@ -424,6 +510,10 @@ public class ArticulatedConfig extends ModelConfig.Imported
   @Editable(hgroup="t")
   public boolean completable;
 
+  /** The animation level of detail settings, if any. */
+  @Editable(nullable=true)
+  public AnimationDetail animationDetail;
+
   /** The model's animation mappings. */
   @Editable
   public AnimationMapping[] animationMappings = new AnimationMapping[0];
@@ -116,9 +116,11 @@ public class MergedStaticConfig extends ModelConfig.Implementation
   }
 
   /**
-   * (Re)resolves the data.
+   * Prepares to merge the component models, resolving their configs and materials on the
+   * calling thread.  The returned merge may then be run on any thread, after which its result
+   * may be installed with {@link #setResolved}.
    */
-  protected Resolved resolve (GlContext ctx)
+  public Merge prepareMerge (GlContext ctx)
   {
     // process the component models, mapping geometry by material
     ConfigManager cfgmgr = ctx.getConfigManager();
@@ -152,6 +154,7 @@ public class MergedStaticConfig extends ModelConfig.Implementation
         cmeshes.add(new TransformedCollision(mset.collision, cmodel.transform));
       }
       ModelConfig.Imported imported = (ModelConfig.Imported)original;
+      Transform3D transform = new Transform3D(cmodel.transform); // owned by the merge
       for (VisibleMesh mesh : mset.visible) {
         MaterialConfig material = Model.getMaterialConfig(
           ctx, mesh.texture, mesh.tag, imported.materialMappings, mmap);
@@ -159,27 +162,12 @@ public class MergedStaticConfig extends ModelConfig.Implementation
         if (glist == null) {
           glists.put(material, glist = Lists.newArrayList());
         }
-        glist.add(new TransformedGeometry(mesh.geometry, cmodel.transform));
+        glist.add(new TransformedGeometry(mesh.geometry, transform));
       }
       mmap.clear();
       influenceFlags |= imported.influences.getFlags();
     }
 
-    // merge geometry of the same material
-    List<GeometryMaterial> gmats = Lists.newArrayList();
-    for (Map.Entry<MaterialConfig, List<TransformedGeometry>> entry : glists.entrySet()) {
-      MaterialConfig material = entry.getKey();
-      List<TransformedGeometry> glist = entry.getValue();
-      while (!glist.isEmpty()) {
-        GeometryConfig merged = glist.get(0).geometry.merge(glist);
-        if (merged != null) {
-          gmats.add(new GeometryMaterial(merged, material));
-        } else {
-          glist.remove(0);
-        }
-      }
-    }
-
     // create the combined collision mesh
     final TransformedCollision[] tcollisions = cmeshes.toArray(
       new TransformedCollision[cmeshes.size()]);
@@ -202,8 +190,91 @@ public class MergedStaticConfig extends ModelConfig.Implementation
         return (result != closest);
       }
     };
-    return new Resolved(bounds, collision,
-      gmats.toArray(new GeometryMaterial[gmats.size()]), influenceFlags);
+    return new Merge(bounds, collision, glists, influenceFlags);
+  }
+
+  /**
+   * Installs the result of a merge, which will be used by the next model implementation
+   * retrieved from this config (unless the config is invalidated in the meantime).
+   */
+  public void setResolved (Resolved resolved)
+  {
+    _resolved = new SoftReference<Resolved>(resolved);
+  }
+
+  /**
+   * The geometry merging portion of the resolution process, which may be run on any thread.
+   */
+  public static class Merge
+    implements Runnable
+  {
+    /**
+     * Creates a new merge.
+     */
+    public Merge (
+      Box bounds, CollisionMesh collision,
+      Map<MaterialConfig, List<TransformedGeometry>> glists, int influenceFlags)
+    {
+      _bounds = bounds;
+      _collision = collision;
+      _glists = glists;
+      _influenceFlags = influenceFlags;
+    }
+
+    /**
+     * Returns the result of the merge, or <code>null</code> if it has not yet been run.
+     */
+    public Resolved getResolved ()
+    {
+      return _resolved;
+    }
+
+    // documentation inherited from interface Runnable
+    public void run ()
+    {
+      // merge geometry of the same material
+      List<GeometryMaterial> gmats = Lists.newArrayList();
+      for (Map.Entry<MaterialConfig, List<TransformedGeometry>> entry : _glists.entrySet()) {
+        MaterialConfig material = entry.getKey();
+        List<TransformedGeometry> glist = entry.getValue();
+        while (!glist.isEmpty()) {
+          GeometryConfig merged = glist.get(0).geometry.merge(glist);
+          if (merged != null) {
+            gmats.add(new GeometryMaterial(merged, material));
+          } else {
+            glist.remove(0);
+          }
+        }
+      }
+      _resolved = new Resolved(_bounds, _collision,
+        gmats.toArray(new GeometryMaterial[gmats.size()]), _influenceFlags);
+      _glists = null;
+    }
+
+    /** The merged bounds. */
+    protected Box _bounds;
+
+    /** The merged collision mesh. */
+    protected CollisionMesh _collision;
+
+    /** The component geometry mapped by material. */
+    protected Map<MaterialConfig, List<TransformedGeometry>> _glists;
+
+    /** The merged influence flags. */
+    protected int _influenceFlags;
+
+    /** The result of the merge. */
+    protected volatile Resolved _resolved;
+  }
+
+  /**
+   * (Re)resolves the data.
+   */
+  protected Resolved resolve (GlContext ctx)
+  {
+    Merge merge = prepareMerge(ctx);
+    merge.run();
+    return merge.getResolved();
   }
 
   /**
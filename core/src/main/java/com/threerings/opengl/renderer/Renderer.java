@@ -318,6 +318,14 @@ public class Renderer
     return _textureChangeCount;
   }
 
+  /**
+   * Returns the number of render states applied since the last call to {@link #resetStats}.
+   */
+  public int getStateChangeCount ()
+  {
+    return _stateChangeCount;
+  }
+
   /**
    * Returns the number of batches rendered since the last call to {@link #resetStats}.
    */
@@ -340,6 +348,7 @@ public class Renderer
   public void resetStats ()
   {
     _textureChangeCount = 0;
+    _stateChangeCount = 0;
     _batchCount = 0;
     _primitiveCount = 0;
   }
@@ -720,6 +729,7 @@ public class Renderer
         state.apply(this);
         state.setDirty(false);
         _states[ii] = state;
+        _stateChangeCount++;
       }
     }
   }
@@ -734,6 +744,7 @@ public class Renderer
       state.apply(this);
       state.setDirty(false);
       _states[type] = state;
+      _stateChangeCount++;
     }
   }
 
@@ -1898,6 +1909,33 @@ public class Renderer
     _batchCount += size;
   }
 
+  /**
+   * Counts the render states that would be applied in rendering the provided list of batches
+   * from the default state (ignoring dirty states and batches other than {@link SimpleBatch}es).
+   * Unlike {@link #getStateChangeCount}, this requires no GL context, so it can be used to
+   * measure the effect of batch ordering headlessly.
+   */
+  public static int countStateChanges (List<Batch> batches)
+  {
+    RenderState[] current = RenderState.createDefaultSet();
+    int count = 0;
+    for (int ii = 0, nn = batches.size(); ii < nn; ii++) {
+      Batch batch = batches.get(ii);
+      if (!(batch instanceof SimpleBatch)) {
+        continue;
+      }
+      RenderState[] states = ((SimpleBatch)batch).getStates();
+      for (int jj = 0; jj < RenderState.STATE_COUNT; jj++) {
+        RenderState state = states[jj];
+        if (state != null && current[jj] != state) {
+          current[jj] = state;
+          count++;
+        }
+      }
+    }
+    return count;
+  }
+
   /**
    * Sets one of the vertex attribute arrays to the one supplied.
    */
@@ -2724,6 +2762,9 @@ public class Renderer
   /** The number of texture changes in the current frame. */
   protected int _textureChangeCount;
 
+  /** The number of render states applied in the current frame. */
+  protected int _stateChangeCount;
+
   /** The number of batches rendered in the current frame. */
   protected int _batchCount;
 
@@ -26,6 +26,7 @@
 package com.threerings.opengl.scene;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
@@ -210,43 +211,55 @@ public class HashScene extends Scene
   @Override
   public void boundsWillChange (SceneElement element)
   {
-    super.boundsWillChange(element);
-    removeFromSpatial(element);
+    if (!deferBoundsChange(element)) {
+      super.boundsWillChange(element);
+      removeFromSpatial(element);
+    }
   }
 
   @Override
   public void boundsDidChange (SceneElement element)
   {
-    super.boundsDidChange(element);
-    addToSpatial(element);
+    if (!_tickingConcurrently) {
+      super.boundsDidChange(element);
+      addToSpatial(element);
+    }
   }
 
   @Override
   public void boundsWillChange (SceneInfluence influence)
   {
-    super.boundsWillChange(influence);
-    removeFromSpatial(influence);
+    if (!deferBoundsChange(influence)) {
+      super.boundsWillChange(influence);
+      removeFromSpatial(influence);
+    }
   }
 
   @Override
   public void boundsDidChange (SceneInfluence influence)
   {
-    super.boundsDidChange(influence);
-    addToSpatial(influence);
+    if (!_tickingConcurrently) {
+      super.boundsDidChange(influence);
+      addToSpatial(influence);
+    }
   }
 
   @Override
   public void boundsWillChange (ViewerEffect effect)
   {
-    super.boundsWillChange(effect);
-    removeFromSpatial(effect);
+    if (!deferBoundsChange(effect)) {
+      super.boundsWillChange(effect);
+      removeFromSpatial(effect);
+    }
   }
 
   @Override
   public void boundsDidChange (ViewerEffect effect)
   {
-    super.boundsDidChange(effect);
-    addToSpatial(effect);
+    if (!_tickingConcurrently) {
+      super.boundsDidChange(effect);
+      addToSpatial(effect);
+    }
   }
 
   @Override
@@ -285,6 +298,20 @@ public class HashScene extends Scene
     remove(_effects, _oversizedEffects, effect);
   }
 
+  @Override
+  protected void boundsChanged (SceneObject object, Box obounds)
+  {
+    // remove using the old bounds; the superclass will add using the new
+    if (object instanceof SceneElement) {
+      remove(_elements, _oversizedElements, (SceneElement)object, obounds);
+    } else if (object instanceof SceneInfluence) {
+      remove(_influences, _oversizedInfluences, (SceneInfluence)object, obounds);
+    } else if (object instanceof ViewerEffect) {
+      remove(_effects, _oversizedEffects, (ViewerEffect)object, obounds);
+    }
+    super.boundsChanged(object, obounds);
+  }
+
   /**
    * Adds the specified object to the provided map.
    */
@@ -325,7 +352,16 @@ public class HashScene extends Scene
   protected <T extends SceneObject> void remove (
     HashMap<Coord, Node<T>> roots, ArrayList<T> oversized, T object)
   {
-    Box bounds = object.getBounds();
+    remove(roots, oversized, object, object.getBounds());
+  }
+
+  /**
+   * Removes the specified object from the provided map, using the supplied bounds (which may
+   * differ from the object's current bounds) to locate it.
+   */
+  protected <T extends SceneObject> void remove (
+    HashMap<Coord, Node<T>> roots, ArrayList<T> oversized, T object, Box bounds)
+  {
     if (areOversized(bounds)) {
       oversized.remove(object);
       return;
@@ -536,7 +572,22 @@ public class HashScene extends Scene
      */
     public void add (T object, int level)
     {
+      int idx = _objects.size();
       _objects.add(object);
+      if (_objectPlanes.length <= idx) {
+        _objectPlanes = Arrays.copyOf(_objectPlanes, idx * 2);
+        _objectBounds = Arrays.copyOf(_objectBounds, idx * 2 * 6);
+      }
+      _objectPlanes[idx] = 0;
+      Box bounds = object.getBounds();
+      Vector3f min = bounds.getMinimumExtent(), max = bounds.getMaximumExtent();
+      int bidx = idx * 6;
+      _objectBounds[bidx] = min.x;
+      _objectBounds[bidx + 1] = min.y;
+      _objectBounds[bidx + 2] = min.z;
+      _objectBounds[bidx + 3] = max.x;
+      _objectBounds[bidx + 4] = max.y;
+      _objectBounds[bidx + 5] = max.z;
     }
 
     /**
@@ -544,7 +595,14 @@ public class HashScene extends Scene
      */
     public void remove (T object, int level)
     {
-      _objects.remove(object);
+      int idx = _objects.indexOf(object);
+      if (idx == -1) {
+        return;
+      }
+      _objects.remove(idx);
+      int remaining = _objects.size() - idx;
+      System.arraycopy(_objectPlanes, idx + 1, _objectPlanes, idx, remaining);
+      System.arraycopy(_objectBounds, (idx + 1) * 6, _objectBounds, idx * 6, remaining * 6);
     }
 
     /**
@@ -615,12 +673,15 @@ public class HashScene extends Scene
      */
     protected void compositeIntersecting (Frustum frustum)
     {
-      for (int ii = 0, nn = _objects.size(); ii < nn; ii++) {
-        T object = _objects.get(ii);
-        if (object.updateLastVisit(_visit) &&
-            frustum.getIntersectionType(object.getBounds()) !=
-              Frustum.IntersectionType.NONE) {
-          HashScene.this.composite((SceneElement)object);
+      // cull the objects in batches using their packed bounds
+      for (int ii = 0, nn = _objects.size(); ii < nn; ii += 64) {
+        int count = Math.min(nn - ii, 64);
+        long mask = frustum.getIntersecting(_objectBounds, _objectPlanes, ii, count);
+        for (int jj = 0; jj < count; jj++) {
+          T object = _objects.get(ii + jj);
+          if (object.updateLastVisit(_visit) && (mask & (1L << jj)) != 0L) {
+            HashScene.this.composite((SceneElement)object);
+          }
         }
       }
     }
@@ -656,6 +717,13 @@ public class HashScene extends Scene
 
     /** The objects in the node. */
     public ArrayList<T> _objects = new ArrayList<T>(4);
+
+    /** The bounds of the objects (as of when they were added), packed as minimum and maximum
+     * extents for batched culling. */
+    public float[] _objectBounds = new float[4 * 6];
+
+    /** For each object, the index of the frustum plane that last culled it. */
+    public byte[] _objectPlanes = new byte[4];
   }
 
   /**
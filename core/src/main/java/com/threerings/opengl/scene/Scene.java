@@ -32,10 +32,18 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.Uninterruptibles;
 
 import com.threerings.config.ConfigReference;
 import com.threerings.expr.DynamicScope;
@@ -46,6 +54,7 @@ import com.threerings.math.Frustum;
 import com.threerings.math.Ray3D;
 import com.threerings.math.Transform3D;
 import com.threerings.math.Vector3f;
+import com.threerings.util.WorkerPool;
 
 import com.threerings.openal.SoundGroup;
 import com.threerings.openal.SoundClipManager;
@@ -116,7 +125,7 @@ public abstract class Scene extends DynamicScope
   {
     super("scene");
     _ctx = ctx;
-    _soundGroup = ctx.getSoundManager().createGroup(ctx.getClipProvider(), sources);
+    _soundGroup = createSoundGroup(sources);
     _clipmgr = new SoundClipManager(ctx);
   }
 
@@ -395,6 +404,14 @@ public abstract class Scene extends DynamicScope
     return _alwaysTickTime;
   }
 
+  /**
+   * Returns the time elapsed to process the elements ticked concurrently.
+   */
+  public long getConcurrentTickTime ()
+  {
+    return _concurrentTickTime;
+  }
+
   /**
    * Returns the size of the set of elements that we are going to tick because they're visible.
    */
@@ -474,7 +491,7 @@ public abstract class Scene extends DynamicScope
    */
   public void boundsWillChange (SceneElement element)
   {
-    // nothing by default
+    deferBoundsChange(element);
   }
 
   /**
@@ -482,6 +499,9 @@ public abstract class Scene extends DynamicScope
    */
   public void boundsDidChange (SceneElement element)
   {
+    if (_tickingConcurrently) {
+      return; // applied after the concurrent ticks
+    }
     // add to update list
     _updateInfluences.add(element);
     dumpInfluence(element, "bounds did change", 1);
@@ -493,6 +513,9 @@ public abstract class Scene extends DynamicScope
    */
   public void boundsWillChange (SceneInfluence influence)
   {
+    if (deferBoundsChange(influence)) {
+      return;
+    }
     // add any intersecting elements to the update list
     int count = _updateInfluences.size();
     getElements(influence.getBounds(), _updateInfluences);
@@ -504,6 +527,9 @@ public abstract class Scene extends DynamicScope
    */
   public void boundsDidChange (SceneInfluence influence)
   {
+    if (_tickingConcurrently) {
+      return; // applied after the concurrent ticks
+    }
     // add any intersecting elements to the update list
     int count = _updateInfluences.size();
     getElements(influence.getBounds(), _updateInfluences);
@@ -516,6 +542,7 @@ public abstract class Scene extends DynamicScope
    */
   public void boundsWillChange (ViewerEffect effect)
   {
+    deferBoundsChange(effect);
   }
 
   /**
@@ -533,6 +560,16 @@ public abstract class Scene extends DynamicScope
     setEffects(_neffects);
   }
 
+  /**
+   * Sets whether to tick the elements that are {@link SceneElement#isTickThreadSafe thread-safe}
+   * concurrently, on the shared worker pool.  The remaining elements are ticked first, in the
+   * usual order.
+   */
+  public void setConcurrentTick (boolean concurrent)
+  {
+    _concurrentTick = concurrent;
+  }
+
   /**
    * Sets the transient policy state.
    */
@@ -543,6 +580,21 @@ public abstract class Scene extends DynamicScope
 
   // documentation inherited from interface Tickable
   public void tick (float elapsed)
+  {
+    // defer the scope updates made during the tick so that each updated subtree is only
+    // notified once
+    DynamicScope.startBatchedUpdate();
+    try {
+      tickElements(elapsed);
+    } finally {
+      DynamicScope.endBatchedUpdate();
+    }
+  }
+
+  /**
+   * Ticks the scene elements and updates their influences.
+   */
+  protected void tickElements (float elapsed)
   {
     if (_dumpInfluences) {
       log.info("INFLUENCES!!!");
@@ -551,7 +603,12 @@ public abstract class Scene extends DynamicScope
     // so that they can remove themselves)
     long tick = System.nanoTime();
     for (int ii = _alwaysTick.size() - 1; ii >= 0; ii--) {
-      _alwaysTick.get(ii).tick(elapsed);
+      SceneElement element = _alwaysTick.get(ii);
+      if (_concurrentTick && element.isTickThreadSafe()) {
+        _concurrent.add(element);
+      } else {
+        element.tick(elapsed);
+      }
     }
     long tock = System.nanoTime();
     _alwaysTickTime = tock - tick;
@@ -559,13 +616,25 @@ public abstract class Scene extends DynamicScope
     // tick the visible tick-when-visible elements
     if (!_visible.isEmpty()) {
       for (SceneElement element : _visible.toArray(new SceneElement[_visible.size()])) {
-        element.tick(elapsed);
+        if (_concurrentTick && element.isTickThreadSafe()) {
+          _concurrent.add(element);
+        } else {
+          element.tick(elapsed);
+        }
       }
       _visible.clear();
     }
     tick = System.nanoTime();
     _visibleTickTime = tick - tock;
 
+    // tick the thread-safe elements concurrently
+    if (!_concurrent.isEmpty()) {
+      tickConcurrently(elapsed);
+    }
+    tock = System.nanoTime();
+    _concurrentTickTime = tock - tick;
+    tick = tock;
+
     // find the effects acting on the viewer
     Vector3f location = _ctx.getCameraHandler().getViewerTranslation();
     getEffects(_viewer.set(location, location), _neffects);
@@ -624,6 +693,109 @@ public abstract class Scene extends DynamicScope
     _disposed = true;
   }
 
+  /**
+   * Creates the scene's sound group.  Called from the constructor.
+   *
+   * @param sources the number of simultaneous sound sources to allow.
+   */
+  protected SoundGroup createSoundGroup (int sources)
+  {
+    return _ctx.getSoundManager().createGroup(_ctx.getClipProvider(), sources);
+  }
+
+  /**
+   * Ticks the elements in the concurrent list on the worker pool (and this thread), then
+   * applies the bounds changes deferred while doing so.
+   */
+  protected void tickConcurrently (final float elapsed)
+  {
+    final SceneElement[] elements = _concurrentArray = _concurrent.toArray(_concurrentArray);
+    final int size = _concurrent.size();
+    _concurrent.clear();
+
+    // each task claims elements until none remain
+    final AtomicInteger next = new AtomicInteger();
+    Runnable task = new Runnable() {
+      public void run () {
+        for (int idx; (idx = next.getAndIncrement()) < size; ) {
+          SceneElement element = elements[idx];
+          try {
+            element.tick(elapsed);
+          } catch (Throwable t) {
+            log.warning("Error ticking scene element.", "element", element.getUserObject(), t);
+          }
+        }
+      }
+    };
+    _tickingConcurrently = true;
+    try {
+      int ntasks = Math.min(WorkerPool.THREADS, (size - 1) / MIN_CONCURRENT_ELEMENTS);
+      List<Future<?>> futures = Lists.newArrayListWithCapacity(ntasks);
+      ExecutorService executor = WorkerPool.getExecutor();
+      for (int ii = 0; ii < ntasks; ii++) {
+        futures.add(executor.submit(task));
+      }
+      task.run();
+      for (Future<?> future : futures) {
+        try {
+          Uninterruptibles.getUninterruptibly(future);
+        } catch (ExecutionException e) {
+          log.warning("Error in concurrent tick.", e);
+        }
+      }
+    } finally {
+      _tickingConcurrently = false;
+      Arrays.fill(elements, 0, size, null);
+    }
+
+    // apply the deferred bounds changes
+    if (!_deferredBounds.isEmpty()) {
+      for (Map.Entry<SceneObject, Box> entry : _deferredBounds.entrySet()) {
+        boundsChanged(entry.getKey(), entry.getValue());
+      }
+      _deferredBounds.clear();
+    }
+  }
+
+  /**
+   * If we're ticking elements concurrently, records the bounds of the specified object before
+   * they change so that the change may be applied once the concurrent ticks have completed.
+   *
+   * @return true if the change was deferred.
+   */
+  protected boolean deferBoundsChange (SceneObject object)
+  {
+    if (!_tickingConcurrently) {
+      return false;
+    }
+    if (!_deferredBounds.containsKey(object)) {
+      _deferredBounds.putIfAbsent(object, new Box(object.getBounds()));
+    }
+    return true;
+  }
+
+  /**
+   * Applies a bounds change deferred during the concurrent ticks.
+   *
+   * @param obounds the bounds of the object before the change.
+   */
+  protected void boundsChanged (SceneObject object, Box obounds)
+  {
+    if (object instanceof SceneElement) {
+      boundsDidChange((SceneElement)object);
+
+    } else if (object instanceof SceneInfluence) {
+      int count = _updateInfluences.size();
+      getElements(obounds, _updateInfluences);
+      dumpInfluence((SceneInfluence)object, "influence bounds will change",
+        _updateInfluences.size() - count);
+      boundsDidChange((SceneInfluence)object);
+
+    } else if (object instanceof ViewerEffect) {
+      boundsDidChange((ViewerEffect)object);
+    }
+  }
+
   /**
    * Sets the effects acting on the viewer.
    */
@@ -801,6 +973,23 @@ public abstract class Scene extends DynamicScope
   /** Holds the scene elements while we're updating their influences. */
   protected SceneElement[] _updateArray = new SceneElement[0];
 
+  /** Whether or not to tick thread-safe elements concurrently. */
+  protected boolean _concurrentTick;
+
+  /** Set while we're ticking elements concurrently (read by the worker threads, but only
+   * changed while none are ticking). */
+  protected boolean _tickingConcurrently;
+
+  /** The elements to tick concurrently. */
+  protected ArrayList<SceneElement> _concurrent = new ArrayList<SceneElement>();
+
+  /** Holds the elements while we're ticking them concurrently. */
+  protected SceneElement[] _concurrentArray = new SceneElement[0];
+
+  /** The bounds of the objects whose bounds changed during the concurrent ticks, as they were
+   * before the changes. */
+  protected Map<SceneObject, Box> _deferredBounds = Maps.newConcurrentMap();
+
   /** The effects currently acting on the viewer. */
   protected ViewerEffectSet _effects = new ViewerEffectSet();
 
@@ -844,11 +1033,15 @@ public abstract class Scene extends DynamicScope
   protected boolean _dumpInfluences;
 
   /** The time delta's during the tick. */
-  protected long _alwaysTickTime, _visibleTickTime, _updateInfluencesTime, _viewerEffectTime;
+  protected long _alwaysTickTime, _visibleTickTime, _updateInfluencesTime, _viewerEffectTime,
+    _concurrentTickTime;
 
   /** If transient policies are enabled. */
   protected boolean _transientPolicy;
 
   /** The default number of sound sources to allow. */
   protected static final int DEFAULT_SOURCES = 10;
+
+  /** The minimum number of elements for each additional concurrent task. */
+  protected static final int MIN_CONCURRENT_ELEMENTS = 4;
 }
@@ -42,6 +42,17 @@ public interface SceneElement extends SceneObject, Tickable, Intersectable, Comp
    */
   public TickPolicy getTickPolicy ();
 
+  /**
+   * Checks whether the element may be ticked on a worker thread, concurrently with other such
+   * elements, when the scene's concurrent tick mode is enabled.  The ticks of such elements must
+   * not touch shared state other than through bounds notifications, which the scene defers
+   * until all concurrent ticks have completed.  Elements are ticked serially by default.
+   */
+  public default boolean isTickThreadSafe ()
+  {
+    return false;
+  }
+
   /**
    * Returns this element's user object reference.
    */
@@ -0,0 +1,230 @@
+//
+// $Id$
+//
+// Clyde library - tools for developing networked games
+// Copyright (C) 2005-2012 Three Rings Design, Inc.
+// http://code.google.com/p/clyde/
+//
+// Redistribution and use in source and binary forms, with or without modification, are permitted
+// provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this list of
+//    conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+//    conditions and the following disclaimer in the documentation and/or other materials provided
+//    with the distribution.
+//
+// THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR IMPLIED WARRANTIES,
+// INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+// PARTICULAR PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT,
+// INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+// TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+// LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package com.threerings.opengl.util;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferInt;
+import java.awt.image.IndexColorModel;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+import com.samskivert.util.HashIntSet;
+import com.samskivert.util.IntIntMap;
+
+import com.threerings.media.image.Colorization;
+import com.threerings.media.image.ImageUtil;
+
+import com.threerings.util.WorkerPool;
+
+/**
+ * Recolors images.  Indexed images are recolored by adjusting their palettes, as with
+ * {@link ImageUtil#recolorImage}.  Other images are recolored by running the distinct colors they
+ * contain through that same palette operation and then replacing their pixels in bands on the
+ * {@link WorkerPool}.  The color mappings for each set of colorizations are memoized, so images
+ * sharing colors and colorizations only need their pixels replaced.
+ */
+public class Colorizer
+{
+  /**
+   * Recolors the supplied image.  This should only be called from one thread at a time.
+   */
+  public BufferedImage recolor (BufferedImage image, Colorization[] zations)
+  {
+    if (image.getColorModel() instanceof IndexColorModel) {
+      return ImageUtil.recolorImage(image, zations);
+    }
+    final BufferedImage source = image;
+    final int width = image.getWidth(), height = image.getHeight();
+    BufferedImage dest = new BufferedImage(width, height, image.getColorModel().hasAlpha() ?
+      BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+    final int[] pixels = ((DataBufferInt)dest.getRaster().getDataBuffer()).getData();
+    final IntIntMap colors = getColors(zations);
+    int bands = Math.max(1, Math.min(WorkerPool.THREADS + 1, pixels.length / MIN_BAND_PIXELS));
+    final int rows = (height + bands - 1) / bands;
+
+    // read the pixels and find the colors that we haven't yet mapped
+    final HashIntSet[] unmapped = new HashIntSet[bands];
+    runBands(bands, new Band() {
+      public void run (int band) {
+        int y0 = band * rows, y1 = Math.min(y0 + rows, height);
+        if (y0 >= y1) {
+          return;
+        }
+        source.getRGB(0, y0, width, y1 - y0, pixels, y0 * width, width);
+        HashIntSet set = unmapped[band] = new HashIntSet();
+        set.setSentinel(0); // fully transparent colors are never mapped
+        int last = 0;
+        for (int ii = y0 * width, nn = y1 * width; ii < nn; ii++) {
+          int color = pixels[ii];
+          if (color != last && (color & 0xFF000000) != 0 && !colors.containsKey(color)) {
+            set.add(color);
+          }
+          last = color;
+        }
+      }
+    });
+    HashIntSet merged = new HashIntSet();
+    merged.setSentinel(0);
+    for (HashIntSet set : unmapped) {
+      if (set != null) {
+        merged.addAll(set);
+      }
+    }
+    if (!merged.isEmpty()) {
+      mapColors(merged.toIntArray(), zations, colors);
+    }
+
+    // replace the pixels
+    runBands(bands, new Band() {
+      public void run (int band) {
+        int last = 0, mapped = 0;
+        for (int ii = band * rows * width, nn = Math.min((band + 1) * rows, height) * width;
+            ii < nn; ii++) {
+          int color = pixels[ii];
+          if ((color & 0xFF000000) == 0) {
+            continue;
+          }
+          if (color != last) {
+            mapped = colors.get(last = color);
+          }
+          pixels[ii] = mapped;
+        }
+      }
+    });
+    return dest;
+  }
+
+  /**
+   * Clears the memoized color mappings.
+   */
+  public void clear ()
+  {
+    _colors.invalidateAll();
+  }
+
+  /**
+   * A band of work.
+   */
+  protected interface Band
+  {
+    /**
+     * Processes the specified band.
+     */
+    void run (int band);
+  }
+
+  /**
+   * Returns the memoized color mapping for the specified colorizations, creating it if
+   * necessary.
+   */
+  protected IntIntMap getColors (Colorization[] zations)
+  {
+    List<Colorization> key = Arrays.asList(zations.clone());
+    IntIntMap colors = _colors.getIfPresent(key);
+    if (colors == null) {
+      _colors.put(key, colors = new IntIntMap());
+    }
+    return colors;
+  }
+
+  /**
+   * Runs the specified number of bands on the worker pool and the calling thread, returning
+   * when they have all completed.  The calling thread claims bands along with the workers, so
+   * this will not stall even if the workers are busy.
+   */
+  protected static void runBands (final int bands, final Band band)
+  {
+    if (bands == 1) {
+      band.run(0);
+      return;
+    }
+    final AtomicInteger next = new AtomicInteger();
+    final CountDownLatch done = new CountDownLatch(bands);
+    final RuntimeException[] error = new RuntimeException[1];
+    Runnable task = new Runnable() {
+      public void run () {
+        for (int idx; (idx = next.getAndIncrement()) < bands; ) {
+          try {
+            band.run(idx);
+          } catch (RuntimeException e) {
+            error[0] = e;
+          } finally {
+            done.countDown();
+          }
+        }
+      }
+    };
+    Executor executor = WorkerPool.getExecutor();
+    for (int ii = 1; ii < bands; ii++) {
+      executor.execute(task);
+    }
+    task.run();
+    Uninterruptibles.awaitUninterruptibly(done);
+    if (error[0] != null) {
+      throw error[0];
+    }
+  }
+
+  /**
+   * Maps the supplied colors through the colorizations by recoloring a palette containing them,
+   * adding the results to the given map.
+   */
+  protected static void mapColors (int[] colors, Colorization[] zations, IntIntMap map)
+  {
+    for (int start = 0; start < colors.length; start += MAX_PALETTE_SIZE) {
+      int size = Math.min(colors.length - start, MAX_PALETTE_SIZE);
+      boolean small = (size <= 256);
+      IndexColorModel icm = new IndexColorModel(small ? 8 : 16, size, colors, start, true, -1,
+        small ? DataBuffer.TYPE_BYTE : DataBuffer.TYPE_USHORT);
+      BufferedImage palette = new BufferedImage(
+        icm, icm.createCompatibleWritableRaster(1, 1), false, null);
+      IndexColorModel ricm = (IndexColorModel)ImageUtil.recolorImage(
+        palette, zations).getColorModel();
+      for (int ii = 0; ii < size; ii++) {
+        map.put(colors[start + ii], ricm.getRGB(ii));
+      }
+    }
+  }
+
+  /** The memoized color mappings for each set of colorizations. */
+  protected Cache<List<Colorization>, IntIntMap> _colors = CacheBuilder.newBuilder()
+    .concurrencyLevel(1).maximumSize(64).<List<Colorization>, IntIntMap>build();
+
+  /** The minimum number of pixels in each band, below which we don't bother dividing work. */
+  protected static final int MIN_BAND_PIXELS = 64 * 1024;
+
+  /** The maximum number of colors to map through a single palette. */
+  protected static final int MAX_PALETTE_SIZE = 65536;
+}
@@ -0,0 +1,160 @@
+//
+// $Id$
+//
+// Clyde library - tools for developing networked games
+// Copyright (C) 2005-2012 Three Rings Design, Inc.
+// http://code.google.com/p/clyde/
+//
+// Redistribution and use in source and binary forms, with or without modification, are permitted
+// provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this list of
+//    conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+//    conditions and the following disclaimer in the documentation and/or other materials provided
+//    with the distribution.
+//
+// THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR IMPLIED WARRANTIES,
+// INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+// PARTICULAR PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT,
+// INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+// TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+// LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package com.threerings.opengl.util;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+
+import java.util.Queue;
+import java.util.Set;
+
+import com.google.common.collect.Queues;
+import com.google.common.collect.Sets;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import static com.threerings.opengl.Log.log;
+
+/**
+ * Watches the directories containing a set of files on a background thread, queueing the files
+ * created or modified within them to be polled by the thread that owns the watcher.
+ */
+public class FileWatcher
+{
+  /**
+   * Creates a new file watcher.
+   *
+   * @return the watcher, or null if the file system doesn't support watching.
+   */
+  public static FileWatcher create ()
+  {
+    try {
+      return new FileWatcher(FileSystems.getDefault().newWatchService());
+    } catch (IOException e) {
+      log.warning("Failed to create watch service.", e);
+    } catch (UnsupportedOperationException e) {
+      log.warning("File system doesn't support watching.", e);
+    }
+    return null;
+  }
+
+  /**
+   * Starts watching the directory containing the specified file, if not watching it already.
+   */
+  public void watch (File file)
+  {
+    File dir = file.getAbsoluteFile().getParentFile();
+    if (dir == null || _dirs.contains(dir) || !dir.isDirectory()) {
+      return;
+    }
+    try {
+      dir.toPath().register(_service, ENTRY_CREATE, ENTRY_MODIFY);
+      _dirs.add(dir);
+    } catch (IOException e) {
+      log.warning("Failed to watch directory.", "dir", dir, e);
+    }
+  }
+
+  /**
+   * Returns the next file created or modified since the last call, or null if there are none.
+   * If events were lost because too many occurred at once, the file returned will be the
+   * directory in which they occurred.  Files are returned in absolute form.
+   */
+  public File poll ()
+  {
+    return _modified.poll();
+  }
+
+  /**
+   * Stops watching and shuts down the watcher thread.
+   */
+  public void close ()
+  {
+    try {
+      _service.close();
+    } catch (IOException e) {
+      log.warning("Failed to close watch service.", e);
+    }
+  }
+
+  /**
+   * Creates a new watcher using the supplied service and starts its thread.
+   */
+  protected FileWatcher (WatchService service)
+  {
+    _service = service;
+    Thread thread = new Thread("fileWatcher") {
+      @Override public void run () {
+        try {
+          while (true) {
+            queueEvents(_service.take());
+          }
+        } catch (InterruptedException e) {
+          // fall through and exit
+        } catch (ClosedWatchServiceException e) {
+          // likewise
+        }
+      }
+    };
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Queues the events signalled by the supplied key and resets it.  Called on the watcher
+   * thread.
+   */
+  protected void queueEvents (WatchKey key)
+  {
+    File dir = ((Path)key.watchable()).toFile();
+    for (WatchEvent<?> event : key.pollEvents()) {
+      if (event.kind() == OVERFLOW) {
+        _modified.add(dir);
+      } else {
+        _modified.add(new File(dir, String.valueOf(event.context())));
+      }
+    }
+    key.reset();
+  }
+
+  /** The underlying watch service. */
+  protected final WatchService _service;
+
+  /** The directories being watched. */
+  protected final Set<File> _dirs = Sets.newConcurrentHashSet();
+
+  /** The files modified and not yet polled. */
+  protected final Queue<File> _modified = Queues.newConcurrentLinkedQueue();
+}
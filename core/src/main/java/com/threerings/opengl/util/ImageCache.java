@@ -26,14 +26,28 @@
 package com.threerings.opengl.util;
 
 import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
 
+import java.io.File;
 import java.io.IOException;
 
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+
+import javax.imageio.ImageIO;
+
+import com.google.common.collect.Maps;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import com.google.common.primitives.Longs;
 
 import com.threerings.media.image.Colorization;
 import com.threerings.media.image.ImageUtil;
 
+import com.threerings.util.WorkerPool;
+
 import com.threerings.opengl.gui.Image;
 import com.threerings.opengl.renderer.Texture2D;
 import com.threerings.opengl.util.DDSLoader;
@@ -48,9 +62,8 @@ public class ImageCache extends ResourceCache
   /**
    * Creates a new image cache.
    *
-   * @param checkTimestamps if true, check the last-modified timestamp of each resource file
-   * when we retrieve it from the cache, reloading the resource if the file has been modified
-   * externally.
+   * @param checkTimestamps if true, watch the resource files for modifications on a background
+   * thread, reloading resources whose files have been modified externally.
    */
   public ImageCache (GlContext ctx, boolean checkTimestamps)
   {
@@ -73,6 +86,43 @@ public class ImageCache extends ResourceCache
     return _buffered.getResource(new ImageKey(path, zations));
   }
 
+  /**
+   * Sets the directory in which to cache recolored images between sessions, limiting it to the
+   * default size.
+   *
+   * @param dir the cache directory, or null to disable the cache.
+   */
+  public void setRecolorCacheDir (File dir)
+  {
+    setRecolorCacheDir(dir, RECOLOR_CACHE_SIZE);
+  }
+
+  /**
+   * Sets the directory in which to cache recolored images between sessions.  Indexed images are
+   * never cached, since recoloring them only requires adjusting their palettes.  When set, the
+   * least recently used images are removed (on the worker pool) until the total size of the
+   * directory's files is within the given limit.
+   *
+   * @param dir the cache directory, or null to disable the cache.
+   * @param maxSize the maximum total size in bytes of the files in the directory.
+   */
+  public void setRecolorCacheDir (final File dir, final long maxSize)
+  {
+    if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+      log.warning("Failed to create recolor cache directory.", "dir", dir);
+      _recolorDir = null;
+      return;
+    }
+    _recolorDir = dir;
+    if (dir != null) {
+      WorkerPool.getExecutor().execute(new Runnable() {
+        public void run () {
+          pruneRecolorCache(dir, maxSize);
+        }
+      });
+    }
+  }
+
   /**
    * Clears the cache, forcing resources to be reloaded.
    */
@@ -80,6 +130,124 @@ public class ImageCache extends ResourceCache
   {
     _images.clear();
     _buffered.clear();
+    _colorizer.clear();
+  }
+
+  /**
+   * Recolors the image identified by the supplied key, going through the disk cache if enabled.
+   */
+  protected BufferedImage recolorImage (ImageKey key)
+  {
+    BufferedImage image = getBufferedImage(key.path);
+    if (_recolorDir == null || image.getColorModel() instanceof IndexColorModel) {
+      return _colorizer.recolor(image, key.zations);
+    }
+    File file = getRecolorCacheFile(key);
+    if (file != null && file.isFile()) {
+      try {
+        BufferedImage cached = ImageIO.read(file);
+        if (cached != null) {
+          file.setLastModified(System.currentTimeMillis()); // note the use for pruning
+          return cached;
+        }
+      } catch (IOException e) {
+        log.warning("Failed to read recolored image.", "file", file, e);
+      }
+    }
+    BufferedImage recolored = _colorizer.recolor(image, key.zations);
+    if (file != null) {
+      writeRecolorCacheFile(recolored, file);
+    }
+    return recolored;
+  }
+
+  /**
+   * Returns the disk cache file for the image identified by the supplied key, which is named for
+   * the hash of the source image's contents and the colorizations, or null if the source image
+   * isn't a file.
+   */
+  protected File getRecolorCacheFile (ImageKey key)
+  {
+    File source = _ctx.getResourceManager().getResourceFile(key.path);
+    if (!source.isFile()) {
+      return null;
+    }
+    Hasher hasher = Hashing.md5().newHasher();
+    try {
+      hasher.putBytes(Files.hash(source, Hashing.md5()).asBytes());
+    } catch (IOException e) {
+      log.warning("Failed to hash image.", "file", source, e);
+      return null;
+    }
+    for (Colorization zation : key.zations) {
+      if (zation == null) {
+        hasher.putBoolean(false);
+        continue;
+      }
+      hasher.putBoolean(true).putInt(zation.colorizationId).putInt(zation.rootColor.getRGB());
+      for (float value : zation.range) {
+        hasher.putFloat(value);
+      }
+      for (float value : zation.offsets) {
+        hasher.putFloat(value);
+      }
+    }
+    return new File(_recolorDir, hasher.hash() + ".png");
+  }
+
+  /**
+   * Removes the least recently used files from the recolor cache directory until their total
+   * size is within the specified limit.
+   */
+  protected static void pruneRecolorCache (File dir, long maxSize)
+  {
+    File[] files = dir.listFiles();
+    if (files == null) {
+      return;
+    }
+    long total = 0L;
+    final Map<File, Long> used = Maps.newHashMap();
+    for (File file : files) {
+      total += file.length();
+      used.put(file, file.lastModified());
+    }
+    if (total <= maxSize) {
+      return;
+    }
+    Arrays.sort(files, new Comparator<File>() {
+      public int compare (File f1, File f2) {
+        return Longs.compare(used.get(f1), used.get(f2));
+      }
+    });
+    for (int ii = 0; ii < files.length && total > maxSize; ii++) {
+      long length = files[ii].length();
+      if (files[ii].delete()) {
+        total -= length;
+      }
+    }
+  }
+
+  /**
+   * Writes a recolored image to the disk cache on the worker pool.
+   */
+  protected void writeRecolorCacheFile (final BufferedImage image, final File file)
+  {
+    WorkerPool.getExecutor().execute(new Runnable() {
+      public void run () {
+        File tmp = null;
+        try {
+          tmp = File.createTempFile("recolor", ".tmp", file.getParentFile());
+          if (ImageIO.write(image, "png", tmp) && tmp.renameTo(file)) {
+            return;
+          }
+        } catch (IOException e) {
+          log.warning("Failed to write recolored image.", "file", file, e);
+        }
+        if (tmp != null) {
+          tmp.delete();
+        }
+      }
+    });
   }
 
   /**
@@ -114,7 +282,7 @@ public class ImageCache extends ResourceCache
   }
 
   /** The GUI image subcache. */
-  protected Subcache<ImageKey, Image> _images = new Subcache<ImageKey, Image>() {
+  protected Subcache<ImageKey, Image> _images = new Subcache<ImageKey, Image>(IMAGE_CACHE_SIZE) {
     protected Image loadResource (ImageKey key) {
       if (key.path.endsWith(".dds")) {
         Texture2D texture = new Texture2D(_ctx.getRenderer());
@@ -129,6 +297,9 @@ public class ImageCache extends ResourceCache
       }
       return new Image(_buffered.getResource(key));
     }
+    protected int getWeight (ImageKey key, Image image) {
+      return image.getWidth() * image.getHeight() * 4;
+    }
     protected String getResourcePath (ImageKey key) {
       return key.path;
     }
@@ -136,10 +307,10 @@ public class ImageCache extends ResourceCache
 
   /** The buffered image subcache. */
   protected Subcache<ImageKey, BufferedImage> _buffered =
-    new Subcache<ImageKey, BufferedImage>() {
+    new Subcache<ImageKey, BufferedImage>(BUFFERED_CACHE_SIZE) {
     protected BufferedImage loadResource (ImageKey key) {
       if (key.zations.length > 0) {
-        return ImageUtil.recolorImage(getBufferedImage(key.path), key.zations);
+        return recolorImage(key);
       }
       BufferedImage image = null;
       try {
@@ -151,8 +322,26 @@ public class ImageCache extends ResourceCache
       }
       return (image == null) ? ImageUtil.createErrorImage(64, 64) : image;
     }
+    protected int getWeight (ImageKey key, BufferedImage image) {
+      return image.getWidth() * image.getHeight() * 4;
+    }
     protected String getResourcePath (ImageKey key) {
       return key.path;
     }
   };
+
+  /** Recolors images, memoizing the color mappings. */
+  protected Colorizer _colorizer = new Colorizer();
+
+  /** The directory in which to cache recolored images, if any. */
+  protected File _recolorDir;
+
+  /** The maximum approximate size in bytes of the GUI images to retain. */
+  protected static final long IMAGE_CACHE_SIZE = 64L * 1024 * 1024;
+
+  /** The maximum approximate size in bytes of the buffered images to retain. */
+  protected static final long BUFFERED_CACHE_SIZE = 64L * 1024 * 1024;
+
+  /** The default maximum size in bytes of the recolored images cached on disk. */
+  protected static final long RECOLOR_CACHE_SIZE = 256L * 1024 * 1024;
 }
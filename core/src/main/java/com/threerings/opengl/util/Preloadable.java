@@ -26,6 +26,7 @@
 package com.threerings.opengl.util;
 
 import com.threerings.config.ConfigGroup;
+import com.threerings.config.ConfigManager;
 import com.threerings.config.ConfigReference;
 import com.threerings.config.ManagedConfig;
 import com.threerings.util.DeepObject;
@@ -91,6 +92,12 @@ public abstract class Preloadable extends DeepObject
       return _ref;
     }
 
+    @Override
+    public void prefetch (GlContext ctx)
+    {
+      prefetch(ctx, _clazz, _ref.getName());
+    }
+
     @Override
     public void preload (GlContext ctx)
     {
@@ -138,6 +145,12 @@ public abstract class Preloadable extends DeepObject
       return _ref;
     }
 
+    @Override
+    public void prefetch (GlContext ctx)
+    {
+      prefetch(ctx, ModelConfig.class, _ref.getName());
+    }
+
     @Override
     public void preload (GlContext ctx)
     {
@@ -186,6 +199,12 @@ public abstract class Preloadable extends DeepObject
       return _ref;
     }
 
+    @Override
+    public void prefetch (GlContext ctx)
+    {
+      prefetch(ctx, AnimationConfig.class, _ref.getName());
+    }
+
     @Override
     public void preload (GlContext ctx)
     {
@@ -212,9 +231,30 @@ public abstract class Preloadable extends DeepObject
     protected com.threerings.opengl.model.Animation _anim;
   }
 
+  /**
+   * Performs whatever part of the preloading work may be done off the main thread, such as
+   * decoding resource-loaded configs.  This is called from a background thread before
+   * {@link #preload}.  The default implementation does nothing.
+   */
+  public void prefetch (GlContext ctx)
+  {
+    // nothing by default
+  }
+
   /**
    * Preloads this resource and creates a reference to it, preventing it from being
    * garbage-collected.
    */
   public abstract void preload (GlContext ctx);
+
+  /**
+   * Decodes the named config in advance if it is loaded from an individual resource.
+   */
+  protected static void prefetch (GlContext ctx, Class<?> clazz, String name)
+  {
+    ConfigManager cfgmgr = ctx.getConfigManager();
+    if (name != null && cfgmgr.isResourceClass(clazz)) {
+      cfgmgr.prefetchResourceConfig(name);
+    }
+  }
 }
@@ -26,12 +26,17 @@
 package com.threerings.opengl.util;
 
 import java.util.HashSet;
-import java.util.List;
+import java.util.Queue;
 
-import com.google.common.collect.Lists;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 
 import com.threerings.config.ConfigReference;
 import com.threerings.config.ManagedConfig;
+import com.threerings.util.WorkerPool;
+
 import com.threerings.opengl.model.config.AnimationConfig;
 import com.threerings.opengl.model.config.ModelConfig;
 
@@ -62,28 +67,44 @@ public class PreloadableSet extends HashSet<Preloadable>
 
   /**
    * Preloads a batch of resources in the set.  Any preloadables added to the set after this
-   * method is called for the first time will be preloaded immediately.
+   * method is called for the first time will be preloaded immediately.  The first call also
+   * starts prefetching the resources on background threads; each batch preloads the prefetched
+   * resources first, falling back to those not yet claimed by the background threads only when
+   * none are ready.
    *
    * @param duration the maximum amount of time to spend on the batch.
    * @return the percentage of the total resources loaded, from zero to one.
    */
   public float preloadBatch (long duration)
   {
-    if (_remaining != null && _remaining.isEmpty()) {
-      return 1f;
-    }
-    if (_remaining == null) {
-      _remaining = Lists.newArrayList(this);
+    if (_pending == null) {
+      _pending = toArray(new Preloadable[size()]);
+      _claims = new AtomicIntegerArray(_pending.length);
+      _remaining = _pending.length;
+      _last = _remaining - 1;
+      if (_remaining > 0) {
+        startPrefetching();
+      }
     }
     long end = System.currentTimeMillis() + duration;
-    for (int ii = _remaining.size() - 1; ii >= 0 && System.currentTimeMillis() < end; ii--) {
-      _remaining.remove(ii).preload(_ctx);
+    while (_remaining > 0 && System.currentTimeMillis() < end) {
+      Integer idx = _ready.poll();
+      if (idx == null) {
+        // nothing prefetched; take the last unclaimed resource, if any
+        while (_last >= 0 && !_claims.compareAndSet(_last, UNCLAIMED, CLAIMED_BY_MAIN)) {
+          _last--;
+        }
+        if (_last < 0) {
+          break; // everything left is being prefetched
+        }
+        idx = _last--;
+      }
+      _pending[idx].preload(_ctx);
+      _pending[idx] = null;
+      _remaining--;
       _preloaded++;
     }
-    if (_remaining.isEmpty()) {
-      return 1f;
-    }
-    return (float)_preloaded / size();
+    return (_remaining == 0) ? 1f : (float)_preloaded / size();
   }
 
   @Override
@@ -93,7 +114,7 @@ public class PreloadableSet extends HashSet<Preloadable>
       return false;
     }
     // if already processing batches, just preload this immediately
-    if (_remaining != null) {
+    if (_pending != null) {
       preloadable.preload(_ctx);
       _preloaded++;
     }
@@ -134,12 +155,62 @@ public class PreloadableSet extends HashSet<Preloadable>
     return (ref != null) && add(new Preloadable.Animation(ref));
   }
 
+  /**
+   * Submits the tasks that prefetch the pending resources in the background.
+   */
+  protected void startPrefetching ()
+  {
+    final Preloadable[] pending = _pending.clone();
+    final AtomicInteger next = new AtomicInteger();
+    Runnable task = new Runnable() {
+      public void run () {
+        for (int idx; (idx = next.getAndIncrement()) < pending.length; ) {
+          if (!_claims.compareAndSet(idx, UNCLAIMED, CLAIMED_BY_PREFETCHER)) {
+            continue; // claimed by the main thread
+          }
+          try {
+            pending[idx].prefetch(_ctx);
+          } catch (Exception e) {
+            log.warning("Failed to prefetch resource.", "resource", pending[idx], e);
+          }
+          _ready.add(idx);
+        }
+      }
+    };
+    ExecutorService executor = WorkerPool.getExecutor();
+    for (int ii = 0, nn = Math.min(pending.length, WorkerPool.THREADS); ii < nn; ii++) {
+      executor.execute(task);
+    }
+  }
+
   /** The application context. */
   protected GlContext _ctx;
 
-  /** The list of resources remaining to be preloaded. */
-  protected List<Preloadable> _remaining;
+  /** The resources to preload, in order, or null if batching has not started.  Entries are
+   * cleared as they are preloaded. */
+  protected Preloadable[] _pending;
+
+  /** The claim state of each pending resource. */
+  protected AtomicIntegerArray _claims;
+
+  /** The indices of the resources that have been prefetched and are ready to preload. */
+  protected Queue<Integer> _ready = new ConcurrentLinkedQueue<Integer>();
+
+  /** The index of the last resource that the main thread may claim. */
+  protected int _last;
+
+  /** The number of pending resources remaining to be preloaded. */
+  protected int _remaining;
 
   /** The number of resources preloaded so far. */
   protected int _preloaded;
+
+  /** Claim state for resources not yet claimed. */
+  protected static final int UNCLAIMED = 0;
+
+  /** Claim state for resources claimed by a prefetching thread. */
+  protected static final int CLAIMED_BY_PREFETCHER = 1;
+
+  /** Claim state for resources claimed by the main thread. */
+  protected static final int CLAIMED_BY_MAIN = 2;
 }
@@ -27,28 +27,84 @@ package com.threerings.opengl.util;
 
 import java.io.File;
 
-import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
 
-import java.lang.ref.SoftReference;
-
-import com.google.common.collect.Maps;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 
 /**
- * Base class for the resource caches.
+ * Base class for the resource caches.  Each subcache retains its resources up to a maximum total
+ * weight, evicting the least recently used when that is exceeded.  Evicted resources that are
+ * still in use elsewhere continue to be returned until they are collected, so that callers never
+ * end up with two copies of the same resource.
  */
 public abstract class ResourceCache
 {
   /**
    * Creates a new resource cache.
    *
-   * @param checkTimestamps if true, check the last-modified timestamp of each resource file
-   * when we retrieve it from the cache, reloading the resource if the file has been modified
-   * externally.
+   * @param checkTimestamps if true, watch the resource files for modifications on a background
+   * thread, reloading resources whose files have been modified externally.
    */
   public ResourceCache (GlContext ctx, boolean checkTimestamps)
   {
     _ctx = ctx;
     _checkTimestamps = checkTimestamps;
+    if (checkTimestamps) {
+      _watcher = FileWatcher.create();
+    }
+  }
+
+  /**
+   * Returns the combined statistics of the subcaches.
+   */
+  public CacheStats getStats ()
+  {
+    CacheStats stats = new CacheStats(0L, 0L, 0L, 0L, 0L, 0L);
+    for (Subcache<?, ?> subcache : _subcaches) {
+      stats = stats.plus(subcache.getStats());
+    }
+    return stats;
+  }
+
+  /**
+   * Stops watching the resource files for modifications.
+   */
+  public void dispose ()
+  {
+    if (_watcher != null) {
+      _watcher.close();
+      _watcher = null;
+    }
+  }
+
+  /**
+   * Removes any resources whose files have been modified since the last check.
+   */
+  protected void checkModified ()
+  {
+    if (_watcher == null) {
+      return;
+    }
+    Set<File> files = null;
+    for (File file; (file = _watcher.poll()) != null; ) {
+      if (files == null) {
+        files = Sets.newHashSet();
+      }
+      files.add(file);
+    }
+    if (files != null) {
+      for (Subcache<?, ?> subcache : _subcaches) {
+        subcache.invalidate(files);
+      }
+    }
   }
 
   /**
@@ -56,20 +112,53 @@ public abstract class ResourceCache
    */
   protected abstract class Subcache<K, V>
   {
+    /**
+     * Creates a new subcache that retains its resources softly, releasing them only when memory
+     * is needed.
+     */
+    public Subcache ()
+    {
+      _resources = buildCache(CacheBuilder.newBuilder().softValues());
+      _subcaches.add(this);
+    }
+
+    /**
+     * Creates a new subcache.
+     *
+     * @param maxWeight the maximum total weight of the resources to retain, as determined by
+     * {@link #getWeight}.
+     */
+    public Subcache (long maxWeight)
+    {
+      _resources = buildCache(CacheBuilder.newBuilder()
+        .maximumWeight(maxWeight)
+        .weigher(new Weigher<K, V>() {
+          public int weigh (K key, V value) {
+            return getWeight(key, value);
+          }
+        }));
+      _subcaches.add(this);
+    }
+
     /**
      * Retrieves the resource corresponding to the specified key.
      */
     public V getResource (K key)
     {
-      CachedResource<V> cached = _resources.get(key);
-      if (cached != null) {
-        V resource = cached.get();
-        if (!(resource == null || (_checkTimestamps && cached.wasModified()))) {
-          return resource;
-        }
+      checkModified();
+      V resource = _resources.getIfPresent(key);
+      if (resource != null) {
+        return resource;
       }
-      V resource = loadResource(key);
-      _resources.put(key, new CachedResource<V>(resource, getResourceFile(key)));
+      resource = _evicted.getIfPresent(key);
+      if (resource != null) {
+        _evicted.invalidate(key);
+      } else if ((resource = loadResource(key)) == null) {
+        return null;
+      } else if (_watcher != null) {
+        _watcher.watch(getResourceFile(key));
+      }
+      _resources.put(key, resource);
       return resource;
     }
 
@@ -78,62 +167,113 @@ public abstract class ResourceCache
      */
     public void clear ()
     {
-      _resources.clear();
+      _resources.invalidateAll();
+      _evicted.invalidateAll();
     }
 
     /**
-     * Loads the resource corresponding to the specified key.
+     * Returns the statistics of the subcache.
      */
-    protected abstract V loadResource (K key);
+    public CacheStats getStats ()
+    {
+      return _resources.stats();
+    }
 
     /**
-     * Returns the file corresponding to the specified key.
+     * Removes the resources whose files (or the directories containing them) are in the
+     * supplied set.
      */
-    protected File getResourceFile (K key)
+    protected void invalidate (Set<File> files)
     {
-      return _ctx.getResourceManager().getResourceFile(getResourcePath(key));
+      invalidate(_resources, files);
+      invalidate(_evicted, files);
     }
 
     /**
-     * Returns the resource path corresponding to the specified key.
+     * Removes the entries of the given cache whose files are in the supplied set.
      */
-    protected abstract String getResourcePath (K key);
+    protected void invalidate (Cache<K, V> cache, Set<File> files)
+    {
+      List<K> keys = null;
+      for (K key : cache.asMap().keySet()) {
+        File file = getResourceFile(key).getAbsoluteFile();
+        if (files.contains(file) || files.contains(file.getParentFile())) {
+          if (keys == null) {
+            keys = Lists.newArrayList();
+          }
+          keys.add(key);
+        }
+      }
+      if (keys != null) {
+        cache.invalidateAll(keys);
+      }
+    }
 
-    /** The cached resources. */
-    protected HashMap<K, CachedResource<V>> _resources = Maps.newHashMap();
-  }
+    /**
+     * Completes the configuration of the resource cache, handing evicted resources off to the
+     * evicted cache.
+     */
+    protected Cache<K, V> buildCache (CacheBuilder<? super K, ? super V> builder)
+    {
+      return builder
+        .concurrencyLevel(1)
+        .removalListener(new RemovalListener<K, V>() {
+          public void onRemoval (RemovalNotification<K, V> notification) {
+            // resources collected from a soft cache are already gone
+            V value = notification.getValue();
+            if (notification.wasEvicted() && value != null) {
+              _evicted.put(notification.getKey(), value);
+            }
+          }
+        })
+        .recordStats()
+        .build();
+    }
 
-  /**
-   * Contains a cached resource.
-   */
-  protected static class CachedResource<T> extends SoftReference<T>
-  {
-    public CachedResource (T resource, File file)
+    /**
+     * Loads the resource corresponding to the specified key.
+     */
+    protected abstract V loadResource (K key);
+
+    /**
+     * Returns the weight of the specified resource, in whatever units the subcache's maximum
+     * weight is expressed.  The default counts each resource as one.
+     */
+    protected int getWeight (K key, V resource)
     {
-      super(resource);
-      _file = file;
-      _lastModified = file.lastModified();
+      return 1;
     }
 
     /**
-     * Determines whether the resource file has been modified since this reference
-     * was created.
+     * Returns the file corresponding to the specified key.
      */
-    public boolean wasModified ()
+    protected File getResourceFile (K key)
     {
-      return _file.lastModified() > _lastModified;
+      return _ctx.getResourceManager().getResourceFile(getResourcePath(key));
     }
 
-    /** The file corresponding to the resource. */
-    protected File _file;
+    /**
+     * Returns the resource path corresponding to the specified key.
+     */
+    protected abstract String getResourcePath (K key);
 
-    /** The recorded last-modified timestamp. */
-    protected long _lastModified;
+    /** The cached resources. */
+    protected Cache<K, V> _resources;
+
+    /** Resources evicted from the cache, held until they are no longer in use elsewhere. */
+    protected Cache<K, V> _evicted = CacheBuilder.newBuilder()
+      .concurrencyLevel(1).weakValues().<K, V>build();
   }
 
   /** The renderer context. */
   protected GlContext _ctx;
 
-  /** Whether or not to check resource file timestamps. */
+  /** Whether or not to watch resource files for modifications. */
   protected boolean _checkTimestamps;
+
+  /** Watches the resource files for modifications, if so configured. */
+  protected FileWatcher _watcher;
+
+  /** The subcaches, which add themselves on creation. */
+  protected List<Subcache<?, ?>> _subcaches = Lists.newArrayList();
 }
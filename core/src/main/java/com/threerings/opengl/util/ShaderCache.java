@@ -57,9 +57,8 @@ public class ShaderCache extends ResourceCache
   /**
    * Creates a new shader cache.
    *
-   * @param checkTimestamps if true, check the last-modified timestamp of each resource file
-   * when we retrieve it from the cache, reloading the resource if the file has been modified
-   * externally.
+   * @param checkTimestamps if true, watch the resource files for modifications on a background
+   * thread, reloading resources whose files have been modified externally.
    */
   public ShaderCache (GlContext ctx, boolean checkTimestamps)
   {
@@ -191,7 +190,8 @@ public class ShaderCache extends ResourceCache
   }
 
   /** The shader cache. */
-  protected Subcache<ShaderKey, Shader> _shaders = new Subcache<ShaderKey, Shader>() {
+  protected Subcache<ShaderKey, Shader> _shaders =
+    new Subcache<ShaderKey, Shader>(SHADER_CACHE_SIZE) {
     protected Shader loadResource (ShaderKey key) {
       String path = key.path;
       String ext = path.substring(path.lastIndexOf('.') + 1);
@@ -225,7 +225,7 @@ public class ShaderCache extends ResourceCache
   };
 
   /** The source file cache. */
-  protected Subcache<String, String> _source = new Subcache<String, String>() {
+  protected Subcache<String, String> _source = new Subcache<String, String>(SOURCE_CACHE_SIZE) {
     protected String loadResource (String path) {
       StringBuilder buf = new StringBuilder();
       try {
@@ -241,6 +241,9 @@ public class ShaderCache extends ResourceCache
       }
       return buf.toString();
     }
+    protected int getWeight (String path, String source) {
+      return source.length();
+    }
     protected String getResourcePath (String path) {
       return path;
     }
@@ -254,6 +257,12 @@ public class ShaderCache extends ResourceCache
     "vert", ARBVertexShader.GL_VERTEX_SHADER_ARB,
     "frag", ARBFragmentShader.GL_FRAGMENT_SHADER_ARB);
 
+  /** The maximum number of compiled shaders to retain. */
+  protected static final long SHADER_CACHE_SIZE = 1024;
+
+  /** The maximum total length of the shader sources to retain. */
+  protected static final long SOURCE_CACHE_SIZE = 1024 * 1024;
+
   /** Whether or not we should check the logs even if the shader compiles/links successfully. */
   protected static final boolean CHECK_LOGS = true;
 }
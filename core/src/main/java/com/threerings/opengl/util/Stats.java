@@ -27,9 +27,12 @@ package com.threerings.opengl.util;
 
 import java.awt.Font;
 
+import com.threerings.expr.DynamicScope;
+
 import com.threerings.opengl.compositor.Compositor;
 import com.threerings.opengl.gui.text.CharacterTextFactory;
 import com.threerings.opengl.gui.text.Text;
+import com.threerings.opengl.model.Articulated;
 import com.threerings.opengl.renderer.Color4f;
 import com.threerings.opengl.renderer.Renderer;
 
@@ -65,10 +68,18 @@ public class Stats extends SimpleOverlay
     long now = System.currentTimeMillis(), interval = now - _lastUpdate;
     if (interval >= REPORT_INTERVAL) {
       int fps = (int)((_frameCount * 1000) / interval);
+      int skupdates = Articulated.getSkeletonUpdateCount() / _frameCount;
+      int skticks = Articulated.getSkeletonTickCount() / _frameCount;
+      Articulated.resetStats();
+      int supdates = DynamicScope.getUpdateCount() / _frameCount;
+      int scoalesced = DynamicScope.getCoalescedUpdateCount() / _frameCount;
+      DynamicScope.resetStats();
       Renderer renderer = _ctx.getRenderer();
       _stats = _textFactory.createText(
         fps + " fps (" + "b: " + renderer.getBatchCount() + "; " + "p: " +
         renderer.getPrimitiveCount() + "; tc: " + renderer.getTextureChangeCount() +
+        "; sc: " + renderer.getStateChangeCount() +
+        "; sk: " + skupdates + "/" + skticks + "; su: " + supdates + "/" + scoalesced +
         ") [bo: " + renderer.getBufferObjectCount() + "/" +
         renderer.getBufferObjectBytes()/1024 + "k, tx: " + renderer.getTextureCount() +
         "/" + renderer.getTextureBytes()/1024 + "k]",
@@ -30,18 +30,18 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.Queue;
 import java.util.SortedMap;
 
+import java.util.concurrent.ConcurrentLinkedQueue;
+
 import com.google.common.base.Objects;
 import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
-import com.google.common.collect.Sets;
 import com.google.common.collect.TreeBasedTable;
 
-import com.samskivert.util.ArrayUtil;
 import com.samskivert.util.HashIntMap;
 import com.samskivert.util.IntMap.IntEntry;
 
@@ -65,6 +65,8 @@ import com.threerings.math.Ray3D;
 import com.threerings.math.Transform3D;
 import com.threerings.math.Vector2f;
 import com.threerings.math.Vector3f;
+import com.threerings.util.PersistentIntMap;
+import com.threerings.util.WorkerPool;
 
 import com.threerings.opengl.GlView;
 import com.threerings.opengl.camera.OrbitCameraHandler;
@@ -76,6 +78,7 @@ import com.threerings.opengl.model.Model;
 import com.threerings.opengl.model.config.CompoundConfig.ComponentModel;
 import com.threerings.opengl.model.config.MergedStaticConfig;
 import com.threerings.opengl.model.config.ModelConfig;
+import com.threerings.opengl.model.config.StaticConfig;
 import com.threerings.opengl.scene.HashScene;
 import com.threerings.opengl.scene.SceneElement;
 import com.threerings.opengl.scene.ViewerEffect;
@@ -230,7 +233,7 @@ public class TudeySceneView extends DynamicScope
 
     // insert the baseline (empty) update record
     _records.add(new UpdateRecord(
-      0, RunAnywhere.currentTimeMillis(), new HashIntMap<Actor>()));
+      0, RunAnywhere.currentTimeMillis(), PersistentIntMap.<Actor>empty()));
   }
 
   /**
@@ -409,8 +412,8 @@ public class TudeySceneView extends DynamicScope
 
     // init merged sprites
     _suppressMergeUpdates = false;
-    for (Sprite sprite : _mergedSprites.values()) {
-      sprite.getModel().getConfig().wasUpdated();
+    for (MergedSprite sprite : _mergedSprites.values()) {
+      sprite.mergeNow();
     }
   }
 
@@ -470,59 +473,27 @@ public class TudeySceneView extends DynamicScope
   }
 
   /**
-   * Attempts to merge a static model.
+   * Attempts to merge a static model.  The merged model will include the new component after
+   * the cell is next merged (in the background, once loading has finished).
    *
    * @return a reference to the merged model, or <code>null</code> if the model cannot be merged.
    */
   public Model maybeMerge (
     int x, int y, ConfigReference<ModelConfig> ref,
-    Transform3D transform, final int floorFlags)
+    Transform3D transform, int floorFlags)
   {
     int granularity = getMergeGranularity();
     Coord key = new Coord(x >> granularity, y >> granularity);
-    Sprite sprite = _mergedSprites.get(key);
-    Model model;
+    MergedSprite sprite = _mergedSprites.get(key);
     if (sprite == null) {
-      final Model fmodel = model = new Model(_ctx) {
-        @Override protected void updateFromConfig () {
-          if (!_suppressMergeUpdates) {
-            super.updateFromConfig();
-          }
-        }
-      };
-      _mergedSprites.put(key, sprite = new Sprite(_ctx, this) {
-        @Override public int getFloorFlags () {
-          return floorFlags;
-        }
-        @Override public Model getModel () {
-          return fmodel;
-        }
-      });
-      model.setUserObject(sprite);
-      model.setConfig(new ModelConfig(new MergedStaticConfig(
-        new ComponentModel[] { new ComponentModel(ref, transform) })) { {
-          _cfgmgr = _configs = _ctx.getConfigManager();
-        }
-        @Override protected void maybeFireOnConfigManager () {
-          // no-op
-        }
-        @Override protected void addUpdateDependencies () {
-          // no-op
-        }
-      });
-      _scene.add(model);
+      _mergedSprites.put(key, sprite = new MergedSprite(floorFlags));
+      _scene.add(sprite.getModel());
 
-    } else {
-      if (sprite.getFloorFlags() != floorFlags) {
-        return null;
-      }
-      model = sprite.getModel();
-      ModelConfig mconfig = model.getConfig();
-      MergedStaticConfig impl = (MergedStaticConfig)mconfig.implementation;
-      impl.models = ArrayUtil.append(impl.models, new ComponentModel(ref, transform));
-      mconfig.wasUpdated();
+    } else if (sprite.getFloorFlags() != floorFlags) {
+      return null;
     }
-    return model;
+    sprite.add(new ComponentModel(ref, transform));
+    return sprite.getModel();
   }
 
   /**
@@ -538,30 +509,18 @@ public class TudeySceneView extends DynamicScope
     }
     int granularity = getMergeGranularity();
     Coord key = new Coord(x >> granularity, y >> granularity);
-    Sprite sprite = _mergedSprites.get(key);
-    if (sprite == null) {
+    MergedSprite sprite = _mergedSprites.get(key);
+    if (sprite == null || !sprite.remove(ref, transform)) {
       return false;
     }
-    Model model = sprite.getModel();
-    ModelConfig mconfig = sprite.getModel().getConfig();
-    MergedStaticConfig impl = (MergedStaticConfig)mconfig.implementation;
-    for (int ii = 0; ii < impl.models.length; ii++) {
-      ComponentModel cmodel = impl.models[ii];
-      if (Objects.equal(cmodel.model, ref) && cmodel.transform.equals(transform)) {
-        if (impl.models.length == 1) {
-          _scene.remove(model);
-          _mergedSprites.remove(key);
-          if (_loadingMerged != null) {
-            _loadingMerged.remove(sprite);
-          }
-        } else {
-          impl.models = ArrayUtil.splice(impl.models, ii, 1);
-          mconfig.wasUpdated();
-        }
-        return true;
+    if (sprite.isEmpty()) {
+      _scene.remove(sprite.getModel());
+      _mergedSprites.remove(key);
+      if (_loadingMerged != null) {
+        _loadingMerged.remove(sprite);
       }
     }
-    return false;
+    return true;
   }
 
   /**
@@ -776,18 +735,18 @@ public class TudeySceneView extends DynamicScope
     if (!pruneRecords(event.getReference())) {
       return false;
     }
-    HashIntMap<Actor> oactors = _records.get(0).getActors();
-    // start with all the old actors
-    HashIntMap<Actor> actors = oactors.clone();
-    Set<Integer> uids = Sets.newHashSet();
+    PersistentIntMap<Actor> oactors = _records.get(0).getActors();
+    // start with all the old actors (sharing structure with the reference record, so that
+    // unchanged actors cost nothing; any actor not identical to its reference state is updated)
+    PersistentIntMap<Actor> actors = oactors;
 
     // add any new actors
     Actor[] added = event.getAddedActors();
     if (added != null) {
       for (Actor actor : added) {
         actor.init(_ctx.getConfigManager());
-        Actor oactor = actors.put(actor.getId(), actor);
-        uids.add(actor.getId());
+        Actor oactor = actors.get(actor.getId());
+        actors = actors.with(actor.getId(), actor);
         if (oactor != null) {
           log.warning("Replacing existing actor.", "oactor", oactor, "nactor", actor);
         }
@@ -803,8 +762,7 @@ public class TudeySceneView extends DynamicScope
         if (oactor != null) {
           Actor nactor = (Actor)delta.apply(oactor);
           nactor.init(_ctx.getConfigManager());
-          actors.put(id, nactor);
-          uids.add(id);
+          actors = actors.with(id, nactor);
         } else {
           log.warning("Missing actor for delta.", "delta", delta);
         }
@@ -815,7 +773,7 @@ public class TudeySceneView extends DynamicScope
     int[] removed = event.getRemovedActorIds();
     if (removed != null) {
       for (int id : removed) {
-        actors.remove(id);
+        actors = actors.without(id);
       }
     }
 
@@ -827,23 +785,23 @@ public class TudeySceneView extends DynamicScope
       ((TudeySceneModel)_ctx.getSceneDirector().getScene().getSceneModel()).getPreloads(
         _preloads = new PreloadableSet(_ctx));
       ConfigManager cfgmgr = _ctx.getConfigManager();
-      for (Actor actor : actors.values()) {
+      for (Actor actor : actors) {
         actor.getPreloads(cfgmgr, _preloads);
       }
-      _loadingActors = actors.clone();
+      _loadingActors = copyActors(actors);
       addExtraPreloads();
       return true;
     }
 
     // update loading actors, create/update the sprites for actors in the set
-    for (Actor actor : actors.values()) {
+    for (Actor actor : actors) {
       int id = actor.getId();
       ActorSprite sprite = _actorSprites.get(id);
       if (sprite != null) {
         if (_ctrl.isControlledId(id)) {
           _ctrl.controlledActorUpdated(timestamp, actor);
         } else {
-          sprite.update(timestamp, actor, uids.contains(id));
+          sprite.update(timestamp, actor, oactors.get(id) != actor);
         }
 
       } else if (_loadingActors != null && _loadingActors.containsKey(id)) {
@@ -881,7 +839,11 @@ public class TudeySceneView extends DynamicScope
 
     // same deal with loading actors
     if (_loadingActors != null) {
-      _loadingActors.keySet().retainAll(actors.keySet());
+      for (Iterator<Actor> it = _loadingActors.values().iterator(); it.hasNext(); ) {
+        if (!actors.containsKey(it.next().getId())) {
+          it.remove();
+        }
+      }
     }
 
     // create handlers for any effects fired since the last update
@@ -1055,6 +1017,8 @@ public class TudeySceneView extends DynamicScope
     _entrySprites.clear();
     _actorSprites.clear();
     _mergedSprites.clear();
+    _dirtyMerged.clear();
+    _completedMerges.clear();
   }
 
   // documentation inherited from interface Tickable
@@ -1082,6 +1046,11 @@ public class TudeySceneView extends DynamicScope
       }
     }
 
+    // start and complete merges of changed cells
+    if (!_suppressMergeUpdates) {
+      updateMerges(Long.MAX_VALUE);
+    }
+
     // update the smoothed time, if possible
     if (_smoother != null) {
       _smoothedTime = _smoother.getTime();
@@ -1461,10 +1430,11 @@ public class TudeySceneView extends DynamicScope
       _loadingMerged = Lists.newArrayList(_mergedSprites.values());
       _suppressMergeUpdates = false;
     }
-    long end = System.currentTimeMillis() + BATCH_LOAD_DURATION;
-    for (int ii = _loadingMerged.size() - 1;
-        ii >= 0 && System.currentTimeMillis() < end; ii--) {
-      _loadingMerged.remove(ii).getModel().getConfig().wasUpdated();
+    updateMerges(System.currentTimeMillis() + BATCH_LOAD_DURATION);
+    for (int ii = _loadingMerged.size() - 1; ii >= 0; ii--) {
+      if (_loadingMerged.get(ii).isMerged()) {
+        _loadingMerged.remove(ii);
+      }
     }
     int size = _loadingMerged.size();
     if (size == 0) {
@@ -1473,6 +1443,29 @@ public class TudeySceneView extends DynamicScope
     return 1f - (float)size / _mergedSprites.size();
   }
 
+  /**
+   * Installs the results of completed merges and starts merging the cells that have changed
+   * since their last merge.
+   *
+   * @param end the time at which to stop starting and completing merges.
+   */
+  protected void updateMerges (long end)
+  {
+    for (MergedSprite sprite; System.currentTimeMillis() < end &&
+        (sprite = _completedMerges.poll()) != null; ) {
+      sprite.finishMerge();
+    }
+    for (int ii = _dirtyMerged.size() - 1; ii >= 0 && System.currentTimeMillis() < end; ii--) {
+      MergedSprite sprite = _dirtyMerged.get(ii);
+      if (!sprite.isDirty() || sprite.isEmpty()) {
+        _dirtyMerged.remove(ii);
+      } else if (!sprite.isMerging()) {
+        _dirtyMerged.remove(ii);
+        sprite.startMerge();
+      }
+    }
+  }
+
   /**
    * Creates a batch of actor sprites as part of the loading process.
    *
@@ -1483,9 +1476,8 @@ public class TudeySceneView extends DynamicScope
     if (_loadingActors != null && _loadingActors.isEmpty()) {
       return 1f;
     }
-    HashIntMap<Actor> actors = _records.get(_records.size() - 1).getActors();
     if (_loadingActors == null) {
-      _loadingActors = actors.clone();
+      _loadingActors = copyActors(_records.get(_records.size() - 1).getActors());
     }
     long end = System.currentTimeMillis() + BATCH_LOAD_DURATION;
     for (Iterator<Actor> it = _loadingActors.values().iterator();
@@ -1607,6 +1599,18 @@ public class TudeySceneView extends DynamicScope
     // nothing by default
   }
 
+  /**
+   * Creates a mutable copy of the supplied actor map.
+   */
+  protected static HashIntMap<Actor> copyActors (PersistentIntMap<Actor> actors)
+  {
+    HashIntMap<Actor> copy = new HashIntMap<Actor>();
+    for (Actor actor : actors) {
+      copy.put(actor.getId(), actor);
+    }
+    return copy;
+  }
+
   /**
    * Prunes all records before the supplied reference time, if found.
    *
@@ -1679,6 +1683,251 @@ public class TudeySceneView extends DynamicScope
     }
   }
 
+  /**
+   * The sprite for a cell of merged static models.  Changes to the component models are
+   * accumulated and merged in a single pass on a worker thread, after which the merged result
+   * replaces the model's implementation on the main thread.
+   */
+  protected class MergedSprite extends Sprite
+  {
+    /**
+     * Creates a new merged sprite.
+     */
+    public MergedSprite (int floorFlags)
+    {
+      super(TudeySceneView.this._ctx, TudeySceneView.this);
+      _floorFlags = floorFlags;
+      _model.setUserObject(this);
+      _model.setConfig(new ModelConfig(_impl) { {
+          _cfgmgr = _configs = _ctx.getConfigManager();
+        }
+        @Override protected void maybeFireOnConfigManager () {
+          // no-op
+        }
+        @Override protected void addUpdateDependencies () {
+          // no-op
+        }
+      });
+    }
+
+    /**
+     * Adds a component model to the cell.
+     */
+    public void add (ComponentModel cmodel)
+    {
+      _components.add(cmodel);
+      invalidate();
+    }
+
+    /**
+     * Removes a component model from the cell.
+     *
+     * @return whether or not the model was found and removed.
+     */
+    public boolean remove (ConfigReference<ModelConfig> ref, Transform3D transform)
+    {
+      for (int ii = 0, nn = _components.size(); ii < nn; ii++) {
+        ComponentModel cmodel = _components.get(ii);
+        if (Objects.equal(cmodel.model, ref) && cmodel.transform.equals(transform)) {
+          _components.remove(ii);
+          invalidate();
+          return true;
+        }
+      }
+      return false;
+    }
+
+    /**
+     * Checks whether the cell is empty (in which case it has been or will be removed).
+     */
+    public boolean isEmpty ()
+    {
+      return _components.isEmpty();
+    }
+
+    /**
+     * Checks whether the cell has changed since it was last merged.
+     */
+    public boolean isDirty ()
+    {
+      return _dirty;
+    }
+
+    /**
+     * Checks whether the cell is currently being merged.
+     */
+    public boolean isMerging ()
+    {
+      return _merge != null;
+    }
+
+    /**
+     * Checks whether the merged model reflects the current components.
+     */
+    public boolean isMerged ()
+    {
+      return !(_dirty || isMerging());
+    }
+
+    /**
+     * Merges the current components on the main thread.
+     */
+    public void mergeNow ()
+    {
+      _impl.models = getComponentArray();
+      _dirty = false;
+      _appliedVersion = _version;
+      _model.getConfig().wasUpdated();
+    }
+
+    /**
+     * Resolves the current components and starts merging their geometry on a worker thread.
+     */
+    public void startMerge ()
+    {
+      _impl.models = getComponentArray();
+      final MergedStaticConfig.Merge merge = _merge = _impl.prepareMerge(_ctx);
+      _dirty = false;
+      _mergeVersion = _version;
+      WorkerPool.getExecutor().execute(new Runnable() {
+        public void run () {
+          try {
+            merge.run();
+          } catch (Exception e) {
+            log.warning("Failed to merge static models.", "models", _impl.models.length, e);
+          }
+          _completedMerges.add(MergedSprite.this);
+        }
+      });
+    }
+
+    /**
+     * Installs the result of the merge started by {@link #startMerge}, unless it is older than
+     * the current result.  If the merge failed, it is retried once; if it fails again, the cell
+     * keeps its current model until its components change.
+     */
+    public void finishMerge ()
+    {
+      StaticConfig.Resolved resolved = _merge.getResolved();
+      _merge = null;
+      if (resolved == null) {
+        if (_failedVersion != _mergeVersion) {
+          _failedVersion = _mergeVersion;
+          markDirty();
+        } else {
+          log.warning("Giving up on merging static models.", "models", _impl.models.length);
+        }
+        return;
+      }
+      if (isEmpty() || _mergeVersion <= _appliedVersion) {
+        return;
+      }
+      _appliedVersion = _mergeVersion;
+      _impl.setResolved(resolved);
+      _model.updateNow();
+    }
+
+    @Override
+    public int getFloorFlags ()
+    {
+      return _floorFlags;
+    }
+
+    @Override
+    public Model getModel ()
+    {
+      return _model;
+    }
+
+    /**
+     * Notes that the components have changed and queues the cell for merging.
+     */
+    protected void invalidate ()
+    {
+      _version++;
+      markDirty();
+    }
+
+    /**
+     * Flags the cell as needing a merge and queues it, if it isn't already.
+     */
+    protected void markDirty ()
+    {
+      if (!_dirty) {
+        _dirty = true;
+        _dirtyMerged.add(this);
+      }
+    }
+
+    /**
+     * Returns the current components as an array.
+     */
+    protected ComponentModel[] getComponentArray ()
+    {
+      return _components.toArray(new ComponentModel[_components.size()]);
+    }
+
+    /** The floor flags of the merged models. */
+    protected int _floorFlags;
+
+    /** The component models. */
+    protected List<ComponentModel> _components = Lists.newArrayList();
+
+    /** The merged model implementation. */
+    protected MergedStaticConfig _impl = new MergedStaticConfig();
+
+    /** The merged model. */
+    protected MergedModel _model = new MergedModel();
+
+    /** The merge in progress, if any. */
+    protected MergedStaticConfig.Merge _merge;
+
+    /** Incremented whenever the components change. */
+    protected int _version;
+
+    /** The component version of the merge in progress. */
+    protected int _mergeVersion;
+
+    /** The component version of the installed merge result. */
+    protected int _appliedVersion;
+
+    /** The component version of the last failed merge. */
+    protected int _failedVersion = -1;
+
+    /** Set when the components have changed since the last merge was started. */
+    protected boolean _dirty;
+  }
+
+  /**
+   * The model of a merged sprite, whose updates are suppressed while loading.
+   */
+  protected class MergedModel extends Model
+  {
+    /**
+     * Creates a new merged model.
+     */
+    public MergedModel ()
+    {
+      super(TudeySceneView.this._ctx);
+    }
+
+    /**
+     * Updates the model from its config even if merge updates are suppressed.
+     */
+    public void updateNow ()
+    {
+      super.updateFromConfig();
+    }
+
+    @Override
+    protected void updateFromConfig ()
+    {
+      if (!_suppressMergeUpdates) {
+        super.updateFromConfig();
+      }
+    }
+  }
+
   /**
    * Contains the state at a single update.
    */
@@ -1687,7 +1936,7 @@ public class TudeySceneView extends DynamicScope
     /**
      * Creates a new update record.
      */
-    public UpdateRecord (int timestamp, long received, HashIntMap<Actor> actors)
+    public UpdateRecord (int timestamp, long received, PersistentIntMap<Actor> actors)
     {
       _timestamp = timestamp;
       _received = received;
@@ -1713,7 +1962,7 @@ public class TudeySceneView extends DynamicScope
     /**
      * Returns the map of actors.
      */
-    public HashIntMap<Actor> getActors ()
+    public PersistentIntMap<Actor> getActors ()
     {
       return _actors;
     }
@@ -1725,7 +1974,7 @@ public class TudeySceneView extends DynamicScope
     protected long _received;
 
     /** The states of the actors. */
-    protected HashIntMap<Actor> _actors;
+    protected PersistentIntMap<Actor> _actors;
   }
 
   /**
@@ -1784,7 +2033,7 @@ public class TudeySceneView extends DynamicScope
   protected List<Entry> _loadingEntries;
 
   /** The remaining merged sprites to be initialized during loading. */
-  protected List<Sprite> _loadingMerged;
+  protected List<MergedSprite> _loadingMerged;
 
   /** The remaining actors to add during loading. */
   protected HashIntMap<Actor> _loadingActors;
@@ -1839,7 +2088,13 @@ public class TudeySceneView extends DynamicScope
   protected List<TickParticipant> _tickParticipants = Lists.newArrayList();
 
   /** Sprites for merged static models mapped by coordinates. */
-  protected Map<Coord, Sprite> _mergedSprites = Maps.newHashMap();
+  protected Map<Coord, MergedSprite> _mergedSprites = Maps.newHashMap();
+
+  /** Merged sprites whose components have changed since their last merge. */
+  protected List<MergedSprite> _dirtyMerged = Lists.newArrayList();
+
+  /** Merged sprites whose merges have completed on worker threads. */
+  protected Queue<MergedSprite> _completedMerges = new ConcurrentLinkedQueue<MergedSprite>();
 
   /** When set, indicates that we should hold off on updating merged sprites. */
   protected boolean _suppressMergeUpdates;
@@ -47,6 +47,7 @@ import com.google.common.base.Predicates;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.LinkedListMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Maps;
@@ -2016,8 +2017,7 @@ public class TudeySceneModel extends SceneModel
     out.write("name", name, "");
     out.write("version", version, 1);
     out.write("auxModels", auxModels, new AuxModel[0], AuxModel[].class);
-    out.write("entries", _entries.values().toArray(new Entry[_entries.size()]),
-      new Entry[0], Entry[].class);
+    out.write("entries", getExportEntries(), new Entry[0], Entry[].class);
     if (_exportLayers) {
       int layerCount = _layers.size();
       out.write("layers", _layers.toArray(new String[layerCount]),
@@ -2116,11 +2116,19 @@ public class TudeySceneModel extends SceneModel
   {
     // read the binary representation
     byte[] data = new byte[in.readInt()];
-    in.read(data);
+    in.readFully(data);
 
-    // decode and copy its fields into this one
+    // decode and take over its state (the decoded model is discarded, so there's no need to
+    // copy anything)
     TudeySceneModel nmodel = (TudeySceneModel)ExportUtil.fromBytes(data);
-    DeepUtil.copy(nmodel, this);
+    sceneId = nmodel.sceneId;
+    name = nmodel.name;
+    version = nmodel.version;
+    auxModels = nmodel.auxModels;
+    _notes = nmodel._notes;
+    _placeConfig = nmodel._placeConfig;
+    _cfgmgr = nmodel._cfgmgr;
+    _lastEntryId = nmodel._lastEntryId;
     _tiles = nmodel._tiles;
     _tileConfigs = nmodel._tileConfigs;
     _tileConfigIds = nmodel._tileConfigIds;
@@ -2136,6 +2144,27 @@ public class TudeySceneModel extends SceneModel
     _data = new SoftReference<byte[]>(data);
   }
 
+  /**
+   * Returns the entries in the order in which they should be exported: grouped by config
+   * reference, so that entries sharing a reference (and thus most of their exported
+   * representation) are adjacent in the compressed stream.
+   */
+  protected Entry[] getExportEntries ()
+  {
+    ListMultimap<ConfigReference<?>, Entry> grouped = LinkedListMultimap.create();
+    for (Entry entry : _entries.values()) {
+      grouped.put(entry.getReference(), entry);
+    }
+    Entry[] entries = new Entry[_entries.size()];
+    int idx = 0;
+    for (ConfigReference<?> ref : grouped.keySet()) {
+      for (Entry entry : grouped.get(ref)) {
+        entries[idx++] = entry;
+      }
+    }
+    return entries;
+  }
+
   /**
    * Returns the cached exported binary representation of the model.
    */
@@ -40,8 +40,6 @@ import com.threerings.export.BinaryImporter;
 
 import com.threerings.tudey.data.TudeySceneModel;
 
-import static com.threerings.tudey.Log.log;
-
 /**
  * Validates the references in a set of scenes.
  */
@@ -50,56 +48,46 @@ public class SceneValidatorTask extends AbstractValidatorTask
   @Override
   protected boolean validate (ConfigManager cfgmgr, Iterable<File> files, Validator validator)
   {
-    boolean valid = true;
+    return validateFiles(cfgmgr, files, validator);
+  }
 
+  @Override
+  protected boolean validateFile (ConfigManager cfgmgr, File source, Validator validator)
+    throws Exception
+  {
+    final long maxSize = getMaxUncompressedSize(source);
     final CountingInputStream[] counter = new CountingInputStream[1];
-    for (File source : files) {
-      try {
-        final long maxSize = getMaxUncompressedSize(source);
-        TudeySceneModel model = (TudeySceneModel)new BinaryImporter(new FileInputStream(source)) {
-          @Override protected Object newInstance (Class<?> clazz, Object outer) {
-            return SceneValidatorTask.this.newInstance(clazz, outer);
-          }
-          @Override protected InputStream createInflaterStream () {
-            InputStream base = super.createInflaterStream();
-            return maxSize == Long.MAX_VALUE ? base : (counter[0] = new CountingInputStream(base));
-          }
-        }.readObject();
-        try {
-          if (counter[0] != null && counter[0].getCount() > maxSize) {
-            valid = false;
-            validator.output("Uncompressed size too large " + source + ": " +
-              "(" + counter[0].getCount() + " > " + maxSize + ")");
-            continue;
-          }
-        } finally {
-          counter[0] = null;
-        }
-        validator.pushWhere("Scene: " + source);
-        try {
-          valid &= checkModel(cfgmgr, validator, model);
-        } finally {
-          validator.popWhere();
-        }
-
-      } catch (Exception e) { // IOException, ClassCastException
-        log.warning("Failed to read scene.", "file", source, e);
-        valid = false;
+    TudeySceneModel model = (TudeySceneModel)new BinaryImporter(new FileInputStream(source)) {
+      @Override protected Object newInstance (Class<?> clazz, Object outer) {
+        return SceneValidatorTask.this.newInstance(clazz, outer);
+      }
+      @Override protected InputStream createInflaterStream () {
+        InputStream base = super.createInflaterStream();
+        return maxSize == Long.MAX_VALUE ? base : (counter[0] = new CountingInputStream(base));
       }
+    }.readObject();
+    if (counter[0] != null && counter[0].getCount() > maxSize) {
+      validator.output("Uncompressed size too large " + source + ": " +
+        "(" + counter[0].getCount() + " > " + maxSize + ")");
+      return false;
+    }
+    validator.pushWhere("Scene: " + source);
+    try {
+      return checkModel(cfgmgr, validator, model);
+    } finally {
+      validator.popWhere();
     }
-
-    return valid;
   }
 
   /**
-   * Get the maximum uncompressed size of a scene data file.
+   * Get the maximum uncompressed size of a scene data file.  Called on a worker thread.
    */
   protected long getMaxUncompressedSize (File file) {
     return Long.MAX_VALUE;
   }
 
   /**
-   * Do any further model checking.
+   * Do any further model checking.  Called on a worker thread.
    */
   protected boolean checkModel (ConfigManager cfgmgr, Validator validator, TudeySceneModel model)
   {
@@ -108,7 +96,7 @@ public class SceneValidatorTask extends AbstractValidatorTask
   }
 
   /**
-   * We defer importer newInstance to here.
+   * We defer importer newInstance to here.  Called on a worker thread.
    */
   protected Object newInstance (Class<?> clazz, Object outer)
   {
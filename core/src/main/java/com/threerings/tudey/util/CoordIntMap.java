@@ -35,9 +35,11 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Set;
 
+import com.samskivert.util.ArrayUtil;
 import com.samskivert.util.IntListUtil;
 
 import com.threerings.export.Exportable;
+import com.threerings.export.Exporter;
 import com.threerings.export.Importer;
 import com.threerings.util.DeepObject;
 
@@ -540,13 +542,27 @@ public class CoordIntMap extends AbstractMap<Coord, Integer>
       return _size;
     }
 
+    /**
+     * Custom field write method.
+     */
+    public void writeFields (Exporter out)
+      throws IOException
+    {
+      out.write("runs", encodeRuns(), ArrayUtil.EMPTY_INT);
+    }
+
     /**
      * Custom field read method.
      */
     public void readFields (Importer in)
       throws IOException
     {
-      in.defaultReadFields();
+      int[] runs = in.read("runs", (int[])null);
+      if (runs == null) {
+        in.defaultReadFields(); // older exports store the raw values
+      } else {
+        decodeRuns(runs);
+      }
 
       // compute the size
       for (int value : _values) {
@@ -556,6 +572,44 @@ public class CoordIntMap extends AbstractMap<Coord, Integer>
       }
     }
 
+    /**
+     * Encodes the cell values as (length, value) pairs, omitting any trailing run of empty
+     * values.  Cells are usually either sparse or filled with large areas of the same tile, so
+     * this is much smaller than the raw array.
+     */
+    protected int[] encodeRuns ()
+    {
+      int[] runs = new int[_values.length * 2];
+      int count = 0;
+      for (int ii = 0; ii < _values.length; ) {
+        int value = _values[ii], end = ii + 1;
+        while (end < _values.length && _values[end] == value) {
+          end++;
+        }
+        if (end == _values.length && value == _empty) {
+          break;
+        }
+        runs[count++] = end - ii;
+        runs[count++] = value;
+        ii = end;
+      }
+      return Arrays.copyOf(runs, count);
+    }
+
+    /**
+     * Decodes the values encoded by {@link #encodeRuns}.
+     */
+    protected void decodeRuns (int[] runs)
+    {
+      int idx = 0;
+      for (int ii = 0; ii < runs.length; ii += 2) {
+        int end = Math.min(idx + runs[ii], _values.length);
+        Arrays.fill(_values, idx, end, runs[ii + 1]);
+        idx = end;
+      }
+      Arrays.fill(_values, idx, _values.length, _empty);
+    }
+
     /** The values in the cell. */
     protected int[] _values;
 
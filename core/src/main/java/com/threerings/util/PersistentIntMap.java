@@ -0,0 +1,327 @@
+//
+// $Id$
+//
+// Clyde library - tools for developing networked games
+// Copyright (C) 2005-2012 Three Rings Design, Inc.
+// http://code.google.com/p/clyde/
+//
+// Redistribution and use in source and binary forms, with or without modification, are permitted
+// provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this list of
+//    conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+//    conditions and the following disclaimer in the documentation and/or other materials provided
+//    with the distribution.
+//
+// THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR IMPLIED WARRANTIES,
+// INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+// PARTICULAR PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT,
+// INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+// TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+// LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package com.threerings.util;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * An immutable map from integer keys to values, implemented as a hash array mapped trie.  Adding
+ * or removing a mapping creates a new map that shares all but the modified path (at most seven
+ * nodes) with the original, so that a series of versions of a large map can be maintained at a
+ * cost proportional to the number of changes between them.
+ */
+public class PersistentIntMap<V>
+  implements Iterable<V>
+{
+  /**
+   * Returns the empty map.
+   */
+  public static <V> PersistentIntMap<V> empty ()
+  {
+    @SuppressWarnings("unchecked") PersistentIntMap<V> map = (PersistentIntMap<V>)EMPTY;
+    return map;
+  }
+
+  /**
+   * Returns the number of mappings in the map.
+   */
+  public int size ()
+  {
+    return _size;
+  }
+
+  /**
+   * Checks whether the map is empty.
+   */
+  public boolean isEmpty ()
+  {
+    return _size == 0;
+  }
+
+  /**
+   * Checks whether the map contains a mapping for the specified key.
+   */
+  public boolean containsKey (int key)
+  {
+    return getEntry(key) != null;
+  }
+
+  /**
+   * Returns the value mapped to the specified key, or <code>null</code> if none.
+   */
+  public V get (int key)
+  {
+    Entry entry = getEntry(key);
+    @SuppressWarnings("unchecked") V value = (entry == null) ? null : (V)entry.value;
+    return value;
+  }
+
+  /**
+   * Returns a map containing the mappings in this one, plus a mapping from the specified key to
+   * the specified value (replacing any existing mapping).
+   */
+  public PersistentIntMap<V> with (int key, V value)
+  {
+    if (_root == null) {
+      return new PersistentIntMap<V>(
+        new Node(1 << (key & MASK), new Object[] { new Entry(key, value) }), 1);
+    }
+    Entry entry = getEntry(key);
+    if (entry != null && entry.value == value) {
+      return this;
+    }
+    return new PersistentIntMap<V>(with(_root, 0, key, value), _size + (entry == null ? 1 : 0));
+  }
+
+  /**
+   * Returns a map containing the mappings in this one, minus any mapping for the specified key.
+   */
+  public PersistentIntMap<V> without (int key)
+  {
+    if (getEntry(key) == null) {
+      return this;
+    }
+    Node root = (Node)without(_root, 0, key);
+    return (root == null) ? PersistentIntMap.<V>empty() : new PersistentIntMap<V>(root, _size - 1);
+  }
+
+  /**
+   * Returns an iterator over the values in the map (in order of their keys' low bits).
+   */
+  public Iterator<V> iterator ()
+  {
+    return new Iterator<V>() {
+      public boolean hasNext () {
+        return _remaining > 0;
+      }
+      public V next () {
+        if (_remaining == 0) {
+          throw new NoSuchElementException();
+        }
+        while (true) {
+          Node node = _nodes[_depth];
+          int idx = _indices[_depth];
+          if (idx == node.slots.length) {
+            _depth--;
+            continue;
+          }
+          _indices[_depth] = idx + 1;
+          Object slot = node.slots[idx];
+          if (slot instanceof Node) {
+            _nodes[++_depth] = (Node)slot;
+            _indices[_depth] = 0;
+            continue;
+          }
+          _remaining--;
+          @SuppressWarnings("unchecked") V value = (V)((Entry)slot).value;
+          return value;
+        }
+      }
+      public void remove () {
+        throw new UnsupportedOperationException();
+      }
+      protected Node[] _nodes = new Node[MAX_DEPTH];
+      protected int[] _indices = new int[MAX_DEPTH];
+      protected int _depth;
+      protected int _remaining = _size;
+      { _nodes[0] = _root; }
+    };
+  }
+
+  @Override
+  public String toString ()
+  {
+    StringBuilder buf = new StringBuilder("[");
+    for (V value : this) {
+      if (buf.length() > 1) {
+        buf.append(", ");
+      }
+      buf.append(value);
+    }
+    return buf.append("]").toString();
+  }
+
+  /**
+   * Creates a new map with the supplied root.
+   */
+  protected PersistentIntMap (Node root, int size)
+  {
+    _root = root;
+    _size = size;
+  }
+
+  /**
+   * Finds the entry for the specified key, if any.
+   */
+  protected Entry getEntry (int key)
+  {
+    Node node = _root;
+    for (int shift = 0; node != null; shift += BITS) {
+      int bit = 1 << ((key >>> shift) & MASK);
+      if ((node.bitmap & bit) == 0) {
+        return null;
+      }
+      Object slot = node.slots[Integer.bitCount(node.bitmap & (bit - 1))];
+      if (slot instanceof Node) {
+        node = (Node)slot;
+      } else {
+        Entry entry = (Entry)slot;
+        return (entry.key == key) ? entry : null;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns a copy of the specified node with the supplied mapping added or replaced.
+   */
+  protected static Node with (Node node, int shift, int key, Object value)
+  {
+    int bit = 1 << ((key >>> shift) & MASK);
+    int idx = Integer.bitCount(node.bitmap & (bit - 1));
+    Object[] slots = node.slots;
+    if ((node.bitmap & bit) == 0) {
+      Object[] nslots = new Object[slots.length + 1];
+      System.arraycopy(slots, 0, nslots, 0, idx);
+      nslots[idx] = new Entry(key, value);
+      System.arraycopy(slots, idx, nslots, idx + 1, slots.length - idx);
+      return new Node(node.bitmap | bit, nslots);
+    }
+    Object slot = slots[idx];
+    Object nslot;
+    if (slot instanceof Node) {
+      nslot = with((Node)slot, shift + BITS, key, value);
+    } else {
+      Entry entry = (Entry)slot;
+      nslot = (entry.key == key) ? new Entry(key, value) :
+        createNode(shift + BITS, entry, new Entry(key, value));
+    }
+    Object[] nslots = slots.clone();
+    nslots[idx] = nslot;
+    return new Node(node.bitmap, nslots);
+  }
+
+  /**
+   * Returns a copy of the specified node with the mapping for the supplied key removed.
+   *
+   * @return the new node, a lone entry to be pulled up into the parent, or <code>null</code> if
+   * the node is now empty.
+   */
+  protected static Object without (Node node, int shift, int key)
+  {
+    int bit = 1 << ((key >>> shift) & MASK);
+    int idx = Integer.bitCount(node.bitmap & (bit - 1));
+    Object[] slots = node.slots;
+    Object slot = slots[idx];
+    Object nslot = (slot instanceof Node) ? without((Node)slot, shift + BITS, key) : null;
+    if (nslot == null) {
+      if (slots.length == 1) {
+        return null;
+      }
+      if (slots.length == 2 && shift > 0 && slots[1 - idx] instanceof Entry) {
+        return slots[1 - idx];
+      }
+      Object[] nslots = new Object[slots.length - 1];
+      System.arraycopy(slots, 0, nslots, 0, idx);
+      System.arraycopy(slots, idx + 1, nslots, idx, nslots.length - idx);
+      return new Node(node.bitmap & ~bit, nslots);
+    }
+    if (slots.length == 1 && shift > 0 && nslot instanceof Entry) {
+      return nslot;
+    }
+    Object[] nslots = slots.clone();
+    nslots[idx] = nslot;
+    return new Node(node.bitmap, nslots);
+  }
+
+  /**
+   * Creates a node containing two entries whose keys agree in all bits below the given shift.
+   */
+  protected static Node createNode (int shift, Entry e1, Entry e2)
+  {
+    int i1 = (e1.key >>> shift) & MASK, i2 = (e2.key >>> shift) & MASK;
+    if (i1 == i2) {
+      return new Node(1 << i1, new Object[] { createNode(shift + BITS, e1, e2) });
+    }
+    return new Node((1 << i1) | (1 << i2),
+      (i1 < i2) ? new Object[] { e1, e2 } : new Object[] { e2, e1 });
+  }
+
+  /**
+   * An interior node of the trie.
+   */
+  protected static final class Node
+  {
+    /** Identifies which of the node's possible slots are occupied. */
+    public final int bitmap;
+
+    /** The occupied slots, each containing a {@link Node} or an {@link Entry}. */
+    public final Object[] slots;
+
+    public Node (int bitmap, Object[] slots)
+    {
+      this.bitmap = bitmap;
+      this.slots = slots;
+    }
+  }
+
+  /**
+   * A single mapping.
+   */
+  protected static final class Entry
+  {
+    /** The key of the mapping. */
+    public final int key;
+
+    /** The value of the mapping. */
+    public final Object value;
+
+    public Entry (int key, Object value)
+    {
+      this.key = key;
+      this.value = value;
+    }
+  }
+
+  /** The root node, or null if the map is empty. */
+  protected final Node _root;
+
+  /** The number of mappings in the map. */
+  protected final int _size;
+
+  /** The number of key bits consumed at each level of the trie. */
+  protected static final int BITS = 5;
+
+  /** Masks out the key bits for a single level. */
+  protected static final int MASK = (1 << BITS) - 1;
+
+  /** The maximum depth of the trie. */
+  protected static final int MAX_DEPTH = (32 + BITS - 1) / BITS;
+
+  /** The shared empty map. */
+  protected static final PersistentIntMap<Object> EMPTY = new PersistentIntMap<Object>(null, 0);
+}
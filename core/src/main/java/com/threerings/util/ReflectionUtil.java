@@ -29,7 +29,9 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
 
-import java.util.HashMap;
+import java.util.Map;
+
+import com.google.common.collect.Maps;
 
 import static com.threerings.ClydeLog.log;
 
@@ -211,12 +213,11 @@ public class ReflectionUtil
   }
 
   /** Maps inner classes to their outer class reference fields. */
-  protected static HashMap<Class<?>, Field> _outers = new HashMap<Class<?>, Field>();
+  protected static Map<Class<?>, Field> _outers = Maps.newConcurrentMap();
 
   /** Maps classes to their outer classes, or to {@link Void} if they are not inner classes. */
-  protected static HashMap<Class<?>, Class<?>> _oclasses = new HashMap<Class<?>, Class<?>>();
+  protected static Map<Class<?>, Class<?>> _oclasses = Maps.newConcurrentMap();
 
   /** Maps classes to their default constructors. */
-  protected static HashMap<Class<?>, Constructor<?>> _ctors =
-      new HashMap<Class<?>, Constructor<?>>();
+  protected static Map<Class<?>, Constructor<?>> _ctors = Maps.newConcurrentMap();
 }
@@ -0,0 +1,225 @@
+//
+// $Id$
+//
+// Clyde library - tools for developing networked games
+// Copyright (C) 2005-2012 Three Rings Design, Inc.
+// http://code.google.com/p/clyde/
+//
+// Redistribution and use in source and binary forms, with or without modification, are permitted
+// provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this list of
+//    conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+//    conditions and the following disclaimer in the documentation and/or other materials provided
+//    with the distribution.
+//
+// THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR IMPLIED WARRANTIES,
+// INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+// PARTICULAR PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT,
+// INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+// TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+// LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package com.threerings.config;
+
+import java.lang.invoke.MethodHandle;
+
+import java.util.ArrayList;
+
+import com.google.common.collect.Lists;
+
+import junit.framework.TestCase;
+
+import com.threerings.editor.Editable;
+import com.threerings.editor.InvalidPathsException;
+import com.threerings.editor.PathProperty;
+import com.threerings.util.DeepObject;
+
+/**
+ * Checks that applying arguments through the compiled path setters has the same effect as
+ * applying them reflectively.
+ */
+public class ParameterizedConfigTest extends TestCase
+{
+  public ParameterizedConfigTest (String name)
+  {
+    super(name);
+  }
+
+  public void testApplyArguments ()
+    throws Exception
+  {
+    TestConfig base = createConfig();
+    ArgumentMap args = new ArgumentMap(
+      "count", 5, "size", 2.5f, "weight", 7f, "name", "z", "value", 3, "speed", 1.5f);
+
+    TestConfig compiled = new TestConfig(), reflective = new TestConfig();
+    base.applyArguments(compiled, args);
+    makeReflective(base);
+    base.applyArguments(reflective, args);
+
+    assertEquals(reflective, compiled);
+    assertEquals(5, compiled.count);
+    assertEquals(2.5f, compiled.size);
+    assertEquals("2.5", compiled.label);
+    assertEquals(7f, compiled.weights[1]);
+    assertEquals("z", compiled.names.get(0));
+    assertEquals(3, compiled.inner.value);
+    assertEquals(1.5f, compiled.getSpeed());
+  }
+
+  public void testBadArguments ()
+    throws Exception
+  {
+    TestConfig base = createConfig();
+    PathProperty compiled = new PathProperty(null, "count", base, "count");
+    PathProperty reflective = new ReflectivePathProperty("count", base, "count");
+
+    // fields reject values of the wrong type with an IllegalArgumentException
+    for (PathProperty prop : new PathProperty[] { compiled, reflective }) {
+      try {
+        prop.set(new TestConfig(), "five");
+        fail();
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+      try {
+        prop.set(new TestConfig(), null);
+        fail();
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+    }
+
+    // setter methods log the failure
+    compiled = new PathProperty(null, "speed", base, "speed");
+    reflective = new ReflectivePathProperty("speed", base, "speed");
+    for (PathProperty prop : new PathProperty[] { compiled, reflective }) {
+      TestConfig config = new TestConfig();
+      prop.set(config, "fast");
+      assertEquals(0f, config.getSpeed());
+    }
+
+    // null intermediate objects cause NullPointerExceptions
+    compiled = new PathProperty(null, "value", base, "inner.value");
+    reflective = new ReflectivePathProperty("value", base, "inner.value");
+    for (PathProperty prop : new PathProperty[] { compiled, reflective }) {
+      TestConfig config = new TestConfig();
+      config.inner = null;
+      try {
+        prop.set(config, 1);
+        fail();
+      } catch (NullPointerException e) {
+        // expected
+      }
+    }
+  }
+
+  /**
+   * Creates the reference config with its parameters.
+   */
+  protected static TestConfig createConfig ()
+  {
+    TestConfig config = new TestConfig();
+    config.parameters = new Parameter[] {
+      createParameter("count", "count"),
+      createParameter("size", "size", "label"),
+      createParameter("weight", "weights[1]"),
+      createParameter("name", "names[0]"),
+      createParameter("value", "inner.value"),
+      createParameter("speed", "speed") };
+    return config;
+  }
+
+  /**
+   * Creates a direct parameter.
+   */
+  protected static Parameter createParameter (String name, String... paths)
+  {
+    Parameter.Direct param = new Parameter.Direct();
+    param.name = name;
+    param.paths = paths;
+    return param;
+  }
+
+  /**
+   * Replaces the properties of the supplied config's parameters with ones that apply their
+   * values reflectively.
+   */
+  protected static void makeReflective (TestConfig config)
+    throws InvalidPathsException
+  {
+    for (Parameter param : config.parameters) {
+      param._property = new ReflectivePathProperty(
+        param.name, config, ((Parameter.Direct)param).paths);
+    }
+  }
+
+  /**
+   * A path property that never compiles its setters.
+   */
+  protected static class ReflectivePathProperty extends PathProperty
+  {
+    public ReflectivePathProperty (String name, Object reference, String... paths)
+      throws InvalidPathsException
+    {
+      super(null, name, reference, paths);
+    }
+
+    @Override
+    protected MethodHandle[] compileSetters ()
+    {
+      return new MethodHandle[_paths.length];
+    }
+  }
+
+  /**
+   * A config with properties of various kinds.
+   */
+  public static class TestConfig extends ParameterizedConfig
+  {
+    @Editable
+    public int count;
+
+    @Editable
+    public float size;
+
+    @Editable
+    public String label = "";
+
+    @Editable
+    public float[] weights = { 1f, 2f, 3f };
+
+    @Editable
+    public ArrayList<String> names = Lists.newArrayList("a", "b");
+
+    @Editable
+    public Inner inner = new Inner();
+
+    @Editable
+    public void setSpeed (float speed)
+    {
+      _speed = speed;
+    }
+
+    @Editable
+    public float getSpeed ()
+    {
+      return _speed;
+    }
+
+    protected float _speed;
+  }
+
+  /**
+   * An object nested within the test config.
+   */
+  public static class Inner extends DeepObject
+  {
+    @Editable
+    public int value;
+  }
+}
@@ -0,0 +1,161 @@
+//
+// $Id$
+//
+// Clyde library - tools for developing networked games
+// Copyright (C) 2005-2012 Three Rings Design, Inc.
+// http://code.google.com/p/clyde/
+//
+// Redistribution and use in source and binary forms, with or without modification, are permitted
+// provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this list of
+//    conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+//    conditions and the following disclaimer in the documentation and/or other materials provided
+//    with the distribution.
+//
+// THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR IMPLIED WARRANTIES,
+// INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+// PARTICULAR PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT,
+// INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+// TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+// LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package com.threerings.config.dist.data;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import com.threerings.config.ManagedConfig;
+import com.threerings.editor.Editable;
+
+/**
+ * Tests the creation, transmission and application of {@link ConfigDelta}s.
+ */
+public class ConfigDeltaTest extends TestCase
+{
+  public ConfigDeltaTest (String name)
+  {
+    super(name);
+  }
+
+  public void testApply ()
+  {
+    TestConfig original = createConfig();
+    TestConfig revised = (TestConfig)original.clone();
+    revised.value = 2;
+    revised.label = "revised";
+    revised.setComment("changed");
+
+    ConfigDelta delta = ConfigDelta.createDelta(original, revised);
+    assertFalse(delta.isEmpty());
+    assertEquals(Arrays.asList("value", "label"), Arrays.asList(delta._names));
+    assertTrue(delta.getSize() < new ConfigEntry(revised).getSize() / 10);
+
+    // apply the transmitted delta to a copy of the original
+    TestConfig target = (TestConfig)original.clone();
+    assertTrue(transmit(delta).apply(target));
+    assertEquals(revised, target);
+    assertEquals("changed", target.getComment());
+
+    // the delta can be applied more than once without sharing values between the targets
+    revised.values[0] = -1;
+    TestConfig other = (TestConfig)original.clone();
+    ConfigDelta vdelta = ConfigDelta.createDelta(original, revised);
+    assertTrue(vdelta.apply(target));
+    assertTrue(vdelta.apply(other));
+    assertNotSame(target.values, other.values);
+    assertTrue(Arrays.equals(revised.values, other.values));
+  }
+
+  public void testEmpty ()
+  {
+    TestConfig original = createConfig();
+    ConfigDelta delta = ConfigDelta.createDelta(original, (TestConfig)original.clone());
+    assertTrue(delta.isEmpty());
+    assertTrue(transmit(delta).isEmpty());
+
+    // configs of different classes can't be compared
+    assertNull(ConfigDelta.createDelta(original, new OtherConfig()));
+  }
+
+  public void testEntries ()
+  {
+    TestConfig original = createConfig();
+    TestConfig revised = (TestConfig)original.clone();
+    revised.label = "revised";
+
+    ConfigEntry oentry = new ConfigEntry(original), nentry = new ConfigEntry(revised);
+    ConfigEntry delta = ConfigEntry.createDelta(oentry, nentry);
+    assertNotNull(delta);
+    assertNull(delta.getConfig());
+    assertTrue(delta.getSize() < nentry.getSize());
+
+    // reconstructing the complete entry from the previous one yields the revised entry
+    ConfigEntry rentry = ConfigEntry.applyDelta(oentry, delta);
+    assertNull(rentry.getDelta());
+    assertEquals(revised, rentry.getConfig());
+    assertEquals(nentry, rentry);
+
+    // the previous entry is unaffected
+    assertEquals(original, oentry.getConfig());
+
+    // deltas can't be applied to deltas
+    assertNull(ConfigEntry.applyDelta(delta, delta));
+  }
+
+  /**
+   * Simulates the transmission of a delta by copying its streamed fields to a new instance.
+   */
+  protected static ConfigDelta transmit (ConfigDelta delta)
+  {
+    ConfigDelta received = new ConfigDelta();
+    received._names = delta._names.clone();
+    received._comment = delta._comment;
+    received._bytes = delta._bytes.clone();
+    received.decodeValues();
+    return received;
+  }
+
+  /**
+   * Creates a config with a large array, so that deltas are worth transmitting.
+   */
+  protected static TestConfig createConfig ()
+  {
+    TestConfig config = new TestConfig();
+    config.setName("test");
+    config.values = new int[1024];
+    for (int ii = 0; ii < config.values.length; ii++) {
+      config.values[ii] = ii;
+    }
+    return config;
+  }
+
+  /**
+   * A config with a few fields.
+   */
+  public static class TestConfig extends ManagedConfig
+  {
+    /** A simple value. */
+    @Editable
+    public int value = 1;
+
+    /** A label. */
+    @Editable
+    public String label = "original";
+
+    /** A large array. */
+    @Editable
+    public int[] values;
+  }
+
+  /**
+   * Another config class.
+   */
+  public static class OtherConfig extends ManagedConfig
+  {
+  }
+}
@@ -0,0 +1,124 @@
+//
+// $Id$
+
+package com.threerings.config.tools;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.util.Map;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Maps;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+
+import com.threerings.config.ConfigGroup;
+import com.threerings.tudey.config.BehaviorConfig;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the incremental builds of the {@link ConfigFlattener}.
+ */
+public class ConfigFlattenerTest extends TestCase
+{
+  public ConfigFlattenerTest (String name)
+  {
+    super(name);
+  }
+
+  public void testCacheStamp ()
+    throws IOException
+  {
+    File file = new File(Files.createTempDir(), "cache");
+    ConfigFlattener.BuildCache cache = new ConfigFlattener.BuildCache(".dat", false, "stamp");
+    ConfigFlattener.GroupEntry entry = new ConfigFlattener.GroupEntry("FooConfig");
+    entry.hash = "hash";
+    entry.output = true;
+    entry.args.add("BarConfig");
+    entry.resources.put("foo/model.dat", "rhash");
+    cache.groups.put(entry.cname, entry);
+    cache.write(file);
+
+    ConfigFlattener.BuildCache read = ConfigFlattener.BuildCache.read(file, ".dat", false, "stamp");
+    assertNotNull(read);
+    ConfigFlattener.GroupEntry rentry = read.groups.get("FooConfig");
+    assertEquals("hash", rentry.hash);
+    assertTrue(rentry.output);
+    assertEquals(entry.args, rentry.args);
+    assertEquals(entry.resources, rentry.resources);
+
+    // a cache built with different classes or for a different format is discarded
+    assertNull(ConfigFlattener.BuildCache.read(file, ".dat", false, "other"));
+    assertNull(ConfigFlattener.BuildCache.read(file, ".xml", true, "stamp"));
+  }
+
+  public void testIncremental ()
+    throws Exception
+  {
+    File root = Files.createTempDir();
+    File src = new File(root, "rsrc");
+    copyTree(new File(ConfigFlattenerTest.class.getResource("/rsrc").toURI()), src);
+    File inc = new File(root, "inc"), cache = new File(root, "cache");
+    inc.mkdir();
+
+    // without a cache, everything is built
+    Map<String, String> full = build(src, new File(root, "full1"), null);
+    assertEquals(full, build(src, inc, cache));
+
+    // after a change to one group, the incremental output should match a full build
+    File queues = new File(src, "config/render_queue.xml");
+    Files.write(Files.toString(queues, Charsets.UTF_8).replace(
+      "<priority>200</priority>", "<priority>300</priority>"), queues, Charsets.UTF_8);
+    Map<String, String> nfull = build(src, new File(root, "full2"), null);
+    assertFalse(full.equals(nfull));
+    assertEquals(nfull, build(src, inc, cache));
+
+    // output left by a group that is now stripped entirely should be removed
+    File props = new File(src, "config/manager.properties");
+    Files.write(Files.toString(props, Charsets.UTF_8).replace(
+      "global.classes = ", "global.classes = " + BehaviorConfig.class.getName() + ", \\\n  "),
+      props, Charsets.UTF_8);
+    String stale = ConfigGroup.getName(BehaviorConfig.class) + ".dat";
+    Files.write(new byte[] { 1 }, new File(inc, stale));
+    nfull = build(src, new File(root, "full3"), null);
+    assertFalse(nfull.containsKey(stale));
+    assertEquals(nfull, build(src, inc, cache));
+  }
+
+  /**
+   * Builds the configs in the source directory and returns the hashes of the output files,
+   * mapped by name.
+   *
+   * @param cache the incremental build cache, or null for a full build.
+   */
+  protected static Map<String, String> build (File src, File out, File cache)
+    throws IOException
+  {
+    out.mkdir();
+    new ConfigFlattener().flattenAndStrip(src.getPath(), out.getPath(), ".dat", false, cache);
+    Map<String, String> hashes = Maps.newTreeMap();
+    for (File file : out.listFiles()) {
+      hashes.put(file.getName(), Files.hash(file, Hashing.md5()).toString());
+    }
+    return hashes;
+  }
+
+  /**
+   * Copies the contents of one directory into another.
+   */
+  protected static void copyTree (File from, File to)
+    throws IOException
+  {
+    to.mkdirs();
+    for (File file : from.listFiles()) {
+      File dest = new File(to, file.getName());
+      if (file.isDirectory()) {
+        copyTree(file, dest);
+      } else {
+        Files.copy(file, dest);
+      }
+    }
+  }
+}
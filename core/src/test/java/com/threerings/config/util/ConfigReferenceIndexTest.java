@@ -0,0 +1,139 @@
+//
+// $Id$
+//
+// Clyde library - tools for developing networked games
+// Copyright (C) 2005-2012 Three Rings Design, Inc.
+// http://code.google.com/p/clyde/
+//
+// Redistribution and use in source and binary forms, with or without modification, are permitted
+// provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this list of
+//    conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+//    conditions and the following disclaimer in the documentation and/or other materials provided
+//    with the distribution.
+//
+// THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR IMPLIED WARRANTIES,
+// INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+// PARTICULAR PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT,
+// INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+// TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+// LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package com.threerings.config.util;
+
+import java.io.File;
+
+import java.util.HashMap;
+
+import com.google.common.collect.ImmutableSet;
+
+import junit.framework.TestCase;
+
+import com.threerings.config.ConfigGroup;
+import com.threerings.config.ConfigManager;
+import com.threerings.config.ConfigReference;
+import com.threerings.config.ManagedConfig;
+
+import com.threerings.editor.Editable;
+
+/**
+ * Tests the incremental maintenance of the {@link ConfigReferenceIndex}.
+ */
+public class ConfigReferenceIndexTest extends TestCase
+{
+  public ConfigReferenceIndexTest (String name)
+  {
+    super(name);
+  }
+
+  public void testIndex ()
+    throws Exception
+  {
+    TestManager cfgmgr = new TestManager();
+    ConfigGroup<TestConfig> group = cfgmgr.getGroup(TestConfig.class);
+    TestConfig a = createConfig("a", "b", "a.png");
+    group.addConfig(a);
+    group.addConfig(createConfig("b", null, null));
+
+    ConfigReferenceIndex index = new ConfigReferenceIndex(cfgmgr);
+    index.init();
+    assertEquals(ImmutableSet.of(id("a")), index.getReferrers(TestConfig.class, "b"));
+    assertEquals(ImmutableSet.of(id("a")), index.getResourceReferrers("a.png"));
+
+    // updates, additions and removals are reflected incrementally
+    a.ref = new ConfigReference<TestConfig>("c");
+    a.wasUpdated();
+    assertTrue(index.getReferrers(TestConfig.class, "b").isEmpty());
+    assertEquals(ImmutableSet.of(id("a")), index.getReferrers(TestConfig.class, "c"));
+    assertEquals(ImmutableSet.of(id("c")), index.getDanglingReferences().keySet());
+
+    group.addConfig(createConfig("c", "b", null));
+    assertEquals(ImmutableSet.of(id("c")), index.getReferrers(TestConfig.class, "b"));
+    assertEquals(ImmutableSet.of(id("a"), id("c")), index.getPrefixReferrers(TestConfig.class, ""));
+    assertTrue(index.getDanglingReferences().isEmpty());
+
+    group.removeConfig(a);
+    assertTrue(index.getReferrers(TestConfig.class, "c").isEmpty());
+    assertTrue(index.getResourceReferrers("a.png").isEmpty());
+
+    // the stored index reads back the same entries
+    File file = File.createTempFile("references", ".dat");
+    try {
+      index.write(file);
+      ConfigReferenceIndex read = new ConfigReferenceIndex(cfgmgr);
+      assertTrue(read.read(file));
+      assertEquals(ImmutableSet.of(id("c")), read.getReferrers(TestConfig.class, "b"));
+      assertEquals(ImmutableSet.of(id("b")), read.getReferences(TestConfig.class, "c"));
+    } finally {
+      file.delete();
+    }
+    index.detach();
+  }
+
+  protected static TestConfig createConfig (String name, String ref, String path)
+  {
+    TestConfig config = new TestConfig();
+    config.setName(name);
+    config.ref = (ref == null) ? null : new ConfigReference<TestConfig>(ref);
+    config.path = path;
+    return config;
+  }
+
+  protected static ConfigId id (String name)
+  {
+    return new ConfigId(TestConfig.class, name);
+  }
+
+  /**
+   * A config that refers to other configs and to a resource.
+   */
+  public static class TestConfig extends ManagedConfig
+  {
+    /** A reference to another config. */
+    @Editable(nullable=true)
+    public ConfigReference<TestConfig> ref;
+
+    /** A resource path. */
+    @Editable(editor="resource", nullable=true)
+    public String path;
+  }
+
+  /**
+   * A manager containing a single group of test configs.
+   */
+  protected static class TestManager extends ConfigManager
+  {
+    public TestManager ()
+    {
+      _classes = new HashMap<String, Class<?>[]>();
+      _classes.put("resource", new Class<?>[0]);
+      registerGroup(TestConfig.class, new Consumer<Exception>() {
+        public void accept (Exception e) {} // do nothing
+      });
+    }
+  }
+}
@@ -0,0 +1,196 @@
+//
+// $Id$
+//
+// Clyde library - tools for developing networked games
+// Copyright (C) 2005-2012 Three Rings Design, Inc.
+// http://code.google.com/p/clyde/
+//
+// Redistribution and use in source and binary forms, with or without modification, are permitted
+// provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this list of
+//    conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+//    conditions and the following disclaimer in the documentation and/or other materials provided
+//    with the distribution.
+//
+// THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR IMPLIED WARRANTIES,
+// INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+// PARTICULAR PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT,
+// INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+// TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+// LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package com.threerings.editor.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.io.Files;
+
+import junit.framework.TestCase;
+
+import com.threerings.config.ConfigGroup;
+import com.threerings.config.ConfigManager;
+import com.threerings.config.ConfigReference;
+import com.threerings.config.DerivedConfig;
+import com.threerings.config.ManagedConfig;
+
+/**
+ * Tests the {@link BatchValidator}.
+ */
+public class BatchValidatorTest extends TestCase
+{
+  public void testOrderAndCache ()
+    throws IOException
+  {
+    File dir = Files.createTempDir();
+    List<File> files = Lists.newArrayList();
+    for (int ii = 0; ii < 20; ii++) {
+      File file = new File(dir, "file" + ii);
+      Files.write(ii % 3 == 0 ? "bad" : "good", file, Charsets.UTF_8);
+      files.add(file);
+    }
+    BatchValidator.ResultCache cache = new BatchValidator.ResultCache("stamp");
+    TestValidator batch = new TestValidator(cache);
+    String output = validate(batch, files, false);
+    assertEquals(20, batch.validated.get());
+
+    // the output should follow the order of the files
+    StringBuilder expected = new StringBuilder();
+    for (int ii = 0; ii < 20; ii += 3) {
+      expected.append(files.get(ii).getName()).append(" bad\n");
+    }
+    assertEquals(expected.toString(), output.replace(System.lineSeparator(), "\n"));
+
+    // a second pass through a cache read back from disk should validate nothing
+    File cfile = new File(dir, "cache");
+    cache.write(cfile);
+    batch = new TestValidator(BatchValidator.ResultCache.read(cfile, "stamp"));
+    assertEquals(output, validate(batch, files, false));
+    assertEquals(0, batch.validated.get());
+
+    // changing a file should revalidate just that file
+    Files.write("good", files.get(0), Charsets.UTF_8);
+    batch = new TestValidator(BatchValidator.ResultCache.read(cfile, "stamp"));
+    validate(batch, files, false);
+    assertEquals(1, batch.validated.get());
+
+    // a different stamp should discard the cache
+    batch = new TestValidator(BatchValidator.ResultCache.read(cfile, "other"));
+    validate(batch, files, false);
+    assertEquals(20, batch.validated.get());
+  }
+
+  public void testSharedDerivedConfig ()
+    throws IOException
+  {
+    final TestManager cfgmgr = new TestManager();
+    ConfigGroup<TestConfig> group = cfgmgr.getGroup(TestConfig.class);
+    TestConfig base = new TestConfig();
+    base.setName("base");
+    group.addConfig(base);
+    DerivedConfig derived = new DerivedConfig();
+    derived.setName("derived");
+    derived.base = new ConfigReference<TestConfig>("base");
+    group.addConfig(derived);
+
+    // every file resolves the same derived config from its own worker thread
+    File dir = Files.createTempDir();
+    List<File> files = Lists.newArrayList();
+    for (int ii = 0; ii < 64; ii++) {
+      File file = new File(dir, "file" + ii);
+      Files.write("derived", file, Charsets.UTF_8);
+      files.add(file);
+    }
+    final Set<ManagedConfig> resolved = Sets.newConcurrentHashSet();
+    BatchValidator batch = new BatchValidator() {
+      @Override protected boolean validate (File file, Validator validator)
+          throws Exception {
+        TestConfig config = cfgmgr.getConfig(
+          TestConfig.class, Files.toString(file, Charsets.UTF_8));
+        if (config == null) {
+          return false;
+        }
+        resolved.add(config);
+        return true;
+      }
+    };
+    assertEquals("", validate(batch, files, true));
+
+    // all of the lookups should have shared a single derivation
+    assertEquals(1, resolved.size());
+    ManagedConfig instance = resolved.iterator().next();
+    assertEquals("derived", instance.getName());
+    assertSame(instance, cfgmgr.getConfig(TestConfig.class, "derived"));
+  }
+
+  protected static String validate (BatchValidator batch, List<File> files, boolean valid)
+  {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    PrintStream out = new PrintStream(bytes, true);
+    assertEquals(valid, batch.validate(files, out));
+    return bytes.toString();
+  }
+
+  protected static class TestValidator extends BatchValidator
+  {
+    public final AtomicInteger validated = new AtomicInteger();
+
+    public TestValidator (ResultCache cache)
+    {
+      super(cache);
+    }
+
+    @Override
+    protected boolean validate (File file, Validator validator)
+      throws Exception
+    {
+      validated.incrementAndGet();
+      if (Files.toString(file, Charsets.UTF_8).equals("good")) {
+        return true;
+      }
+      validator.pushWhere(file.getName());
+      try {
+        validator.output("bad");
+      } finally {
+        validator.popWhere();
+      }
+      return false;
+    }
+  }
+
+  /**
+   * A simple config for the derivation test.
+   */
+  public static class TestConfig extends ManagedConfig
+  {
+  }
+
+  /**
+   * A manager containing a single group of test configs.
+   */
+  protected static class TestManager extends ConfigManager
+  {
+    public TestManager ()
+    {
+      _classes = new HashMap<String, Class<?>[]>();
+      _classes.put("resource", new Class<?>[0]);
+      registerGroup(TestConfig.class, new Consumer<Exception>() {
+        public void accept (Exception e) {} // do nothing
+      });
+    }
+  }
+}
@@ -0,0 +1,95 @@
+//
+// $Id$
+
+package com.threerings.export;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.lwjgl.BufferUtils;
+
+import com.google.common.io.ByteStreams;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests reading exports through the stream and buffer importers and the compression codecs.
+ */
+public class BinaryImporterTest extends TestCase
+{
+  public BinaryImporterTest (String name)
+  {
+    super(name);
+  }
+
+  public void testBufferImport ()
+    throws IOException
+  {
+    checkImport(null);
+    checkImport(Codec.DEFLATE);
+    checkImport(Codec.LZ);
+  }
+
+  public void testCodecs ()
+    throws IOException
+  {
+    // a mix of incompressible, repetitive, and run-length data spanning several blocks
+    Random random = new Random(1L);
+    byte[] data = new byte[LZCodec.BLOCK_SIZE * 3 + 1234];
+    for (int ii = 0; ii < data.length; ii++) {
+      int section = (ii / 5000) % 3;
+      data[ii] = (section == 0) ? (byte)random.nextInt() :
+        (section == 1) ? (byte)(ii % 37) : (byte)7;
+    }
+    for (Codec codec : Codec.getCodecs()) {
+      for (int length : new int[] { 0, 1, 4, 19, data.length }) {
+        ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        OutputStream out = codec.createOutputStream(bout);
+        out.write(data, 0, length);
+        codec.finish(out);
+
+        InputStream in = codec.createInputStream(new ByteArrayInputStream(bout.toByteArray()));
+        byte[] result = ByteStreams.toByteArray(in);
+        assertTrue(codec.getName(), Arrays.equals(Arrays.copyOf(data, length), result));
+      }
+    }
+  }
+
+  protected void checkImport (Codec codec)
+    throws IOException
+  {
+    float[] floats = { 0f, 1.5f, -2f, Float.MAX_VALUE };
+    int[] ints = { 0, 1, -1, Integer.MIN_VALUE };
+    FloatBuffer buffer = BufferUtils.createFloatBuffer(3);
+    buffer.put(1f).put(2f).put(3f).rewind();
+    Object[] values = { floats, "test", ints, buffer, Arrays.asList("a", "b") };
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    BinaryExporter exporter = new BinaryExporter(out, codec);
+    exporter.writeObject(values);
+    exporter.close();
+    byte[] bytes = out.toByteArray();
+
+    Object[] streamed = (Object[])new BinaryImporter(
+      new ByteArrayInputStream(bytes)).readObject();
+    Object[] buffered = (Object[])new BinaryImporter(ByteBuffer.wrap(bytes)).readObject();
+    for (Object[] result : new Object[][] { streamed, buffered }) {
+      assertTrue(Arrays.equals(floats, (float[])result[0]));
+      assertEquals("test", result[1]);
+      assertTrue(Arrays.equals(ints, (int[])result[2]));
+      FloatBuffer rbuffer = (FloatBuffer)result[3];
+      assertEquals(0, rbuffer.position());
+      assertEquals(buffer, rbuffer);
+      assertEquals(values[4], result[4]);
+    }
+  }
+}
@@ -0,0 +1,180 @@
+//
+// $Id$
+//
+// Clyde library - tools for developing networked games
+// Copyright (C) 2005-2012 Three Rings Design, Inc.
+// http://code.google.com/p/clyde/
+//
+// Redistribution and use in source and binary forms, with or without modification, are permitted
+// provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this list of
+//    conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+//    conditions and the following disclaimer in the documentation and/or other materials provided
+//    with the distribution.
+//
+// THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR IMPLIED WARRANTIES,
+// INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+// PARTICULAR PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT,
+// INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+// TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+// LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package com.threerings.expr;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicReference;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the batched updates and symbol tables of {@link DynamicScope}.
+ */
+public class DynamicScopeTest extends TestCase
+{
+  public DynamicScopeTest (String name)
+  {
+    super(name);
+  }
+
+  public void testBatchedUpdate ()
+  {
+    DynamicScope root = new DynamicScope("root");
+    DynamicScope middle = new DynamicScope("middle", root);
+    DynamicScope leaf = new DynamicScope("leaf", middle);
+    Counter rcounter = new Counter(root), mcounter = new Counter(middle);
+    Counter lcounter = new Counter(leaf);
+
+    // without a batch, each update is propagated immediately
+    leaf.wasUpdated();
+    middle.wasUpdated();
+    assertEquals(1, mcounter.count);
+    assertEquals(2, lcounter.count);
+
+    // within a batch, the middle update covers the leaf's, and repeated updates merge
+    DynamicScope.resetStats();
+    DynamicScope.startBatchedUpdate();
+    leaf.wasUpdated();
+    middle.wasUpdated();
+    middle.put("value", new MutableFloat());
+    DynamicScope.startBatchedUpdate();
+    leaf.wasUpdated();
+    DynamicScope.endBatchedUpdate();
+    assertEquals(1, mcounter.count);
+    assertEquals(2, lcounter.count);
+    DynamicScope.endBatchedUpdate();
+    assertEquals(0, rcounter.count);
+    assertEquals(2, mcounter.count);
+    assertEquals(3, lcounter.count);
+    assertEquals(2, DynamicScope.getUpdateCount());
+    assertEquals(3, DynamicScope.getCoalescedUpdateCount());
+
+    // reparenting is never deferred, and disposed scopes aren't notified
+    DynamicScope.startBatchedUpdate();
+    leaf.setParentScope(root);
+    assertEquals(4, lcounter.count);
+    middle.wasUpdated();
+    middle.dispose();
+    DynamicScope.endBatchedUpdate();
+    assertEquals(2, mcounter.count);
+    assertEquals(4, lcounter.count);
+  }
+
+  public void testConcurrentLookup ()
+    throws Exception
+  {
+    // a chain of scopes, each mapping a few symbols of its own
+    final DynamicScope[] scopes = new DynamicScope[8];
+    for (int ii = 0; ii < scopes.length; ii++) {
+      scopes[ii] = (ii == 0) ? new DynamicScope("scope0") :
+        new DynamicScope("scope" + ii, scopes[ii - 1]);
+      for (int jj = 0; jj <= ii; jj += 2) {
+        scopes[ii].put("symbol" + jj, new MutableFloat(ii));
+      }
+    }
+    final DynamicScope leaf = scopes[scopes.length - 1];
+
+    // look up the same symbols from several threads at once, starting from empty tables
+    final int nthreads = 4, nsymbols = 16, reps = 500;
+    final CyclicBarrier barrier = new CyclicBarrier(nthreads);
+    final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+    Thread[] threads = new Thread[nthreads];
+    for (int ii = 0; ii < nthreads; ii++) {
+      threads[ii] = new Thread() {
+        @Override public void run () {
+          try {
+            for (int rr = 0; rr < reps; rr++) {
+              int arrival = barrier.await();
+              if (rr % 50 == 0) {
+                // changing the symbols while nothing is looking invalidates the tables below
+                if (arrival == 0) {
+                  if (scopes[0].containsSymbol("symbol1")) {
+                    scopes[0].remove("symbol1");
+                  } else {
+                    scopes[0].put("symbol1", new MutableFloat(rr));
+                  }
+                }
+                barrier.await();
+              }
+              for (int ss = 0; ss < nsymbols; ss++) {
+                assertEquals(expectedScopes(scopes, "symbol" + ss),
+                  Arrays.asList(leaf.getSymbolScopes("symbol" + ss)));
+              }
+            }
+          } catch (Throwable t) {
+            failure.compareAndSet(null, t);
+            barrier.reset();
+          }
+        }
+      };
+      threads[ii].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    if (failure.get() != null) {
+      throw new AssertionError(failure.get());
+    }
+  }
+
+  /**
+   * Returns the scopes in the chain (from the leaf up) that map the named symbol.
+   */
+  protected static List<Scope> expectedScopes (DynamicScope[] scopes, String name)
+  {
+    List<Scope> list = new ArrayList<Scope>();
+    for (int ii = scopes.length - 1; ii >= 0; ii--) {
+      if (scopes[ii].containsSymbol(name)) {
+        list.add(scopes[ii]);
+      }
+    }
+    return list;
+  }
+
+  /**
+   * A child scope that counts its notifications.
+   */
+  protected static class Counter extends SimpleScope
+  {
+    /** The number of notifications received. */
+    public int count;
+
+    public Counter (Scope parentScope)
+    {
+      super(parentScope);
+    }
+
+    @Override
+    public void scopeUpdated (ScopeEvent event)
+    {
+      super.scopeUpdated(event);
+      count++;
+    }
+  }
+}
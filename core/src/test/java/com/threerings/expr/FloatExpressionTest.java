@@ -0,0 +1,114 @@
+//
+// $Id$
+//
+// Clyde library - tools for developing networked games
+// Copyright (C) 2005-2012 Three Rings Design, Inc.
+// http://code.google.com/p/clyde/
+//
+// Redistribution and use in source and binary forms, with or without modification, are permitted
+// provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this list of
+//    conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+//    conditions and the following disclaimer in the documentation and/or other materials provided
+//    with the distribution.
+//
+// THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR IMPLIED WARRANTIES,
+// INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+// PARTICULAR PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT,
+// INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+// TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+// LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package com.threerings.expr;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the compiled {@link FloatExpression} evaluators.
+ */
+public class FloatExpressionTest extends TestCase
+{
+  public FloatExpressionTest (String name)
+  {
+    super(name);
+  }
+
+  public void testCompile ()
+  {
+    String[] expressions = {
+      "1.5", "a", "b", "-(1 + a)", "3 - b", "2 * (1 + a) - 3 / (0.5 + b) + 4 % (1 + a)",
+      "sin(a) * cos(b) + tan(0.1 * a) - exp(0.01 * b)",
+      "pow(2, sin(a)) + square(b) + triangle(a) + ramp(b) + saw(a)",
+      "noise1(a) + noise2(a, b) + (2 * 3 + sin(1)) * (1 + a) + clock()",
+      "1 + 2 * 3 - sin(4) / cos(5)", "((((1 + a) * 2 - 3) / 4 + b) * (1 - (2 - b)))" };
+
+    DynamicScope scope = new DynamicScope("test");
+    MutableFloat a = new MutableFloat();
+    scope.put("a", a);
+    Variable b = Variable.newInstance(0f);
+    scope.put("b", b);
+    scope.put(Scope.NOW, new MutableLong(12345L));
+    scope.put(Scope.EPOCH, new MutableLong(10000L));
+
+    for (String expression : expressions) {
+      FloatExpression.Parsed parsed = new FloatExpression.Parsed();
+      parsed.expression = expression;
+      FloatExpression expr = parsed.getExpression();
+      assertFalse(expression, expr instanceof FloatExpression.Constant &&
+        !expression.equals("1.5"));
+      checkCompiled(expression, expr, scope, a, b);
+    }
+
+    // operations that the parser doesn't produce
+    FloatExpression.Min min = new FloatExpression.Min();
+    min.firstOperand = parse("2 * (1 + a)");
+    min.secondOperand = parse("3 - b");
+    FloatExpression.Max max = new FloatExpression.Max();
+    max.firstOperand = min;
+    max.secondOperand = parse("-1.5");
+    FloatExpression.Abs abs = new FloatExpression.Abs();
+    abs.operand = max;
+    checkCompiled("abs(max(min(...), -1.5))", abs, scope, a, b);
+  }
+
+  public void testFolding ()
+  {
+    FloatExpression.Parsed parsed = new FloatExpression.Parsed();
+    parsed.expression = "1 + 2 * 3 - pow(2, 3) + sin(0.5)";
+    FloatExpression.Evaluator eval = parsed.createEvaluator(new DynamicScope("test"));
+    assertTrue(eval instanceof FloatExpression.ConstantEvaluator);
+    assertEquals(
+      Float.floatToIntBits(parsed.getExpression().createEvaluator(null).evaluate()),
+      Float.floatToIntBits(eval.evaluate()));
+  }
+
+  /**
+   * Checks that the compiled evaluator of the expression matches its tree evaluator.
+   */
+  protected static void checkCompiled (
+    String expression, FloatExpression expr, Scope scope, MutableFloat a, Variable b)
+  {
+    FloatExpression.Evaluator compiled = expr.createCompiledEvaluator(scope);
+    FloatExpression.Evaluator tree = expr.createEvaluator(scope);
+    for (int ii = 0; ii < 20; ii++) {
+      a.value = ii * 0.37f - 3f;
+      b.setFloat(ii * -0.21f + 1f);
+      assertEquals(expression, Float.floatToIntBits(tree.evaluate()),
+        Float.floatToIntBits(compiled.evaluate()));
+    }
+  }
+
+  /**
+   * Parses an expression.
+   */
+  protected static FloatExpression parse (String expression)
+  {
+    FloatExpression.Parsed parsed = new FloatExpression.Parsed();
+    parsed.expression = expression;
+    return parsed.getExpression();
+  }
+}
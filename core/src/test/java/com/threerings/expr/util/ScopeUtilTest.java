@@ -0,0 +1,154 @@
+//
+// $Id$
+//
+// Clyde library - tools for developing networked games
+// Copyright (C) 2005-2012 Three Rings Design, Inc.
+// http://code.google.com/p/clyde/
+//
+// Redistribution and use in source and binary forms, with or without modification, are permitted
+// provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this list of
+//    conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+//    conditions and the following disclaimer in the documentation and/or other materials provided
+//    with the distribution.
+//
+// THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR IMPLIED WARRANTIES,
+// INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+// PARTICULAR PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT,
+// INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+// TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+// LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package com.threerings.expr.util;
+
+import junit.framework.TestCase;
+
+import com.threerings.expr.Bound;
+import com.threerings.expr.DynamicScope;
+import com.threerings.expr.MutableFloat;
+import com.threerings.expr.Scope;
+import com.threerings.expr.Scoped;
+import com.threerings.expr.SimpleScope;
+
+/**
+ * Tests the binding and resolution methods in {@link ScopeUtil}.
+ */
+public class ScopeUtilTest extends TestCase
+{
+  public ScopeUtilTest (String name)
+  {
+    super(name);
+  }
+
+  public void testBinding ()
+  {
+    DynamicScope root = new DynamicScope("root");
+    MutableFloat rootValue = new MutableFloat(1f);
+    root.put("value", rootValue);
+    DynamicScope middle = new DynamicScope("middle", root);
+    Node node = new Node(middle);
+    Leaf leaf = new Leaf(node);
+    assertSame(rootValue, leaf.value);
+    assertSame(rootValue, leaf.rootValue);
+    assertSame(node.scale, leaf.scale);
+    assertNull(leaf.missing);
+
+    // adding a nearer mapping rebinds to that
+    MutableFloat middleValue = new MutableFloat(2f);
+    middle.put("value", middleValue);
+    assertSame(middleValue, leaf.value);
+    assertSame(rootValue, leaf.rootValue);
+
+    // mappings added above the cached symbol tables are found as well
+    MutableFloat missing = new MutableFloat(3f);
+    root.put("missing", missing);
+    assertSame(missing, leaf.missing);
+    assertSame(missing, ScopeUtil.resolve(node, "missing", (MutableFloat)null));
+
+    // as are removals and reparenting
+    middle.remove("value");
+    assertSame(rootValue, leaf.value);
+    DynamicScope other = new DynamicScope("root");
+    middle.setParentScope(other);
+    assertSame(rootValue, leaf.value);
+    assertNull(ScopeUtil.resolve(node, "value", (MutableFloat)null));
+    assertNull(ScopeUtil.resolve(node, "root:missing", (MutableFloat)null));
+  }
+
+  public void testSymbolTables ()
+  {
+    DynamicScope root = new DynamicScope("root");
+    root.put("value", new MutableFloat());
+    final MutableFloat hidden = new MutableFloat();
+    DynamicScope opaque = new DynamicScope("opaque", root) {
+      public <T> T get (String name, Class<T> clazz) {
+        return "hidden".equals(name) ? clazz.cast(hidden) : super.get(name, clazz);
+      }
+    };
+    DynamicScope leaf = new DynamicScope("leaf", new Node(opaque));
+
+    // the node maps its scoped field and "this"; the opaque scope may map anything
+    Scope[] scopes = leaf.getSymbolScopes("scale");
+    assertEquals(2, scopes.length);
+    assertTrue(scopes[0] instanceof Node);
+    assertSame(opaque, scopes[1]);
+    assertEquals(2, leaf.getSymbolScopes("value").length);
+    assertEquals(4, leaf.getSymbolScopes("this").length);
+    assertSame(hidden, ScopeUtil.resolve(leaf, "hidden", (MutableFloat)null));
+
+    // value changes leave the tables alone, symbol changes replace them
+    int stamp = leaf.getSymbolStamp();
+    root.wasUpdated();
+    assertSame(scopes, leaf.getSymbolScopes("scale"));
+    assertEquals(stamp, leaf.getSymbolStamp());
+    root.put("scale", new MutableFloat());
+    assertTrue(stamp != leaf.getSymbolStamp());
+    assertEquals(3, leaf.getSymbolScopes("scale").length);
+  }
+
+  /**
+   * A simple scope with a scoped field.
+   */
+  protected static class Node extends SimpleScope
+  {
+    public Node (Scope parentScope)
+    {
+      super(parentScope);
+    }
+
+    /** A scoped field. */
+    @Scoped
+    protected MutableFloat scale = new MutableFloat(0.5f);
+  }
+
+  /**
+   * An object with bound fields.
+   */
+  protected static class Leaf extends SimpleScope
+  {
+    public Leaf (Scope parentScope)
+    {
+      super(parentScope);
+    }
+
+    /** Bound to the nearest value. */
+    @Bound
+    protected MutableFloat value;
+
+    /** Bound to the value in the root scope. */
+    @Bound("root:value")
+    protected MutableFloat rootValue;
+
+    /** Bound to the node's scoped field. */
+    @Bound
+    protected MutableFloat scale;
+
+    /** Bound to a symbol that may be added later. */
+    @Bound
+    protected MutableFloat missing;
+  }
+}
@@ -0,0 +1,139 @@
+//
+// $Id$
+//
+// Clyde library - tools for developing networked games
+// Copyright (C) 2005-2012 Three Rings Design, Inc.
+// http://code.google.com/p/clyde/
+//
+// Redistribution and use in source and binary forms, with or without modification, are permitted
+// provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this list of
+//    conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+//    conditions and the following disclaimer in the documentation and/or other materials provided
+//    with the distribution.
+//
+// THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR IMPLIED WARRANTIES,
+// INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+// PARTICULAR PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT,
+// INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+// TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+// LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package com.threerings.math;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the {@link Frustum} class.
+ */
+public class FrustumTest extends TestCase
+{
+  public FrustumTest (String name)
+  {
+    super(name);
+  }
+
+  public void testIntersectionType ()
+  {
+    Random random = new Random(1L);
+    for (int ii = 0; ii < 20; ii++) {
+      Frustum frustum = createFrustum(random);
+      for (int jj = 0; jj < 500; jj++) {
+        Box box = createBox(random);
+        assertEquals(getReferenceType(frustum, box), frustum.getIntersectionType(box));
+      }
+    }
+  }
+
+  public void testIntersecting ()
+  {
+    Random random = new Random(2L);
+    int count = 100;
+    Box[] boxes = new Box[count];
+    float[] bounds = new float[count * 6];
+    for (int ii = 0; ii < count; ii++) {
+      Box box = boxes[ii] = createBox(random);
+      Vector3f min = box.getMinimumExtent(), max = box.getMaximumExtent();
+      int idx = ii * 6;
+      bounds[idx] = min.x;
+      bounds[idx + 1] = min.y;
+      bounds[idx + 2] = min.z;
+      bounds[idx + 3] = max.x;
+      bounds[idx + 4] = max.y;
+      bounds[idx + 5] = max.z;
+    }
+    byte[] planes = new byte[count];
+    for (int ii = 0; ii < 20; ii++) {
+      // test twice, so that the second pass starts from the planes found by the first
+      Frustum frustum = createFrustum(random);
+      for (int pass = 0; pass < 2; pass++) {
+        long mask = frustum.getIntersecting(bounds, planes, 36, 64);
+        for (int jj = 0; jj < 64; jj++) {
+          boolean expected =
+            getReferenceType(frustum, boxes[36 + jj]) != Frustum.IntersectionType.NONE;
+          assertEquals(expected, (mask & (1L << jj)) != 0L);
+        }
+      }
+    }
+  }
+
+  /**
+   * Creates a randomly positioned and oriented perspective frustum.
+   */
+  protected static Frustum createFrustum (Random random)
+  {
+    Frustum frustum = new Frustum().setToPerspective(
+      FloatMath.PI / 3f, 4f / 3f, 1f, 50f + random.nextFloat() * 50f);
+    Transform3D transform = new Transform3D(
+      new Vector3f(random.nextFloat() * 20f - 10f, random.nextFloat() * 20f - 10f, 0f),
+      new Quaternion().fromAngles(
+        random.nextFloat() * FloatMath.TWO_PI, random.nextFloat() * FloatMath.TWO_PI,
+        random.nextFloat() * FloatMath.TWO_PI));
+    return frustum.transformLocal(transform);
+  }
+
+  /**
+   * Creates a random box.
+   */
+  protected static Box createBox (Random random)
+  {
+    Vector3f min = new Vector3f(
+      random.nextFloat() * 200f - 100f, random.nextFloat() * 200f - 100f,
+      random.nextFloat() * 200f - 100f);
+    float size = random.nextFloat() * 20f;
+    return new Box(min, min.add(size, size * random.nextFloat(), size));
+  }
+
+  /**
+   * Classifies the box by counting the vertices on the inside of each plane.
+   */
+  protected static Frustum.IntersectionType getReferenceType (Frustum frustum, Box box)
+  {
+    if (!frustum.getBounds().intersects(box)) {
+      return Frustum.IntersectionType.NONE;
+    }
+    int ccount = 0;
+    Vector3f vertex = new Vector3f();
+    for (Plane plane : frustum._planes) {
+      int inside = 0;
+      for (int ii = 0; ii < 8; ii++) {
+        if (plane.getDistance(box.getVertex(ii, vertex)) <= 0f) {
+          inside++;
+        }
+      }
+      if (inside == 0) {
+        return Frustum.IntersectionType.NONE;
+      } else if (inside == 8) {
+        ccount++;
+      }
+    }
+    return (ccount == 6) ? Frustum.IntersectionType.CONTAINS :
+      Frustum.IntersectionType.INTERSECTS;
+  }
+}
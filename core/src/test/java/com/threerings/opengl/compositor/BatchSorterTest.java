@@ -0,0 +1,157 @@
+//
+// $Id$
+//
+// Clyde library - tools for developing networked games
+// Copyright (C) 2005-2012 Three Rings Design, Inc.
+// http://code.google.com/p/clyde/
+//
+// Redistribution and use in source and binary forms, with or without modification, are permitted
+// provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this list of
+//    conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+//    conditions and the following disclaimer in the documentation and/or other materials provided
+//    with the distribution.
+//
+// THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR IMPLIED WARRANTIES,
+// INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+// PARTICULAR PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT,
+// INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+// TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+// LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package com.threerings.opengl.compositor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import junit.framework.TestCase;
+
+import com.threerings.opengl.renderer.Batch;
+import com.threerings.opengl.renderer.Renderer;
+
+import com.threerings.opengl.compositor.config.RenderQueueConfig.SortMode;
+
+/**
+ * Tests the {@link BatchSorter} class.
+ */
+public class BatchSorterTest extends TestCase
+{
+  public BatchSorterTest (String name)
+  {
+    super(name);
+  }
+
+  public void testSort ()
+  {
+    Random random = new Random(1L);
+    BatchSorter sorter = new BatchSorter();
+    for (SortMode mode : SortMode.values()) {
+      if (mode == SortMode.NONE) {
+        continue;
+      }
+      for (int size : new int[] { 2, 10, 47, 48, 500, 3000 }) {
+        List<Batch> batches = createBatches(random, size, 20);
+        sortAndCheck(sorter, batches, mode);
+
+        // sorting again with the same batches reuses the last order
+        sortAndCheck(sorter, Lists.newArrayList(batches), mode);
+
+        // new state keys and depths require reranking and resorting
+        for (Batch batch : batches.subList(0, size / 2)) {
+          batch.key = createKey(random, 40);
+          batch.depth = random.nextFloat();
+        }
+        sortAndCheck(sorter, batches, mode);
+      }
+    }
+  }
+
+  public void testKeyEquivalence ()
+  {
+    // keys that differ only by trailing zeros must be treated as equal
+    List<Batch> batches = Lists.newArrayList();
+    batches.add(createBatch(new int[] { 3, 0 }, 0f));
+    batches.add(createBatch(new int[] { 2 }, 0f));
+    batches.add(createBatch(null, -1f));
+    batches.add(createBatch(new int[] { 3 }, -2f));
+    batches.add(createBatch(new int[] { 0, 0 }, -3f));
+    new BatchSorter().sort(batches, SortMode.BY_STATE);
+    float[] depths = new float[batches.size()];
+    for (int ii = 0; ii < depths.length; ii++) {
+      depths[ii] = batches.get(ii).depth;
+    }
+    assertTrue(Arrays.equals(new float[] { -1f, -3f, 0f, 0f, -2f }, depths));
+  }
+
+  /**
+   * Sorts the batches and verifies that the result is a correctly ordered permutation.
+   */
+  protected static void sortAndCheck (BatchSorter sorter, List<Batch> batches, SortMode mode)
+  {
+    IdentityHashMap<Batch, Boolean> contents = Maps.newIdentityHashMap();
+    for (Batch batch : batches) {
+      contents.put(batch, Boolean.TRUE);
+    }
+    sorter.sort(batches, mode);
+    assertEquals(contents.size(), batches.size());
+    for (Batch batch : batches) {
+      assertTrue(contents.containsKey(batch));
+    }
+    ArrayList<Batch> expected = Lists.newArrayList(batches);
+    mode.sort(expected);
+    for (int ii = 0; ii < batches.size(); ii++) {
+      Batch b1 = batches.get(ii), b2 = expected.get(ii);
+      if (mode == SortMode.BY_STATE) {
+        assertEquals(0, Batch.compareKeys(b1.key, b2.key));
+      }
+      assertEquals(0, Float.compare(b1.depth, b2.depth));
+    }
+  }
+
+  /**
+   * Creates a list of random batches.
+   */
+  protected static List<Batch> createBatches (Random random, int size, int states)
+  {
+    List<Batch> batches = Lists.newArrayList();
+    for (int ii = 0; ii < size; ii++) {
+      batches.add(createBatch(createKey(random, states),
+        (random.nextInt(4) == 0) ? -1f : -random.nextFloat() * 100f));
+    }
+    return batches;
+  }
+
+  /**
+   * Creates a random state key drawn from a limited set.
+   */
+  protected static int[] createKey (Random random, int states)
+  {
+    int state = random.nextInt(states);
+    return (state == 0) ? null : new int[] { state % 3, state / 3, -1, state % 5 };
+  }
+
+  /**
+   * Creates a batch with the specified key and depth.
+   */
+  protected static Batch createBatch (int[] key, float depth)
+  {
+    Batch batch = new Batch() {
+      public boolean draw (Renderer renderer) {
+        return false;
+      }
+    };
+    batch.key = key;
+    batch.depth = depth;
+    return batch;
+  }
+}
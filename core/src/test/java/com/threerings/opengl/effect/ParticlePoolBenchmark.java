@@ -0,0 +1,105 @@
+//
+// $Id$
+//
+// Clyde library - tools for developing networked games
+// Copyright (C) 2005-2012 Three Rings Design, Inc.
+// http://code.google.com/p/clyde/
+//
+// Redistribution and use in source and binary forms, with or without modification, are permitted
+// provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this list of
+//    conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+//    conditions and the following disclaimer in the documentation and/or other materials provided
+//    with the distribution.
+//
+// THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR IMPLIED WARRANTIES,
+// INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+// PARTICULAR PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT,
+// INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+// TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+// LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package com.threerings.opengl.effect;
+
+import com.threerings.math.Box;
+import com.threerings.math.Quaternion;
+import com.threerings.math.Transform3D;
+import com.threerings.math.Vector3f;
+
+import com.threerings.opengl.effect.config.InfluenceConfig;
+
+/**
+ * Times the per-frame column passes of a {@link ParticlePool}: aging, influences, integration,
+ * shared color and size functions, bounds and depth sorting.  Not run as part of the tests;
+ * invoke <code>main</code> directly, optionally with the particle count and the number of
+ * timed frames.
+ */
+public class ParticlePoolBenchmark
+{
+  public static void main (String[] args)
+  {
+    int count = (args.length > 0) ? Integer.parseInt(args[0]) : 100000;
+    int frames = (args.length > 1) ? Integer.parseInt(args[1]) : 20;
+    ParticlePool pool = ParticlePoolTest.createPool(count);
+
+    Influence drag = new InfluenceConfig.LinearDrag().createInfluence(null);
+    Influence wander = new InfluenceConfig.Wander().createInfluence(null);
+    ColorFunction color = new ColorFunction.Linear();
+    FloatFunction size = new FloatFunction.Linear();
+    Transform3D xform = new Transform3D(
+      new Vector3f(0f, 0f, -5f), new Quaternion().fromAngleAxis(0.3f, Vector3f.UNIT_X));
+
+    System.out.println("Particles: " + count + ", minimum time over " + frames + " frames.");
+    time("simulate", pool, count, frames, new Influence[] { drag }, color, size, null);
+    time("simulate with wander", pool, count, frames, new Influence[] { drag, wander },
+      color, size, null);
+    time("simulate and sort", pool, count, frames, new Influence[] { drag }, color, size, xform);
+  }
+
+  /**
+   * Runs a warm-up followed by the timed frames and prints the fastest frame.
+   *
+   * @param xform if non-null, the view transform by which to sort the particles.
+   */
+  protected static void time (
+    String label, ParticlePool pool, int count, int frames, Influence[] influences,
+    ColorFunction color, FloatFunction size, Transform3D xform)
+  {
+    long best = Long.MAX_VALUE;
+    for (int ii = 0; ii < frames * 2; ii++) {
+      long start = System.nanoTime();
+      frame(pool, count, influences, color, size, xform);
+      long time = System.nanoTime() - start;
+      if (ii >= frames) { // the first half warms up the compiler
+        best = Math.min(best, time);
+      }
+    }
+    System.out.printf("  %-24s %8.3f ms%n", label, best / 1000000.0);
+  }
+
+  /**
+   * Simulates a single frame, in the order used by the particle system layers.
+   */
+  protected static void frame (
+    ParticlePool pool, int count, Influence[] influences, ColorFunction color,
+    FloatFunction size, Transform3D xform)
+  {
+    float elapsed = 1f / 60f;
+    pool.age(elapsed * 0.01f, count);
+    for (Influence influence : influences) {
+      influence.tick(elapsed);
+      influence.apply(pool, count);
+    }
+    pool.integrate(elapsed, count);
+    pool.updateColors(color, AlphaMode.TRANSLUCENT, count);
+    pool.updateSizes(size, count);
+    pool.addBounds(0, count, new Box());
+    if (xform != null) {
+      pool.sortByDepth(xform, count);
+    }
+  }
+}
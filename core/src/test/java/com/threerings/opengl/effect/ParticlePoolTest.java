@@ -0,0 +1,179 @@
+//
+// $Id$
+//
+// Clyde library - tools for developing networked games
+// Copyright (C) 2005-2012 Three Rings Design, Inc.
+// http://code.google.com/p/clyde/
+//
+// Redistribution and use in source and binary forms, with or without modification, are permitted
+// provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this list of
+//    conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+//    conditions and the following disclaimer in the documentation and/or other materials provided
+//    with the distribution.
+//
+// THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR IMPLIED WARRANTIES,
+// INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+// PARTICULAR PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT,
+// INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+// TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+// LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package com.threerings.opengl.effect;
+
+import java.util.Random;
+
+import com.threerings.math.Box;
+import com.threerings.math.FloatMath;
+import com.threerings.math.Quaternion;
+import com.threerings.math.Transform3D;
+import com.threerings.math.Vector3f;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the {@link ParticlePool} class.
+ */
+public class ParticlePoolTest extends TestCase
+{
+  public ParticlePoolTest (String name)
+  {
+    super(name);
+  }
+
+  public void testSwap ()
+  {
+    ParticlePool pool = createPool(10);
+    Particle[] particles = pool.getParticles();
+    Particle p3 = particles[3], p7 = particles[7];
+    Vector3f pos3 = p3.getPosition(new Vector3f()), pos7 = p7.getPosition(new Vector3f());
+    int id3 = pool.getIds()[3];
+
+    pool.swap(3, 7);
+    assertSame(p3, particles[7]);
+    assertSame(p7, particles[3]);
+    assertEquals(7, p3.getIndex());
+    assertEquals(3, p7.getIndex());
+    assertEquals(id3, pool.getIds()[7]);
+    assertEquals(pos3, p3.getPosition(new Vector3f()));
+    assertEquals(pos7, p7.getPosition(new Vector3f()));
+  }
+
+  public void testCapacity ()
+  {
+    ParticlePool pool = createPool(10);
+    Vector3f pos = pool.getParticles()[4].getPosition(new Vector3f());
+    pool.setCapacity(20);
+    assertEquals(20, pool.getCapacity());
+    assertEquals(pos, pool.getParticles()[4].getPosition(new Vector3f()));
+    assertEquals(Quaternion.IDENTITY, pool.getParticles()[15].getOrientation(new Quaternion()));
+    pool.setCapacity(5);
+    assertEquals(5, pool.getParticles().length);
+    assertEquals(pos, pool.getParticles()[4].getPosition(new Vector3f()));
+  }
+
+  public void testIntegrate ()
+  {
+    ParticlePool pool = createPool(50);
+    Particle[] particles = pool.getParticles();
+    Vector3f[] positions = new Vector3f[particles.length];
+    Quaternion[] orientations = new Quaternion[particles.length];
+    Vector3f velocity = new Vector3f(), angularVelocity = new Vector3f();
+    float elapsed = 1f / 30f;
+    for (int ii = 0; ii < particles.length; ii++) {
+      Particle particle = particles[ii];
+      positions[ii] = particle.getPosition(new Vector3f()).addScaledLocal(
+        particle.getVelocity(velocity), elapsed);
+      orientations[ii] = particle.getOrientation(new Quaternion()).integrateLocal(
+        particle.getAngularVelocity(angularVelocity), elapsed);
+    }
+    pool.integrate(elapsed, particles.length);
+    Vector3f position = new Vector3f();
+    Quaternion orientation = new Quaternion();
+    for (int ii = 0; ii < particles.length; ii++) {
+      assertTrue(positions[ii].epsilonEquals(
+        particles[ii].getPosition(position), FloatMath.EPSILON));
+      particles[ii].getOrientation(orientation);
+      assertEquals(orientations[ii].x, orientation.x, FloatMath.EPSILON);
+      assertEquals(orientations[ii].y, orientation.y, FloatMath.EPSILON);
+      assertEquals(orientations[ii].z, orientation.z, FloatMath.EPSILON);
+      assertEquals(orientations[ii].w, orientation.w, FloatMath.EPSILON);
+    }
+  }
+
+  public void testBounds ()
+  {
+    ParticlePool pool = createPool(100);
+    Particle[] particles = pool.getParticles();
+    Box expected = new Box();
+    Vector3f position = new Vector3f();
+    float msize = 0f;
+    for (int ii = 10; ii < 60; ii++) {
+      particles[ii].setSize(ii * 0.01f);
+      expected.addLocal(particles[ii].getPosition(position));
+      msize = Math.max(msize, particles[ii].getSize());
+    }
+    Box bounds = new Box();
+    assertEquals(msize, pool.addBounds(10, 60, bounds));
+    assertEquals(expected, bounds);
+    assertEquals(0f, pool.addBounds(60, 60, bounds));
+    assertEquals(expected, bounds);
+  }
+
+  public void testSortByDepth ()
+  {
+    ParticlePool pool = createPool(200);
+    Transform3D xform = new Transform3D(
+      new Vector3f(0f, 0f, -5f), new Quaternion().fromAngleAxis(0.3f, Vector3f.UNIT_X));
+    int count = 150;
+    pool.sortByDepth(xform, count);
+    int[] order = pool.getOrder();
+    boolean[] seen = new boolean[count];
+    Vector3f position = new Vector3f();
+    float last = Float.NEGATIVE_INFINITY;
+    for (int ii = 0; ii < count; ii++) {
+      int idx = order[ii];
+      assertFalse(seen[idx]);
+      seen[idx] = true;
+      float depth = xform.transformPointZ(pool.getParticles()[idx].getPosition(position));
+      assertTrue(depth >= last);
+      last = depth;
+    }
+    pool.clearOrder();
+    assertNull(pool.getOrder());
+  }
+
+  /**
+   * Creates a pool populated with random state.
+   */
+  protected static ParticlePool createPool (int capacity)
+  {
+    ParticlePool pool = new ParticlePool(capacity);
+    Random random = new Random(capacity);
+    Vector3f vector = new Vector3f();
+    Quaternion rotation = new Quaternion();
+    for (Particle particle : pool.getParticles()) {
+      particle.setPosition(randomVector(random, 10f, vector));
+      particle.setVelocity(randomVector(random, 2f, vector));
+      particle.setOrientation(rotation.fromAngleAxis(
+        random.nextFloat() * FloatMath.TWO_PI, randomVector(random, 1f, vector).normalizeLocal()));
+      particle.setAngularVelocity(randomVector(random, 3f, vector));
+    }
+    return pool;
+  }
+
+  /**
+   * Sets the result to a random vector with components in [-scale, +scale).
+   */
+  protected static Vector3f randomVector (Random random, float scale, Vector3f result)
+  {
+    return result.set(
+      (random.nextFloat() * 2f - 1f) * scale,
+      (random.nextFloat() * 2f - 1f) * scale,
+      (random.nextFloat() * 2f - 1f) * scale);
+  }
+}
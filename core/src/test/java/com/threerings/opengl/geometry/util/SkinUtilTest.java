@@ -0,0 +1,155 @@
+//
+// $Id$
+//
+// Clyde library - tools for developing networked games
+// Copyright (C) 2005-2012 Three Rings Design, Inc.
+// http://code.google.com/p/clyde/
+//
+// Redistribution and use in source and binary forms, with or without modification, are permitted
+// provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this list of
+//    conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+//    conditions and the following disclaimer in the documentation and/or other materials provided
+//    with the distribution.
+//
+// THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR IMPLIED WARRANTIES,
+// INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+// PARTICULAR PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT,
+// INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+// TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+// LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package com.threerings.opengl.geometry.util;
+
+import java.util.Random;
+
+import com.threerings.math.Matrix4f;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the {@link SkinUtil} class.
+ */
+public class SkinUtilTest extends TestCase
+{
+  public SkinUtilTest (String name)
+  {
+    super(name);
+  }
+
+  public void testVertices ()
+  {
+    checkSkinning(false, false, 1000);
+  }
+
+  public void testNormals ()
+  {
+    checkSkinning(false, true, 1000);
+  }
+
+  public void testTangentsAndNormals ()
+  {
+    checkSkinning(true, true, 1000);
+  }
+
+  public void testTangents ()
+  {
+    checkSkinning(true, false, 1000);
+  }
+
+  public void testParallel ()
+  {
+    checkSkinning(true, true, SkinUtil.PARALLEL_THRESHOLD * 3 + 17);
+  }
+
+  /**
+   * Skins random data and compares the results to those obtained by transforming each attribute
+   * by each bone matrix separately.
+   */
+  protected void checkSkinning (boolean tangents, boolean normals, int count)
+  {
+    Random random = new Random(count);
+    Matrix4f[] boneMatrices = new Matrix4f[20];
+    for (int ii = 0; ii < boneMatrices.length; ii++) {
+      boneMatrices[ii] = new Matrix4f(
+        rand(random), rand(random), rand(random), rand(random),
+        rand(random), rand(random), rand(random), rand(random),
+        rand(random), rand(random), rand(random), rand(random),
+        0f, 0f, 0f, 1f);
+    }
+    int sstride = 3 + (tangents ? 3 : 0) + (normals ? 3 : 0);
+    float[] source = new float[count * sstride];
+    for (int ii = 0; ii < source.length; ii++) {
+      source[ii] = rand(random);
+    }
+    int[] boneIndices = new int[count * 4];
+    float[] boneWeights = new float[count * 4];
+    for (int ii = 0; ii < boneIndices.length; ii++) {
+      boneIndices[ii] = random.nextInt(boneMatrices.length);
+      boneWeights[ii] = (random.nextInt(3) == 0) ? 0f : random.nextFloat();
+    }
+
+    // interleave the destination with some other attribute
+    int dstride = 4 + sstride;
+    int tidx = tangents ? 4 : -1;
+    int nidx = normals ? (tangents ? 7 : 4) : -1;
+    int vidx = dstride - 3;
+    float[] dest = new float[count * dstride];
+    SkinUtil.skinVertices(
+      SkinUtil.updatePalette(boneMatrices, SkinUtil.createPalette(boneMatrices)),
+      source, boneIndices, boneWeights, dest, tidx, nidx, vidx, dstride);
+
+    for (int ii = 0; ii < count; ii++) {
+      int sidx = ii * sstride, didx = ii * dstride;
+      for (int jj = 0; jj < 4; jj++) {
+        assertEquals(0f, dest[didx + jj]);
+      }
+      if (tangents) {
+        checkBlend(boneMatrices, boneIndices, boneWeights, ii, source, sidx, false,
+          dest, didx + tidx);
+        sidx += 3;
+      }
+      if (normals) {
+        checkBlend(boneMatrices, boneIndices, boneWeights, ii, source, sidx, false,
+          dest, didx + nidx);
+        sidx += 3;
+      }
+      checkBlend(boneMatrices, boneIndices, boneWeights, ii, source, sidx, true,
+        dest, didx + vidx);
+    }
+  }
+
+  /**
+   * Checks a single skinned attribute against the expected blend.
+   */
+  protected void checkBlend (
+    Matrix4f[] boneMatrices, int[] boneIndices, float[] boneWeights, int vertex,
+    float[] source, int sidx, boolean point, float[] dest, int didx)
+  {
+    float sx = source[sidx], sy = source[sidx + 1], sz = source[sidx + 2];
+    float ex = 0f, ey = 0f, ez = 0f;
+    for (int ii = vertex * 4, nn = ii + 4; ii < nn; ii++) {
+      Matrix4f m = boneMatrices[boneIndices[ii]];
+      float weight = boneWeights[ii];
+      float tx = point ? m.m30 : 0f, ty = point ? m.m31 : 0f, tz = point ? m.m32 : 0f;
+      ex += (m.m00*sx + m.m10*sy + m.m20*sz + tx) * weight;
+      ey += (m.m01*sx + m.m11*sy + m.m21*sz + ty) * weight;
+      ez += (m.m02*sx + m.m12*sy + m.m22*sz + tz) * weight;
+    }
+    assertEquals(ex, dest[didx], 1e-4f);
+    assertEquals(ey, dest[didx + 1], 1e-4f);
+    assertEquals(ez, dest[didx + 2], 1e-4f);
+  }
+
+  /**
+   * Returns a random value between -1 and 1.
+   */
+  protected static float rand (Random random)
+  {
+    return random.nextFloat() * 2f - 1f;
+  }
+}
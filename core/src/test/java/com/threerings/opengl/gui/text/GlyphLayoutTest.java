@@ -0,0 +1,189 @@
+//
+// $Id$
+//
+// Clyde library - tools for developing networked games
+// Copyright (C) 2005-2012 Three Rings Design, Inc.
+// http://code.google.com/p/clyde/
+//
+// Redistribution and use in source and binary forms, with or without modification, are permitted
+// provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this list of
+//    conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+//    conditions and the following disclaimer in the documentation and/or other materials provided
+//    with the distribution.
+//
+// THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR IMPLIED WARRANTIES,
+// INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+// PARTICULAR PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT,
+// INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+// TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+// LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package com.threerings.opengl.gui.text;
+
+import java.awt.Font;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+
+import java.util.List;
+
+import com.google.common.collect.Lists;
+
+import junit.framework.TestCase;
+
+import com.threerings.opengl.renderer.Color4f;
+
+import com.threerings.opengl.gui.UIConstants;
+
+/**
+ * Tests the headless parts of the glyph atlas text engine.
+ */
+public class GlyphLayoutTest extends TestCase
+{
+  @Override
+  public void setUp ()
+  {
+    System.setProperty("java.awt.headless", "true");
+    _font = new Font(Font.SANS_SERIF, Font.PLAIN, 14);
+  }
+
+  public void testRasterize ()
+  {
+    GlyphAtlas atlas = new GlyphAtlas(_font, true);
+    GlyphAtlas.Glyph glyph = atlas.getGlyph('W', 0);
+    assertSame(glyph, atlas.getGlyph('W', 0));
+    assertFalse(glyph.isBlank());
+    assertTrue(atlas.getGlyph(' ', 0).isBlank());
+    assertNotSame(glyph, atlas.getGlyph('W', Font.BOLD));
+    assertNotSame(glyph, atlas.getGlyph('W', 0, GlyphAtlas.STROKE, 2));
+
+    // the glyph should have been drawn into its region and nowhere else
+    GlyphAtlas.Page page = atlas.getPages().get(glyph.page);
+    List<Rectangle> regions = page.getPendingRegions();
+    assertEquals(3, regions.size());
+    Rectangle region = regions.get(0);
+    assertEquals(glyph.width, region.width);
+    assertEquals(glyph.height, region.height);
+    BufferedImage image = page.getImage();
+    int inside = 0;
+    for (int y = 0; y < image.getHeight(); y++) {
+      for (int x = 0; x < image.getWidth(); x++) {
+        if ((image.getRGB(x, y) >>> 24) != 0) {
+          boolean contained = false;
+          for (Rectangle other : regions) {
+            contained |= other.contains(x, y);
+          }
+          assertTrue(contained);
+          inside += region.contains(x, y) ? 1 : 0;
+        }
+      }
+    }
+    assertTrue(inside > 0);
+    page.clearPendingRegions();
+    assertTrue(page.getPendingRegions().isEmpty());
+  }
+
+  public void testPacking ()
+  {
+    GlyphAtlas atlas = new GlyphAtlas(_font, true, 64);
+    List<Rectangle> regions = Lists.newArrayList();
+    List<Integer> pages = Lists.newArrayList();
+    for (char c = 'A'; c <= 'z'; c++) {
+      for (int size = 1; size <= 3; size++) {
+        GlyphAtlas.Glyph glyph = atlas.getGlyph(c, 0, GlyphAtlas.STROKE, size);
+        int x = Math.round(glyph.s1 * 64), y = Math.round(glyph.t1 * 64);
+        Rectangle region = new Rectangle(x, y, glyph.width, glyph.height);
+        assertTrue(new Rectangle(0, 0, 64, 64).contains(region));
+        for (int ii = 0; ii < regions.size(); ii++) {
+          assertFalse(pages.get(ii) == glyph.page && regions.get(ii).intersects(region));
+        }
+        regions.add(region);
+        pages.add(glyph.page);
+      }
+    }
+    assertTrue(atlas.getPages().size() > 1);
+  }
+
+  public void testSolid ()
+  {
+    // fill the first page so that the solid block must go on another
+    GlyphAtlas atlas = new GlyphAtlas(_font, true, 64);
+    for (char c = 'A'; atlas.getPages().size() < 2; c++) {
+      atlas.getGlyph(c, 0, GlyphAtlas.GLOW, 3);
+    }
+    GlyphAtlas.Glyph solid = atlas.getSolid();
+    assertSame(solid, atlas.getSolid());
+    assertFalse(solid.isBlank());
+    assertEquals(1, solid.page);
+    int x = (int)(solid.s1 * 64), y = (int)(solid.t1 * 64);
+    assertEquals(0xFFFFFFFF, atlas.getPages().get(1).getImage().getRGB(x, y));
+  }
+
+  public void testLayout ()
+  {
+    GlyphAtlas atlas = new GlyphAtlas(_font, true);
+    String text = "Hello there";
+    GlyphLayout layout = GlyphLayout.layout(
+      atlas, text, null, null, UIConstants.NORMAL, 1, true);
+    assertEquals(text.length(), layout.getLength());
+    int x = 0;
+    for (int ii = 0; ii < text.length(); ii++) {
+      assertEquals(x, layout.getCursorPos(ii));
+      assertEquals(ii, layout.getHitPos(x));
+      x += atlas.getAdvance(text.charAt(ii), 0);
+    }
+    assertEquals(x, layout.getCursorPos(text.length()));
+    assertEquals(x, layout.getSize().width);
+    assertEquals(text.length(), layout.getHitPos(x + 10));
+    assertEquals(text.length() - 1, layout.getQuads().size()); // no quad for the space
+
+    // outlines go below the text, and each run of underlined text gets a single quad
+    int[] styles = new int[text.length()];
+    for (int ii = 0; ii < 5; ii++) {
+      styles[ii] = GlyphLayout.UNDERLINE;
+    }
+    Color4f[] colors = new Color4f[text.length()];
+    colors[0] = Color4f.RED;
+    layout = GlyphLayout.layout(atlas, text, styles, colors, UIConstants.OUTLINE, 2, true);
+    List<GlyphLayout.Quad> quads = layout.getQuads();
+    assertEquals((text.length() - 1) * 2 + 2, quads.size());
+    assertEquals(GlyphLayout.EFFECT_COLOR, quads.get(0).color);
+    assertEquals(GlyphLayout.TEXT_COLOR, quads.get(quads.size() - 1).color);
+    assertEquals(Color4f.RED, layout.getColor(
+      quads.get(text.length() - 1).color, Color4f.WHITE, Color4f.BLACK));
+    assertEquals(x + 4, layout.getSize().width);
+  }
+
+  public void testWrap ()
+  {
+    GlyphAtlas atlas = new GlyphAtlas(_font, true);
+    String text = "the quick brown\nfox";
+    int width = 0;
+    for (char c : "the quick".toCharArray()) {
+      width += atlas.getAdvance(c, 0);
+    }
+    GlyphLayout[] lines = GlyphLayout.wrap(
+      atlas, text, null, null, UIConstants.NORMAL, 1, width + 1);
+    assertEquals(3, lines.length);
+    assertEquals("the quick".length(), lines[0].getLength());
+    assertEquals("brown".length(), lines[1].getLength());
+    assertEquals("fox".length(), lines[2].getLength());
+  }
+
+  public void testCache ()
+  {
+    StringTextFactory factory = new StringTextFactory(_font, true);
+    assertSame(factory.getLayouts("@=b(hit) 10", UIConstants.SHADOW, 1, false, -1),
+      factory.getLayouts("@=b(hit) 10", UIConstants.SHADOW, 1, false, -1));
+    Text text = factory.createText("@=u#FF0000(hit) 10", Color4f.WHITE);
+    assertEquals("hit 10".length(), text.getLength());
+    assertEquals(factory.getHeight(), text.getSize().height);
+  }
+
+  /** The font with which to test. */
+  protected Font _font;
+}
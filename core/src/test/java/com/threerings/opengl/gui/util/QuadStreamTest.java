@@ -0,0 +1,135 @@
+//
+// $Id$
+//
+// Clyde library - tools for developing networked games
+// Copyright (C) 2005-2012 Three Rings Design, Inc.
+// http://code.google.com/p/clyde/
+//
+// Redistribution and use in source and binary forms, with or without modification, are permitted
+// provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this list of
+//    conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+//    conditions and the following disclaimer in the documentation and/or other materials provided
+//    with the distribution.
+//
+// THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR IMPLIED WARRANTIES,
+// INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+// PARTICULAR PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT,
+// INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+// TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+// LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package com.threerings.opengl.gui.util;
+
+import java.nio.FloatBuffer;
+
+import org.lwjgl.BufferUtils;
+
+import junit.framework.TestCase;
+
+import com.threerings.math.FloatMath;
+
+import com.threerings.opengl.renderer.TextureUnit;
+
+/**
+ * Tests the {@link QuadStream} class.
+ */
+public class QuadStreamTest extends TestCase
+{
+  public void testMerge ()
+  {
+    // quads with the same texture go into the same draw call if nothing in between overlaps
+    QuadStream stream = new QuadStream();
+    addQuad(stream, UNITS1, 0f, 0f);
+    addQuad(stream, null, 20f, 0f);
+    addQuad(stream, UNITS1, 40f, 0f);
+    addQuad(stream, null, 60f, 0f);
+    assertEquals(2, stream.getDrawCount());
+    assertEquals(4, stream.getQuadCount());
+    assertEquals(16, stream.getVertexCount());
+  }
+
+  public void testOverlap ()
+  {
+    // a quad may not be moved beneath one that it overlaps
+    QuadStream stream = new QuadStream();
+    addQuad(stream, UNITS1, 0f, 0f);
+    addQuad(stream, UNITS2, 5f, 5f);
+    addQuad(stream, UNITS1, 10f, 10f);
+    assertEquals(3, stream.getDrawCount());
+
+    // but it may be moved beneath one it doesn't overlap
+    addQuad(stream, UNITS2, 100f, 100f);
+    assertEquals(3, stream.getDrawCount());
+  }
+
+  public void testScissor ()
+  {
+    QuadStream stream = new QuadStream();
+    addQuad(stream, UNITS1, 0f, 0f);
+    stream.setScissor(new Rectangle(0, 0, 50, 50));
+    addQuad(stream, UNITS1, 20f, 0f);
+    stream.setScissor(new Rectangle(0, 0, 50, 50));
+    addQuad(stream, UNITS1, 40f, 0f);
+    stream.setScissor(null);
+    addQuad(stream, UNITS1, 60f, 0f);
+    assertEquals(2, stream.getDrawCount());
+  }
+
+  public void testTransform ()
+  {
+    QuadStream stream = new QuadStream();
+    stream.pushTransform();
+    stream.translate(10f, 20f);
+    stream.rotate(FloatMath.HALF_PI);
+    stream.scale(2f);
+    FloatBuffer buf = stream.getTransform(BufferUtils.createFloatBuffer(16));
+    // (1, 0) maps to (10, 22)
+    assertEquals(10f, buf.get(0) + buf.get(12), EPSILON);
+    assertEquals(22f, buf.get(1) + buf.get(13), EPSILON);
+
+    // popping restores the identity transform
+    stream.popTransform();
+    buf = stream.getTransform(buf);
+    assertEquals(1f, buf.get(0), EPSILON);
+    assertEquals(0f, buf.get(12), EPSILON);
+
+    // translated quads are tested for overlap in their transformed positions
+    addQuad(stream, UNITS1, 0f, 0f);
+    addQuad(stream, UNITS2, 100f, 0f);
+    stream.translate(200f, 0f);
+    addQuad(stream, UNITS1, 0f, 0f);
+    assertEquals(2, stream.getDrawCount());
+  }
+
+  public void testClear ()
+  {
+    QuadStream stream = new QuadStream();
+    stream.translate(5f, 5f);
+    stream.setScissor(new Rectangle(0, 0, 10, 10));
+    addQuad(stream, UNITS1, 0f, 0f);
+    assertFalse(stream.isEmpty());
+    stream.clear();
+    assertTrue(stream.isEmpty());
+    assertTrue(stream.isComplete());
+    assertEquals(0, stream.getDrawCount());
+    assertEquals(0, stream.getQuadCount());
+    FloatBuffer buf = stream.getTransform(BufferUtils.createFloatBuffer(16));
+    assertEquals(0f, buf.get(12), EPSILON);
+  }
+
+  protected static void addQuad (QuadStream stream, TextureUnit[] units, float x, float y)
+  {
+    stream.add(units, 1f, 1f, 1f, 1f, x, y, x + 10f, y + 10f, 0f, 0f, 1f, 1f);
+  }
+
+  /** Distinct sets of texture units (compared by identity). */
+  protected static final TextureUnit[] UNITS1 = new TextureUnit[1], UNITS2 = new TextureUnit[1];
+
+  /** The tolerance for floating point comparisons. */
+  protected static final float EPSILON = 0.0001f;
+}
@@ -0,0 +1,132 @@
+//
+// $Id$
+//
+// Clyde library - tools for developing networked games
+// Copyright (C) 2005-2012 Three Rings Design, Inc.
+// http://code.google.com/p/clyde/
+//
+// Redistribution and use in source and binary forms, with or without modification, are permitted
+// provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this list of
+//    conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+//    conditions and the following disclaimer in the documentation and/or other materials provided
+//    with the distribution.
+//
+// THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR IMPLIED WARRANTIES,
+// INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+// PARTICULAR PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT,
+// INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+// TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+// LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package com.threerings.opengl.model.config;
+
+import java.util.Random;
+
+import com.threerings.math.FloatMath;
+import com.threerings.math.Quaternion;
+import com.threerings.math.Transform3D;
+import com.threerings.math.Vector3f;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the {@link AnimationTrack} class.
+ */
+public class AnimationTrackTest extends TestCase
+{
+  public AnimationTrackTest (String name)
+  {
+    super(name);
+  }
+
+  public void testRigid ()
+  {
+    checkSampling(createFrames(false, 120, 8), 120);
+  }
+
+  public void testUniform ()
+  {
+    checkSampling(createFrames(true, 120, 8), 120);
+  }
+
+  public void testStatic ()
+  {
+    Transform3D[][] frames = new Transform3D[50][2];
+    for (int ii = 0; ii < frames.length; ii++) {
+      frames[ii][0] = new Transform3D();
+      frames[ii][1] = new Transform3D(
+        new Vector3f(1f, 2f, 3f), new Quaternion().fromAngleAxis(0.5f, Vector3f.UNIT_Z));
+    }
+    AnimationTrack track = checkSampling(frames, 50);
+
+    // constant targets need only their first and last frames
+    assertEquals(4, track.getKeyCount());
+  }
+
+  public void testNonUniform ()
+  {
+    Transform3D[][] frames = createFrames(false, 10, 1);
+    frames[5][0] = new Transform3D(Vector3f.ZERO, Quaternion.IDENTITY, new Vector3f(1f, 2f, 1f));
+    assertNull(AnimationTrack.create(frames));
+  }
+
+  /**
+   * Creates a set of smoothly varying frames.
+   */
+  protected Transform3D[][] createFrames (boolean scaled, int frameCount, int targetCount)
+  {
+    Random random = new Random(targetCount);
+    Transform3D[][] frames = new Transform3D[frameCount][targetCount];
+    for (int jj = 0; jj < targetCount; jj++) {
+      float freq = 0.02f + random.nextFloat() * 0.1f, phase = random.nextFloat();
+      Vector3f axis = new Vector3f(
+        random.nextFloat(), random.nextFloat(), random.nextFloat()).normalizeLocal();
+      for (int ii = 0; ii < frameCount; ii++) {
+        float t = FloatMath.sin(ii * freq + phase);
+        Vector3f translation = new Vector3f(t, 2f*t, jj);
+        Quaternion rotation = new Quaternion().fromAngleAxis(t * FloatMath.PI, axis);
+        frames[ii][jj] = scaled ?
+          new Transform3D(translation, rotation, 1f + t*0.5f) :
+          new Transform3D(translation, rotation);
+      }
+    }
+    return frames;
+  }
+
+  /**
+   * Verifies that the track reproduces the frames to within tolerance.
+   */
+  protected AnimationTrack checkSampling (Transform3D[][] frames, int frameCount)
+  {
+    AnimationTrack track = AnimationTrack.create(frames);
+    assertNotNull(track);
+    assertEquals(frameCount, track.getFrameCount());
+    assertEquals(frames[0].length, track.getTargetCount());
+
+    Transform3D expected = new Transform3D(), result = new Transform3D();
+    for (int ii = 0; ii < frameCount; ii++) {
+      Transform3D[] f1 = frames[ii], f2 = frames[(ii + 1) % frameCount];
+      for (int jj = 0; jj < f1.length; jj++) {
+        for (float t = 0f; t < 1f; t += 0.25f) {
+          f1[jj].lerp(f2[jj], t, expected);
+          track.sample(jj, ii, t, result);
+          assertEquals(expected.getType(), result.getType());
+          if (expected.getType() == Transform3D.IDENTITY) {
+            continue;
+          }
+          assertTrue(expected.getTranslation().epsilonEquals(result.getTranslation(), 0.01f));
+          Quaternion erot = expected.getRotation(), rrot = result.getRotation();
+          float dot = erot.x*rrot.x + erot.y*rrot.y + erot.z*rrot.z + erot.w*rrot.w;
+          assertTrue(Math.abs(dot) > 0.9999f);
+          assertEquals(expected.getScale(), result.getScale(), 0.001f);
+        }
+      }
+    }
+    return track;
+  }
+}
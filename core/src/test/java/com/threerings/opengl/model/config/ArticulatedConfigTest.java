@@ -0,0 +1,62 @@
+//
+// $Id$
+//
+// Clyde library - tools for developing networked games
+// Copyright (C) 2005-2012 Three Rings Design, Inc.
+// http://code.google.com/p/clyde/
+//
+// Redistribution and use in source and binary forms, with or without modification, are permitted
+// provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this list of
+//    conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+//    conditions and the following disclaimer in the documentation and/or other materials provided
+//    with the distribution.
+//
+// THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR IMPLIED WARRANTIES,
+// INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+// PARTICULAR PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT,
+// INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+// TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+// LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package com.threerings.opengl.model.config;
+
+import java.util.Arrays;
+
+import com.threerings.math.Transform3D;
+
+import com.threerings.util.ReflectionUtil;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the {@link ArticulatedConfig} class.
+ */
+public class ArticulatedConfigTest extends TestCase
+{
+  public ArticulatedConfigTest (String name)
+  {
+    super(name);
+  }
+
+  public void testOptionalNode ()
+  {
+    ArticulatedConfig config = new ArticulatedConfig();
+    config.root = new ArticulatedConfig.Node("root", new Transform3D(),
+      new ArticulatedConfig.Node[] {
+        new ArticulatedConfig.Node("tail", new Transform3D(), new ArticulatedConfig.Node[0]) });
+    ArticulatedConfig.AnimationDetail detail = config.new AnimationDetail();
+    config.animationDetail = detail;
+
+    // the editor creates array elements with the object containing the array as the outer
+    ArticulatedConfig.AnimationDetail.OptionalNode onode =
+      (ArticulatedConfig.AnimationDetail.OptionalNode)ReflectionUtil.newInstance(
+        ArticulatedConfig.AnimationDetail.OptionalNode.class, detail);
+    assertNotNull(onode);
+    assertEquals(Arrays.asList("root", "tail"), Arrays.asList(onode.getNodeOptions()));
+  }
+}
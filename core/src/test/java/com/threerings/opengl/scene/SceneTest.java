@@ -0,0 +1,237 @@
+//
+// $Id$
+//
+// Clyde library - tools for developing networked games
+// Copyright (C) 2005-2012 Three Rings Design, Inc.
+// http://code.google.com/p/clyde/
+//
+// Redistribution and use in source and binary forms, with or without modification, are permitted
+// provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this list of
+//    conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+//    conditions and the following disclaimer in the documentation and/or other materials provided
+//    with the distribution.
+//
+// THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR IMPLIED WARRANTIES,
+// INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+// PARTICULAR PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT,
+// INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+// TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+// LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package com.threerings.opengl.scene;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import com.google.common.collect.Maps;
+
+import com.threerings.math.Box;
+import com.threerings.math.Ray3D;
+import com.threerings.math.Vector3f;
+
+import com.threerings.openal.SoundGroup;
+import com.threerings.opengl.util.GlContext;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the concurrent ticking of {@link Scene} elements.
+ */
+public class SceneTest extends TestCase
+{
+  public SceneTest (String name)
+  {
+    super(name);
+  }
+
+  public void testConcurrentTick ()
+  {
+    TestScene scene = new TestScene();
+    TestElement[] elements = createElements(scene, 64, false);
+    scene._concurrent.addAll(Arrays.asList(elements));
+    scene.tickConcurrently(0.1f);
+
+    for (TestElement element : elements) {
+      assertEquals(1, element.ticks);
+    }
+    assertTrue(scene._concurrent.isEmpty());
+    assertFalse(scene._tickingConcurrently);
+    for (SceneElement element : scene._concurrentArray) {
+      assertNull(element);
+    }
+  }
+
+  public void testDeferredBounds ()
+  {
+    TestScene scene = new TestScene();
+    TestElement[] elements = createElements(scene, 64, true);
+    scene._concurrent.addAll(Arrays.asList(elements));
+    scene.tickConcurrently(0.1f);
+
+    assertTrue(scene._deferredBounds.isEmpty());
+    assertEquals(elements.length, scene.changed.size());
+    for (TestElement element : elements) {
+      // the change was applied once, after the ticks, with the bounds from before the change
+      assertTrue(element.deferred);
+      assertEquals(new Box(Vector3f.ZERO, Vector3f.UNIT_XYZ), scene.changed.get(element));
+      assertTrue(scene._updateInfluences.contains(element));
+    }
+  }
+
+  public void testTickPolicy ()
+  {
+    // elements are ticked serially unless they say otherwise
+    assertFalse(new TestElement(false).isTickThreadSafe());
+  }
+
+  protected static TestElement[] createElements (TestScene scene, int count, boolean move)
+  {
+    TestElement[] elements = new TestElement[count];
+    for (int ii = 0; ii < count; ii++) {
+      elements[ii] = new TestElement(move);
+      elements[ii].wasAdded(scene);
+    }
+    return elements;
+  }
+
+  /**
+   * A scene that needs neither sound nor rendering.
+   */
+  protected static class TestScene extends SimpleScene
+  {
+    /** The elements whose bounds changes were applied, mapped to their old bounds. */
+    public Map<SceneObject, Box> changed = Maps.newHashMap();
+
+    public TestScene ()
+    {
+      super((GlContext)Proxy.newProxyInstance(
+        GlContext.class.getClassLoader(), new Class<?>[] { GlContext.class },
+        new InvocationHandler() {
+          public Object invoke (Object proxy, Method method, Object[] args) {
+            throw new UnsupportedOperationException(method.getName());
+          }
+        }));
+    }
+
+    @Override
+    protected SoundGroup createSoundGroup (int sources)
+    {
+      return null;
+    }
+
+    @Override
+    protected void boundsChanged (SceneObject object, Box obounds)
+    {
+      assertNull(changed.put(object, new Box(obounds)));
+      super.boundsChanged(object, obounds);
+    }
+  }
+
+  /**
+   * An element that counts its ticks and optionally moves when ticked.
+   */
+  protected static class TestElement
+    implements SceneElement
+  {
+    /** The number of times the element has been ticked. */
+    public volatile int ticks;
+
+    /** Set if the bounds change was deferred. */
+    public volatile boolean deferred;
+
+    public TestElement (boolean move)
+    {
+      _move = move;
+      _bounds.set(Vector3f.ZERO, Vector3f.UNIT_XYZ);
+    }
+
+    // documentation inherited from interface SceneElement
+    public TickPolicy getTickPolicy ()
+    {
+      return TickPolicy.ALWAYS;
+    }
+
+    // documentation inherited from interface SceneElement
+    public Object getUserObject ()
+    {
+      return null;
+    }
+
+    // documentation inherited from interface SceneElement
+    public void wasAdded (Scene scene)
+    {
+      _scene = scene;
+    }
+
+    // documentation inherited from interface SceneElement
+    public void willBeRemoved ()
+    {
+      _scene = null;
+    }
+
+    // documentation inherited from interface SceneElement
+    public void setInfluences (SceneInfluenceSet influences)
+    {
+    }
+
+    // documentation inherited from interface SceneElement
+    public boolean isInfluenceable ()
+    {
+      return true;
+    }
+
+    // documentation inherited from interface SceneObject
+    public Box getBounds ()
+    {
+      return _bounds;
+    }
+
+    // documentation inherited from interface SceneObject
+    public boolean updateLastVisit (int visit)
+    {
+      return false;
+    }
+
+    // documentation inherited from interface Tickable
+    public void tick (float elapsed)
+    {
+      ticks++;
+      if (_move) {
+        _scene.boundsWillChange(this);
+        deferred = _scene._deferredBounds.containsKey(this);
+        _bounds.getMinimumExtent().addLocal(elapsed, 0f, 0f);
+        _bounds.getMaximumExtent().addLocal(elapsed, 0f, 0f);
+        _scene.boundsDidChange(this);
+      }
+    }
+
+    // documentation inherited from interface Intersectable
+    public boolean getIntersection (Ray3D ray, Vector3f result)
+    {
+      return false;
+    }
+
+    // documentation inherited from interface Compositable
+    public void composite ()
+    {
+    }
+
+    /** Whether to move when ticked. */
+    protected boolean _move;
+
+    /** The element's bounds. */
+    protected Box _bounds = new Box();
+
+    /** The scene to which the element was added. */
+    protected Scene _scene;
+  }
+}
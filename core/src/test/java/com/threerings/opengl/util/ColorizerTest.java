@@ -0,0 +1,96 @@
+//
+// $Id$
+//
+// Clyde library - tools for developing networked games
+// Copyright (C) 2005-2012 Three Rings Design, Inc.
+// http://code.google.com/p/clyde/
+//
+// Redistribution and use in source and binary forms, with or without modification, are permitted
+// provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this list of
+//    conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+//    conditions and the following disclaimer in the documentation and/or other materials provided
+//    with the distribution.
+//
+// THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR IMPLIED WARRANTIES,
+// INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+// PARTICULAR PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT,
+// INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+// TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+// LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package com.threerings.opengl.util;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+
+import com.threerings.media.image.Colorization;
+import com.threerings.media.image.ImageUtil;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the {@link Colorizer} class.
+ */
+public class ColorizerTest extends TestCase
+{
+  public ColorizerTest (String name)
+  {
+    super(name);
+  }
+
+  public void testRecolor ()
+  {
+    Colorization[] zations = {
+      new Colorization(1, new Color(0xC04020), new float[] { 1f, 1f, 1f },
+        new float[] { 0.5f, -0.1f, 0.1f }) };
+    Colorizer colorizer = new Colorizer();
+
+    // large enough to be split into bands, and recolored twice to exercise the memoized colors
+    BufferedImage image = createImage(512, 384, 0);
+    assertRecolored(image, colorizer.recolor(image, zations), zations);
+    image = createImage(512, 384, 1);
+    assertRecolored(image, colorizer.recolor(image, zations), zations);
+  }
+
+  /**
+   * Creates an ARGB image with gradients of color and alpha, including transparent pixels.
+   */
+  protected static BufferedImage createImage (int width, int height, int seed)
+  {
+    BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+    for (int yy = 0; yy < height; yy++) {
+      for (int xx = 0; xx < width; xx++) {
+        int alpha = (xx + seed) % 64 == 0 ? 0 : (yy * 255 / height);
+        int red = (xx * 255 / width), green = ((yy + seed * 17) % 256), blue = (xx ^ yy) & 0xFF;
+        image.setRGB(xx, yy, alpha << 24 | red << 16 | green << 8 | blue);
+      }
+    }
+    return image;
+  }
+
+  /**
+   * Verifies that the recolored image matches the source recolored directly (pixel by pixel)
+   * through {@link ImageUtil#recolorImage}.
+   */
+  protected static void assertRecolored (
+      BufferedImage source, BufferedImage result, Colorization[] zations)
+  {
+    BufferedImage expected = ImageUtil.recolorImage(source, zations);
+    assertEquals(expected.getWidth(), result.getWidth());
+    assertEquals(expected.getHeight(), result.getHeight());
+    for (int yy = 0; yy < source.getHeight(); yy++) {
+      for (int xx = 0; xx < source.getWidth(); xx++) {
+        if ((source.getRGB(xx, yy) >>> 24) == 0) {
+          continue; // the color of transparent pixels doesn't matter
+        }
+        assertEquals("Pixel (" + xx + ", " + yy + ")",
+          Integer.toHexString(expected.getRGB(xx, yy)), Integer.toHexString(result.getRGB(xx, yy)));
+      }
+    }
+  }
+}
@@ -0,0 +1,207 @@
+//
+// $Id$
+//
+// Clyde library - tools for developing networked games
+// Copyright (C) 2005-2012 Three Rings Design, Inc.
+// http://code.google.com/p/clyde/
+//
+// Redistribution and use in source and binary forms, with or without modification, are permitted
+// provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this list of
+//    conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+//    conditions and the following disclaimer in the documentation and/or other materials provided
+//    with the distribution.
+//
+// THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR IMPLIED WARRANTIES,
+// INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+// PARTICULAR PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT,
+// INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+// TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+// LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package com.threerings.opengl.util;
+
+import java.io.File;
+import java.io.IOException;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the {@link ResourceCache} and {@link FileWatcher} classes.
+ */
+public class ResourceCacheTest extends TestCase
+{
+  public ResourceCacheTest (String name)
+  {
+    super(name);
+  }
+
+  @Override
+  protected void setUp ()
+    throws Exception
+  {
+    _dir = Files.createTempDir();
+  }
+
+  @Override
+  protected void tearDown ()
+    throws Exception
+  {
+    for (File file : _dir.listFiles()) {
+      file.delete();
+    }
+    _dir.delete();
+  }
+
+  public void testFileWatcher ()
+    throws Exception
+  {
+    File file = write("a", "one");
+    FileWatcher watcher = FileWatcher.create();
+    assertNotNull(watcher);
+    try {
+      watcher.watch(file);
+      assertNull(watcher.poll());
+      write("a", "two");
+      long end = System.currentTimeMillis() + TIMEOUT;
+      File modified;
+      while ((modified = watcher.poll()) == null && System.currentTimeMillis() < end) {
+        Thread.sleep(10L);
+      }
+      assertEquals(file.getAbsoluteFile(), modified);
+    } finally {
+      watcher.close();
+    }
+  }
+
+  public void testReload ()
+    throws Exception
+  {
+    write("a", "one");
+    TestCache cache = new TestCache(true, 16);
+    try {
+      assertEquals("one", cache.files.getResource("a"));
+      assertEquals(1, cache.files.loads);
+
+      // the next lookup after the watcher sees the modification should reload the file
+      write("a", "two");
+      long end = System.currentTimeMillis() + TIMEOUT;
+      while (cache.files.getResource("a").equals("one") && System.currentTimeMillis() < end) {
+        Thread.sleep(10L);
+      }
+      assertEquals("two", cache.files.getResource("a"));
+      assertEquals(2, cache.files.loads);
+    } finally {
+      cache.dispose();
+    }
+  }
+
+  public void testEvictedHandoff ()
+    throws Exception
+  {
+    write("a", "one");
+    write("b", "two");
+    TestCache cache = new TestCache(false, 1);
+
+    // loading b evicts a, but since we still hold a it should be handed back without a reload
+    String a = cache.files.getResource("a");
+    assertEquals("two", cache.files.getResource("b"));
+    assertEquals(1, cache.files.getStats().evictionCount());
+    assertSame(a, cache.files.getResource("a"));
+    assertEquals(2, cache.files.loads);
+
+    // once cleared, it must be loaded again
+    cache.files.clear();
+    String reloaded = cache.files.getResource("a");
+    assertEquals(a, reloaded);
+    assertNotSame(a, reloaded);
+    assertEquals(3, cache.files.loads);
+  }
+
+  public void testSoft ()
+    throws Exception
+  {
+    write("a", "one");
+    TestCache cache = new TestCache(false, -1);
+    String a = cache.files.getResource("a");
+    assertSame(a, cache.files.getResource("a"));
+    assertEquals(1, cache.files.loads);
+  }
+
+  protected File write (String name, String contents)
+    throws IOException
+  {
+    File file = new File(_dir, name);
+    Files.write(contents, file, Charsets.UTF_8);
+    return file;
+  }
+
+  /**
+   * A cache of the contents of the files in the temporary directory.
+   */
+  protected class TestCache extends ResourceCache
+  {
+    /** The file contents, retained softly if the maximum weight is negative. */
+    public final FileSubcache files;
+
+    public TestCache (boolean checkTimestamps, long maxWeight)
+    {
+      super(null, checkTimestamps);
+      files = (maxWeight < 0) ? new FileSubcache() : new FileSubcache(maxWeight);
+    }
+
+    /**
+     * Loads the contents of files, counting the loads.
+     */
+    protected class FileSubcache extends Subcache<String, String>
+    {
+      /** The number of times a file has been loaded. */
+      public int loads;
+
+      public FileSubcache ()
+      {
+      }
+
+      public FileSubcache (long maxWeight)
+      {
+        super(maxWeight);
+      }
+
+      @Override
+      protected String loadResource (String key)
+      {
+        loads++;
+        try {
+          return Files.toString(getResourceFile(key), Charsets.UTF_8);
+        } catch (IOException e) {
+          return null;
+        }
+      }
+
+      @Override
+      protected File getResourceFile (String key)
+      {
+        return new File(_dir, key);
+      }
+
+      @Override
+      protected String getResourcePath (String key)
+      {
+        return key;
+      }
+    }
+  }
+
+  /** The temporary directory containing the resource files. */
+  protected File _dir;
+
+  /** The time to wait for the watcher to notice a modification. */
+  protected static final long TIMEOUT = 10000L;
+}
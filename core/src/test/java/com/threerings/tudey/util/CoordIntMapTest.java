@@ -0,0 +1,142 @@
+//
+// $Id$
+//
+// Clyde library - tools for developing networked games
+// Copyright (C) 2005-2012 Three Rings Design, Inc.
+// http://code.google.com/p/clyde/
+//
+// Redistribution and use in source and binary forms, with or without modification, are permitted
+// provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this list of
+//    conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+//    conditions and the following disclaimer in the documentation and/or other materials provided
+//    with the distribution.
+//
+// THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR IMPLIED WARRANTIES,
+// INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+// PARTICULAR PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT,
+// INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+// TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+// LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package com.threerings.tudey.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import com.threerings.export.BinaryExporter;
+import com.threerings.export.BinaryImporter;
+import com.threerings.export.XMLExporter;
+import com.threerings.export.XMLImporter;
+
+/**
+ * Tests the run-length encoding of {@link CoordIntMap} cells.
+ */
+public class CoordIntMapTest extends TestCase
+{
+  public CoordIntMapTest (String name)
+  {
+    super(name);
+  }
+
+  public void testRuns ()
+  {
+    CoordIntMap map = new CoordIntMap();
+    for (int[] values : createValues(map)) {
+      CoordIntMap.Cell cell = map.new Cell();
+      System.arraycopy(values, 0, cell.getValues(), 0, values.length);
+      int[] runs = cell.encodeRuns();
+      CoordIntMap.Cell decoded = map.new Cell();
+      Arrays.fill(decoded.getValues(), 42); // make sure everything is overwritten
+      decoded.decodeRuns(runs);
+      assertTrue(Arrays.equals(values, decoded.getValues()));
+    }
+
+    // empty cells encode to nothing, full cells to a single run
+    int[][] values = createValues(map);
+    assertEquals(0, createCell(map, values[0]).encodeRuns().length);
+    assertEquals(2, createCell(map, values[1]).encodeRuns().length);
+  }
+
+  public void testExport ()
+    throws IOException
+  {
+    CoordIntMap map = new CoordIntMap();
+    int[][] values = createValues(map);
+    for (int ii = 0; ii < values.length; ii++) {
+      CoordIntMap.Cell cell = createCell(map, values[ii]);
+      map._cells.put(new Coord(ii, -ii), cell);
+    }
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    BinaryExporter exporter = new BinaryExporter(out);
+    exporter.writeObject(map);
+    exporter.close();
+    checkMap(values, (CoordIntMap)new BinaryImporter(
+      new ByteArrayInputStream(out.toByteArray())).readObject());
+
+    out = new ByteArrayOutputStream();
+    XMLExporter xexporter = new XMLExporter(out);
+    xexporter.writeObject(map);
+    xexporter.close();
+    checkMap(values, (CoordIntMap)new XMLImporter(
+      new ByteArrayInputStream(out.toByteArray())).readObject());
+  }
+
+  /**
+   * Verifies that the imported map contains a cell for each array of values.
+   */
+  protected void checkMap (int[][] values, CoordIntMap map)
+  {
+    assertEquals(values.length, map._cells.size());
+    int size = 0;
+    for (Map.Entry<Coord, CoordIntMap.Cell> entry : map._cells.entrySet()) {
+      CoordIntMap.Cell cell = entry.getValue();
+      assertTrue(Arrays.equals(values[entry.getKey().x], cell.getValues()));
+      size += cell.size();
+    }
+    assertEquals(size, map.size());
+  }
+
+  /**
+   * Creates a cell containing the supplied values.
+   */
+  protected static CoordIntMap.Cell createCell (CoordIntMap map, int[] values)
+  {
+    CoordIntMap.Cell cell = map.new Cell();
+    for (int ii = 0; ii < values.length; ii++) {
+      if (values[ii] != -1) {
+        cell.put(ii & 7, ii >> 3, values[ii]);
+      }
+    }
+    return cell;
+  }
+
+  /**
+   * Creates the arrays of values to test: empty, full, alternating between empty and full,
+   * alternating between two values, and sparse with a value in the last position.
+   */
+  protected static int[][] createValues (CoordIntMap map)
+  {
+    int length = map.new Cell().getValues().length;
+    int[][] values = new int[5][length];
+    Arrays.fill(values[0], -1);
+    Arrays.fill(values[1], 7);
+    for (int ii = 0; ii < length; ii++) {
+      values[2][ii] = (ii % 2 == 0) ? -1 : 3;
+      values[3][ii] = (ii % 2 == 0) ? 1 : 2;
+      values[4][ii] = (ii % 9 == 0 || ii == length - 1) ? ii : -1;
+    }
+    return values;
+  }
+}
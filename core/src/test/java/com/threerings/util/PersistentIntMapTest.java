@@ -0,0 +1,91 @@
+//
+// $Id$
+//
+// Clyde library - tools for developing networked games
+// Copyright (C) 2005-2012 Three Rings Design, Inc.
+// http://code.google.com/p/clyde/
+//
+// Redistribution and use in source and binary forms, with or without modification, are permitted
+// provided that the following conditions are met:
+//
+// 1. Redistributions of source code must retain the above copyright notice, this list of
+//    conditions and the following disclaimer.
+// 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+//    conditions and the following disclaimer in the documentation and/or other materials provided
+//    with the distribution.
+//
+// THIS SOFTWARE IS PROVIDED BY THE AUTHOR ``AS IS'' AND ANY EXPRESS OR IMPLIED WARRANTIES,
+// INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A
+// PARTICULAR PURPOSE ARE DISCLAIMED.  IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT,
+// INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED
+// TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+// LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+// SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package com.threerings.util;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the {@link PersistentIntMap} class.
+ */
+public class PersistentIntMapTest extends TestCase
+{
+  public PersistentIntMapTest (String name)
+  {
+    super(name);
+  }
+
+  public void testVersions ()
+  {
+    // apply random changes, keeping every version alongside an equivalent hash map
+    Random random = new Random(1L);
+    List<PersistentIntMap<Integer>> versions = Lists.newArrayList();
+    List<Map<Integer, Integer>> expected = Lists.newArrayList();
+    PersistentIntMap<Integer> map = PersistentIntMap.empty();
+    Map<Integer, Integer> hmap = Maps.newHashMap();
+    for (int ii = 0; ii < 2000; ii++) {
+      // mostly small sequential keys, with the occasional extreme
+      int key = (ii % 50 == 0) ? random.nextInt() : random.nextInt(500) - 10;
+      if (random.nextInt(3) == 0) {
+        map = map.without(key);
+        hmap.remove(key);
+      } else {
+        map = map.with(key, ii);
+        hmap.put(key, ii);
+      }
+      versions.add(map);
+      expected.add(Maps.newHashMap(hmap));
+    }
+    for (int ii = 0; ii < versions.size(); ii++) {
+      checkEquals(expected.get(ii), versions.get(ii));
+    }
+
+    // remove everything
+    for (Integer key : Lists.newArrayList(hmap.keySet())) {
+      map = map.without(key);
+    }
+    assertTrue(map.isEmpty());
+    assertFalse(map.iterator().hasNext());
+  }
+
+  protected void checkEquals (Map<Integer, Integer> expected, PersistentIntMap<Integer> map)
+  {
+    assertEquals(expected.size(), map.size());
+    for (Map.Entry<Integer, Integer> entry : expected.entrySet()) {
+      assertEquals(entry.getValue(), map.get(entry.getKey()));
+    }
+    assertFalse(map.containsKey(Integer.MIN_VALUE + 12345));
+    assertEquals(Sets.newHashSet(expected.values()), Sets.newHashSet(map));
+    assertEquals(expected.size(), Lists.newArrayList(map).size());
+  }
+}